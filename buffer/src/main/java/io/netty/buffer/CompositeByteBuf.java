@@ -45,6 +45,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     private final boolean direct;
     private final List<Component> components = new ArrayList<Component>();
     private final int maxNumComponents;
+    // The index of the last component found by an offset, which is checked before searching the components.  It is
+    // always validated against the current components, so it does not need to be updated when they change.
+    private int lastAccessedId;
 
     private boolean freed;
 
@@ -562,10 +565,35 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * Return the index for the given offset
      */
     public int toComponentIndex(int offset) {
-        assert !freed;
         checkIndex(offset);
+        return toComponentIndex0(offset);
+    }
+
+    private int toComponentIndex0(int offset) {
+        assert !freed;
+
+        // Check the last accessed component and the one after it first, so that a sequential access does not
+        // search the components.
+        final List<Component> components = this.components;
+        final int size = components.size();
+        int i = lastAccessedId;
+        if (i < size) {
+            Component c = components.get(i);
+            if (offset >= c.offset) {
+                if (offset < c.endOffset) {
+                    return i;
+                }
+                if (++ i < size) {
+                    c = components.get(i);
+                    if (offset >= c.offset && offset < c.endOffset) {
+                        lastAccessedId = i;
+                        return i;
+                    }
+                }
+            }
+        }
 
-        for (int low = 0, high = components.size(); low <= high;) {
+        for (int low = 0, high = size; low <= high;) {
             int mid = low + high >>> 1;
             Component c = components.get(mid);
             if (offset >= c.endOffset) {
@@ -573,6 +601,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             } else if (offset < c.offset) {
                 high = mid - 1;
             } else {
+                lastAccessedId = mid;
                 return mid;
             }
         }
@@ -644,6 +673,75 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         }
     }
 
+    @Override
+    public int forEachByte(ByteBufProcessor processor) {
+        ensureAccessible();
+        return forEachByteAsc0(readerIndex(), readableBytes(), processor);
+    }
+
+    @Override
+    public int forEachByte(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        return forEachByteAsc0(index, length, processor);
+    }
+
+    private int forEachByteAsc0(int index, int length, ByteBufProcessor processor) {
+        if (processor == null) {
+            throw new NullPointerException("processor");
+        }
+        if (length == 0) {
+            return -1;
+        }
+
+        // Let each component iterate over its own bytes instead of looking up the component of every byte.
+        final int endIndex = index + length;
+        int i = toComponentIndex0(index);
+        while (index < endIndex) {
+            Component c = components.get(i ++);
+            int localLength = Math.min(endIndex, c.endOffset) - index;
+            int result = c.buf.forEachByte(index - c.offset, localLength, processor);
+            if (result >= 0) {
+                return result + c.offset;
+            }
+            index += localLength;
+        }
+        return -1;
+    }
+
+    @Override
+    public int forEachByteDesc(ByteBufProcessor processor) {
+        ensureAccessible();
+        return forEachByteDesc0(readerIndex(), readableBytes(), processor);
+    }
+
+    @Override
+    public int forEachByteDesc(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        return forEachByteDesc0(index, length, processor);
+    }
+
+    private int forEachByteDesc0(int index, int length, ByteBufProcessor processor) {
+        if (processor == null) {
+            throw new NullPointerException("processor");
+        }
+        if (length == 0) {
+            return -1;
+        }
+
+        int endIndex = index + length;
+        int i = toComponentIndex0(endIndex - 1);
+        while (endIndex > index) {
+            Component c = components.get(i --);
+            int startIndex = Math.max(index, c.offset);
+            int result = c.buf.forEachByteDesc(startIndex - c.offset, endIndex - startIndex, processor);
+            if (result >= 0) {
+                return result + c.offset;
+            }
+            endIndex = startIndex;
+        }
+        return -1;
+    }
+
     @Override
     public CompositeByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
         checkDstIndex(index, length, dstIndex, dst.length);
@@ -1047,25 +1145,8 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     }
 
     private Component findComponent(int offset) {
-        assert !freed;
         checkIndex(offset);
-
-        assert !freed;
-        checkIndex(offset);
-
-        for (int low = 0, high = components.size(); low <= high;) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                return c;
-            }
-        }
-
-        throw new Error("should not reach here");
+        return components.get(toComponentIndex0(offset));
     }
 
     @Override
@@ -1235,9 +1316,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         // Update indexes and markers.
         Component first = components.get(0);
+        int offset = first.offset;
         updateComponentOffsets(0);
-        setIndex(readerIndex - first.offset, writerIndex - first.offset);
-        adjustMarkers(first.offset);
+        setIndex(readerIndex - offset, writerIndex - offset);
+        adjustMarkers(offset);
         return this;
     }
 
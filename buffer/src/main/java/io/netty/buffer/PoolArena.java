@@ -16,20 +16,31 @@
 
 package io.netty.buffer;
 
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
-abstract class PoolArena<T> {
+abstract class PoolArena<T> implements PoolArenaMetric {
+
+    static final int numTinySubpagePools = 512 >>> 4;
 
     final PooledByteBufAllocator parent;
 
-    private final int pageSize;
+    final int pageSize;
     private final int maxOrder;
-    private final int pageShifts;
-    private final int chunkSize;
+    final int pageShifts;
+    final int chunkSize;
     private final int subpageOverflowMask;
+    final int numSmallSubpagePools;
 
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
@@ -40,24 +51,54 @@ abstract class PoolArena<T> {
     private final PoolChunkList<T> qInit;
     private final PoolChunkList<T> q075;
     private final PoolChunkList<T> q100;
+    private final List<PoolChunkListMetric> chunkListMetrics;
+
+    // The huge chunks which were freed and can be reused, the most recently freed first.  Guarded by the lock of
+    // the arena.
+    private final Deque<PoolChunk<T>> hugeChunkCache;
+    private final int maxCachedHugeChunks;
+    // The time in nanoseconds after which an empty chunk or a cached huge chunk is destroyed, or -1 to destroy empty
+    // chunks of q000 immediately and keep the empty chunks of qInit.
+    private final long chunkReleaseIdleTime;
+    private long nextChunkReleaseTime;
+
+    // Statistics, which are updated without holding the lock of the arena, as many allocations are served by the
+    // thread caches.
+    private final LongCounter allocationsTiny = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsNormal = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsTiny = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsNormal = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
+    private final LongCounter activeBytes = PlatformDependent.newLongCounter();
+
+    // Number of thread caches backed by this arena.
+    final AtomicInteger numThreadCaches = new AtomicInteger();
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                        int maxCachedHugeChunks, long chunkReleaseIdleTime) {
         this.parent = parent;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
         this.pageShifts = pageShifts;
         this.chunkSize = chunkSize;
+        this.maxCachedHugeChunks = maxCachedHugeChunks;
+        this.chunkReleaseIdleTime = chunkReleaseIdleTime;
+        hugeChunkCache = maxCachedHugeChunks > 0 ? new ArrayDeque<PoolChunk<T>>(maxCachedHugeChunks) : null;
         subpageOverflowMask = ~(pageSize - 1);
 
-        tinySubpagePools = newSubpagePoolArray(512 >>> 4);
+        tinySubpagePools = newSubpagePoolArray(numTinySubpagePools);
         for (int i = 0; i < tinySubpagePools.length; i ++) {
             tinySubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
-        smallSubpagePools = newSubpagePoolArray(pageShifts - 9);
+        numSmallSubpagePools = pageShifts - 9;
+        smallSubpagePools = newSubpagePoolArray(numSmallSubpagePools);
         for (int i = 0; i < smallSubpagePools.length; i ++) {
             smallSubpagePools[i] = newSubpagePoolHead(pageSize);
         }
@@ -75,6 +116,9 @@ abstract class PoolArena<T> {
         q025.prevList = q000;
         q000.prevList = null;
         qInit.prevList = qInit;
+
+        chunkListMetrics = Collections.unmodifiableList(Arrays.<PoolChunkListMetric>asList(
+                qInit, q000, q025, q050, q075, q100));
     }
 
     private PoolSubpage<T> newSubpagePoolHead(int pageSize) {
@@ -95,21 +139,51 @@ abstract class PoolArena<T> {
         return buf;
     }
 
+    static int tinyIdx(int normCapacity) {
+        return normCapacity >>> 4;
+    }
+
+    static int smallIdx(int normCapacity) {
+        int tableIdx = 0;
+        int i = normCapacity >>> 10;
+        while (i != 0) {
+            i >>>= 1;
+            tableIdx ++;
+        }
+        return tableIdx;
+    }
+
+    // capacity < pageSize
+    boolean isTinyOrSmall(int normCapacity) {
+        return (normCapacity & subpageOverflowMask) == 0;
+    }
+
+    // normCapacity < 512
+    static boolean isTiny(int normCapacity) {
+        return (normCapacity & 0xFFFFFE00) == 0;
+    }
+
     private void allocate(PoolThreadCache cache, PooledByteBuf<T> buf, final int reqCapacity) {
         final int normCapacity = normalizeCapacity(reqCapacity);
-        if ((normCapacity & subpageOverflowMask) == 0) { // capacity < pageSize
+        activeBytes.add(normCapacity);
+        if (isTinyOrSmall(normCapacity)) { // capacity < pageSize
             int tableIdx;
             PoolSubpage<T>[] table;
-            if ((normCapacity & 0xFFFFFE00) == 0) { // < 512
-                tableIdx = normCapacity >>> 4;
+            if (isTiny(normCapacity)) { // < 512
+                allocationsTiny.add(1);
+                if (cache.allocateTiny(this, buf, reqCapacity, normCapacity)) {
+                    // was able to allocate out of the cache so move on
+                    return;
+                }
+                tableIdx = tinyIdx(normCapacity);
                 table = tinySubpagePools;
             } else {
-                tableIdx = 0;
-                int i = normCapacity >>> 10;
-                while (i != 0) {
-                    i >>>= 1;
-                    tableIdx ++;
+                allocationsSmall.add(1);
+                if (cache.allocateSmall(this, buf, reqCapacity, normCapacity)) {
+                    // was able to allocate out of the cache so move on
+                    return;
                 }
+                tableIdx = smallIdx(normCapacity);
                 table = smallSubpagePools;
             }
 
@@ -124,7 +198,14 @@ abstract class PoolArena<T> {
                     return;
                 }
             }
-        } else if (normCapacity > chunkSize) {
+        } else if (normCapacity <= chunkSize) {
+            allocationsNormal.add(1);
+            if (cache.allocateNormal(this, buf, reqCapacity, normCapacity)) {
+                // was able to allocate out of the cache so move on
+                return;
+            }
+        } else {
+            allocationsHuge.add(1);
             allocateHuge(buf, reqCapacity);
             return;
         }
@@ -148,30 +229,148 @@ abstract class PoolArena<T> {
     }
 
     private void allocateHuge(PooledByteBuf<T> buf, int reqCapacity) {
-        buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+        PoolChunk<T> chunk = null;
+        if (hugeChunkCache != null) {
+            synchronized (this) {
+                chunk = pollHugeChunk(reqCapacity);
+            }
+        }
+        if (chunk == null) {
+            chunk = newUnpooledChunk(reqCapacity);
+        }
+        buf.initUnpooled(chunk, reqCapacity);
+    }
+
+    /**
+     * Removes a cached huge chunk which can hold {@code reqCapacity} bytes from the cache.  A chunk is not reused
+     * if it wastes a pooled chunk or more.
+     */
+    private PoolChunk<T> pollHugeChunk(int reqCapacity) {
+        for (Iterator<PoolChunk<T>> i = hugeChunkCache.iterator(); i.hasNext();) {
+            PoolChunk<T> chunk = i.next();
+            int capacity = chunk.chunkSize();
+            if (capacity >= reqCapacity && capacity - reqCapacity < chunkSize) {
+                i.remove();
+                return chunk;
+            }
+        }
+        return null;
     }
 
-    synchronized void free(PoolChunk<T> chunk, long handle) {
+    void free(PoolChunk<T> chunk, long handle, int normCapacity, boolean sameThreads) {
+        activeBytes.add(-normCapacity);
         if (chunk.unpooled) {
+            deallocationsHuge.add(1);
+            if (hugeChunkCache != null) {
+                synchronized (this) {
+                    long currentTime = System.nanoTime();
+                    boolean cached = hugeChunkCache.size() < maxCachedHugeChunks;
+                    if (cached) {
+                        chunk.freeTime = currentTime;
+                        hugeChunkCache.addFirst(chunk);
+                    }
+                    if (chunkReleaseIdleTime >= 0) {
+                        releaseIdleChunks(currentTime, false);
+                    }
+                    if (cached) {
+                        return;
+                    }
+                }
+            }
             destroyChunk(chunk);
         } else {
-            chunk.parent.free(chunk, handle);
+            if (!isTinyOrSmall(normCapacity)) {
+                deallocationsNormal.add(1);
+            } else if (isTiny(normCapacity)) {
+                deallocationsTiny.add(1);
+            } else {
+                deallocationsSmall.add(1);
+            }
+
+            if (sameThreads) {
+                PoolThreadCache cache = parent.threadCache.get();
+                if (cache.add(this, chunk, handle, normCapacity)) {
+                    // cached so not free it.
+                    return;
+                }
+            }
+
+            synchronized (this) {
+                freeChunk(chunk, handle);
+            }
+        }
+    }
+
+    /**
+     * Returns the specified memory region to its chunk.  Called with the lock of the arena held, both by
+     * {@link #free(PoolChunk, long, int, boolean)} and by the thread caches.
+     */
+    void freeChunk(PoolChunk<T> chunk, long handle) {
+        chunk.parent.free(chunk, handle);
+        if (chunkReleaseIdleTime >= 0) {
+            long currentTime = System.nanoTime();
+            if (chunk.usage() == 0) {
+                chunk.freeTime = currentTime;
+            }
+            releaseIdleChunks(currentTime, false);
+        }
+    }
+
+    /**
+     * Called by q000 with the lock of the arena held when one of its chunks became empty.
+     */
+    void freeEmptyChunk(PoolChunk<T> chunk) {
+        if (chunkReleaseIdleTime < 0) {
+            destroyChunk(chunk);
+        } else {
+            // Keep the chunk for a while, so that a burst of allocations does not create it again.
+            qInit.add(chunk);
+        }
+    }
+
+    /**
+     * Destroys the empty chunks and the cached huge chunks which have been unused for the chunk release idle time.
+     * Does nothing if no chunk release idle time has been configured.
+     */
+    synchronized void releaseIdleChunks() {
+        if (chunkReleaseIdleTime >= 0) {
+            releaseIdleChunks(System.nanoTime(), true);
+        }
+    }
+
+    private void releaseIdleChunks(long currentTime, boolean force) {
+        // Check the chunks at most once per idle time, so that freeing a buffer does not iterate over all chunks.
+        if (!force && currentTime - nextChunkReleaseTime < 0) {
+            return;
+        }
+        nextChunkReleaseTime = currentTime + chunkReleaseIdleTime;
+
+        // A chunk whose usage drops a lot at once may become empty in any list.
+        qInit.releaseIdleChunks(currentTime, chunkReleaseIdleTime);
+        q000.releaseIdleChunks(currentTime, chunkReleaseIdleTime);
+        q025.releaseIdleChunks(currentTime, chunkReleaseIdleTime);
+        q050.releaseIdleChunks(currentTime, chunkReleaseIdleTime);
+        q075.releaseIdleChunks(currentTime, chunkReleaseIdleTime);
+
+        if (hugeChunkCache != null) {
+            for (Iterator<PoolChunk<T>> i = hugeChunkCache.iterator(); i.hasNext();) {
+                PoolChunk<T> chunk = i.next();
+                if (currentTime - chunk.freeTime >= chunkReleaseIdleTime) {
+                    i.remove();
+                    destroyChunk(chunk);
+                }
+            }
         }
     }
 
     PoolSubpage<T> findSubpagePoolHead(int elemSize) {
         int tableIdx;
         PoolSubpage<T>[] table;
-        if ((elemSize & 0xFFFFFE00) == 0) { // < 512
-            tableIdx = elemSize >>> 4;
+        if (isTiny(elemSize)) { // < 512
+            tableIdx = tinyIdx(elemSize);
             table = tinySubpagePools;
         } else {
-            tableIdx = 0;
-            elemSize >>>= 10;
-            while (elemSize != 0) {
-                elemSize >>>= 1;
-                tableIdx ++;
-            }
+            tableIdx = smallIdx(elemSize);
             table = smallSubpagePools;
         }
 
@@ -226,6 +425,7 @@ abstract class PoolArena<T> {
         long oldHandle = buf.handle;
         T oldMemory = buf.memory;
         int oldOffset = buf.offset;
+        int oldMaxLength = buf.maxLength;
 
         int readerIndex = buf.readerIndex();
         int writerIndex = buf.writerIndex();
@@ -251,8 +451,87 @@ abstract class PoolArena<T> {
         buf.setIndex(readerIndex, writerIndex);
 
         if (freeOldMemory) {
-            free(oldChunk, oldHandle);
+            free(oldChunk, oldHandle, oldMaxLength, buf.initThread == Thread.currentThread());
+        }
+    }
+
+    @Override
+    public int numThreadCaches() {
+        return numThreadCaches.get();
+    }
+
+    @Override
+    public int numChunks() {
+        int numChunks = 0;
+        for (PoolChunkListMetric chunkList: chunkListMetrics) {
+            numChunks += chunkList.numChunks();
         }
+        return numChunks;
+    }
+
+    @Override
+    public List<PoolChunkListMetric> chunkLists() {
+        return chunkListMetrics;
+    }
+
+    @Override
+    public long numAllocations() {
+        return numTinyAllocations() + numSmallAllocations() + numNormalAllocations() + numHugeAllocations();
+    }
+
+    @Override
+    public long numTinyAllocations() {
+        return allocationsTiny.value();
+    }
+
+    @Override
+    public long numSmallAllocations() {
+        return allocationsSmall.value();
+    }
+
+    @Override
+    public long numNormalAllocations() {
+        return allocationsNormal.value();
+    }
+
+    @Override
+    public long numHugeAllocations() {
+        return allocationsHuge.value();
+    }
+
+    @Override
+    public long numDeallocations() {
+        return numTinyDeallocations() + numSmallDeallocations() + numNormalDeallocations() + numHugeDeallocations();
+    }
+
+    @Override
+    public long numTinyDeallocations() {
+        return deallocationsTiny.value();
+    }
+
+    @Override
+    public long numSmallDeallocations() {
+        return deallocationsSmall.value();
+    }
+
+    @Override
+    public long numNormalDeallocations() {
+        return deallocationsNormal.value();
+    }
+
+    @Override
+    public long numHugeDeallocations() {
+        return deallocationsHuge.value();
+    }
+
+    @Override
+    public long numActiveAllocations() {
+        return Math.max(numAllocations() - numDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveBytes() {
+        return Math.max(activeBytes.value(), 0);
     }
 
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
@@ -333,8 +612,9 @@ abstract class PoolArena<T> {
 
     static final class HeapArena extends PoolArena<byte[]> {
 
-        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                  int maxCachedHugeChunks, long chunkReleaseIdleTime) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeChunks, chunkReleaseIdleTime);
         }
 
         @Override
@@ -371,8 +651,9 @@ abstract class PoolArena<T> {
 
         private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
 
-        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                    int maxCachedHugeChunks, long chunkReleaseIdleTime) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeChunks, chunkReleaseIdleTime);
         }
 
         @Override
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.List;
+
+/**
+ * Exposes the statistics of an arena of a {@link PooledByteBufAllocator}.  All values are read without acquiring
+ * the lock of the arena, so they do not stall allocations, but they are not a consistent snapshot of the arena
+ * while it is in use.
+ * <p>
+ * The allocations are counted by size class: <em>tiny</em> allocations are smaller than 512 bytes, <em>small</em>
+ * allocations are smaller than a page, <em>normal</em> allocations fit into a chunk, and <em>huge</em> allocations
+ * are larger than a chunk and are not pooled.
+ */
+public interface PoolArenaMetric {
+
+    /**
+     * Returns the number of threads which are bound to this arena.
+     */
+    int numThreadCaches();
+
+    /**
+     * Returns the number of chunks of this arena, which does not include the unpooled chunks of huge allocations.
+     */
+    int numChunks();
+
+    /**
+     * Returns the metrics of the chunk lists of this arena, from the list of the least used chunks to the list of
+     * the fully used chunks.
+     */
+    List<PoolChunkListMetric> chunkLists();
+
+    /**
+     * Returns the number of allocations of all size classes.
+     */
+    long numAllocations();
+
+    /**
+     * Returns the number of tiny allocations.
+     */
+    long numTinyAllocations();
+
+    /**
+     * Returns the number of small allocations.
+     */
+    long numSmallAllocations();
+
+    /**
+     * Returns the number of normal allocations.
+     */
+    long numNormalAllocations();
+
+    /**
+     * Returns the number of huge allocations.
+     */
+    long numHugeAllocations();
+
+    /**
+     * Returns the number of deallocations of all size classes.
+     */
+    long numDeallocations();
+
+    /**
+     * Returns the number of tiny deallocations.
+     */
+    long numTinyDeallocations();
+
+    /**
+     * Returns the number of small deallocations.
+     */
+    long numSmallDeallocations();
+
+    /**
+     * Returns the number of normal deallocations.
+     */
+    long numNormalDeallocations();
+
+    /**
+     * Returns the number of huge deallocations.
+     */
+    long numHugeDeallocations();
+
+    /**
+     * Returns the number of allocations which were not deallocated yet.
+     */
+    long numActiveAllocations();
+
+    /**
+     * Returns the number of bytes of the allocations which were not deallocated yet.  The size of an allocation is
+     * its capacity normalized to its size class.
+     */
+    long numActiveBytes();
+}
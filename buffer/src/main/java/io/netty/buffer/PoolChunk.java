@@ -48,6 +48,9 @@ final class PoolChunk<T> {
     PoolChunk<T> prev;
     PoolChunk<T> next;
 
+    // The value of System.nanoTime() when this chunk became empty, or when this huge chunk was cached.
+    long freeTime;
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
@@ -97,6 +100,10 @@ final class PoolChunk<T> {
         return new PoolSubpage[size];
     }
 
+    int chunkSize() {
+        return chunkSize;
+    }
+
     int usage() {
         if (freeBytes == 0) {
             return 100;
@@ -18,7 +18,7 @@ package io.netty.buffer;
 
 import io.netty.util.internal.StringUtil;
 
-final class PoolChunkList<T> {
+final class PoolChunkList<T> implements PoolChunkListMetric {
     private final PoolArena<T> arena;
     private final PoolChunkList<T> nextList;
     PoolChunkList<T> prevList;
@@ -27,6 +27,8 @@ final class PoolChunkList<T> {
     private final int maxUsage;
 
     private PoolChunk<T> head;
+    // Updated with the lock of the arena held, but read without it.
+    private volatile int numChunks;
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
@@ -67,13 +69,27 @@ final class PoolChunkList<T> {
             remove(chunk);
             if (prevList == null) {
                 assert chunk.usage() == 0;
-                arena.destroyChunk(chunk);
+                arena.freeEmptyChunk(chunk);
             } else {
                 prevList.add(chunk);
             }
         }
     }
 
+    /**
+     * Destroys the chunks which have been empty for at least {@code idleTimeNanos}.
+     */
+    void releaseIdleChunks(long currentTime, long idleTimeNanos) {
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.usage() == 0 && currentTime - cur.freeTime >= idleTimeNanos) {
+                remove(cur);
+                arena.destroyChunk(cur);
+            }
+            cur = next;
+        }
+    }
+
     void add(PoolChunk<T> chunk) {
         if (chunk.usage() >= maxUsage) {
             nextList.add(chunk);
@@ -81,6 +97,7 @@ final class PoolChunkList<T> {
         }
 
         chunk.parent = this;
+        numChunks ++;
         if (head == null) {
             head = chunk;
             chunk.prev = null;
@@ -94,6 +111,7 @@ final class PoolChunkList<T> {
     }
 
     private void remove(PoolChunk<T> cur) {
+        numChunks --;
         if (cur == head) {
             head = cur.next;
             if (head != null) {
@@ -108,6 +126,21 @@ final class PoolChunkList<T> {
         }
     }
 
+    @Override
+    public int minUsage() {
+        return Math.max(0, minUsage);
+    }
+
+    @Override
+    public int maxUsage() {
+        return Math.min(100, maxUsage);
+    }
+
+    @Override
+    public int numChunks() {
+        return numChunks;
+    }
+
     @Override
     public String toString() {
         if (head == null) {
@@ -16,18 +16,412 @@
 
 package io.netty.buffer;
 
+import io.netty.util.ThreadDeathWatcher;
+
 import java.nio.ByteBuffer;
 
+/**
+ * Acts as a thread cache for allocations. This implementation is modelled after the thread caches of
+ * <a href="http://people.freebsd.org/~jasone/jemalloc/bsdcan2006/jemalloc.pdf">jemalloc</a>.
+ * <p>
+ * Memory regions freed by the thread that allocated them are kept in bounded per size class caches, so that the
+ * next allocation of the same size class on this thread is served without acquiring the lock of the arena.
+ * Cache entries that were not reused since the last sweep are returned to the arena every
+ * {@code freeSweepAllocationThreshold} allocations, and all entries are returned once the owning thread dies.
+ * </p>
+ */
 final class PoolThreadCache {
 
     final PoolArena<byte[]> heapArena;
     final PoolArena<ByteBuffer> directArena;
 
+    // Hold the caches for the different size classes, which are tiny, small and normal.
+    private final MemoryRegionCache<byte[]>[] tinySubPageHeapCaches;
+    private final MemoryRegionCache<byte[]>[] smallSubPageHeapCaches;
+    private final MemoryRegionCache<ByteBuffer>[] tinySubPageDirectCaches;
+    private final MemoryRegionCache<ByteBuffer>[] smallSubPageDirectCaches;
+    private final MemoryRegionCache<byte[]>[] normalHeapCaches;
+    private final MemoryRegionCache<ByteBuffer>[] normalDirectCaches;
+
+    // Used for bitshifting when calculate the index of normal caches later
+    private final int numShiftsNormalDirect;
+    private final int numShiftsNormalHeap;
+    private final int freeSweepAllocationThreshold;
+
+    private int allocations;
+
+    private final Thread thread = Thread.currentThread();
+    private final Runnable freeTask = new Runnable() {
+        @Override
+        public void run() {
+            free0();
+        }
+    };
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena) {
+    PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
+                    int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold) {
+        if (maxCachedBufferCapacity < 0) {
+            throw new IllegalArgumentException("maxCachedBufferCapacity: "
+                    + maxCachedBufferCapacity + " (expected: >= 0)");
+        }
+        if (freeSweepAllocationThreshold < 1) {
+            throw new IllegalArgumentException("freeSweepAllocationThreshold: "
+                    + freeSweepAllocationThreshold + " (expected: > 0)");
+        }
+        this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
         this.heapArena = heapArena;
         this.directArena = directArena;
+        if (directArena != null) {
+            tinySubPageDirectCaches = createSubPageCaches(directArena, tinyCacheSize, PoolArena.numTinySubpagePools);
+            smallSubPageDirectCaches = createSubPageCaches(
+                    directArena, smallCacheSize, directArena.numSmallSubpagePools);
+
+            numShiftsNormalDirect = directArena.pageShifts;
+            normalDirectCaches = createNormalCaches(directArena, normalCacheSize, maxCachedBufferCapacity);
+        } else {
+            // No directArea is configured so just null out all caches
+            tinySubPageDirectCaches = null;
+            smallSubPageDirectCaches = null;
+            normalDirectCaches = null;
+            numShiftsNormalDirect = -1;
+        }
+        if (heapArena != null) {
+            // Create the caches for the heap allocations
+            tinySubPageHeapCaches = createSubPageCaches(heapArena, tinyCacheSize, PoolArena.numTinySubpagePools);
+            smallSubPageHeapCaches = createSubPageCaches(
+                    heapArena, smallCacheSize, heapArena.numSmallSubpagePools);
+
+            numShiftsNormalHeap = heapArena.pageShifts;
+            normalHeapCaches = createNormalCaches(heapArena, normalCacheSize, maxCachedBufferCapacity);
+        } else {
+            // No heapArea is configured so just null out all caches
+            tinySubPageHeapCaches = null;
+            smallSubPageHeapCaches = null;
+            normalHeapCaches = null;
+            numShiftsNormalHeap = -1;
+        }
+
+        if (directArena != null) {
+            directArena.numThreadCaches.incrementAndGet();
+        }
+        if (heapArena != null) {
+            heapArena.numThreadCaches.incrementAndGet();
+        }
+
+        // Watch the thread even if no cache is used, so that the arenas stop counting it once it is not alive
+        // anymore.  The thread-local cache will also keep a list of pooled buffers which must be returned to
+        // the pool then.
+        if (directArena != null || heapArena != null) {
+            ThreadDeathWatcher.watch(thread, freeTask);
+        }
+    }
+
+    private static <T> MemoryRegionCache<T>[] createSubPageCaches(
+            PoolArena<T> arena, int cacheSize, int numCaches) {
+        if (cacheSize > 0) {
+            @SuppressWarnings("unchecked")
+            MemoryRegionCache<T>[] cache = new MemoryRegionCache[numCaches];
+            for (int i = 0; i < cache.length; i++) {
+                cache[i] = new MemoryRegionCache<T>(arena, cacheSize);
+            }
+            return cache;
+        } else {
+            return null;
+        }
+    }
+
+    private static <T> MemoryRegionCache<T>[] createNormalCaches(
+            PoolArena<T> arena, int cacheSize, int maxCachedBufferCapacity) {
+        if (cacheSize > 0) {
+            int max = Math.min(arena.chunkSize, maxCachedBufferCapacity);
+            int arraySize = Math.max(1, max / arena.pageSize);
+
+            @SuppressWarnings("unchecked")
+            MemoryRegionCache<T>[] cache = new MemoryRegionCache[log2(arraySize) + 1];
+            for (int i = 0; i < cache.length; i++) {
+                cache[i] = new MemoryRegionCache<T>(arena, cacheSize);
+            }
+            return cache;
+        } else {
+            return null;
+        }
+    }
+
+    private static int log2(int val) {
+        int res = 0;
+        while (val > 1) {
+            val >>= 1;
+            res++;
+        }
+        return res;
+    }
+
+    /**
+     * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
+     */
+    boolean allocateTiny(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
+        return allocate(cacheForTiny(area, normCapacity), buf, reqCapacity);
+    }
+
+    /**
+     * Try to allocate a small buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
+     */
+    boolean allocateSmall(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
+        return allocate(cacheForSmall(area, normCapacity), buf, reqCapacity);
+    }
+
+    /**
+     * Try to allocate a normal buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
+     */
+    boolean allocateNormal(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
+        return allocate(cacheForNormal(area, normCapacity), buf, reqCapacity);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private boolean allocate(MemoryRegionCache<?> cache, PooledByteBuf buf, int reqCapacity) {
+        if (cache == null) {
+            // no cache found so just return false here
+            return false;
+        }
+        boolean allocated = cache.allocate(buf, reqCapacity);
+        if (++ allocations >= freeSweepAllocationThreshold) {
+            allocations = 0;
+            trim();
+        }
+        return allocated;
+    }
+
+    /**
+     * Add {@link PoolChunk} and {@code handle} to the cache if there is enough room.
+     * Returns {@code true} if it fit into the cache {@code false} otherwise.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    boolean add(PoolArena<?> area, PoolChunk chunk, long handle, int normCapacity) {
+        MemoryRegionCache<?> cache;
+        if (area.isTinyOrSmall(normCapacity)) {
+            if (PoolArena.isTiny(normCapacity)) {
+                cache = cacheForTiny(area, normCapacity);
+            } else {
+                cache = cacheForSmall(area, normCapacity);
+            }
+        } else {
+            cache = cacheForNormal(area, normCapacity);
+        }
+        if (cache == null) {
+            return false;
+        }
+        return cache.add(chunk, handle);
+    }
+
+    /**
+     *  Should be called if the thread that uses this cache is about to exit to release resources out of the cache.
+     */
+    void free() {
+        ThreadDeathWatcher.unwatch(thread, freeTask);
+        free0();
+    }
+
+    private void free0() {
+        free(tinySubPageDirectCaches);
+        free(smallSubPageDirectCaches);
+        free(normalDirectCaches);
+        free(tinySubPageHeapCaches);
+        free(smallSubPageHeapCaches);
+        free(normalHeapCaches);
+
+        if (directArena != null) {
+            directArena.numThreadCaches.decrementAndGet();
+        }
+        if (heapArena != null) {
+            heapArena.numThreadCaches.decrementAndGet();
+        }
+    }
+
+    private static void free(MemoryRegionCache<?>[] caches) {
+        if (caches == null) {
+            return;
+        }
+
+        for (MemoryRegionCache<?> c: caches) {
+            free(c);
+        }
+    }
+
+    private static void free(MemoryRegionCache<?> cache) {
+        if (cache == null) {
+            return;
+        }
+        cache.free();
+    }
+
+    void trim() {
+        trim(tinySubPageDirectCaches);
+        trim(smallSubPageDirectCaches);
+        trim(normalDirectCaches);
+        trim(tinySubPageHeapCaches);
+        trim(smallSubPageHeapCaches);
+        trim(normalHeapCaches);
+    }
+
+    private static void trim(MemoryRegionCache<?>[] caches) {
+        if (caches == null) {
+            return;
+        }
+        for (MemoryRegionCache<?> c: caches) {
+            trim(c);
+        }
+    }
+
+    private static void trim(MemoryRegionCache<?> cache) {
+        if (cache == null) {
+            return;
+        }
+        cache.trim();
+    }
+
+    private MemoryRegionCache<?> cacheForTiny(PoolArena<?> area, int normCapacity) {
+        int idx = PoolArena.tinyIdx(normCapacity);
+        if (area == directArena) {
+            return cache(tinySubPageDirectCaches, idx);
+        }
+        if (area == heapArena) {
+            return cache(tinySubPageHeapCaches, idx);
+        }
+        return null;
+    }
+
+    private MemoryRegionCache<?> cacheForSmall(PoolArena<?> area, int normCapacity) {
+        int idx = PoolArena.smallIdx(normCapacity);
+        if (area == directArena) {
+            return cache(smallSubPageDirectCaches, idx);
+        }
+        if (area == heapArena) {
+            return cache(smallSubPageHeapCaches, idx);
+        }
+        return null;
+    }
+
+    private MemoryRegionCache<?> cacheForNormal(PoolArena<?> area, int normCapacity) {
+        if (area == directArena) {
+            int idx = log2(normCapacity >> numShiftsNormalDirect);
+            return cache(normalDirectCaches, idx);
+        }
+        if (area == heapArena) {
+            int idx = log2(normCapacity >> numShiftsNormalHeap);
+            return cache(normalHeapCaches, idx);
+        }
+        return null;
+    }
+
+    private static <T> MemoryRegionCache<T> cache(MemoryRegionCache<T>[] cache, int idx) {
+        if (cache == null || idx > cache.length - 1) {
+            return null;
+        }
+        return cache[idx];
+    }
+
+    /**
+     * Cache of memory regions of the same size class.  Entries are reused in LIFO order so that recently freed (and
+     * thus likely still cache-hot) memory is handed out first, while the entries at the bottom of the stack are the
+     * ones released back to the arena by {@link #trim()}.
+     */
+    private static final class MemoryRegionCache<T> {
+        private final PoolArena<T> arena;
+        private final PoolChunk<T>[] chunks;
+        private final long[] handles;
+        private int size;
+
+        // Number of allocations served since the last trim().
+        private int allocations;
+
+        @SuppressWarnings("unchecked")
+        MemoryRegionCache(PoolArena<T> arena, int maxSize) {
+            this.arena = arena;
+            chunks = new PoolChunk[maxSize];
+            handles = new long[maxSize];
+        }
+
+        /**
+         * Add to cache if not already full.
+         */
+        boolean add(PoolChunk<T> chunk, long handle) {
+            int size = this.size;
+            if (size == chunks.length) {
+                // cache is full
+                return false;
+            }
+            chunks[size] = chunk;
+            handles[size] = handle;
+            this.size = size + 1;
+            return true;
+        }
+
+        /**
+         * Allocate something out of the cache if possible and remove the entry from the cache.
+         */
+        boolean allocate(PooledByteBuf<T> buf, int reqCapacity) {
+            int size = this.size;
+            if (size == 0) {
+                return false;
+            }
+            size --;
+            PoolChunk<T> chunk = chunks[size];
+            chunks[size] = null;
+            this.size = size;
+            allocations ++;
+            chunk.initBuf(buf, handles[size], reqCapacity);
+            return true;
+        }
+
+        /**
+         * Clear out this cache and free up all previous cached {@link PoolChunk}s and {@code handle}s.
+         */
+        void free() {
+            allocations = 0;
+            free(size);
+        }
+
+        /**
+         * Free up cached {@link PoolChunk}s if not allocated frequently enough.
+         */
+        void trim() {
+            int free = size - allocations;
+            allocations = 0;
+
+            // Release the entries that were not reused since the last trim.
+            if (free > 0) {
+                free(free);
+            }
+        }
+
+        /**
+         * Releases the {@code num} oldest entries back to the arena.
+         */
+        private void free(int num) {
+            if (num == 0) {
+                return;
+            }
+
+            PoolChunk<T>[] chunks = this.chunks;
+            long[] handles = this.handles;
+            synchronized (arena) {
+                for (int i = 0; i < num; i ++) {
+                    PoolChunk<T> chunk = chunks[i];
+                    arena.freeChunk(chunk, handles[i]);
+                }
+            }
+
+            int remaining = size - num;
+            System.arraycopy(chunks, num, chunks, 0, remaining);
+            System.arraycopy(handles, num, handles, 0, remaining);
+            for (int i = remaining; i < size; i ++) {
+                chunks[i] = null;
+            }
+            size = remaining;
+        }
     }
 }
@@ -23,7 +23,10 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
@@ -34,6 +37,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     private static final int DEFAULT_PAGE_SIZE;
     private static final int DEFAULT_MAX_ORDER; // 8192 << 11 = 16 MiB per chunk
+    private static final int DEFAULT_TINY_CACHE_SIZE;
+    private static final int DEFAULT_SMALL_CACHE_SIZE;
+    private static final int DEFAULT_NORMAL_CACHE_SIZE;
+    private static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
+    private static final int DEFAULT_CACHE_TRIM_INTERVAL;
+    private static final int DEFAULT_HUGE_CACHE_SIZE;
+    private static final long DEFAULT_CHUNK_RELEASE_IDLE_TIME;
 
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
@@ -76,6 +86,27 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
                                 runtime.availableProcessors(),
                                 PlatformDependent.maxDirectMemory() / defaultChunkSize / 2 / 3)));
 
+        // cache sizes
+        DEFAULT_TINY_CACHE_SIZE = SystemPropertyUtil.getInt("io.netty.allocator.tinyCacheSize", 512);
+        DEFAULT_SMALL_CACHE_SIZE = SystemPropertyUtil.getInt("io.netty.allocator.smallCacheSize", 256);
+        DEFAULT_NORMAL_CACHE_SIZE = SystemPropertyUtil.getInt("io.netty.allocator.normalCacheSize", 64);
+
+        // 32 kb is the default maximum capacity of the cached buffer. Similar to what is explained in
+        // 'Scalable memory allocation using jemalloc'
+        DEFAULT_MAX_CACHED_BUFFER_CAPACITY = SystemPropertyUtil.getInt(
+                "io.netty.allocator.maxCachedBufferCapacity", 32 * 1024);
+
+        // the number of threshold of allocations when cached entries will be freed up if not frequently used
+        DEFAULT_CACHE_TRIM_INTERVAL = SystemPropertyUtil.getInt(
+                "io.netty.allocator.cacheTrimInterval", 8192);
+
+        // the number of freed huge buffers (larger than a chunk) which are kept by each arena for reuse
+        DEFAULT_HUGE_CACHE_SIZE = Math.max(0, SystemPropertyUtil.getInt("io.netty.allocator.hugeCacheSize", 0));
+
+        // the time in milliseconds after which an unused chunk is released, or -1 to keep the former behavior
+        DEFAULT_CHUNK_RELEASE_IDLE_TIME = Math.max(-1, SystemPropertyUtil.getLong(
+                "io.netty.allocator.chunkReleaseIdleTime", -1));
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -90,6 +121,13 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
                 logger.debug("-Dio.netty.allocator.maxOrder: {}", DEFAULT_MAX_ORDER, maxOrderFallbackCause);
             }
             logger.debug("-Dio.netty.allocator.chunkSize: {}", DEFAULT_PAGE_SIZE << DEFAULT_MAX_ORDER);
+            logger.debug("-Dio.netty.allocator.tinyCacheSize: {}", DEFAULT_TINY_CACHE_SIZE);
+            logger.debug("-Dio.netty.allocator.smallCacheSize: {}", DEFAULT_SMALL_CACHE_SIZE);
+            logger.debug("-Dio.netty.allocator.normalCacheSize: {}", DEFAULT_NORMAL_CACHE_SIZE);
+            logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
+            logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
+            logger.debug("-Dio.netty.allocator.hugeCacheSize: {}", DEFAULT_HUGE_CACHE_SIZE);
+            logger.debug("-Dio.netty.allocator.chunkReleaseIdleTime: {}", DEFAULT_CHUNK_RELEASE_IDLE_TIME);
         }
     }
 
@@ -98,28 +136,42 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     private final PoolArena<byte[]>[] heapArenas;
     private final PoolArena<ByteBuffer>[] directArenas;
+    private final List<PoolArenaMetric> heapArenaMetrics;
+    private final List<PoolArenaMetric> directArenaMetrics;
+    private final int tinyCacheSize;
+    private final int smallCacheSize;
+    private final int normalCacheSize;
+    private final int maxCachedBufferCapacity;
+    private final int cacheTrimInterval;
 
     final ThreadLocal<PoolThreadCache> threadCache = new ThreadLocal<PoolThreadCache>() {
-        private final AtomicInteger index = new AtomicInteger();
         @Override
         protected PoolThreadCache initialValue() {
-            final int idx = index.getAndIncrement();
-            final PoolArena<byte[]> heapArena;
-            final PoolArena<ByteBuffer> directArena;
+            // Bind the thread to the arenas shared by the fewest threads.  The thread is unbound when its cache is
+            // freed, which happens at the latest when the thread dies.
+            final PoolArena<byte[]> heapArena = leastUsedArena(heapArenas);
+            final PoolArena<ByteBuffer> directArena = leastUsedArena(directArenas);
+
+            return new PoolThreadCache(
+                    heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
+                    maxCachedBufferCapacity, cacheTrimInterval);
+        }
 
-            if (heapArenas != null) {
-                heapArena = heapArenas[Math.abs(idx % heapArenas.length)];
-            } else {
-                heapArena = null;
+        private <T> PoolArena<T> leastUsedArena(PoolArena<T>[] arenas) {
+            if (arenas == null) {
+                return null;
             }
 
-            if (directArenas != null) {
-                directArena = directArenas[Math.abs(idx % directArenas.length)];
-            } else {
-                directArena = null;
+            // The counts may change concurrently, so two threads that start at the same time may pick the same
+            // arena.  This is good enough to spread the threads over the arenas.
+            PoolArena<T> minArena = arenas[0];
+            for (int i = 1; i < arenas.length; i ++) {
+                PoolArena<T> arena = arenas[i];
+                if (arena.numThreadCaches.get() < minArena.numThreadCaches.get()) {
+                    minArena = arena;
+                }
             }
-
-            return new PoolThreadCache(heapArena, directArena);
+            return minArena;
         }
     };
 
@@ -136,8 +188,42 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     }
 
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                DEFAULT_TINY_CACHE_SIZE, DEFAULT_SMALL_CACHE_SIZE, DEFAULT_NORMAL_CACHE_SIZE,
+                DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+    }
+
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  int maxCachedBufferCapacity, int cacheTrimInterval) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize, maxCachedBufferCapacity, cacheTrimInterval,
+                DEFAULT_HUGE_CACHE_SIZE, DEFAULT_CHUNK_RELEASE_IDLE_TIME);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param hugeCacheSize             the number of freed buffers larger than a chunk which each arena keeps for
+     *                                  reuse, or {@code 0} to release their memory immediately
+     * @param chunkReleaseIdleTime      the time in milliseconds after which the memory of an empty chunk or of a
+     *                                  cached huge buffer is released, or {@code -1} to release most empty chunks
+     *                                  immediately and to never release cached huge buffers.  The unused chunks are
+     *                                  checked when buffers are released, and when {@link #releaseIdleChunks()} is
+     *                                  called.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  int maxCachedBufferCapacity, int cacheTrimInterval,
+                                  int hugeCacheSize, long chunkReleaseIdleTime) {
         super(preferDirect);
 
+        this.tinyCacheSize = tinyCacheSize;
+        this.smallCacheSize = smallCacheSize;
+        this.normalCacheSize = normalCacheSize;
+        this.maxCachedBufferCapacity = maxCachedBufferCapacity;
+        this.cacheTrimInterval = cacheTrimInterval;
+
         final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
 
         if (nHeapArena < 0) {
@@ -147,12 +233,23 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             throw new IllegalArgumentException("nDirectArea: " + nDirectArena + " (expected: >= 0)");
         }
 
+        if (hugeCacheSize < 0) {
+            throw new IllegalArgumentException("hugeCacheSize: " + hugeCacheSize + " (expected: >= 0)");
+        }
+        if (chunkReleaseIdleTime < -1) {
+            throw new IllegalArgumentException(
+                    "chunkReleaseIdleTime: " + chunkReleaseIdleTime + " (expected: >= -1)");
+        }
+        long chunkReleaseIdleTimeNanos =
+                chunkReleaseIdleTime < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(chunkReleaseIdleTime);
+
         int pageShifts = validateAndCalculatePageShifts(pageSize);
 
         if (nHeapArena > 0) {
             heapArenas = newArenaArray(nHeapArena);
             for (int i = 0; i < heapArenas.length; i ++) {
-                heapArenas[i] = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                heapArenas[i] = new PoolArena.HeapArena(
+                        this, pageSize, maxOrder, pageShifts, chunkSize, hugeCacheSize, chunkReleaseIdleTimeNanos);
             }
         } else {
             heapArenas = null;
@@ -161,11 +258,24 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         if (nDirectArena > 0) {
             directArenas = newArenaArray(nDirectArena);
             for (int i = 0; i < directArenas.length; i ++) {
-                directArenas[i] = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                directArenas[i] = new PoolArena.DirectArena(
+                        this, pageSize, maxOrder, pageShifts, chunkSize, hugeCacheSize, chunkReleaseIdleTimeNanos);
             }
         } else {
             directArenas = null;
         }
+
+        heapArenaMetrics = arenaMetrics(heapArenas);
+        directArenaMetrics = arenaMetrics(directArenas);
+    }
+
+    private static List<PoolArenaMetric> arenaMetrics(PoolArena<?>[] arenas) {
+        if (arenas == null) {
+            return Collections.emptyList();
+        }
+        List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(arenas.length);
+        Collections.addAll(metrics, arenas);
+        return Collections.unmodifiableList(metrics);
     }
 
     @SuppressWarnings("unchecked")
@@ -240,6 +350,66 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         }
     }
 
+    /**
+     * Returns all memory regions cached by the calling thread to the pool.  Threads that stop allocating for a long
+     * period of time, or that are about to exit, may call this method to release the memory held by their cache
+     * early.  The cache is re-created on the next allocation.
+     */
+    public void freeThreadLocalCache() {
+        PoolThreadCache cache = threadCache.get();
+        threadCache.remove();
+        cache.free();
+    }
+
+    /**
+     * Releases the memory of the empty chunks and of the cached huge buffers which have been unused for the chunk
+     * release idle time.  An application whose allocations stop for a long period of time may call this method
+     * periodically, because the unused chunks are otherwise only checked when buffers are released.  Does nothing
+     * if the chunk release idle time is {@code -1}.
+     */
+    public void releaseIdleChunks() {
+        if (heapArenas != null) {
+            for (PoolArena<byte[]> a: heapArenas) {
+                a.releaseIdleChunks();
+            }
+        }
+        if (directArenas != null) {
+            for (PoolArena<ByteBuffer> a: directArenas) {
+                a.releaseIdleChunks();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of heap arenas.
+     */
+    public int numHeapArenas() {
+        return heapArenaMetrics.size();
+    }
+
+    /**
+     * Returns the number of direct arenas.
+     */
+    public int numDirectArenas() {
+        return directArenaMetrics.size();
+    }
+
+    /**
+     * Returns the statistics of the heap arenas.  The statistics are read without locking the arenas, so they may
+     * be polled periodically while the allocator is in use.
+     */
+    public List<PoolArenaMetric> heapArenaMetrics() {
+        return heapArenaMetrics;
+    }
+
+    /**
+     * Returns the statistics of the direct arenas.  The statistics are read without locking the arenas, so they may
+     * be polled periodically while the allocator is in use.
+     */
+    public List<PoolArenaMetric> directArenaMetrics() {
+        return directArenaMetrics;
+    }
+
     public String toString() {
         StringBuilder buf = new StringBuilder();
         buf.append(heapArenas.length);
@@ -545,6 +545,87 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         assertThat(nioBuffers[1].get(), is((byte) 3));
     }
 
+    @Test
+    public void testComponentLookupAfterRemoval() {
+        CompositeByteBuf buf = freeLater(compositeBuffer());
+        buf.addComponent(wrappedBuffer(new byte[] { 1, 2 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 3, 4 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 5, 6 }));
+        buf.writerIndex(6);
+
+        // Access the last component, so that it is looked up first.
+        assertEquals(6, buf.getByte(5));
+        assertEquals(2, buf.toComponentIndex(5));
+
+        buf.removeComponent(1);
+        assertEquals(4, buf.capacity());
+        assertEquals(1, buf.toComponentIndex(3));
+        assertEquals(1, buf.getByte(0));
+        assertEquals(2, buf.getByte(1));
+        assertEquals(5, buf.getByte(2));
+        assertEquals(6, buf.getByte(3));
+        assertEquals(0, buf.toComponentIndex(1));
+    }
+
+    @Test
+    public void testDiscardReadComponents() {
+        CompositeByteBuf buf = freeLater(compositeBuffer());
+        buf.addComponent(wrappedBuffer(new byte[] { 1, 2 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 3, 4 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 5, 6 }));
+        buf.writerIndex(6);
+        buf.readerIndex(3);
+
+        buf.discardReadComponents();
+        assertEquals(2, buf.numComponents());
+        assertEquals(1, buf.readerIndex());
+        assertEquals(4, buf.writerIndex());
+        assertEquals(4, buf.readByte());
+    }
+
+    @Test
+    public void testForEachByteAcrossComponents() {
+        CompositeByteBuf buf = freeLater(compositeBuffer());
+        buf.addComponent(wrappedBuffer(new byte[] { 1, 2, 3 }));
+        buf.addComponent(EMPTY_BUFFER);
+        buf.addComponent(wrappedBuffer(new byte[] { 4, 5 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 6, 7, 8 }));
+        buf.writerIndex(8);
+
+        final List<Byte> bytes = new ArrayList<Byte>();
+        assertEquals(-1, buf.forEachByte(new ByteBufProcessor() {
+            @Override
+            public boolean process(byte value) throws Exception {
+                bytes.add(value);
+                return true;
+            }
+        }));
+        assertEquals(8, bytes.size());
+        for (int i = 0; i < bytes.size(); i ++) {
+            assertEquals(i + 1, (int) bytes.get(i));
+        }
+
+        assertEquals(5, buf.forEachByte(1, 7, new IndexOfProcessor((byte) 6)));
+        assertEquals(-1, buf.forEachByte(1, 4, new IndexOfProcessor((byte) 6)));
+        assertEquals(2, buf.forEachByteDesc(new IndexOfProcessor((byte) 3)));
+        assertEquals(4, buf.forEachByteDesc(2, 5, new IndexOfProcessor((byte) 5)));
+        assertEquals(-1, buf.forEachByteDesc(3, 5, new IndexOfProcessor((byte) 3)));
+
+        bytes.clear();
+        buf.readerIndex(2);
+        assertEquals(-1, buf.forEachByteDesc(new ByteBufProcessor() {
+            @Override
+            public boolean process(byte value) throws Exception {
+                bytes.add(value);
+                return true;
+            }
+        }));
+        assertEquals(6, bytes.size());
+        for (int i = 0; i < bytes.size(); i ++) {
+            assertEquals(8 - i, (int) bytes.get(i));
+        }
+    }
+
     @Test
     public void testRemoveLastComponent() {
         CompositeByteBuf buf = freeLater(compositeBuffer());
@@ -553,4 +634,17 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         buf.removeComponent(0);
         assertEquals(0, buf.numComponents());
     }
+
+    private static final class IndexOfProcessor implements ByteBufProcessor {
+        private final byte value;
+
+        IndexOfProcessor(byte value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value != this.value;
+        }
+    }
 }
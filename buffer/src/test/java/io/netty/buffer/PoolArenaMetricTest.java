@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PoolArenaMetricTest {
+
+    @Test
+    public void testAllocationsBySizeClass() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11);
+        assertEquals(1, allocator.numHeapArenas());
+        assertEquals(0, allocator.numDirectArenas());
+        assertTrue(allocator.directArenaMetrics().isEmpty());
+
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        assertEquals(0, metric.numAllocations());
+        assertEquals(0, metric.numChunks());
+
+        ByteBuf tiny = allocator.heapBuffer(16);
+        ByteBuf small = allocator.heapBuffer(1000);
+        ByteBuf normal = allocator.heapBuffer(10000);
+        ByteBuf huge = allocator.heapBuffer(32 * 1024 * 1024);
+        assertEquals(1, metric.numTinyAllocations());
+        assertEquals(1, metric.numSmallAllocations());
+        assertEquals(1, metric.numNormalAllocations());
+        assertEquals(1, metric.numHugeAllocations());
+        assertEquals(4, metric.numAllocations());
+        assertEquals(4, metric.numActiveAllocations());
+        // The capacities are normalized to their size classes.
+        assertEquals(16 + 1024 + 16 * 1024 + 32 * 1024 * 1024, metric.numActiveBytes());
+        assertEquals(1, metric.numThreadCaches());
+        assertEquals(1, metric.numChunks());
+
+        tiny.release();
+        small.release();
+        normal.release();
+        huge.release();
+        assertEquals(1, metric.numTinyDeallocations());
+        assertEquals(1, metric.numSmallDeallocations());
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(1, metric.numHugeDeallocations());
+        assertEquals(4, metric.numDeallocations());
+        assertEquals(0, metric.numActiveAllocations());
+        assertEquals(0, metric.numActiveBytes());
+
+        allocator.freeThreadLocalCache();
+        assertEquals(0, metric.numThreadCaches());
+    }
+
+    @Test
+    public void testChunkLists() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11);
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        List<PoolChunkListMetric> chunkLists = metric.chunkLists();
+        assertEquals(6, chunkLists.size());
+        assertEquals(0, chunkLists.get(0).minUsage());
+        assertEquals(100, chunkLists.get(chunkLists.size() - 1).maxUsage());
+
+        // A chunk which is fully used moves to the last list.
+        int chunkSize = 8192 << 11;
+        ByteBuf buf = allocator.heapBuffer(chunkSize);
+        assertEquals(1, metric.numChunks());
+        assertEquals(1, chunkLists.get(chunkLists.size() - 1).numChunks());
+        buf.release();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PoolThreadCacheTest {
+
+    @Test
+    public void testTinyReusedFromCache() {
+        testReusedFromCache(16);
+        testReusedFromCache(496);
+    }
+
+    @Test
+    public void testSmallReusedFromCache() {
+        testReusedFromCache(512);
+        testReusedFromCache(4096);
+    }
+
+    @Test
+    public void testNormalReusedFromCache() {
+        testReusedFromCache(8192);
+        testReusedFromCache(16 * 1024);
+    }
+
+    private static void testReusedFromCache(int capacity) {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11);
+        testReusedFromCache(allocator, capacity, false);
+        testReusedFromCache(allocator, capacity, true);
+    }
+
+    private static void testReusedFromCache(PooledByteBufAllocator allocator, int capacity, boolean direct) {
+        PooledByteBuf<?> buf = (PooledByteBuf<?>) (direct ? allocator.directBuffer(capacity)
+                                                          : allocator.heapBuffer(capacity));
+        PoolChunk<?> chunk = buf.chunk;
+        long handle = buf.handle;
+        assertTrue(buf.release());
+
+        // Allocate something else first so that the freed region can only be handed out again by the cache.
+        ByteBuf other = direct ? allocator.directBuffer(capacity) : allocator.heapBuffer(capacity);
+        ByteBuf reused = direct ? allocator.directBuffer(capacity) : allocator.heapBuffer(capacity);
+        try {
+            assertTrue(
+                    ((PooledByteBuf<?>) other).chunk == chunk && ((PooledByteBuf<?>) other).handle == handle ||
+                    ((PooledByteBuf<?>) reused).chunk == chunk && ((PooledByteBuf<?>) reused).handle == handle);
+        } finally {
+            other.release();
+            reused.release();
+        }
+    }
+
+    @Test
+    public void testNotCachedWhenDisabled() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, 0, 8192);
+        PooledByteBuf<?> buf = (PooledByteBuf<?>) allocator.heapBuffer(16 * 1024);
+        PoolChunk<?> chunk = buf.chunk;
+        assertTrue(buf.release());
+
+        // The region must have been returned to the chunk right away.
+        assertEquals(0, chunk.usage());
+    }
+
+    @Test
+    public void testFreeThreadLocalCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11);
+        PooledByteBuf<?> buf = (PooledByteBuf<?>) allocator.heapBuffer(16 * 1024);
+        PoolChunk<?> chunk = buf.chunk;
+        assertTrue(buf.release());
+
+        // Still held by the thread-local cache.
+        assertTrue(chunk.usage() > 0);
+
+        allocator.freeThreadLocalCache();
+        assertEquals(0, chunk.usage());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PooledByteBufAllocatorTest {
+
+    // 4096 << 2 = 16 KiB per chunk
+    private static final int PAGE_SIZE = 4096;
+    private static final int MAX_ORDER = 2;
+    private static final int CHUNK_SIZE = PAGE_SIZE << MAX_ORDER;
+
+    private static PooledByteBufAllocator newAllocator(int hugeCacheSize, long chunkReleaseIdleTime) {
+        // Disable the thread caches, so that the buffers are freed to the arena.
+        return new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, 0, 8192, hugeCacheSize, chunkReleaseIdleTime);
+    }
+
+    @Test
+    public void testHugeBufferReuse() {
+        PooledByteBufAllocator allocator = newAllocator(2, -1);
+        ByteBuf buf = allocator.heapBuffer(CHUNK_SIZE * 3);
+        byte[] memory = buf.array();
+        buf.release();
+
+        buf = allocator.heapBuffer(CHUNK_SIZE * 3);
+        assertSame(memory, buf.array());
+        buf.release();
+
+        // A smaller buffer reuses the memory unless it would waste a whole chunk.
+        buf = allocator.heapBuffer(CHUNK_SIZE * 2 + 1);
+        assertSame(memory, buf.array());
+        assertEquals(CHUNK_SIZE * 2 + 1, buf.capacity());
+        buf.release();
+
+        buf = allocator.heapBuffer(CHUNK_SIZE * 2);
+        assertNotSame(memory, buf.array());
+        buf.release();
+
+        buf = allocator.heapBuffer(CHUNK_SIZE * 4);
+        assertNotSame(memory, buf.array());
+        buf.release();
+    }
+
+    @Test
+    public void testHugeCacheIsBounded() {
+        PooledByteBufAllocator allocator = newAllocator(1, -1);
+        ByteBuf a = allocator.heapBuffer(CHUNK_SIZE * 2);
+        ByteBuf b = allocator.heapBuffer(CHUNK_SIZE * 2);
+        byte[] memoryA = a.array();
+        byte[] memoryB = b.array();
+        a.release();
+        b.release();
+
+        a = allocator.heapBuffer(CHUNK_SIZE * 2);
+        b = allocator.heapBuffer(CHUNK_SIZE * 2);
+        assertSame(memoryA, a.array());
+        assertNotSame(memoryB, b.array());
+        a.release();
+        b.release();
+    }
+
+    @Test
+    public void testHugeCacheDisabledByDefault() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER);
+        ByteBuf buf = allocator.heapBuffer(CHUNK_SIZE * 2);
+        byte[] memory = buf.array();
+        buf.release();
+
+        buf = allocator.heapBuffer(CHUNK_SIZE * 2);
+        assertNotSame(memory, buf.array());
+        buf.release();
+    }
+
+    @Test
+    public void testEmptyChunkIsKeptWithoutReleaseIdleTime() {
+        PooledByteBufAllocator allocator = newAllocator(0, -1);
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        allocator.heapBuffer(PAGE_SIZE).release();
+        assertEquals(1, metric.numChunks());
+        allocator.releaseIdleChunks();
+        assertEquals(1, metric.numChunks());
+    }
+
+    @Test
+    public void testEmptyChunkIsReleasedImmediately() {
+        PooledByteBufAllocator allocator = newAllocator(0, 0);
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        allocator.heapBuffer(PAGE_SIZE).release();
+        assertEquals(0, metric.numChunks());
+
+        // Fill a chunk, so that it becomes empty in another chunk list.
+        ByteBuf a = allocator.heapBuffer(CHUNK_SIZE / 2 - 1);
+        ByteBuf b = allocator.heapBuffer(CHUNK_SIZE / 2 - 1);
+        assertEquals(1, metric.numChunks());
+        a.release();
+        b.release();
+        assertEquals(0, metric.numChunks());
+    }
+
+    @Test
+    public void testEmptyChunkIsReleasedAfterIdleTime() throws Exception {
+        PooledByteBufAllocator allocator = newAllocator(1, 100);
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        allocator.heapBuffer(PAGE_SIZE).release();
+        ByteBuf huge = allocator.heapBuffer(CHUNK_SIZE * 2);
+        byte[] memory = huge.array();
+        huge.release();
+
+        allocator.releaseIdleChunks();
+        assertEquals(1, metric.numChunks());
+
+        Thread.sleep(200);
+        allocator.releaseIdleChunks();
+        assertEquals(0, metric.numChunks());
+        huge = allocator.heapBuffer(CHUNK_SIZE * 2);
+        assertNotSame(memory, huge.array());
+        huge.release();
+    }
+
+    @Test
+    public void testChunkFreedByThreadCacheIsReleasedAfterIdleTime() throws Exception {
+        // Cache the normal buffers in the thread cache, so that they are returned to the arena by the cache.
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 64, CHUNK_SIZE, 8192, 0, 500);
+        PoolArenaMetric metric = allocator.heapArenaMetrics().get(0);
+        allocator.heapBuffer(PAGE_SIZE).release();
+        assertEquals(1, metric.numChunks());
+
+        long startTime = System.nanoTime();
+        allocator.freeThreadLocalCache();
+        allocator.releaseIdleChunks();
+        if (System.nanoTime() - startTime < TimeUnit.MILLISECONDS.toNanos(500)) {
+            assertEquals(1, metric.numChunks());
+        }
+
+        Thread.sleep(600);
+        allocator.releaseIdleChunks();
+        assertEquals(0, metric.numChunks());
+    }
+
+    @Test(timeout = 10000)
+    public void testLeastUsedArenaIsBound() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 2, 0, PAGE_SIZE, MAX_ORDER);
+        PoolArenaMetric arena0 = allocator.heapArenaMetrics().get(0);
+        PoolArenaMetric arena1 = allocator.heapArenaMetrics().get(1);
+
+        allocator.heapBuffer(16).release();
+        assertEquals(1, arena0.numThreadCaches());
+        assertEquals(0, arena1.numThreadCaches());
+
+        allocateInNewThread(allocator);
+        assertEquals(1, arena0.numThreadCaches());
+        while (arena1.numThreadCaches() != 0) {
+            Thread.sleep(100);
+        }
+
+        // A round-robin selection would bind the third thread to the first arena again.
+        allocateInNewThread(allocator);
+        assertEquals(1, arena0.numThreadCaches());
+
+        allocator.freeThreadLocalCache();
+        assertEquals(0, arena0.numThreadCaches());
+    }
+
+    @Test(timeout = 10000)
+    public void testArenaIsUnboundWhenThreadDies() throws Exception {
+        // The thread must be unbound even if it does not cache any buffer.
+        PooledByteBufAllocator allocator = newAllocator(0, -1);
+        PoolArenaMetric arena = allocator.heapArenaMetrics().get(0);
+        allocateInNewThread(allocator);
+        while (arena.numThreadCaches() != 0) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static void allocateInNewThread(final PooledByteBufAllocator allocator) throws Exception {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                allocator.heapBuffer(16).release();
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHugeCacheSize() {
+        newAllocator(-1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkReleaseIdleTime() {
+        newAllocator(0, -2);
+    }
+}
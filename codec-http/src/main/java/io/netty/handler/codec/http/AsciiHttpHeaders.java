@@ -0,0 +1,477 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * {@link HttpHeaders} implementation which stores the header names and values as {@link AsciiString}s, i.e. as the
+ * ASCII bytes they are sent as.  The names defined in {@link HttpHeaders.Names} and the values defined in
+ * {@link HttpHeaders.Values} are backed by shared instances whose hash codes are computed only once.
+ * <p>
+ * When a message with {@link AsciiHttpHeaders} is encoded by {@link HttpObjectEncoder}, the header bytes are copied
+ * into the outbound buffer as they are, so a proxy which decodes its requests with
+ * {@link HttpRequestDecoder#HttpRequestDecoder(int, int, int, boolean)} and forwards them does not need to decode
+ * every header into a {@link String} and encode it again.  The {@link String} based methods inherited from
+ * {@link HttpHeaders} are still supported; a {@link String} is created lazily when a header is retrieved with them.
+ */
+public class AsciiHttpHeaders extends HttpHeaders {
+
+    private static final int BUCKET_SIZE = 17;
+    private static final byte[] HEADER_SEPARATOR = { HttpConstants.COLON, HttpConstants.SP };
+    private static final byte[] CRLF = { HttpConstants.CR, HttpConstants.LF };
+
+    /**
+     * The {@link AsciiString}s of all constants in {@link HttpHeaders.Names} and {@link HttpHeaders.Values}.
+     */
+    private static final Map<String, AsciiString> CONSTANTS = new HashMap<String, AsciiString>();
+
+    static {
+        addConstants(HttpHeaders.Names.class);
+        addConstants(HttpHeaders.Values.class);
+    }
+
+    private static void addConstants(Class<?> constantsClass) {
+        for (Field f: constantsClass.getFields()) {
+            if (Modifier.isStatic(f.getModifiers()) && f.getType() == String.class) {
+                try {
+                    String value = (String) f.get(null);
+                    AsciiString asciiValue = new AsciiString(value);
+                    // Compute the hash code only once.
+                    asciiValue.hashIgnoreCase();
+                    CONSTANTS.put(value, asciiValue);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    static int normalizeHash(int h) {
+        if (h > 0) {
+            return h;
+        } else if (h == Integer.MIN_VALUE) {
+            return Integer.MAX_VALUE;
+        } else {
+            return -h;
+        }
+    }
+
+    private static int hash(CharSequence name) {
+        if (name instanceof AsciiString) {
+            return ((AsciiString) name).hashIgnoreCase();
+        }
+
+        int h = 0;
+        for (int i = name.length() - 1; i >= 0; i --) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 32;
+            }
+            h = 31 * h + c;
+        }
+        return normalizeHash(h);
+    }
+
+    private static boolean eq(CharSequence name1, CharSequence name2) {
+        if (name1 == name2) {
+            return true;
+        }
+
+        int nameLen = name1.length();
+        if (nameLen != name2.length()) {
+            return false;
+        }
+
+        for (int i = nameLen - 1; i >= 0; i --) {
+            char c1 = name1.charAt(i);
+            char c2 = name2.charAt(i);
+            if (c1 != c2) {
+                if (c1 >= 'A' && c1 <= 'Z') {
+                    c1 += 32;
+                }
+                if (c2 >= 'A' && c2 <= 'Z') {
+                    c2 += 32;
+                }
+                if (c1 != c2) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int index(int hash) {
+        return hash % BUCKET_SIZE;
+    }
+
+    /**
+     * Returns the shared {@link AsciiString} of the specified {@link String} if it is a known header name or value,
+     * or a new {@link AsciiString} otherwise.
+     */
+    static AsciiString toAsciiString(String value) {
+        AsciiString asciiValue = CONSTANTS.get(value);
+        if (asciiValue != null) {
+            return asciiValue;
+        }
+        return new AsciiString(value);
+    }
+
+    private static AsciiString toAsciiString(CharSequence value) {
+        if (value instanceof String) {
+            return toAsciiString((String) value);
+        }
+        return AsciiString.of(value);
+    }
+
+    private final HeaderEntry[] entries = new HeaderEntry[BUCKET_SIZE];
+    private final HeaderEntry head = new HeaderEntry(-1, null, null);
+
+    public AsciiHttpHeaders() {
+        head.before = head.after = head;
+    }
+
+    /**
+     * Adds a new header with the specified name and value.  If the specified name or value is an
+     * {@link AsciiString}, it is stored as it is.
+     */
+    public AsciiHttpHeaders addAscii(CharSequence name, CharSequence value) {
+        validateHeaderName(name);
+        validateHeaderValue(value);
+        int h = hash(name);
+        int i = index(h);
+        add0(h, i, toAsciiString(name), toAsciiString(value));
+        return this;
+    }
+
+    /**
+     * Sets a header with the specified name and value, replacing all existing headers with the same name.
+     * If the specified name or value is an {@link AsciiString}, it is stored as it is.
+     */
+    public AsciiHttpHeaders setAscii(CharSequence name, CharSequence value) {
+        validateHeaderName(name);
+        validateHeaderValue(value);
+        int h = hash(name);
+        int i = index(h);
+        remove0(h, i, name);
+        add0(h, i, toAsciiString(name), toAsciiString(value));
+        return this;
+    }
+
+    /**
+     * Returns the value of the first header with the specified name without converting it into a {@link String},
+     * or {@code null} if there is no such header.
+     */
+    public CharSequence getAscii(CharSequence name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+
+        int h = hash(name);
+        int i = index(h);
+        HeaderEntry e = entries[i];
+        while (e != null) {
+            if (e.hash == h && eq(name, e.key)) {
+                return e.value;
+            }
+            e = e.next;
+        }
+        return null;
+    }
+
+    @Override
+    public HttpHeaders add(final String name, final Object value) {
+        return addAscii(name, toCharSequence(value));
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        validateHeaderName(name);
+        int h = hash(name);
+        int i = index(h);
+        AsciiString asciiName = toAsciiString(name);
+        for (Object v: values) {
+            CharSequence vseq = toCharSequence(v);
+            validateHeaderValue(vseq);
+            add0(h, i, asciiName, toAsciiString(vseq));
+        }
+        return this;
+    }
+
+    private void add0(int h, int i, AsciiString name, AsciiString value) {
+        // Update the hash table.
+        HeaderEntry e = entries[i];
+        HeaderEntry newEntry;
+        entries[i] = newEntry = new HeaderEntry(h, name, value);
+        newEntry.next = e;
+
+        // Update the linked list.
+        newEntry.addBefore(head);
+    }
+
+    @Override
+    public HttpHeaders remove(final String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        int h = hash(name);
+        int i = index(h);
+        remove0(h, i, name);
+        return this;
+    }
+
+    private void remove0(int h, int i, CharSequence name) {
+        HeaderEntry e = entries[i];
+        if (e == null) {
+            return;
+        }
+
+        for (;;) {
+            if (e.hash == h && eq(name, e.key)) {
+                e.remove();
+                HeaderEntry next = e.next;
+                if (next != null) {
+                    entries[i] = next;
+                    e = next;
+                } else {
+                    entries[i] = null;
+                    return;
+                }
+            } else {
+                break;
+            }
+        }
+
+        for (;;) {
+            HeaderEntry next = e.next;
+            if (next == null) {
+                break;
+            }
+            if (next.hash == h && eq(name, next.key)) {
+                e.next = next.next;
+                next.remove();
+            } else {
+                e = next;
+            }
+        }
+    }
+
+    @Override
+    public HttpHeaders set(final String name, final Object value) {
+        return setAscii(name, toCharSequence(value));
+    }
+
+    @Override
+    public HttpHeaders set(final String name, final Iterable<?> values) {
+        if (values == null) {
+            throw new NullPointerException("values");
+        }
+
+        validateHeaderName(name);
+
+        int h = hash(name);
+        int i = index(h);
+
+        remove0(h, i, name);
+        AsciiString asciiName = toAsciiString(name);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            CharSequence vseq = toCharSequence(v);
+            validateHeaderValue(vseq);
+            add0(h, i, asciiName, toAsciiString(vseq));
+        }
+
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        for (int i = 0; i < entries.length; i ++) {
+            entries[i] = null;
+        }
+        head.before = head.after = head;
+        return this;
+    }
+
+    @Override
+    public String get(final String name) {
+        CharSequence value = getAscii(name);
+        if (value == null) {
+            return null;
+        }
+        return value.toString();
+    }
+
+    @Override
+    public List<String> getAll(final String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+
+        LinkedList<String> values = new LinkedList<String>();
+
+        int h = hash(name);
+        int i = index(h);
+        HeaderEntry e = entries[i];
+        while (e != null) {
+            if (e.hash == h && eq(name, e.key)) {
+                values.addFirst(e.getValue());
+            }
+            e = e.next;
+        }
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<String, String>> entries() {
+        List<Map.Entry<String, String>> all =
+            new LinkedList<Map.Entry<String, String>>();
+
+        HeaderEntry e = head.after;
+        while (e != head) {
+            all.add(e);
+            e = e.after;
+        }
+        return all;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        return entries().iterator();
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return getAscii(name) != null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head == head.after;
+    }
+
+    @Override
+    public Set<String> names() {
+
+        Set<String> names = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+        HeaderEntry e = head.after;
+        while (e != head) {
+            names.add(e.getKey());
+            e = e.after;
+        }
+        return names;
+    }
+
+    /**
+     * Writes all headers into the specified {@link ByteBuf} as they are sent over the wire.
+     */
+    void encode(ByteBuf buf) {
+        HeaderEntry e = head.after;
+        while (e != head) {
+            e.key.writeTo(buf);
+            buf.writeBytes(HEADER_SEPARATOR);
+            e.value.writeTo(buf);
+            buf.writeBytes(CRLF);
+            e = e.after;
+        }
+    }
+
+    private static CharSequence toCharSequence(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof CharSequence) {
+            return (CharSequence) value;
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return HttpHeaderDateFormat.get().format((Date) value);
+        }
+        if (value instanceof Calendar) {
+            return HttpHeaderDateFormat.get().format(((Calendar) value).getTime());
+        }
+        return value.toString();
+    }
+
+    private static final class HeaderEntry implements Map.Entry<String, String> {
+        final int hash;
+        final AsciiString key;
+        AsciiString value;
+        HeaderEntry next;
+        HeaderEntry before, after;
+
+        HeaderEntry(int hash, AsciiString key, AsciiString value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        void remove() {
+            before.after = after;
+            after.before = before;
+        }
+
+        void addBefore(HeaderEntry e) {
+            after  = e;
+            before = e.before;
+            before.after = this;
+            after.before = this;
+        }
+
+        @Override
+        public String getKey() {
+            return key.toString();
+        }
+
+        @Override
+        public String getValue() {
+            return value.toString();
+        }
+
+        @Override
+        public String setValue(String value) {
+            if (value == null) {
+                throw new NullPointerException("value");
+            }
+            validateHeaderValue(value);
+            String oldValue = this.value.toString();
+            this.value = toAsciiString(value);
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
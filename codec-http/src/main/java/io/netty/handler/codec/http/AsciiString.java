@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+/**
+ * A {@link CharSequence} which is a view over a region of an array of ASCII bytes.  It is used by
+ * {@link AsciiHttpHeaders} to store the header names and values as they are sent and received, so that they do not
+ * need to be decoded into a {@link String} and encoded again.
+ * <p>
+ * The case-insensitive hash code, which is used for the header lookups, and the {@link String} representation are
+ * computed lazily and cached.  The backing array must not be modified after the instance has been created.
+ */
+public final class AsciiString implements CharSequence {
+
+    private final byte[] value;
+    private final int offset;
+    private final int length;
+    private int hashIgnoreCase;
+    private String string;
+
+    /**
+     * Creates a new instance which contains the specified {@link String}.  Every character is truncated to its
+     * lower 8 bits.
+     */
+    public AsciiString(String value) {
+        this(value, 0, value.length());
+        string = value;
+    }
+
+    /**
+     * Creates a new instance which contains the specified region of the specified {@link CharSequence}.  Every
+     * character is truncated to its lower 8 bits.
+     */
+    public AsciiString(CharSequence value, int start, int end) {
+        if (start < 0 || end > value.length() || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "start: " + start + ", end: " + end + " (expected: 0 <= start <= end <= " + value.length() + ')');
+        }
+        length = end - start;
+        offset = 0;
+        this.value = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            this.value[i] = (byte) value.charAt(start + i);
+        }
+    }
+
+    /**
+     * Creates a new instance which is a view over the specified region of the specified array.  The array is not
+     * copied, so it must not be modified afterwards.
+     */
+    public AsciiString(byte[] value, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > value.length - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset: " + offset + ", length: " + length + " (expected: a region of " + value.length + ')');
+        }
+        this.value = value;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the specified {@link CharSequence} as an {@link AsciiString}.
+     */
+    static AsciiString of(CharSequence value) {
+        if (value instanceof AsciiString) {
+            return (AsciiString) value;
+        }
+        if (value instanceof String) {
+            return new AsciiString((String) value);
+        }
+        return new AsciiString(value, 0, value.length());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + " (expected: 0 <= index < " + length + ')');
+        }
+        return (char) (value[offset + index] & 0xFF);
+    }
+
+    @Override
+    public AsciiString subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "start: " + start + ", end: " + end + " (expected: 0 <= start <= end <= " + length + ')');
+        }
+        if (start == 0 && end == length) {
+            return this;
+        }
+        return new AsciiString(value, offset + start, end - start);
+    }
+
+    /**
+     * Writes the bytes of this {@link AsciiString} into the specified {@link ByteBuf}.
+     */
+    public void writeTo(ByteBuf buf) {
+        buf.writeBytes(value, offset, length);
+    }
+
+    /**
+     * Returns the case-insensitive hash code which is also used by {@link DefaultHttpHeaders}.
+     */
+    int hashIgnoreCase() {
+        int h = hashIgnoreCase;
+        if (h == 0) {
+            for (int i = offset + length - 1; i >= offset; i --) {
+                int c = value[i] & 0xFF;
+                if (c >= 'A' && c <= 'Z') {
+                    c += 32;
+                }
+                h = 31 * h + c;
+            }
+            hashIgnoreCase = h = AsciiHttpHeaders.normalizeHash(h);
+        }
+        return h;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = offset; i < offset + length; i ++) {
+            h = 31 * h + value[i];
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof AsciiString)) {
+            return false;
+        }
+        AsciiString that = (AsciiString) obj;
+        if (length != that.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i ++) {
+            if (value[offset + i] != that.value[that.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        String string = this.string;
+        if (string == null) {
+            this.string = string = new String(value, offset, length, CharsetUtil.US_ASCII);
+        }
+        return string;
+    }
+}
@@ -25,16 +25,27 @@ import java.util.Map;
 public abstract class DefaultHttpMessage extends DefaultHttpObject implements HttpMessage {
 
     private HttpVersion version;
-    private final HttpHeaders headers = new DefaultHttpHeaders();
+    private final HttpHeaders headers;
 
     /**
      * Creates a new instance.
      */
     protected DefaultHttpMessage(final HttpVersion version) {
+        this(version, new DefaultHttpHeaders());
+    }
+
+    /**
+     * Creates a new instance which uses the specified {@link HttpHeaders}.
+     */
+    protected DefaultHttpMessage(final HttpVersion version, final HttpHeaders headers) {
         if (version == null) {
             throw new NullPointerException("version");
         }
+        if (headers == null) {
+            throw new NullPointerException("headers");
+        }
         this.version = version;
+        this.headers = headers;
     }
 
     @Override
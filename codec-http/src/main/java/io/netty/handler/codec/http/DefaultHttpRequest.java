@@ -33,7 +33,19 @@ public class DefaultHttpRequest extends DefaultHttpMessage implements HttpReques
      * @param uri         the URI or path of the request
      */
     public DefaultHttpRequest(HttpVersion httpVersion, HttpMethod method, String uri) {
-        super(httpVersion);
+        this(httpVersion, method, uri, new DefaultHttpHeaders());
+    }
+
+    /**
+     * Creates a new instance which uses the specified {@link HttpHeaders}.
+     *
+     * @param httpVersion the HTTP version of the request
+     * @param method      the HTTP getMethod of the request
+     * @param uri         the URI or path of the request
+     * @param headers     the headers of the request, e.g. {@link AsciiHttpHeaders}
+     */
+    public DefaultHttpRequest(HttpVersion httpVersion, HttpMethod method, String uri, HttpHeaders headers) {
+        super(httpVersion, headers);
         if (method == null) {
             throw new NullPointerException("getMethod");
         }
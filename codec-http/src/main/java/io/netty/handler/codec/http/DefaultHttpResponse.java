@@ -31,7 +31,18 @@ public class DefaultHttpResponse extends DefaultHttpMessage implements HttpRespo
      * @param status  the getStatus of this response
      */
     public DefaultHttpResponse(HttpVersion version, HttpResponseStatus status) {
-        super(version);
+        this(version, status, new DefaultHttpHeaders());
+    }
+
+    /**
+     * Creates a new instance which uses the specified {@link HttpHeaders}.
+     *
+     * @param version the HTTP version of this response
+     * @param status  the getStatus of this response
+     * @param headers the headers of this response, e.g. {@link AsciiHttpHeaders}
+     */
+    public DefaultHttpResponse(HttpVersion version, HttpResponseStatus status, HttpHeaders headers) {
+        super(version, headers);
         if (status == null) {
             throw new NullPointerException("status");
         }
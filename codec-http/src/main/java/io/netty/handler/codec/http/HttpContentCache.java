@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of encoded (e.g. compressed) contents which is used by {@link HttpContentEncoder} to encode the content
+ * of the same response only once.  The entries are identified by the content key returned by
+ * {@link HttpContentEncoder#contentCacheKey(HttpResponse)} and the target content encoding.  If the total size of
+ * the cached contents exceeds the configured limit, the least recently used entries are evicted.
+ * <p>
+ * A cache can be shared by all {@link HttpContentEncoder}s of an application.  The encoders must override
+ * {@link HttpContentEncoder#contentCacheKey(HttpResponse)} to enable caching:
+ * <pre>
+ * {@link HttpContentCache} cache = new {@link HttpContentCache}(16 * 1024 * 1024);
+ * ...
+ * {@link HttpContentCompressor} compressor = new {@link HttpContentCompressor}() {
+ *     {@code @Override}
+ *     protected Object contentCacheKey({@link HttpResponse} res) {
+ *         // The entity tags of this application are unique among all resources.
+ *         return res.headers().get("ETag");
+ *     }
+ * };
+ * compressor.setContentCache(cache);
+ * pipeline.addLast("compressor", compressor);
+ * </pre>
+ */
+public final class HttpContentCache {
+
+    private final long maxBytes;
+    private final Map<Key, ByteBuf> entries = new LinkedHashMap<Key, ByteBuf>(16, 0.75f, true);
+    private long usedBytes;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxBytes
+     *        the maximum total size of the cached contents
+     */
+    public HttpContentCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes: " + maxBytes + " (expected: > 0)");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the maximum total size of the cached contents.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the total size of the cached contents.
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of cached contents.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a retained read-only slice of the cached content, or {@code null} if the content is not cached.
+     * The caller must release the returned buffer.
+     */
+    public synchronized ByteBuf get(Object contentKey, String contentEncoding) {
+        ByteBuf content = entries.get(new Key(contentKey, contentEncoding));
+        if (content == null) {
+            return null;
+        }
+        return content.slice().retain();
+    }
+
+    /**
+     * Adds the specified encoded content to the cache, replacing the previously cached content of the same key
+     * and encoding.  The cache takes over the ownership of {@code content}, so the caller must not release it.
+     */
+    public void put(Object contentKey, String contentEncoding, ByteBuf content) {
+        if (contentKey == null) {
+            throw new NullPointerException("contentKey");
+        }
+        if (contentEncoding == null) {
+            throw new NullPointerException("contentEncoding");
+        }
+        if (content == null) {
+            throw new NullPointerException("content");
+        }
+
+        int size = content.readableBytes();
+        if (size > maxBytes) {
+            content.release();
+            return;
+        }
+
+        content = Unpooled.unmodifiableBuffer(content);
+        synchronized (this) {
+            ByteBuf old = entries.put(new Key(contentKey, contentEncoding), content);
+            if (old != null) {
+                usedBytes -= old.readableBytes();
+                old.release();
+            }
+            usedBytes += size;
+
+            // Evict the least recently used entries.
+            Iterator<ByteBuf> i = entries.values().iterator();
+            while (usedBytes > maxBytes) {
+                ByteBuf evicted = i.next();
+                i.remove();
+                usedBytes -= evicted.readableBytes();
+                evicted.release();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached contents.
+     */
+    public synchronized void clear() {
+        for (ByteBuf content: entries.values()) {
+            content.release();
+        }
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    private static final class Key {
+        private final Object contentKey;
+        private final String contentEncoding;
+
+        Key(Object contentKey, String contentEncoding) {
+            this.contentKey = contentKey;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public int hashCode() {
+            return contentKey.hashCode() * 31 + contentEncoding.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return contentKey.equals(that.contentKey) && contentEncoding.equals(that.contentEncoding);
+        }
+    }
+}
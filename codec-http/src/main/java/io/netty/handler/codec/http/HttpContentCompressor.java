@@ -18,20 +18,34 @@ package io.netty.handler.codec.http;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.internal.StringUtil;
 
+import java.util.Locale;
+
 /**
  * Compresses an {@link HttpMessage} and an {@link HttpContent} in {@code gzip} or
  * {@code deflate} encoding while respecting the {@code "Accept-Encoding"} header.
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * Responses whose content is smaller than the {@code contentSizeThreshold} are not compressed, because the
+ * compression overhead outweighs the saved bytes.  Neither are responses whose content type is compressed already
+ * (e.g. images, audio, video and archives), see {@link #isContentTypeCompressible(String)}.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
+    private static final String[] COMPRESSED_CONTENT_TYPES = {
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-compress",
+        "application/x-bzip2", "application/x-xz", "application/x-7z-compressed", "application/x-rar-compressed",
+        "application/font-woff", "font/woff", "font/woff2"
+    };
+
     private final int compressionLevel;
     private final int windowBits;
     private final int memLevel;
+    private final int contentSizeThreshold;
 
     /**
      * Creates a new handler with the default compression level (<tt>6</tt>),
@@ -74,6 +88,77 @@ public class HttpContentCompressor extends HttpContentEncoder {
      *        at the expense of memory usage.  The default value is {@code 8}
      */
     public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel) {
+        this(compressionLevel, windowBits, memLevel, 0);
+    }
+
+    /**
+     * Creates a new handler with the specified compression level, window size,
+     * memory level and content size threshold.
+     *
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.  The default
+     *        compression level is {@code 6}.
+     * @param windowBits
+     *        The base two logarithm of the size of the history buffer.  The
+     *        value should be in the range {@code 9} to {@code 15} inclusive.
+     *        Larger values result in better compression at the expense of
+     *        memory usage.  The default value is {@code 15}.
+     * @param memLevel
+     *        How much memory should be allocated for the internal compression
+     *        state.  {@code 1} uses minimum memory and {@code 9} uses maximum
+     *        memory.  Larger values result in better and faster compression
+     *        at the expense of memory usage.  The default value is {@code 8}
+     * @param contentSizeThreshold
+     *        The response body is compressed only if its size is known to be
+     *        at least this many bytes, or unknown.  The default value is {@code 0}.
+     */
+    public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel, int contentSizeThreshold) {
+        checkArguments(compressionLevel, windowBits, memLevel, contentSizeThreshold);
+        this.compressionLevel = compressionLevel;
+        this.windowBits = windowBits;
+        this.memLevel = memLevel;
+        this.contentSizeThreshold = contentSizeThreshold;
+    }
+
+    /**
+     * Creates a new handler which compresses the content in the specified
+     * {@link EventExecutorGroup} instead of the I/O thread.
+     *
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.  The default
+     *        compression level is {@code 6}.
+     * @param windowBits
+     *        The base two logarithm of the size of the history buffer.  The
+     *        value should be in the range {@code 9} to {@code 15} inclusive.
+     *        Larger values result in better compression at the expense of
+     *        memory usage.  The default value is {@code 15}.
+     * @param memLevel
+     *        How much memory should be allocated for the internal compression
+     *        state.  {@code 1} uses minimum memory and {@code 9} uses maximum
+     *        memory.  Larger values result in better and faster compression
+     *        at the expense of memory usage.  The default value is {@code 8}
+     * @param contentSizeThreshold
+     *        The response body is compressed only if its size is known to be
+     *        at least this many bytes, or unknown.  The default value is {@code 0}.
+     * @param compressorGroup
+     *        The {@link EventExecutorGroup} which compresses the content
+     * @param maxPendingChunks
+     *        The maximum number of messages which wait to be compressed before
+     *        reading from the channel is suspended
+     */
+    public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel, int contentSizeThreshold,
+                                 EventExecutorGroup compressorGroup, int maxPendingChunks) {
+        super(compressorGroup, maxPendingChunks);
+        checkArguments(compressionLevel, windowBits, memLevel, contentSizeThreshold);
+        this.compressionLevel = compressionLevel;
+        this.windowBits = windowBits;
+        this.memLevel = memLevel;
+        this.contentSizeThreshold = contentSizeThreshold;
+    }
+
+    private static void checkArguments(int compressionLevel, int windowBits, int memLevel, int contentSizeThreshold) {
         if (compressionLevel < 0 || compressionLevel > 9) {
             throw new IllegalArgumentException(
                     "compressionLevel: " + compressionLevel +
@@ -87,40 +172,89 @@ public class HttpContentCompressor extends HttpContentEncoder {
             throw new IllegalArgumentException(
                     "memLevel: " + memLevel + " (expected: 1-9)");
         }
-        this.compressionLevel = compressionLevel;
-        this.windowBits = windowBits;
-        this.memLevel = memLevel;
+        if (contentSizeThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "contentSizeThreshold: " + contentSizeThreshold + " (expected: >= 0)");
+        }
     }
 
     @Override
     protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
+        String targetContentEncoding = targetContentEncoding(headers, acceptEncoding);
+        if (targetContentEncoding == null) {
+            return null;
+        }
+
+        ZlibWrapper wrapper = "gzip".equals(targetContentEncoding) ? ZlibWrapper.GZIP : ZlibWrapper.ZLIB;
+        return new Result(
+                targetContentEncoding,
+                new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(
+                        wrapper, compressionLevel, windowBits, memLevel)));
+    }
+
+    @Override
+    protected String targetContentEncoding(HttpResponse headers, String acceptEncoding) {
         String contentEncoding = headers.headers().get(HttpHeaders.Names.CONTENT_ENCODING);
         if (contentEncoding != null &&
             !HttpHeaders.Values.IDENTITY.equalsIgnoreCase(contentEncoding)) {
             return null;
         }
 
+        if (contentSizeThreshold > 0) {
+            long contentLength;
+            if (headers instanceof FullHttpResponse) {
+                contentLength = ((FullHttpResponse) headers).content().readableBytes();
+            } else {
+                contentLength = HttpHeaders.getContentLength(headers, -1);
+            }
+            if (contentLength >= 0 && contentLength < contentSizeThreshold) {
+                return null;
+            }
+        }
+
+        String contentType = headers.headers().get(HttpHeaders.Names.CONTENT_TYPE);
+        if (contentType != null && !isContentTypeCompressible(contentType)) {
+            return null;
+        }
+
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
         }
 
-        String targetContentEncoding;
         switch (wrapper) {
         case GZIP:
-            targetContentEncoding = "gzip";
-            break;
+            return "gzip";
         case ZLIB:
-            targetContentEncoding = "deflate";
-            break;
+            return "deflate";
         default:
             throw new Error();
         }
+    }
 
-        return new Result(
-                targetContentEncoding,
-                new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(
-                        wrapper, compressionLevel, windowBits, memLevel)));
+    /**
+     * Returns {@code true} if the content of the specified type should be compressed.  The default implementation
+     * returns {@code false} for images (except SVG), audio, video and well-known compressed archive formats.
+     *
+     * @param contentType the value of the {@code "Content-Type"} header of the response
+     */
+    protected boolean isContentTypeCompressible(String contentType) {
+        int paramStart = contentType.indexOf(';');
+        String mimeType = (paramStart < 0 ? contentType : contentType.substring(0, paramStart))
+                .trim().toLowerCase(Locale.ENGLISH);
+
+        if (mimeType.startsWith("image/")) {
+            return mimeType.equals("image/svg+xml");
+        }
+        if (mimeType.startsWith("audio/") || mimeType.startsWith("video/")) {
+            return false;
+        }
+        for (String type: COMPRESSED_CONTENT_TYPES) {
+            if (mimeType.equals(type)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     protected ZlibWrapper determineWrapper(String acceptEncoding) {
@@ -17,16 +17,22 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.MessageList;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.handler.codec.http.HttpHeaders.Names;
 import io.netty.handler.codec.http.HttpHeaders.Values;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
 
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Encodes the content of the outbound {@link HttpResponse} and {@link HttpContent}.
@@ -49,6 +55,21 @@ import java.util.Queue;
  * This handler must be placed after {@link HttpObjectEncoder} in the pipeline
  * so that this handler can intercept HTTP responses before {@link HttpObjectEncoder}
  * converts them into {@link ByteBuf}s.
+ * <p>
+ * <h3>Encoding in an {@link EventExecutorGroup}</h3>
+ * Encoding large contents can take a while, which delays all other channels handled by the same I/O thread.  If
+ * an {@link EventExecutorGroup} is specified in the constructor, all outbound messages of a channel are encoded by
+ * one {@link EventExecutor} of the group instead, so the order of the messages is preserved.  If more than
+ * {@code maxPendingChunks} messages wait to be encoded, reading from the channel is suspended until the encoder
+ * catches up, by turning off auto read or by holding back {@link ChannelHandlerContext#read()}.
+ * <p>
+ * <h3>Caching the encoded content</h3>
+ * If an {@link HttpContentCache} is {@linkplain #setContentCache(HttpContentCache) set}, the encoded content of a
+ * full response which has a {@linkplain #contentCacheKey(HttpResponse) content key} is kept in the cache.  A later
+ * full response with the same key and target content encoding is then sent with a slice of the cached content and
+ * a {@code "Content-Length"} header, without encoding the content again.  Responses to {@code HEAD} requests and
+ * responses which must not have a body ({@code 1xx}, {@code 204} and {@code 304}) never use the cache.  No
+ * response has a content key unless {@link #contentCacheKey(HttpResponse)} is overridden.
  */
 public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpRequest, HttpObject> {
 
@@ -58,10 +79,82 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         AWAIT_CONTENT
     }
 
-    private final Queue<String> acceptEncodingQueue = new ArrayDeque<String>();
+    private final EventExecutorGroup encoderGroup;
+    private final int maxPendingChunks;
+    private final Queue<String> acceptEncodingQueue;
+    private final Queue<HttpMethod> methodQueue;
     private String acceptEncoding;
+    private HttpMethod method;
     private EmbeddedChannel encoder;
     private State state = State.AWAIT_HEADERS;
+    private boolean added;
+
+    private HttpContentCache contentCache;
+    // The key and the encoded content of the response which is added to the contentCache once it is encoded
+    private Object cachingKey;
+    private String cachingEncoding;
+    private ByteBuf cachingContent;
+
+    // Only used if the content is encoded by the encoderGroup
+    private EventExecutor encoderExecutor;
+    private final AtomicInteger pendingChunks = new AtomicInteger();
+    private boolean readSuspended;
+    private boolean readPending;
+    private boolean autoReadDisabled;
+    private Runnable resumeReadTask;
+
+    /**
+     * Creates a new instance which encodes the content in the I/O thread.
+     */
+    protected HttpContentEncoder() {
+        encoderGroup = null;
+        maxPendingChunks = 0;
+        acceptEncodingQueue = new ArrayDeque<String>();
+        methodQueue = new ArrayDeque<HttpMethod>();
+    }
+
+    /**
+     * Creates a new instance which encodes the content in the specified {@link EventExecutorGroup}.
+     *
+     * @param encoderGroup
+     *        the {@link EventExecutorGroup} which encodes the content
+     * @param maxPendingChunks
+     *        the maximum number of messages which wait to be encoded before reading from the channel is suspended
+     */
+    protected HttpContentEncoder(EventExecutorGroup encoderGroup, int maxPendingChunks) {
+        if (encoderGroup == null) {
+            throw new NullPointerException("encoderGroup");
+        }
+        if (maxPendingChunks <= 0) {
+            throw new IllegalArgumentException("maxPendingChunks: " + maxPendingChunks + " (expected: > 0)");
+        }
+        this.encoderGroup = encoderGroup;
+        this.maxPendingChunks = maxPendingChunks;
+        // The queue is filled by the I/O thread and drained by the encoder thread.
+        acceptEncodingQueue = new ConcurrentLinkedQueue<String>();
+        methodQueue = new ConcurrentLinkedQueue<HttpMethod>();
+    }
+
+    /**
+     * Returns the {@link HttpContentCache} which keeps the encoded contents of the responses, or {@code null} if
+     * the contents are not cached.
+     */
+    public final HttpContentCache getContentCache() {
+        return contentCache;
+    }
+
+    /**
+     * Sets the {@link HttpContentCache} which keeps the encoded contents of the responses, so that the content of a
+     * response which has the same {@linkplain #contentCacheKey(HttpResponse) content key} as a previous response is
+     * not encoded again.  The cache can be shared by many encoders.  By default, the contents are not cached.
+     */
+    public final void setContentCache(HttpContentCache contentCache) {
+        if (added) {
+            throw new IllegalStateException(
+                    "encoder properties cannot be changed once the encoder is added to a pipeline.");
+        }
+        this.contentCache = contentCache;
+    }
 
     @Override
     public boolean acceptOutboundMessage(Object msg) throws Exception {
@@ -75,6 +168,8 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         if (acceptedEncoding == null) {
             acceptedEncoding = HttpHeaders.Values.IDENTITY;
         }
+        // Add the method first so that it is always available once the accepted encoding was polled.
+        methodQueue.add(msg.getMethod());
         acceptEncodingQueue.add(acceptedEncoding);
         out.add(ReferenceCountUtil.retain(msg));
     }
@@ -105,6 +200,13 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
                 if (acceptEncoding == null) {
                     throw new IllegalStateException("cannot send more responses than requests");
                 }
+                method = methodQueue.poll();
+
+                if (res instanceof PreEncodedHttpResponse) {
+                    // The response is encoded already and can not be modified.
+                    out.add(res);
+                    break;
+                }
 
                 if (isFull) {
                     // Pass through the full response with empty content and continue waiting for the the next resp.
@@ -117,6 +219,12 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
                     }
                 }
 
+                // Serve the content from the cache if it was encoded already.
+                final Object cacheKey = isCacheable(res, isFull) ? contentCacheKey(res) : null;
+                if (cacheKey != null && encodeFromCache((FullHttpResponse) res, cacheKey, out)) {
+                    break;
+                }
+
                 // Prepare to encode the content.
                 final Result result = beginEncode(res, acceptEncoding);
 
@@ -138,6 +246,10 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
                 }
 
                 encoder = result.contentEncoder();
+                if (cacheKey != null) {
+                    cachingKey = cacheKey;
+                    cachingEncoding = result.targetContentEncoding();
+                }
 
                 // Encode the content and remove or replace the existing headers
                 // so that the message looks like a decoded message.
@@ -162,7 +274,7 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
             }
             case AWAIT_CONTENT: {
                 ensureContent(msg);
-                encodeContent((HttpContent) msg, out);
+                encodeContent(ctx, (HttpContent) msg, out);
                 if (out.last()  instanceof LastHttpContent) {
                     state = State.AWAIT_HEADERS;
                 }
@@ -180,6 +292,38 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         }
     }
 
+    /**
+     * Returns {@code true} if the content of the specified response may be taken from or added to the cache.  Only
+     * full responses with a body are cached, so the cached content never replaces a streamed body or appears in a
+     * response which must not have one.
+     */
+    private boolean isCacheable(HttpResponse res, boolean isFull) {
+        if (contentCache == null || !isFull || HttpMethod.HEAD.equals(method)) {
+            return false;
+        }
+        int code = res.getStatus().code();
+        return code >= 200 && code != 204 && code != 304;
+    }
+
+    private boolean encodeFromCache(FullHttpResponse res, Object cacheKey, MessageList<Object> out) {
+        String targetContentEncoding = targetContentEncoding(res, acceptEncoding);
+        if (targetContentEncoding == null) {
+            return false;
+        }
+        ByteBuf content = contentCache.get(cacheKey, targetContentEncoding);
+        if (content == null) {
+            return false;
+        }
+
+        res.headers().set(Names.CONTENT_ENCODING, targetContentEncoding);
+        res.headers().remove(Names.TRANSFER_ENCODING);
+        res.headers().set(Names.CONTENT_LENGTH, content.readableBytes());
+        FullHttpResponse newRes = new DefaultFullHttpResponse(res.getProtocolVersion(), res.getStatus(), content);
+        newRes.headers().set(res.headers());
+        out.add(newRes);
+        return true;
+    }
+
     private static void ensureHeaders(HttpObject msg) {
         if (!(msg instanceof HttpResponse)) {
             throw new IllegalStateException(
@@ -196,13 +340,13 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         }
     }
 
-    private void encodeContent(HttpContent c, MessageList<Object> out) {
+    private void encodeContent(ChannelHandlerContext ctx, HttpContent c, MessageList<Object> out) {
         ByteBuf content = c.content();
 
-        encode(content, out);
+        encode(ctx, content, out);
 
         if (c instanceof LastHttpContent) {
-            finishEncode(out);
+            finishEncode(ctx, out);
 
             // Generate an additional chunk if the decoder produced
             // the last product on closure,
@@ -226,18 +370,172 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
      */
     protected abstract Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception;
 
+    /**
+     * Returns the key which identifies the content of the specified response in the {@link HttpContentCache}, or
+     * {@code null} if the content should not be cached.  This method is only called for full responses with a body
+     * if a cache was {@linkplain #setContentCache(HttpContentCache) set}.  The key must identify the content among
+     * all responses which share the cache; an {@code "ETag"} alone is not enough because it is only unique for one
+     * resource.  The default implementation returns {@code null}, so a subclass must override this method to
+     * enable caching.
+     */
+    protected Object contentCacheKey(HttpResponse res) {
+        return null;
+    }
+
+    /**
+     * Returns the content encoding which {@link #beginEncode(HttpResponse, String)} would choose for the specified
+     * response, so the encoded content can be looked up in the {@link HttpContentCache} without preparing an
+     * encoder first.  The default implementation returns {@code null}, which disables the cache lookup.
+     */
+    protected String targetContentEncoding(HttpResponse headers, String acceptEncoding) {
+        return null;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
+        added = true;
+        if (encoderGroup != null) {
+            encoderExecutor = encoderGroup.next();
+            resumeReadTask = new Runnable() {
+                @Override
+                public void run() {
+                    if (!readSuspended || pendingChunks.get() >= maxPendingChunks) {
+                        return;
+                    }
+                    readSuspended = false;
+                    if (autoReadDisabled) {
+                        autoReadDisabled = false;
+                        // Triggers a read by itself.
+                        ctx.channel().config().setAutoRead(true);
+                    } else if (readPending) {
+                        readPending = false;
+                        ctx.read();
+                    }
+                }
+            };
+        }
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final MessageList<Object> msgs, final ChannelPromise promise)
+            throws Exception {
+        if (encoderExecutor == null) {
+            super.write(ctx, msgs, promise);
+            return;
+        }
+
+        final int size = msgs.size();
+        if (pendingChunks.addAndGet(size) >= maxPendingChunks && !readSuspended) {
+            readSuspended = true;
+            ChannelConfig config = ctx.channel().config();
+            if (config.isAutoRead()) {
+                // The transport keeps reading while auto read is on, so turn it off until the encoder catches up.
+                autoReadDisabled = true;
+                config.setAutoRead(false);
+            }
+        }
+        encoderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // The encoded messages are written from the encoder thread, which hands them over to the
+                    // I/O thread in order.
+                    HttpContentEncoder.super.write(ctx, msgs, promise);
+                } catch (Throwable t) {
+                    promise.tryFailure(t);
+                } finally {
+                    int pending = pendingChunks.addAndGet(-size);
+                    if (pending < maxPendingChunks && pending + size >= maxPendingChunks) {
+                        ctx.executor().execute(resumeReadTask);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (encoderExecutor == null) {
+            ctx.flush();
+            return;
+        }
+
+        // Flush once all messages which were written before have been encoded.
+        encoderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ctx.flush();
+            }
+        });
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        if (encoderExecutor == null) {
+            ctx.close(promise);
+            return;
+        }
+
+        encoderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ctx.close(promise);
+            }
+        });
+    }
+
+    @Override
+    public void disconnect(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        if (encoderExecutor == null) {
+            ctx.disconnect(promise);
+            return;
+        }
+
+        encoderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ctx.disconnect(promise);
+            }
+        });
+    }
+
+    @Override
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        if (readSuspended) {
+            readPending = true;
+        } else {
+            ctx.read();
+        }
+    }
+
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-        cleanup();
+        cleanupLater();
         super.handlerRemoved(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        cleanup();
+        cleanupLater();
         super.channelInactive(ctx);
     }
 
+    private void cleanupLater() {
+        if (encoderExecutor == null) {
+            cleanup();
+            return;
+        }
+
+        // The encoder is only accessed by the encoder thread.
+        encoderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                cleanup();
+            }
+        });
+    }
+
     private void cleanup() {
         if (encoder != null) {
             // Clean-up the previous encoder if not cleaned up correctly.
@@ -254,27 +552,57 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
             }
             encoder = null;
         }
+        releaseCachingContent();
+    }
+
+    private void releaseCachingContent() {
+        if (cachingContent != null) {
+            cachingContent.release();
+            cachingContent = null;
+        }
+        cachingKey = null;
+        cachingEncoding = null;
     }
 
-    private void encode(ByteBuf in, MessageList<Object> out) {
+    private void encode(ChannelHandlerContext ctx, ByteBuf in, MessageList<Object> out) {
         // call retain here as it will call release after its written to the channel
         encoder.writeOutbound(in.retain());
-        fetchEncoderOutput(out);
+        fetchEncoderOutput(ctx, out);
     }
 
-    private void finishEncode(MessageList<Object> out) {
+    private void finishEncode(ChannelHandlerContext ctx, MessageList<Object> out) {
         if (encoder.finish()) {
-            fetchEncoderOutput(out);
+            fetchEncoderOutput(ctx, out);
         }
         encoder = null;
+
+        if (cachingContent != null) {
+            contentCache.put(cachingKey, cachingEncoding, cachingContent);
+            cachingContent = null;
+        }
+        cachingKey = null;
+        cachingEncoding = null;
     }
 
-    private void fetchEncoderOutput(MessageList<Object> out) {
+    private void fetchEncoderOutput(ChannelHandlerContext ctx, MessageList<Object> out) {
         for (;;) {
             ByteBuf buf = (ByteBuf) encoder.readOutbound();
             if (buf == null) {
                 break;
             }
+            if (cachingKey != null) {
+                int cachedBytes = cachingContent == null ? 0 : cachingContent.readableBytes();
+                if (cachedBytes + buf.readableBytes() <= contentCache.maxBytes()) {
+                    if (cachingContent == null) {
+                        // Allocated with the first chunk, so nothing is allocated for contents which are too big.
+                        cachingContent = ctx.alloc().buffer(buf.readableBytes());
+                    }
+                    cachingContent.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+                } else {
+                    // Too big to be cached.
+                    releaseCachingContent();
+                }
+            }
             out.add(new DefaultHttpContent(buf));
         }
     }
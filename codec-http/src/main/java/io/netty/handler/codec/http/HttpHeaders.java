@@ -1015,7 +1015,7 @@ public abstract class HttpHeaders implements Iterable<Map.Entry<String, String>>
      *
      * @param headerName The header name being validated
      */
-    static void validateHeaderName(String headerName) {
+    static void validateHeaderName(CharSequence headerName) {
         //Check to see if the name is null
         if (headerName == null) {
             throw new NullPointerException("Header names cannot be null");
@@ -1047,7 +1047,7 @@ public abstract class HttpHeaders implements Iterable<Map.Entry<String, String>>
      *
      * @param headerValue The value being validated
      */
-    static void validateHeaderValue(String headerValue) {
+    static void validateHeaderValue(CharSequence headerValue) {
         //Check to see if the value is null
         if (headerValue == null) {
             throw new NullPointerException("Header values cannot be null");
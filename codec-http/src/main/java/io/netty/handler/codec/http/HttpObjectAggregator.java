@@ -123,7 +123,7 @@ public class HttpObjectAggregator extends MessageToMessageDecoder<HttpObject> {
             //       No need to notify the upstream handlers - just log.
             //       If decoding a response, just throw an exception.
             if (is100ContinueExpected(m)) {
-                ctx.write(CONTINUE.duplicate());
+                ctx.writeAndFlush(CONTINUE.duplicate());
             }
 
             if (!m.getDecoderResult().isSuccess()) {
@@ -16,6 +16,7 @@
 package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
@@ -23,6 +24,7 @@ import io.netty.channel.MessageList;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.ReplayingDecoder;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.internal.AppendableCharSequence;
 
 import java.util.List;
 
@@ -99,15 +101,98 @@ import java.util.List;
  */
 public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecoder.State> {
 
-    private final int maxInitialLineLength;
-    private final int maxHeaderSize;
+    /**
+     * Frequently used strings of the initial line and the headers, grouped by their length.  A decoded string which
+     * is equal to one of them is replaced by the constant, so that no new {@link String} has to be created for it.
+     */
+    private static final String[][] KNOWN_STRINGS;
+
+    static {
+        String[] knownStrings = {
+                // Methods and versions
+                HttpMethod.OPTIONS.name(), HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.POST.name(),
+                HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name(), HttpMethod.TRACE.name(),
+                HttpMethod.CONNECT.name(), HttpVersion.HTTP_1_0.text(), HttpVersion.HTTP_1_1.text(), "/",
+
+                // Status codes and reason phrases
+                "200", "OK", "204", "No Content", "206", "Partial Content", "301", "Moved Permanently",
+                "302", "Found", "304", "Not Modified", "400", "Bad Request", "401", "Unauthorized",
+                "403", "Forbidden", "404", "Not Found", "500", "Internal Server Error",
+                "503", "Service Unavailable",
+
+                // Header names
+                HttpHeaders.Names.ACCEPT, HttpHeaders.Names.ACCEPT_CHARSET, HttpHeaders.Names.ACCEPT_ENCODING,
+                HttpHeaders.Names.ACCEPT_LANGUAGE, HttpHeaders.Names.ACCEPT_RANGES, HttpHeaders.Names.AGE,
+                HttpHeaders.Names.AUTHORIZATION, HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Names.CONNECTION,
+                HttpHeaders.Names.CONTENT_ENCODING, HttpHeaders.Names.CONTENT_LANGUAGE,
+                HttpHeaders.Names.CONTENT_LENGTH, HttpHeaders.Names.CONTENT_LOCATION,
+                HttpHeaders.Names.CONTENT_RANGE, HttpHeaders.Names.CONTENT_TYPE, HttpHeaders.Names.COOKIE,
+                HttpHeaders.Names.DATE, HttpHeaders.Names.ETAG, HttpHeaders.Names.EXPECT, HttpHeaders.Names.EXPIRES,
+                HttpHeaders.Names.HOST, HttpHeaders.Names.IF_MATCH, HttpHeaders.Names.IF_MODIFIED_SINCE,
+                HttpHeaders.Names.IF_NONE_MATCH, HttpHeaders.Names.LAST_MODIFIED, HttpHeaders.Names.LOCATION,
+                HttpHeaders.Names.ORIGIN, HttpHeaders.Names.PRAGMA, HttpHeaders.Names.RANGE, HttpHeaders.Names.REFERER,
+                HttpHeaders.Names.SERVER, HttpHeaders.Names.SET_COOKIE, HttpHeaders.Names.TRANSFER_ENCODING,
+                HttpHeaders.Names.UPGRADE, HttpHeaders.Names.USER_AGENT, HttpHeaders.Names.VARY,
+                HttpHeaders.Names.VIA, "Keep-Alive", "X-Forwarded-For", "X-Requested-With",
+
+                // Header values
+                HttpHeaders.Values.CHUNKED, HttpHeaders.Values.CLOSE, HttpHeaders.Values.GZIP,
+                HttpHeaders.Values.DEFLATE, HttpHeaders.Values.IDENTITY, HttpHeaders.Values.KEEP_ALIVE,
+                HttpHeaders.Values.NO_CACHE, HttpHeaders.Values.BYTES, HttpHeaders.Values.CONTINUE, "Keep-Alive",
+                "*/*", "0", "gzip, deflate", "gzip,deflate", "en-US,en;q=0.5", "text/plain", "text/html",
+                "application/json"
+        };
+
+        int maxLength = 0;
+        for (String s: knownStrings) {
+            maxLength = Math.max(maxLength, s.length());
+        }
+
+        String[][] knownStringsByLength = new String[maxLength + 1][];
+        for (String s: knownStrings) {
+            String[] strings = knownStringsByLength[s.length()];
+            if (strings == null) {
+                strings = new String[] { s };
+            } else {
+                boolean duplicate = false;
+                for (String str: strings) {
+                    if (str.equals(s)) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (duplicate) {
+                    continue;
+                }
+                String[] newStrings = new String[strings.length + 1];
+                System.arraycopy(strings, 0, newStrings, 0, strings.length);
+                newStrings[strings.length] = s;
+                strings = newStrings;
+            }
+            knownStringsByLength[s.length()] = strings;
+        }
+        KNOWN_STRINGS = knownStringsByLength;
+    }
+
+    private static final ByteBufProcessor SKIP_CONTROL_CHARS = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            char c = (char) (value & 0xFF);
+            return Character.isISOControl(c) || Character.isWhitespace(c);
+        }
+    };
+
     private final int maxChunkSize;
     private final boolean chunkedSupported;
+    private final boolean asciiHeaders;
+    private final HeaderParser headerParser;
+    private final LineParser lineParser;
     private ByteBuf content;
     private HttpMessage message;
     private long chunkSize;
-    private int headerSize;
     private int contentRead;
+    private CharSequence name;
+    private CharSequence value;
 
     /**
      * The internal state of {@link HttpObjectDecoder}.
@@ -143,6 +228,19 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
      */
     protected HttpObjectDecoder(
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean chunkedSupported) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, false);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param asciiHeaders
+     *        {@code true} if the decoded messages should store their headers in {@link AsciiHttpHeaders}
+     *        (see {@link #newHeaders()})
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean chunkedSupported,
+            boolean asciiHeaders) {
 
         super(State.SKIP_CONTROL_CHARS);
 
@@ -161,10 +259,21 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
                     "maxChunkSize must be a positive integer: " +
                     maxChunkSize);
         }
-        this.maxInitialLineLength = maxInitialLineLength;
-        this.maxHeaderSize = maxHeaderSize;
+        AppendableCharSequence seq = new AppendableCharSequence(128);
+        lineParser = new LineParser(seq, maxInitialLineLength);
+        headerParser = new HeaderParser(seq, maxHeaderSize);
         this.maxChunkSize = maxChunkSize;
         this.chunkedSupported = chunkedSupported;
+        this.asciiHeaders = asciiHeaders;
+    }
+
+    /**
+     * Returns a new {@link HttpHeaders} instance for a decoded message, which is {@link AsciiHttpHeaders} if this
+     * decoder was created with {@code asciiHeaders} set to {@code true}, or {@link DefaultHttpHeaders} otherwise.
+     * {@link #createMessage(String[])} is expected to create its message with these headers.
+     */
+    protected HttpHeaders newHeaders() {
+        return asciiHeaders ? new AsciiHttpHeaders() : new DefaultHttpHeaders();
     }
 
     @Override
@@ -172,14 +281,20 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         switch (state()) {
         case SKIP_CONTROL_CHARS: {
             try {
-                skipControlCharacters(buffer);
+                if (!skipControlCharacters(buffer)) {
+                    return;
+                }
                 checkpoint(State.READ_INITIAL);
             } finally {
                 checkpoint();
             }
         }
         case READ_INITIAL: try {
-            String[] initialLine = splitInitialLine(readLine(buffer, maxInitialLineLength));
+            AppendableCharSequence line = lineParser.parse(buffer);
+            if (line == null) {
+                return;
+            }
+            String[] initialLine = splitInitialLine(line);
             if (initialLine.length < 3) {
                 // Invalid initial line - ignore.
                 checkpoint(State.SKIP_CONTROL_CHARS);
@@ -195,6 +310,9 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         }
         case READ_HEADER: try {
             State nextState = readHeaders(buffer);
+            if (nextState == null) {
+                return;
+            }
             checkpoint(nextState);
             if (nextState == State.READ_CHUNK_SIZE) {
                 if (!chunkedSupported) {
@@ -316,7 +434,10 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
          * read chunk, read and ignore the CRLF and repeat until 0
          */
         case READ_CHUNK_SIZE: try {
-            String line = readLine(buffer, maxInitialLineLength);
+            AppendableCharSequence line = lineParser.parse(buffer);
+            if (line == null) {
+                return;
+            }
             int chunkSize = getChunkSize(line);
             this.chunkSize = chunkSize;
             if (chunkSize == 0) {
@@ -395,6 +516,9 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         }
         case READ_CHUNK_FOOTER: try {
             LastHttpContent trailer = readTrailingHeaders(buffer);
+            if (trailer == null) {
+                return;
+            }
             if (maxChunkSize == 0) {
                 // Chunked encoding disabled.
                 reset(out);
@@ -528,15 +652,15 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         return chunk;
     }
 
-    private static void skipControlCharacters(ByteBuf buffer) {
-        for (;;) {
-            char c = (char) buffer.readUnsignedByte();
-            if (!Character.isISOControl(c) &&
-                !Character.isWhitespace(c)) {
-                buffer.readerIndex(buffer.readerIndex() - 1);
-                break;
-            }
+    private boolean skipControlCharacters(ByteBuf buffer) {
+        // Scan only the bytes received so far, so that the skipped bytes are not scanned again on the next call.
+        int i = buffer.forEachByte(buffer.readerIndex(), actualReadableBytes(), SKIP_CONTROL_CHARS);
+        if (i < 0) {
+            buffer.skipBytes(actualReadableBytes());
+            return false;
         }
+        buffer.readerIndex(i);
+        return true;
     }
 
     private void readFixedLengthContent(ByteBuf buffer, MessageList<Object> out) {
@@ -562,35 +686,43 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
     }
 
     private State readHeaders(ByteBuf buffer) {
-        headerSize = 0;
         final HttpMessage message = this.message;
         final HttpHeaders headers = message.headers();
 
-        String line = readHeader(buffer);
-        String name = null;
-        String value = null;
-        if (!line.isEmpty()) {
+        headerParser.reset();
+        AppendableCharSequence line = headerParser.parse(buffer);
+        if (line == null) {
+            return null;
+        }
+        if (line.length() > 0) {
             headers.clear();
+            final boolean ascii = headers instanceof AsciiHttpHeaders;
+            name = null;
+            value = null;
             do {
                 char firstChar = line.charAt(0);
                 if (name != null && (firstChar == ' ' || firstChar == '\t')) {
-                    value = value + ' ' + line.trim();
+                    value = value.toString() + ' ' + line.toString().trim();
                 } else {
                     if (name != null) {
-                        headers.add(name, value);
+                        addHeader(headers, name, value);
                     }
-                    String[] header = splitHeader(line);
-                    name = header[0];
-                    value = header[1];
+                    splitHeader(line, ascii);
                 }
 
-                line = readHeader(buffer);
-            } while (!line.isEmpty());
+                line = headerParser.parse(buffer);
+                if (line == null) {
+                    return null;
+                }
+            } while (line.length() > 0);
 
             // Add the last header.
             if (name != null) {
-                headers.add(name, value);
+                addHeader(headers, name, value);
             }
+            // reset name and value fields
+            name = null;
+            value = null;
         }
 
         State nextState;
@@ -609,10 +741,13 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
     }
 
     private LastHttpContent readTrailingHeaders(ByteBuf buffer) {
-        headerSize = 0;
-        String line = readHeader(buffer);
+        headerParser.reset();
+        AppendableCharSequence line = headerParser.parse(buffer);
+        if (line == null) {
+            return null;
+        }
         String lastHeader = null;
-        if (!line.isEmpty()) {
+        if (line.length() > 0) {
             LastHttpContent trailer = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER);
             do {
                 char firstChar = line.charAt(0);
@@ -620,24 +755,30 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
                     List<String> current = trailer.trailingHeaders().getAll(lastHeader);
                     if (!current.isEmpty()) {
                         int lastPos = current.size() - 1;
-                        String newString = current.get(lastPos) + line.trim();
+                        String newString = current.get(lastPos) + line.toString().trim();
                         current.set(lastPos, newString);
                     } else {
                         // Content-Length, Transfer-Encoding, or Trailer
                     }
                 } else {
-                    String[] header = splitHeader(line);
-                    String name = header[0];
-                    if (!name.equalsIgnoreCase(HttpHeaders.Names.CONTENT_LENGTH) &&
-                        !name.equalsIgnoreCase(HttpHeaders.Names.TRANSFER_ENCODING) &&
-                        !name.equalsIgnoreCase(HttpHeaders.Names.TRAILER)) {
-                        trailer.trailingHeaders().add(name, header[1]);
+                    splitHeader(line, false);
+                    String headerName = name.toString();
+                    if (!headerName.equalsIgnoreCase(HttpHeaders.Names.CONTENT_LENGTH) &&
+                        !headerName.equalsIgnoreCase(HttpHeaders.Names.TRANSFER_ENCODING) &&
+                        !headerName.equalsIgnoreCase(HttpHeaders.Names.TRAILER)) {
+                        trailer.trailingHeaders().add(headerName, value);
                     }
-                    lastHeader = name;
+                    lastHeader = headerName;
+                    // reset name and value fields
+                    name = null;
+                    value = null;
                 }
 
-                line = readHeader(buffer);
-            } while (!line.isEmpty());
+                line = headerParser.parse(buffer);
+                if (line == null) {
+                    return null;
+                }
+            } while (line.length() > 0);
 
             return trailer;
         }
@@ -645,91 +786,36 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         return LastHttpContent.EMPTY_LAST_CONTENT;
     }
 
-    private String readHeader(ByteBuf buffer) {
-        StringBuilder sb = new StringBuilder(64);
-        int headerSize = this.headerSize;
-
-        loop:
-        for (;;) {
-            char nextByte = (char) buffer.readByte();
-            headerSize ++;
-
-            switch (nextByte) {
-            case HttpConstants.CR:
-                nextByte = (char) buffer.readByte();
-                headerSize ++;
-                if (nextByte == HttpConstants.LF) {
-                    break loop;
-                }
-                break;
-            case HttpConstants.LF:
-                break loop;
-            }
-
-            // Abort decoding if the header part is too large.
-            if (headerSize >= maxHeaderSize) {
-                // TODO: Respond with Bad Request and discard the traffic
-                //    or close the connection.
-                //       No need to notify the upstream handlers - just log.
-                //       If decoding a response, just throw an exception.
-                throw new TooLongFrameException(
-                        "HTTP header is larger than " +
-                        maxHeaderSize + " bytes.");
-            }
-
-            sb.append(nextByte);
-        }
-
-        this.headerSize = headerSize;
-        return sb.toString();
-    }
-
     protected abstract boolean isDecodingRequest();
     protected abstract HttpMessage createMessage(String[] initialLine) throws Exception;
     protected abstract HttpMessage createInvalidMessage();
 
-    private static int getChunkSize(String hex) {
-        hex = hex.trim();
-        for (int i = 0; i < hex.length(); i ++) {
-            char c = hex.charAt(i);
+    private static int getChunkSize(AppendableCharSequence hex) {
+        final int length = hex.length();
+        int start = findNonWhitespace(hex, 0);
+        int end;
+        for (end = start; end < length; end ++) {
+            char c = hex.charAt(end);
             if (c == ';' || Character.isWhitespace(c) || Character.isISOControl(c)) {
-                hex = hex.substring(0, i);
                 break;
             }
         }
+        if (start == end) {
+            throw new NumberFormatException("missing chunk size: " + hex);
+        }
 
-        return Integer.parseInt(hex, 16);
-    }
-
-    private static String readLine(ByteBuf buffer, int maxLineLength) {
-        StringBuilder sb = new StringBuilder(64);
-        int lineLength = 0;
-        while (true) {
-            byte nextByte = buffer.readByte();
-            if (nextByte == HttpConstants.CR) {
-                nextByte = buffer.readByte();
-                if (nextByte == HttpConstants.LF) {
-                    return sb.toString();
-                }
-            } else if (nextByte == HttpConstants.LF) {
-                return sb.toString();
-            } else {
-                if (lineLength >= maxLineLength) {
-                    // TODO: Respond with Bad Request and discard the traffic
-                    //    or close the connection.
-                    //       No need to notify the upstream handlers - just log.
-                    //       If decoding a response, just throw an exception.
-                    throw new TooLongFrameException(
-                            "An HTTP line is larger than " + maxLineLength +
-                            " bytes.");
-                }
-                lineLength ++;
-                sb.append((char) nextByte);
+        int chunkSize = 0;
+        for (int i = start; i < end; i ++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0 || chunkSize > Integer.MAX_VALUE >>> 4) {
+                throw new NumberFormatException("invalid chunk size: " + hex);
             }
+            chunkSize = chunkSize << 4 | digit;
         }
+        return chunkSize;
     }
 
-    private static String[] splitInitialLine(String sb) {
+    private static String[] splitInitialLine(AppendableCharSequence sb) {
         int aStart;
         int aEnd;
         int bStart;
@@ -747,12 +833,20 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         cEnd = findEndOfString(sb);
 
         return new String[] {
-                sb.substring(aStart, aEnd),
-                sb.substring(bStart, bEnd),
-                cStart < cEnd? sb.substring(cStart, cEnd) : "" };
+                intern(sb, aStart, aEnd),
+                intern(sb, bStart, bEnd),
+                cStart < cEnd? intern(sb, cStart, cEnd) : "" };
+    }
+
+    private static void addHeader(HttpHeaders headers, CharSequence name, CharSequence value) {
+        if (headers instanceof AsciiHttpHeaders) {
+            ((AsciiHttpHeaders) headers).addAscii(name, value);
+        } else {
+            headers.add(name.toString(), value);
+        }
     }
 
-    private static String[] splitHeader(String sb) {
+    private void splitHeader(AppendableCharSequence sb, boolean ascii) {
         final int length = sb.length();
         int nameStart;
         int nameEnd;
@@ -775,22 +869,56 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
             }
         }
 
+        name = ascii? internAscii(sb, nameStart, nameEnd) : intern(sb, nameStart, nameEnd);
         valueStart = findNonWhitespace(sb, colonEnd);
         if (valueStart == length) {
-            return new String[] {
-                    sb.substring(nameStart, nameEnd),
-                    ""
-            };
+            value = "";
+        } else {
+            valueEnd = findEndOfString(sb);
+            value = ascii? internAscii(sb, valueStart, valueEnd) : intern(sb, valueStart, valueEnd);
         }
+    }
 
-        valueEnd = findEndOfString(sb);
-        return new String[] {
-                sb.substring(nameStart, nameEnd),
-                sb.substring(valueStart, valueEnd)
-        };
+    /**
+     * Returns the well-known constant which is equal to the specified region, or a new {@link String} if there is
+     * no such constant.
+     */
+    private static String intern(AppendableCharSequence sb, int start, int end) {
+        String known = findKnownString(sb, start, end);
+        if (known != null) {
+            return known;
+        }
+        return sb.substring(start, end);
+    }
+
+    /**
+     * Returns the shared {@link AsciiString} of the well-known constant which is equal to the specified region,
+     * or a new {@link AsciiString} if there is no such constant.  No {@link String} is created in either case.
+     */
+    private static AsciiString internAscii(AppendableCharSequence sb, int start, int end) {
+        String known = findKnownString(sb, start, end);
+        if (known != null) {
+            return AsciiHttpHeaders.toAsciiString(known);
+        }
+        return new AsciiString(sb, start, end);
     }
 
-    private static int findNonWhitespace(String sb, int offset) {
+    private static String findKnownString(AppendableCharSequence sb, int start, int end) {
+        int length = end - start;
+        if (length < KNOWN_STRINGS.length) {
+            String[] candidates = KNOWN_STRINGS[length];
+            if (candidates != null) {
+                for (String candidate: candidates) {
+                    if (sb.regionEquals(start, end, candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int findNonWhitespace(CharSequence sb, int offset) {
         int result;
         for (result = offset; result < sb.length(); result ++) {
             if (!Character.isWhitespace(sb.charAt(result))) {
@@ -800,7 +928,7 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         return result;
     }
 
-    private static int findWhitespace(String sb, int offset) {
+    private static int findWhitespace(CharSequence sb, int offset) {
         int result;
         for (result = offset; result < sb.length(); result ++) {
             if (Character.isWhitespace(sb.charAt(result))) {
@@ -810,7 +938,7 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         return result;
     }
 
-    private static int findEndOfString(String sb) {
+    private static int findEndOfString(CharSequence sb) {
         int result;
         for (result = sb.length(); result > 0; result --) {
             if (!Character.isWhitespace(sb.charAt(result - 1))) {
@@ -819,4 +947,82 @@ public abstract class HttpObjectDecoder extends ReplayingDecoder<HttpObjectDecod
         }
         return result;
     }
+
+    /**
+     * Reads a header line into the shared {@link AppendableCharSequence} without creating a new object.  The size
+     * of all header lines of a message is limited to {@code maxLength}.
+     */
+    private static class HeaderParser implements ByteBufProcessor {
+        private final AppendableCharSequence seq;
+        private final int maxLength;
+        private int size;
+
+        HeaderParser(AppendableCharSequence seq, int maxLength) {
+            this.seq = seq;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Returns the next line without the line delimiter, or {@code null} if the input was terminated before the
+         * end of the line.
+         */
+        AppendableCharSequence parse(ByteBuf buffer) {
+            seq.reset();
+            int i = buffer.forEachByte(this);
+            if (i < 0) {
+                return null;
+            }
+            buffer.readerIndex(i + 1);
+            return seq;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        @Override
+        public boolean process(byte value) throws Exception {
+            char nextByte = (char) (value & 0xFF);
+            if (nextByte == HttpConstants.CR) {
+                return true;
+            }
+            if (nextByte == HttpConstants.LF) {
+                return false;
+            }
+            if (++ size > maxLength) {
+                // TODO: Respond with Bad Request and discard the traffic
+                //    or close the connection.
+                //       No need to notify the upstream handlers - just log.
+                //       If decoding a response, just throw an exception.
+                throw newException(maxLength);
+            }
+            seq.append(nextByte);
+            return true;
+        }
+
+        TooLongFrameException newException(int maxLength) {
+            return new TooLongFrameException("HTTP header is larger than " + maxLength + " bytes.");
+        }
+    }
+
+    /**
+     * Reads the initial line or a chunk size line, whose length is limited to {@code maxLength} each.
+     */
+    private static final class LineParser extends HeaderParser {
+
+        LineParser(AppendableCharSequence seq, int maxLength) {
+            super(seq, maxLength);
+        }
+
+        @Override
+        AppendableCharSequence parse(ByteBuf buffer) {
+            reset();
+            return super.parse(buffer);
+        }
+
+        @Override
+        TooLongFrameException newException(int maxLength) {
+            return new TooLongFrameException("An HTTP line is larger than " + maxLength + " bytes.");
+        }
+    }
 }
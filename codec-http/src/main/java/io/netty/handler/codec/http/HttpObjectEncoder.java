@@ -53,6 +53,15 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
 
     @Override
     protected void encode(ChannelHandlerContext ctx, HttpObject msg, MessageList<Object> out) throws Exception {
+        if (msg instanceof PreEncodedHttpResponse) {
+            if (state != ST_INIT) {
+                throw new IllegalStateException("unexpected message type: " + msg.getClass().getSimpleName());
+            }
+
+            // Write the bytes which were encoded when the response was created.
+            out.add(((PreEncodedHttpResponse) msg).encoded());
+            return;
+        }
         if (msg instanceof HttpMessage) {
             if (state != ST_INIT) {
                 throw new IllegalStateException("unexpected message type: " + msg.getClass().getSimpleName());
@@ -117,7 +126,12 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
         }
     }
 
-    private static void encodeHeaders(ByteBuf buf, HttpHeaders headers) {
+    static void encodeHeaders(ByteBuf buf, HttpHeaders headers) {
+        if (headers instanceof AsciiHttpHeaders) {
+            // Copy the bytes as they are.
+            ((AsciiHttpHeaders) headers).encode(buf);
+            return;
+        }
         for (Map.Entry<String, String> h: headers) {
             encodeHeader(buf, h.getKey(), h.getValue());
         }
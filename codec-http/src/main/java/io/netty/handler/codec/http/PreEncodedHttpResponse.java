@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderResult;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.netty.handler.codec.http.HttpConstants.*;
+
+/**
+ * An immutable {@link FullHttpResponse} whose status line, headers and content are encoded only once, when it is
+ * created.  {@link HttpObjectEncoder} writes a duplicate of the encoded bytes for it, so sending the same response
+ * again and again, such as a health check reply or a static error page, costs almost nothing.
+ * <p>
+ * The instance can be shared by all {@link io.netty.channel.Channel}s and is never released, in the same way as
+ * {@link LastHttpContent#EMPTY_LAST_CONTENT}:
+ * <pre>
+ * private static final {@link FullHttpResponse} NOT_FOUND;
+ * static {
+ *     {@link FullHttpResponse} res = new {@link DefaultFullHttpResponse}({@link HttpVersion#HTTP_1_1},
+ *             {@link HttpResponseStatus#NOT_FOUND}, {@link Unpooled}.copiedBuffer("Not Found", CharsetUtil.UTF_8));
+ *     res.headers().set(Names.CONTENT_TYPE, "text/plain; charset=UTF-8");
+ *     NOT_FOUND = <b>new {@link PreEncodedHttpResponse}(res)</b>;
+ * }
+ *
+ * ctx.writeAndFlush(NOT_FOUND);
+ * </pre>
+ * If no {@code "Content-Length"} header is set, it is set to the length of the content.  Chunked responses are not
+ * supported.  All modifying operations throw an {@link UnsupportedOperationException}; use {@link #copy()} to get a
+ * mutable copy.
+ */
+public final class PreEncodedHttpResponse implements FullHttpResponse {
+
+    private static final byte[] CRLF = { CR, LF };
+
+    private final HttpVersion version;
+    private final HttpResponseStatus status;
+    private final HttpHeaders headers;
+    private final ByteBuf content;
+    private final ByteBuf encoded;
+
+    /**
+     * Creates a new instance which encodes the specified {@link FullHttpResponse}.  The specified response is not
+     * released.
+     */
+    public PreEncodedHttpResponse(FullHttpResponse response) {
+        if (response == null) {
+            throw new NullPointerException("response");
+        }
+        if (HttpHeaders.isTransferEncodingChunked(response)) {
+            throw new IllegalArgumentException("chunked response: " + response);
+        }
+        if (!response.trailingHeaders().isEmpty()) {
+            throw new IllegalArgumentException("response with trailing headers: " + response);
+        }
+
+        version = response.getProtocolVersion();
+        status = response.getStatus();
+
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(response.headers());
+        ByteBuf content = response.content();
+        if (!headers.contains(HttpHeaders.Names.CONTENT_LENGTH)) {
+            headers.set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+        }
+        this.headers = new ReadOnlyHttpHeaders(headers);
+
+        ByteBuf buf = Unpooled.directBuffer();
+        HttpResponseEncoder.encodeStatusLine(buf, response);
+        HttpObjectEncoder.encodeHeaders(buf, headers);
+        buf.writeBytes(CRLF);
+        int contentIndex = buf.writerIndex();
+        buf.writeBytes(content, content.readerIndex(), content.readableBytes());
+
+        encoded = Unpooled.unreleasableBuffer(Unpooled.unmodifiableBuffer(buf));
+        this.content = encoded.slice(contentIndex, encoded.readableBytes() - contentIndex);
+    }
+
+    /**
+     * Returns a new duplicate of the encoded response, which is written by {@link HttpObjectEncoder}.
+     */
+    ByteBuf encoded() {
+        return encoded.duplicate();
+    }
+
+    @Override
+    public HttpVersion getProtocolVersion() {
+        return version;
+    }
+
+    @Override
+    public FullHttpResponse setProtocolVersion(HttpVersion version) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public HttpResponseStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public FullHttpResponse setStatus(HttpResponseStatus status) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public HttpHeaders trailingHeaders() {
+        return HttpHeaders.EMPTY_HEADERS;
+    }
+
+    @Override
+    public ByteBuf content() {
+        return content.duplicate();
+    }
+
+    @Override
+    public DecoderResult getDecoderResult() {
+        return DecoderResult.SUCCESS;
+    }
+
+    @Override
+    public void setDecoderResult(DecoderResult result) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    /**
+     * Returns a mutable {@link DefaultFullHttpResponse} with a copy of the content of this response.
+     */
+    @Override
+    public FullHttpResponse copy() {
+        DefaultFullHttpResponse copy = new DefaultFullHttpResponse(version, status, content.copy());
+        copy.headers().set(headers);
+        return copy;
+    }
+
+    @Override
+    public FullHttpResponse duplicate() {
+        return this;
+    }
+
+    @Override
+    public int refCnt() {
+        return 1;
+    }
+
+    @Override
+    public FullHttpResponse retain() {
+        return this;
+    }
+
+    @Override
+    public FullHttpResponse retain(int increment) {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return false;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '(' + version + ' ' + status + ", " + content.readableBytes() + "B)";
+    }
+
+    private static final class ReadOnlyHttpHeaders extends HttpHeaders {
+
+        private final HttpHeaders headers;
+        private final List<Map.Entry<String, String>> entries;
+
+        ReadOnlyHttpHeaders(HttpHeaders headers) {
+            this.headers = headers;
+            List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>();
+            for (Map.Entry<String, String> e: headers) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<String, String>(e));
+            }
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        @Override
+        public String get(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public List<String> getAll(String name) {
+            return headers.getAll(name);
+        }
+
+        @Override
+        public List<Map.Entry<String, String>> entries() {
+            return entries;
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return headers.contains(name);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return headers.isEmpty();
+        }
+
+        @Override
+        public Set<String> names() {
+            return headers.names();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return entries.iterator();
+        }
+
+        @Override
+        public HttpHeaders add(String name, Object value) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public HttpHeaders add(String name, Iterable<?> values) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public HttpHeaders set(String name, Object value) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public HttpHeaders set(String name, Iterable<?> values) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public HttpHeaders remove(String name) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public HttpHeaders clear() {
+            throw new UnsupportedOperationException("read only");
+        }
+    }
+}
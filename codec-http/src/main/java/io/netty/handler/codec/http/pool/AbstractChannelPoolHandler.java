@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.channel.Channel;
+
+/**
+ * Skeletal {@link ChannelPoolHandler} implementation which does nothing when a {@link Channel} is acquired or
+ * released.
+ */
+public abstract class AbstractChannelPoolHandler implements ChannelPoolHandler {
+
+    @Override
+    public void channelAcquired(Channel ch) throws Exception {
+        // NOOP
+    }
+
+    @Override
+    public void channelReleased(Channel ch) throws Exception {
+        // NOOP
+    }
+}
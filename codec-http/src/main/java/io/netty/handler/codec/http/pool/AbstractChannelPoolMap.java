@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Skeletal {@link ChannelPoolMap} implementation which creates a {@link ChannelPool} for each key on demand.  To
+ * limit the number of connections per host, create a {@link FixedChannelPool} for each remote address:
+ * <pre>
+ * {@link io.netty.bootstrap.Bootstrap} b = ...;
+ * {@link ChannelPoolMap}&lt;{@link java.net.SocketAddress}, {@link FixedChannelPool}&gt; pools =
+ *         new {@link AbstractChannelPoolMap}&lt;{@link java.net.SocketAddress}, {@link FixedChannelPool}&gt;() {
+ *             protected {@link FixedChannelPool} newPool({@link java.net.SocketAddress} key) {
+ *                 return new {@link FixedChannelPool}(b.clone().remoteAddress(key), new MyPoolHandler(), 8);
+ *             }
+ *         };
+ * </pre>
+ *
+ * @param <K> the type of the key
+ * @param <P> the type of the {@link ChannelPool}
+ */
+public abstract class AbstractChannelPoolMap<K, P extends ChannelPool> implements ChannelPoolMap<K, P> {
+
+    private final ConcurrentMap<K, P> map = PlatformDependent.newConcurrentHashMap();
+
+    @Override
+    public final P get(K key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        P pool = map.get(key);
+        if (pool == null) {
+            pool = newPool(key);
+            P old = map.putIfAbsent(key, pool);
+            if (old != null) {
+                // Another thread created the pool in the meantime.
+                pool.close();
+                pool = old;
+            }
+        }
+        return pool;
+    }
+
+    @Override
+    public final boolean contains(K key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        return map.containsKey(key);
+    }
+
+    /**
+     * Removes and closes the {@link ChannelPool} for the specified {@code key}.
+     *
+     * @return {@code true} if a {@link ChannelPool} was removed
+     */
+    public final boolean remove(K key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        P pool = map.remove(key);
+        if (pool != null) {
+            pool.close();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes and closes all {@link ChannelPool}s.
+     */
+    public void close() {
+        for (K key: map.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Creates a new {@link ChannelPool} for the specified {@code key}.
+     */
+    protected abstract P newPool(K key);
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * Allows to acquire and release {@link Channel}s, so that connections, and the handshakes needed to establish them,
+ * are reused.  Every {@link Channel} which was acquired must be released once it is not used anymore, even if it
+ * was closed in the meantime.
+ */
+public interface ChannelPool {
+
+    /**
+     * Acquires a {@link Channel} from this pool.  The returned {@link Future} is notified once a healthy
+     * {@link Channel} was taken from the pool or a new connection was established.
+     */
+    Future<Channel> acquire();
+
+    /**
+     * Acquires a {@link Channel} from this pool and notifies the specified {@link Promise}.
+     */
+    Future<Channel> acquire(Promise<Channel> promise);
+
+    /**
+     * Releases a {@link Channel} which was acquired from this pool.  Inactive {@link Channel}s are not returned to
+     * the pool.  The returned {@link Future} fails with an {@link IllegalArgumentException} if the {@link Channel}
+     * was not acquired from this pool or was released already.
+     */
+    Future<Void> release(Channel channel);
+
+    /**
+     * Releases a {@link Channel} which was acquired from this pool and notifies the specified {@link Promise}.
+     */
+    Future<Void> release(Channel channel, Promise<Void> promise);
+
+    /**
+     * Closes this pool and all idle {@link Channel}s in it.  {@link Channel}s which are acquired are closed once
+     * they are released.
+     */
+    void close();
+}
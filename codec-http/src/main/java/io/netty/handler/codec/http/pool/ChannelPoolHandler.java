@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * Handles the life cycle of the {@link Channel}s of a {@link ChannelPool}.  All methods are called from the
+ * {@link io.netty.channel.EventLoop} of the {@link Channel}.
+ */
+public interface ChannelPoolHandler {
+
+    /**
+     * Called once a new {@link Channel} was created, before it is connected.  This is where the handlers are added
+     * to its {@link ChannelPipeline}.
+     */
+    void channelCreated(Channel ch) throws Exception;
+
+    /**
+     * Called before the {@link Channel} is handed out by {@link ChannelPool#acquire()}.
+     */
+    void channelAcquired(Channel ch) throws Exception;
+
+    /**
+     * Called once the {@link Channel} was given back by {@link ChannelPool#release(Channel)}.
+     */
+    void channelReleased(Channel ch) throws Exception;
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link SimpleChannelPool} which limits the number of {@link Channel}s that are acquired at the same time.  If the
+ * limit is reached, acquire operations wait until a {@link Channel} is released, and fail with a
+ * {@link TimeoutException} if this takes longer than {@code acquireTimeoutMillis}.
+ */
+public class FixedChannelPool extends SimpleChannelPool {
+
+    private final EventExecutor executor;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final long acquireTimeoutMillis;
+
+    private final Queue<AcquireTask> pendingAcquires = new ArrayDeque<AcquireTask>();
+    private int acquiredChannelCount;
+    private boolean closed;
+
+    /**
+     * Creates a new instance whose acquire operations wait for a {@link Channel} without a time limit.
+     */
+    public FixedChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, maxConnections, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap
+     *        the {@link Bootstrap} which is used to connect new {@link Channel}s
+     * @param handler
+     *        the {@link ChannelPoolHandler} which is notified about the life cycle of the {@link Channel}s
+     * @param healthChecker
+     *        the {@link ChannelHealthChecker} which checks idle {@link Channel}s before they are handed out
+     * @param idleTimeMillis
+     *        the time in milliseconds after which an idle {@link Channel} is closed.  Specify {@code 0} to disable.
+     * @param maxConnections
+     *        the maximum number of {@link Channel}s which are acquired at the same time
+     * @param maxPendingAcquires
+     *        the maximum number of acquire operations which wait for a {@link Channel}.  Further acquire
+     *        operations fail with an {@link IllegalStateException}.
+     * @param acquireTimeoutMillis
+     *        the time in milliseconds after which a waiting acquire operation fails.  Specify {@code 0} to disable.
+     */
+    public FixedChannelPool(
+            Bootstrap bootstrap, ChannelPoolHandler handler, ChannelHealthChecker healthChecker,
+            long idleTimeMillis, int maxConnections, int maxPendingAcquires, long acquireTimeoutMillis) {
+        super(bootstrap, handler, healthChecker, idleTimeMillis, maxConnections);
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections: " + maxConnections + " (expected: > 0)");
+        }
+        if (maxPendingAcquires < 0) {
+            throw new IllegalArgumentException("maxPendingAcquires: " + maxPendingAcquires + " (expected: >= 0)");
+        }
+        if (acquireTimeoutMillis < 0) {
+            throw new IllegalArgumentException(
+                    "acquireTimeoutMillis: " + acquireTimeoutMillis + " (expected: >= 0)");
+        }
+        executor = bootstrap().group().next();
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+
+        boolean acquire = false;
+        boolean tooManyPendingAcquires = false;
+        synchronized (this) {
+            if (closed || acquiredChannelCount < maxConnections) {
+                // If closed, SimpleChannelPool fails the operation and the count is decremented again.
+                acquiredChannelCount ++;
+                acquire = true;
+            } else if (pendingAcquires.size() >= maxPendingAcquires) {
+                tooManyPendingAcquires = true;
+            } else {
+                AcquireTask task = new AcquireTask(promise);
+                pendingAcquires.add(task);
+                if (acquireTimeoutMillis > 0) {
+                    task.timeoutFuture = executor.schedule(task, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (acquire) {
+            acquireAcquired(promise);
+        } else if (tooManyPendingAcquires) {
+            promise.tryFailure(new IllegalStateException(
+                    "Too many outstanding acquire operations (maxPendingAcquires: " + maxPendingAcquires + ')'));
+        }
+        return promise;
+    }
+
+    /**
+     * Acquires a {@link Channel} for an acquire operation which was counted already.
+     */
+    private void acquireAcquired(final Promise<Channel> promise) {
+        Promise<Channel> p = executor.newPromise();
+        p.addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) throws Exception {
+                if (future.isSuccess()) {
+                    Channel ch = future.getNow();
+                    if (!promise.trySuccess(ch)) {
+                        // The acquire operation was cancelled in the meantime.
+                        release(ch);
+                    }
+                } else {
+                    runPendingAcquire();
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+        super.acquire(p);
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, final Promise<Void> promise) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+        if (!markReleased(channel, promise)) {
+            // A double or foreign release must not free a slot.
+            return promise;
+        }
+        Promise<Void> p = executor.newPromise();
+        p.addListener(new FutureListener<Void>() {
+            @Override
+            public void operationComplete(Future<Void> future) throws Exception {
+                // The channel was acquired from this pool, so the next acquire operation can proceed.
+                runPendingAcquire();
+                Throwable cause = future.cause();
+                if (cause == null) {
+                    promise.trySuccess(null);
+                } else {
+                    promise.tryFailure(cause);
+                }
+            }
+        });
+        releaseAcquired(channel, p);
+        return promise;
+    }
+
+    /**
+     * Hands the slot of a {@link Channel} which is not acquired anymore over to the oldest pending acquire
+     * operation, or frees it if there is none.
+     */
+    private void runPendingAcquire() {
+        AcquireTask task;
+        synchronized (this) {
+            task = pendingAcquires.poll();
+            if (task == null) {
+                acquiredChannelCount --;
+                assert acquiredChannelCount >= 0;
+                return;
+            }
+        }
+        task.cancelTimeout();
+        acquireAcquired(task.promise);
+    }
+
+    @Override
+    public void close() {
+        List<AcquireTask> tasks;
+        synchronized (this) {
+            closed = true;
+            tasks = new ArrayList<AcquireTask>(pendingAcquires);
+            pendingAcquires.clear();
+        }
+        for (AcquireTask task: tasks) {
+            task.cancelTimeout();
+            task.promise.tryFailure(new IllegalStateException("ChannelPool closed"));
+        }
+        super.close();
+    }
+
+    private final class AcquireTask implements Runnable {
+        final Promise<Channel> promise;
+        ScheduledFuture<?> timeoutFuture;
+
+        AcquireTask(Promise<Channel> promise) {
+            this.promise = promise;
+        }
+
+        void cancelTimeout() {
+            ScheduledFuture<?> timeoutFuture;
+            synchronized (FixedChannelPool.this) {
+                timeoutFuture = this.timeoutFuture;
+            }
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean removed;
+            synchronized (FixedChannelPool.this) {
+                removed = pendingAcquires.remove(this);
+            }
+            if (removed) {
+                promise.tryFailure(new TimeoutException(
+                        "Acquire operation took longer than " + acquireTimeoutMillis + " milliseconds"));
+            }
+        }
+    }
+}
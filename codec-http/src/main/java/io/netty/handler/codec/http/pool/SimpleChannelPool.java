@@ -0,0 +1,371 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChannelPool} which creates a new connection whenever no idle {@link Channel} is available, and keeps the
+ * released {@link Channel}s in least recently used order.  The most recently released {@link Channel} is acquired
+ * first, so that a few connections are kept busy while the least recently used ones are evicted:
+ * <ul>
+ * <li>when they were idle for longer than {@code idleTimeMillis}, which is detected by an {@link IdleStateHandler}
+ *     at the head of the {@link ChannelPipeline},</li>
+ * <li>when more than {@code maxIdleChannels} are idle, or</li>
+ * <li>when they become inactive, e.g. because the remote peer closed the connection.</li>
+ * </ul>
+ * Every idle {@link Channel} is checked by the {@link ChannelHealthChecker} before it is handed out.
+ * <p>
+ * The {@link Bootstrap} must be configured with the remote address to connect to.  Its handler is replaced, so the
+ * {@link ChannelPipeline} needs to be set up in {@link ChannelPoolHandler#channelCreated(Channel)}.
+ */
+public class SimpleChannelPool implements ChannelPool {
+
+    // Set while the channel is acquired from the pool, so that a double or foreign release is detected.
+    private static final AttributeKey<SimpleChannelPool> POOL_KEY =
+            new AttributeKey<SimpleChannelPool>("SimpleChannelPool.pool");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthChecker;
+    private final int maxIdleChannels;
+
+    // The most recently released channel is at the head of the deque.
+    private final Deque<Channel> idleChannels = new ArrayDeque<Channel>();
+    private boolean closed;
+
+    /**
+     * Creates a new instance which checks if a {@link Channel} is active before it is handed out, and never evicts
+     * idle {@link Channel}s which are still active.
+     */
+    public SimpleChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE);
+    }
+
+    /**
+     * Creates a new instance which never evicts idle {@link Channel}s which are still active.
+     */
+    public SimpleChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, ChannelHealthChecker healthChecker) {
+        this(bootstrap, handler, healthChecker, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap
+     *        the {@link Bootstrap} which is used to connect new {@link Channel}s
+     * @param handler
+     *        the {@link ChannelPoolHandler} which is notified about the life cycle of the {@link Channel}s
+     * @param healthChecker
+     *        the {@link ChannelHealthChecker} which checks idle {@link Channel}s before they are handed out
+     * @param idleTimeMillis
+     *        the time in milliseconds after which an idle {@link Channel} is closed.  Specify {@code 0} to disable.
+     * @param maxIdleChannels
+     *        the maximum number of idle {@link Channel}s.  The least recently used {@link Channel} is closed if
+     *        more {@link Channel}s are released.
+     */
+    public SimpleChannelPool(
+            Bootstrap bootstrap, final ChannelPoolHandler handler, ChannelHealthChecker healthChecker,
+            final long idleTimeMillis, int maxIdleChannels) {
+        if (bootstrap == null) {
+            throw new NullPointerException("bootstrap");
+        }
+        if (handler == null) {
+            throw new NullPointerException("handler");
+        }
+        if (healthChecker == null) {
+            throw new NullPointerException("healthChecker");
+        }
+        if (idleTimeMillis < 0) {
+            throw new IllegalArgumentException("idleTimeMillis: " + idleTimeMillis + " (expected: >= 0)");
+        }
+        if (maxIdleChannels < 0) {
+            throw new IllegalArgumentException("maxIdleChannels: " + maxIdleChannels + " (expected: >= 0)");
+        }
+
+        this.handler = handler;
+        this.healthChecker = healthChecker;
+        this.maxIdleChannels = maxIdleChannels;
+        this.bootstrap = bootstrap.clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                ChannelPipeline p = ch.pipeline();
+                if (idleTimeMillis > 0) {
+                    p.addLast(new IdleStateHandler(0, 0, idleTimeMillis, TimeUnit.MILLISECONDS));
+                }
+                p.addLast(new IdleChannelHandler());
+                handler.channelCreated(ch);
+            }
+        });
+    }
+
+    /**
+     * Returns the {@link Bootstrap} which is used to connect new {@link Channel}s.
+     */
+    protected final Bootstrap bootstrap() {
+        return bootstrap;
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        return acquire(bootstrap.group().next().<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+        acquire0(promise);
+        return promise;
+    }
+
+    private void acquire0(Promise<Channel> promise) {
+        boolean closed;
+        Channel ch;
+        synchronized (this) {
+            closed = this.closed;
+            ch = closed ? null : idleChannels.pollFirst();
+        }
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("ChannelPool closed"));
+        } else if (ch == null) {
+            connect(promise);
+        } else {
+            checkHealth(ch, promise);
+        }
+    }
+
+    private void connect(final Promise<Channel> promise) {
+        bootstrap.connect().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    notifyAcquired(future.channel(), promise);
+                } else {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+
+    private void checkHealth(final Channel ch, final Promise<Channel> promise) {
+        EventLoop loop = ch.eventLoop();
+        if (loop.inEventLoop()) {
+            checkHealth0(ch, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    checkHealth0(ch, promise);
+                }
+            });
+        }
+    }
+
+    private void checkHealth0(final Channel ch, final Promise<Channel> promise) {
+        Future<Boolean> f = healthChecker.isHealthy(ch);
+        if (f.isDone()) {
+            notifyHealthCheck(f, ch, promise);
+        } else {
+            f.addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) throws Exception {
+                    notifyHealthCheck(future, ch, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyHealthCheck(Future<Boolean> future, Channel ch, Promise<Channel> promise) {
+        if (future.isSuccess() && future.getNow()) {
+            notifyAcquired(ch, promise);
+        } else {
+            // Throw away the unhealthy channel and try the next one.
+            ch.close();
+            acquire0(promise);
+        }
+    }
+
+    private void notifyAcquired(Channel ch, Promise<Channel> promise) {
+        try {
+            handler.channelAcquired(ch);
+        } catch (Throwable t) {
+            ch.close();
+            promise.tryFailure(t);
+            return;
+        }
+        ch.attr(POOL_KEY).set(this);
+        if (!promise.trySuccess(ch)) {
+            // The acquire operation was cancelled in the meantime.
+            release(ch);
+        }
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+        if (markReleased(channel, promise)) {
+            releaseAcquired(channel, promise);
+        }
+        return promise;
+    }
+
+    /**
+     * Marks the specified {@link Channel} as released.  If it is not acquired from this pool, e.g. because it was
+     * released already, the promise is failed with an {@link IllegalArgumentException}.
+     *
+     * @return {@code true} if the {@link Channel} was acquired from this pool
+     */
+    final boolean markReleased(Channel channel, Promise<Void> promise) {
+        if (channel.attr(POOL_KEY).compareAndSet(this, null)) {
+            return true;
+        }
+        promise.setFailure(new IllegalArgumentException(
+                "Channel " + channel + " was not acquired from this ChannelPool or was released already"));
+        return false;
+    }
+
+    /**
+     * Returns the specified {@link Channel}, which was {@linkplain #markReleased(Channel, Promise) marked as
+     * released} already, to the pool.
+     */
+    final void releaseAcquired(final Channel channel, final Promise<Void> promise) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            release0(channel, promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    release0(channel, promise);
+                }
+            });
+        }
+    }
+
+    private void release0(Channel channel, Promise<Void> promise) {
+        try {
+            handler.channelReleased(channel);
+        } catch (Throwable t) {
+            channel.close();
+            promise.setFailure(t);
+            return;
+        }
+
+        if (channel.isActive()) {
+            boolean close;
+            Channel evicted = null;
+            synchronized (this) {
+                close = closed;
+                if (!close) {
+                    idleChannels.addFirst(channel);
+                    if (idleChannels.size() > maxIdleChannels) {
+                        evicted = idleChannels.pollLast();
+                    }
+                }
+            }
+            if (close) {
+                channel.close();
+            }
+            if (evicted != null) {
+                evicted.close();
+            }
+        }
+        promise.setSuccess(null);
+    }
+
+    /**
+     * Removes the specified {@link Channel} if it is idle.
+     *
+     * @return {@code true} if the {@link Channel} was idle
+     */
+    private synchronized boolean removeIdle(Channel channel) {
+        return idleChannels.remove(channel);
+    }
+
+    @Override
+    public void close() {
+        List<Channel> channels;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channels = new ArrayList<Channel>(idleChannels);
+            idleChannels.clear();
+        }
+        for (Channel ch: channels) {
+            ch.close();
+        }
+    }
+
+    private final class IdleChannelHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent && ((IdleStateEvent) evt).state() == IdleState.ALL_IDLE) {
+                if (removeIdle(ctx.channel())) {
+                    // The channel was not used for too long.
+                    ctx.close();
+                    return;
+                }
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            removeIdle(ctx.channel());
+            ctx.fireChannelInactive();
+        }
+    }
+}
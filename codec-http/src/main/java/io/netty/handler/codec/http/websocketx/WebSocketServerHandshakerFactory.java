@@ -118,6 +118,6 @@ public class WebSocketServerHandshakerFactory {
                 HttpVersion.HTTP_1_1,
                 HttpResponseStatus.UPGRADE_REQUIRED);
         res.headers().set(Names.SEC_WEBSOCKET_VERSION, WebSocketVersion.V13.toHttpHeaderValue());
-        channel.write(res);
+        channel.writeAndFlush(res);
     }
 }
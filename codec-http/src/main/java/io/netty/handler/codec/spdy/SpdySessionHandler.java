@@ -188,7 +188,7 @@ public class SpdySessionHandler
                     while (spdyDataFrame.content().readableBytes() > initialReceiveWindowSize) {
                         SpdyDataFrame partialDataFrame = new DefaultSpdyDataFrame(streamId,
                                 spdyDataFrame.content().readSlice(initialReceiveWindowSize).retain());
-                        ctx.write(partialDataFrame);
+                        ctx.writeAndFlush(partialDataFrame);
                     }
                 }
 
@@ -198,7 +198,7 @@ public class SpdySessionHandler
                     spdySession.updateReceiveWindowSize(streamId, deltaWindowSize);
                     SpdyWindowUpdateFrame spdyWindowUpdateFrame =
                             new DefaultSpdyWindowUpdateFrame(streamId, deltaWindowSize);
-                    ctx.write(spdyWindowUpdateFrame);
+                    ctx.writeAndFlush(spdyWindowUpdateFrame);
                 }
             }
 
@@ -336,7 +336,7 @@ public class SpdySessionHandler
             SpdyPingFrame spdyPingFrame = (SpdyPingFrame) msg;
 
             if (isRemoteInitiatedID(spdyPingFrame.getId())) {
-                ctx.write(spdyPingFrame);
+                ctx.writeAndFlush(spdyPingFrame);
                 return;
             }
 
@@ -682,7 +682,7 @@ public class SpdySessionHandler
         removeStream(ctx, streamId);
 
         SpdyRstStreamFrame spdyRstStreamFrame = new DefaultSpdyRstStreamFrame(streamId, status);
-        ctx.write(spdyRstStreamFrame);
+        ctx.writeAndFlush(spdyRstStreamFrame);
         if (fireMessageReceived) {
             in.add(spdyRstStreamFrame);
             ctx.fireMessageReceived(in.copy());
@@ -878,7 +878,7 @@ public class SpdySessionHandler
         if (!sentGoAwayFrame) {
             sentGoAwayFrame = true;
             SpdyGoAwayFrame spdyGoAwayFrame = new DefaultSpdyGoAwayFrame(lastGoodStreamId, status);
-            return ctx.write(spdyGoAwayFrame);
+            return ctx.writeAndFlush(spdyGoAwayFrame);
         } else {
             return ctx.newSucceededFuture();
         }
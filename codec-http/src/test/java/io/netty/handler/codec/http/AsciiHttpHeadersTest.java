@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AsciiHttpHeadersTest {
+
+    @Test
+    public void testCaseInsensitiveLookup() {
+        AsciiHttpHeaders headers = new AsciiHttpHeaders();
+        headers.add("Content-Type", "text/plain");
+        headers.addAscii(new AsciiString("X-Foo"), "bar");
+        headers.add("x-foo", "baz");
+
+        assertEquals("text/plain", headers.get("content-type"));
+        assertEquals("text/plain", headers.getAscii(new AsciiString("CONTENT-TYPE")).toString());
+        assertEquals(Arrays.asList("bar", "baz"), headers.getAll("X-FOO"));
+        assertTrue(headers.contains("x-Foo"));
+
+        headers.remove("X-foo");
+        assertFalse(headers.contains("X-Foo"));
+        assertNull(headers.getAscii("x-foo"));
+        assertEquals(1, headers.entries().size());
+    }
+
+    @Test
+    public void testSet() {
+        AsciiHttpHeaders headers = new AsciiHttpHeaders();
+        headers.add("Accept", "a");
+        headers.add("Accept", "b");
+        headers.setAscii("accept", "c");
+        assertEquals(Arrays.asList("c"), headers.getAll("Accept"));
+        headers.set("Accept", Arrays.asList("d", "e"));
+        assertEquals(Arrays.asList("d", "e"), headers.getAll("Accept"));
+        headers.clear();
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void testAsciiString() {
+        AsciiString s = new AsciiString("Hello, World");
+        assertEquals("Hello, World", s.toString());
+        assertEquals(12, s.length());
+        assertEquals("World", s.subSequence(7, 12).toString());
+        assertEquals(new AsciiString("World"), s.subSequence(7, 12));
+        assertEquals(new AsciiString("World").hashCode(), s.subSequence(7, 12).hashCode());
+    }
+
+    @Test
+    public void testDecodeAndEncode() {
+        String request = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "x-custom-header: Some Value\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n";
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpRequestDecoder(4096, 8192, 8192, true), new HttpRequestEncoder());
+        channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII));
+
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertTrue(req.headers() instanceof AsciiHttpHeaders);
+        assertEquals("localhost", req.headers().get("HOST"));
+        assertEquals("Some Value", req.headers().get("X-Custom-Header"));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+
+        channel.writeOutbound(req, LastHttpContent.EMPTY_LAST_CONTENT);
+        ByteBuf buf = Unpooled.buffer();
+        for (;;) {
+            ByteBuf out = (ByteBuf) channel.readOutbound();
+            if (out == null) {
+                break;
+            }
+            buf.writeBytes(out);
+            out.release();
+        }
+        assertEquals(request, buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertFalse(channel.finish());
+    }
+}
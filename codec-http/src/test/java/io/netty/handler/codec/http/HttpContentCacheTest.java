@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HttpContentCacheTest {
+
+    @Test
+    public void testGetReturnsRetainedSlice() {
+        HttpContentCache cache = new HttpContentCache(100);
+        ByteBuf content = Unpooled.buffer().writeBytes(new byte[10]);
+        cache.put("a", "gzip", content);
+        assertNull(cache.get("a", "deflate"));
+        assertNull(cache.get("b", "gzip"));
+
+        ByteBuf cached = cache.get("a", "gzip");
+        assertEquals(10, cached.readableBytes());
+        assertEquals(2, content.refCnt());
+        cached.skipBytes(10);
+        assertEquals(10, cache.get("a", "gzip").readableBytes());
+        try {
+            cached.setByte(0, 1);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.usedBytes());
+        // Still referenced by the returned slices.
+        assertEquals(2, content.refCnt());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        HttpContentCache cache = new HttpContentCache(100);
+        ByteBuf a = Unpooled.buffer().writeBytes(new byte[40]);
+        ByteBuf b = Unpooled.buffer().writeBytes(new byte[40]);
+        ByteBuf c = Unpooled.buffer().writeBytes(new byte[40]);
+        cache.put("a", "gzip", a);
+        cache.put("b", "gzip", b);
+        cache.get("a", "gzip").release();
+        cache.put("c", "gzip", c);
+
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.usedBytes());
+        assertEquals(0, b.refCnt());
+        assertNull(cache.get("b", "gzip"));
+        cache.get("a", "gzip").release();
+        cache.get("c", "gzip").release();
+    }
+
+    @Test
+    public void testReplaceAndTooBigContent() {
+        HttpContentCache cache = new HttpContentCache(100);
+        ByteBuf a1 = Unpooled.buffer().writeBytes(new byte[10]);
+        ByteBuf a2 = Unpooled.buffer().writeBytes(new byte[20]);
+        cache.put("a", "gzip", a1);
+        cache.put("a", "gzip", a2);
+        assertEquals(0, a1.refCnt());
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.usedBytes());
+
+        ByteBuf big = Unpooled.buffer().writeBytes(new byte[101]);
+        cache.put("big", "gzip", big);
+        assertEquals(0, big.refCnt());
+        assertEquals(1, cache.size());
+    }
+}
@@ -15,11 +15,36 @@
  */
 package io.netty.handler.codec.http;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MessageList;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.http.HttpHeaders.Names;
+import io.netty.handler.codec.http.HttpHeaders.Values;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 
@@ -89,4 +114,342 @@ public class HttpContentCompressorTest {
 
         assertThat(ch.readOutbound(), is(nullValue()));
     }
+
+    @Test
+    public void testSmallContentIsNotCompressed() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(6, 15, 8, 1024));
+        ch.writeInbound(newRequest());
+
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer("small", CharsetUtil.US_ASCII));
+        ch.writeOutbound(res);
+
+        FullHttpResponse out = (FullHttpResponse) ch.readOutbound();
+        assertThat(out.headers().get(Names.CONTENT_ENCODING), is(nullValue()));
+        assertThat(out.headers().get(Names.CONTENT_LENGTH), is("5"));
+        assertThat(out.content().toString(CharsetUtil.US_ASCII), is("small"));
+        out.release();
+        assertThat(ch.readOutbound(), is(nullValue()));
+
+        // A big enough response is compressed.
+        ch.writeInbound(newRequest());
+        HttpResponse big = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        big.headers().set(Names.CONTENT_LENGTH, 2048);
+        ch.writeOutbound(big);
+        assertThat(((HttpResponse) ch.readOutbound()).headers().get(Names.CONTENT_ENCODING), is("gzip"));
+        ch.finish();
+    }
+
+    @Test
+    public void testCompressedContentTypeIsNotCompressed() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        assertFalse(compressor.isContentTypeCompressible("image/png"));
+        assertFalse(compressor.isContentTypeCompressible("Video/MP4"));
+        assertFalse(compressor.isContentTypeCompressible("application/zip; foo=bar"));
+        assertTrue(compressor.isContentTypeCompressible("image/svg+xml"));
+        assertTrue(compressor.isContentTypeCompressible("application/json; charset=UTF-8"));
+
+        EmbeddedChannel ch = new EmbeddedChannel(compressor);
+        ch.writeInbound(newRequest());
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(new byte[100]));
+        res.headers().set(Names.CONTENT_TYPE, "image/jpeg");
+        ch.writeOutbound(res);
+
+        FullHttpResponse out = (FullHttpResponse) ch.readOutbound();
+        assertThat(out.headers().get(Names.CONTENT_ENCODING), is(nullValue()));
+        assertThat(out.content().readableBytes(), is(100));
+        out.release();
+        assertThat(ch.readOutbound(), is(nullValue()));
+        ch.finish();
+    }
+
+    @Test(timeout = 10000)
+    public void testCompressionInEventExecutorGroup() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup(1);
+        final EventExecutorGroup compressorGroup = new DefaultEventExecutorGroup(1);
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        final byte[] chunk = new byte[8192];
+        for (int i = 0; i < chunk.length; i ++) {
+            chunk[i] = (byte) ('a' + i % 7);
+        }
+        final int chunks = 64;
+        try {
+            Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            ch.pipeline().addLast(new HttpContentCompressor(6, 15, 8, 0, compressorGroup, 4));
+                            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                                    msgs.releaseAllAndRecycle();
+                                    ctx.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+                                    for (int i = 0; i < chunks; i ++) {
+                                        ctx.write(new DefaultHttpContent(Unpooled.wrappedBuffer(chunk)));
+                                    }
+                                    ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+                                }
+                            });
+                        }
+                    }).bind(LocalAddress.ANY).sync().channel();
+
+            Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                            for (int i = 0; i < msgs.size(); i ++) {
+                                received.add(msgs.get(i));
+                            }
+                            msgs.recycle();
+                        }
+                    }).connect(sc.localAddress()).sync().channel();
+            cc.writeAndFlush(newRequest()).sync();
+
+            HttpResponse res = (HttpResponse) received.poll(5, TimeUnit.SECONDS);
+            assertThat(res.headers().get(Names.CONTENT_ENCODING), is("gzip"));
+
+            EmbeddedChannel decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+            for (;;) {
+                HttpContent content = (HttpContent) received.poll(5, TimeUnit.SECONDS);
+                assertThat(content, is(notNullValue()));
+                if (content.content().isReadable()) {
+                    decoder.writeInbound(content.content().retain());
+                }
+                content.release();
+                if (content instanceof LastHttpContent) {
+                    break;
+                }
+            }
+            decoder.finish();
+
+            ByteBuf decompressed = Unpooled.buffer();
+            for (;;) {
+                ByteBuf buf = (ByteBuf) decoder.readInbound();
+                if (buf == null) {
+                    break;
+                }
+                decompressed.writeBytes(buf);
+                buf.release();
+            }
+            assertThat(decompressed.readableBytes(), is(chunk.length * chunks));
+            for (int i = 0; i < chunks; i ++) {
+                assertThat(decompressed.readSlice(chunk.length), is(Unpooled.wrappedBuffer(chunk)));
+            }
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            group.shutdownGracefully();
+            compressorGroup.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testAutoReadSuspendedWhileEncoderFallsBehind() throws Exception {
+        EventLoopGroup group = new LocalEventLoopGroup(1);
+        final EventExecutorGroup compressorGroup = new DefaultEventExecutorGroup(1);
+        final BlockingQueue<Channel> children = new LinkedBlockingQueue<Channel>();
+        final BlockingQueue<Boolean> autoReadAfterWrite = new LinkedBlockingQueue<Boolean>();
+        final CountDownLatch encoderBlocked = new CountDownLatch(1);
+        try {
+            // Keep the encoder busy so that the written chunks pile up.
+            compressorGroup.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        encoderBlocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) throws Exception {
+                            ch.pipeline().addLast(new HttpContentCompressor(6, 15, 8, 0, compressorGroup, 4));
+                            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                                    msgs.releaseAllAndRecycle();
+                                    ctx.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+                                    for (int i = 0; i < 8; i ++) {
+                                        ctx.write(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[1024])));
+                                    }
+                                    ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+                                    autoReadAfterWrite.add(ctx.channel().config().isAutoRead());
+                                    children.add(ctx.channel());
+                                }
+                            });
+                        }
+                    }).bind(LocalAddress.ANY).sync().channel();
+
+            Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                            msgs.releaseAllAndRecycle();
+                        }
+                    }).connect(sc.localAddress()).sync().channel();
+            cc.writeAndFlush(newRequest()).sync();
+
+            assertThat(autoReadAfterWrite.poll(5, TimeUnit.SECONDS), is(false));
+            Channel child = children.poll(5, TimeUnit.SECONDS);
+
+            encoderBlocked.countDown();
+            while (!child.config().isAutoRead()) {
+                Thread.sleep(10);
+            }
+
+            cc.close().sync();
+            sc.close().sync();
+        } finally {
+            encoderBlocked.countDown();
+            group.shutdownGracefully();
+            compressorGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testContentCache() throws Exception {
+        HttpContentCache cache = new HttpContentCache(1024 * 1024);
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) ('a' + i % 7);
+        }
+
+        // The first response is compressed and cached.
+        HttpContentCompressor compressor = new HttpContentCompressor() {
+            @Override
+            protected Object contentCacheKey(HttpResponse res) {
+                return res.headers().get(Names.ETAG);
+            }
+        };
+        compressor.setContentCache(cache);
+        EmbeddedChannel ch = new EmbeddedChannel(compressor);
+        ch.writeInbound(newRequest());
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+
+        assertThat(((HttpResponse) ch.readOutbound()).headers().get(Names.CONTENT_ENCODING), is("gzip"));
+        ByteBuf compressed = Unpooled.buffer();
+        for (;;) {
+            HttpContent content = (HttpContent) ch.readOutbound();
+            compressed.writeBytes(content.content());
+            content.release();
+            if (content instanceof LastHttpContent) {
+                break;
+            }
+        }
+        assertThat(cache.size(), is(1));
+        assertThat(cache.usedBytes(), is((long) compressed.readableBytes()));
+
+        // The second response is served from the cache.
+        ch.writeInbound(newRequest());
+        res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+
+        FullHttpResponse cached = (FullHttpResponse) ch.readOutbound();
+        assertThat(cached.headers().get(Names.CONTENT_ENCODING), is("gzip"));
+        assertThat(cached.headers().get(Names.TRANSFER_ENCODING), is(nullValue()));
+        assertThat(cached.headers().get(Names.CONTENT_LENGTH), is(String.valueOf(compressed.readableBytes())));
+        assertThat(cached.content(), is(compressed));
+        cached.release();
+        assertThat(ch.readOutbound(), is(nullValue()));
+
+        // A streamed response is not served from the cache.
+        ch.writeInbound(newRequest());
+        HttpResponse streamed = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        streamed.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(streamed);
+        ch.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(data)));
+        assertNotServedFromCache(ch);
+
+        // Neither is the response to a HEAD request nor a response which must not have a body.
+        FullHttpRequest head = newRequest();
+        head.setMethod(HttpMethod.HEAD);
+        ch.writeInbound(head);
+        res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+        assertNotServedFromCache(ch);
+
+        ch.writeInbound(newRequest());
+        res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_MODIFIED, Unpooled.wrappedBuffer(data));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+        assertNotServedFromCache(ch);
+
+        // Deflate is cached separately.
+        assertThat(cache.get("\"v1\"", "deflate"), is(nullValue()));
+        assertThat(cache.size(), is(1));
+        ch.finish();
+        cache.clear();
+    }
+
+    @Test
+    public void testContentCacheDisabledByDefault() throws Exception {
+        HttpContentCache cache = new HttpContentCache(1024 * 1024);
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        compressor.setContentCache(cache);
+        EmbeddedChannel ch = new EmbeddedChannel(compressor);
+        ch.writeInbound(newRequest());
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(new byte[1024]));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+        assertNotServedFromCache(ch);
+        assertThat(cache.size(), is(0));
+        ch.finish();
+    }
+
+    @Test
+    public void testContentCacheSkipsTooBigContent() throws Exception {
+        HttpContentCache cache = new HttpContentCache(16);
+        HttpContentCompressor compressor = new HttpContentCompressor() {
+            @Override
+            protected Object contentCacheKey(HttpResponse res) {
+                return res.headers().get(Names.ETAG);
+            }
+        };
+        compressor.setContentCache(cache);
+        EmbeddedChannel ch = new EmbeddedChannel(compressor);
+        ch.writeInbound(newRequest());
+        byte[] data = new byte[10000];
+        new Random(42).nextBytes(data);
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(data));
+        res.headers().set(Names.ETAG, "\"v1\"");
+        ch.writeOutbound(res);
+        assertNotServedFromCache(ch);
+        assertThat(cache.size(), is(0));
+        assertThat(cache.usedBytes(), is(0L));
+        ch.finish();
+    }
+
+    private static void assertNotServedFromCache(EmbeddedChannel ch) {
+        HttpResponse res = (HttpResponse) ch.readOutbound();
+        assertThat(res, is(not(instanceOf(FullHttpResponse.class))));
+        assertThat(res.headers().get(Names.TRANSFER_ENCODING), is(Values.CHUNKED));
+        for (;;) {
+            HttpContent content = (HttpContent) ch.readOutbound();
+            content.release();
+            if (content instanceof LastHttpContent) {
+                break;
+            }
+        }
+        assertThat(ch.readOutbound(), is(nullValue()));
+    }
+
+    private static FullHttpRequest newRequest() {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        req.headers().set(Names.ACCEPT_ENCODING, "gzip");
+        return req;
+    }
 }
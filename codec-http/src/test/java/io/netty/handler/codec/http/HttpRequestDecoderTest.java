@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+public class HttpRequestDecoderTest {
+
+    private static final byte[] CONTENT_CRLF_DELIMITERS = createContent("\r\n");
+    private static final byte[] CONTENT_LF_DELIMITERS = createContent("\n");
+    private static final byte[] CONTENT_MIXED_DELIMITERS = createContent("\r\n", "\n");
+
+    private static byte[] createContent(String... lineDelimiters) {
+        String lineDelimiter;
+        String lineDelimiter2;
+        if (lineDelimiters.length == 2) {
+            lineDelimiter = lineDelimiters[0];
+            lineDelimiter2 = lineDelimiters[1];
+        } else {
+            lineDelimiter = lineDelimiters[0];
+            lineDelimiter2 = lineDelimiters[0];
+        }
+        return ("GET /some/path?foo=bar&wibble=eek HTTP/1.1" + "\r\n" +
+                "Upgrade: WebSocket" + lineDelimiter2 +
+                "Connection: Upgrade" + lineDelimiter +
+                "Host: localhost" + lineDelimiter2 +
+                "Origin: http://localhost:8080" + lineDelimiter +
+                "Sec-WebSocket-Key1: 10  28 8V7 8 48     0" + lineDelimiter2 +
+                "Sec-WebSocket-Key2: 8 Xt754O3Q3QW 0   _60" + lineDelimiter +
+                "Content-Length: 8" + lineDelimiter2 +
+                "\r\n"  +
+                "12345678").getBytes(CharsetUtil.US_ASCII);
+    }
+
+    @Test
+    public void testDecodeWholeRequestAtOnceCRLFDelimiters() {
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS);
+    }
+
+    @Test
+    public void testDecodeWholeRequestAtOnceLFDelimiters() {
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS);
+    }
+
+    @Test
+    public void testDecodeWholeRequestAtOnceMixedDelimiters() {
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS);
+    }
+
+    private static void testDecodeWholeRequestAtOnce(byte[] content) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(content)));
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertNotNull(req);
+        checkHeaders(req.headers());
+        LastHttpContent c = (LastHttpContent) channel.readInbound();
+        assertEquals(8, c.content().readableBytes());
+        assertEquals(Unpooled.wrappedBuffer(content, content.length - 8, 8), c.content().readBytes(8));
+        c.release();
+        assertFalse(channel.finish());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsCRLFDelimiters() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS);
+    }
+
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsLFDelimiters() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS);
+    }
+
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsMixedDelimiters() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS);
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content) {
+        for (int i = 1; i < content.length; i++) {
+            testDecodeWholeRequestInMultipleSteps(content, i);
+        }
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        int headerLength = content.length - 8;
+
+        // split up the header
+        for (int a = 0; a < headerLength;) {
+            int amount = fragmentSize;
+            if (a + amount > headerLength) {
+                amount = headerLength -  a;
+            }
+
+            // if header is done it should produce a HttpRequest
+            channel.writeInbound(Unpooled.wrappedBuffer(content, a, amount));
+            a += amount;
+        }
+
+        // The content is smaller than maxChunkSize, so it is produced as a whole once it is complete.
+        for (int i = 8; i > 0; i--) {
+            channel.writeInbound(Unpooled.wrappedBuffer(content, content.length - i, 1));
+        }
+
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertNotNull(req);
+        checkHeaders(req.headers());
+
+        LastHttpContent c = (LastHttpContent) channel.readInbound();
+        assertEquals(Unpooled.wrappedBuffer(content, content.length - 8, 8), c.content());
+        c.release();
+
+        assertFalse(channel.finish());
+        assertNull(channel.readInbound());
+    }
+
+    private static void checkHeaders(HttpHeaders headers) {
+        assertEquals(7, headers.names().size());
+        checkHeader(headers, "Upgrade", "WebSocket");
+        checkHeader(headers, "Connection", "Upgrade");
+        checkHeader(headers, "Host", "localhost");
+        checkHeader(headers, "Origin", "http://localhost:8080");
+        checkHeader(headers, "Sec-WebSocket-Key1", "10  28 8V7 8 48     0");
+        checkHeader(headers, "Sec-WebSocket-Key2", "8 Xt754O3Q3QW 0   _60");
+        checkHeader(headers, "Content-Length", "8");
+    }
+
+    private static void checkHeader(HttpHeaders headers, String name, String value) {
+        assertEquals(1, headers.getAll(name).size());
+        assertEquals(value, headers.get(name));
+    }
+
+    @Test
+    public void testWellKnownStringsAreInterned() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        channel.writeInbound(Unpooled.copiedBuffer(
+                "GET / HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n\r\n", CharsetUtil.US_ASCII));
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertThat(req.getMethod(), sameInstance(HttpMethod.GET));
+        assertThat(req.getProtocolVersion(), sameInstance(HttpVersion.HTTP_1_1));
+        assertEquals("/", req.getUri());
+
+        for (Map.Entry<String, String> e: req.headers()) {
+            if (e.getKey().equals(HttpHeaders.Names.HOST)) {
+                assertThat(e.getKey(), sameInstance(HttpHeaders.Names.HOST));
+                assertEquals("localhost", e.getValue());
+            } else {
+                assertThat(e.getKey(), sameInstance(HttpHeaders.Names.CONNECTION));
+                assertThat(e.getValue(), sameInstance(HttpHeaders.Values.KEEP_ALIVE));
+            }
+        }
+        assertThat(channel.readInbound(), is((Object) LastHttpContent.EMPTY_LAST_CONTENT));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFoldedHeaderValue() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        channel.writeInbound(Unpooled.copiedBuffer(
+                "GET / HTTP/1.1\r\nX-Folded: foo\r\n \t bar \r\n\r\n", CharsetUtil.US_ASCII));
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertEquals("foo bar", req.headers().get("X-Folded"));
+        assertThat(channel.readInbound(), is((Object) LastHttpContent.EMPTY_LAST_CONTENT));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testChunkedRequestWithTrailer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        channel.writeInbound(Unpooled.copiedBuffer(
+                "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "a ; ext=1\r\n0123456789\r\n0\r\nX-Trailer: baz\r\n\r\n", CharsetUtil.US_ASCII));
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertTrue(HttpHeaders.isTransferEncodingChunked(req));
+
+        HttpContent chunk = (HttpContent) channel.readInbound();
+        assertEquals("0123456789", chunk.content().toString(CharsetUtil.US_ASCII));
+        chunk.release();
+
+        LastHttpContent trailer = (LastHttpContent) channel.readInbound();
+        assertEquals("baz", trailer.trailingHeaders().get("X-Trailer"));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testTooLongHeader() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(4096, 16, 8192));
+        channel.writeInbound(Unpooled.copiedBuffer(
+                "GET / HTTP/1.1\r\nX-Too-Long: 0123456789\r\n\r\n", CharsetUtil.US_ASCII));
+        HttpRequest req = (HttpRequest) channel.readInbound();
+        assertTrue(req.getDecoderResult().isFailure());
+        assertThat(req.getDecoderResult().cause(), instanceOf(TooLongFrameException.class));
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PreEncodedHttpResponseTest {
+
+    private static final String ENCODED = "HTTP/1.1 404 Not Found\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "Content-Length: 9\r\n" +
+            "\r\n" +
+            "Not Found";
+
+    private static FullHttpResponse newResponse() {
+        FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND,
+                Unpooled.copiedBuffer("Not Found", CharsetUtil.US_ASCII));
+        res.headers().set(HttpHeaders.Names.CONTENT_TYPE, "text/plain");
+        return new PreEncodedHttpResponse(res);
+    }
+
+    @Test
+    public void testEncodeMultipleTimes() {
+        FullHttpResponse res = newResponse();
+        assertEquals("9", res.headers().get(HttpHeaders.Names.CONTENT_LENGTH));
+        assertEquals("Not Found", res.content().toString(CharsetUtil.US_ASCII));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        for (int i = 0; i < 3; i ++) {
+            assertTrue(channel.writeOutbound(res));
+            ByteBuf buf = (ByteBuf) channel.readOutbound();
+            assertEquals(ENCODED, buf.toString(CharsetUtil.US_ASCII));
+            buf.release();
+            assertNull(channel.readOutbound());
+        }
+
+        // The response must not be released.
+        assertEquals(1, res.refCnt());
+        assertEquals("Not Found", res.content().toString(CharsetUtil.US_ASCII));
+
+        // Regular responses are encoded as before.
+        FullHttpResponse copy = res.copy();
+        assertTrue(channel.writeOutbound(copy));
+        ByteBuf buf = Unpooled.buffer();
+        for (;;) {
+            ByteBuf out = (ByteBuf) channel.readOutbound();
+            if (out == null) {
+                break;
+            }
+            buf.writeBytes(out);
+            out.release();
+        }
+        assertEquals(ENCODED, buf.toString(CharsetUtil.US_ASCII));
+        buf.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testHeadersAreReadOnly() {
+        newResponse().headers().set(HttpHeaders.Names.SERVER, "Netty");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStatusIsReadOnly() {
+        newResponse().setStatus(HttpResponseStatus.OK);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkedResponse() {
+        FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        res.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        new PreEncodedHttpResponse(res);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ChannelPoolTest {
+
+    private static final EventLoopGroup group = new LocalEventLoopGroup();
+
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+    private CountingHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        // NOOP
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+        bootstrap = new Bootstrap().group(group).channel(LocalChannel.class)
+                .remoteAddress(serverChannel.localAddress());
+        handler = new CountingHandler();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serverChannel.close().sync();
+    }
+
+    @AfterClass
+    public static void destroyGroup() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testReuseMostRecentlyUsed() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(bootstrap, handler);
+        Channel ch1 = pool.acquire().sync().getNow();
+        Channel ch2 = pool.acquire().sync().getNow();
+        assertNotSame(ch1, ch2);
+        assertEquals(2, handler.created.get());
+
+        pool.release(ch1).sync();
+        pool.release(ch2).sync();
+        assertSame(ch2, pool.acquire().sync().getNow());
+        assertSame(ch1, pool.acquire().sync().getNow());
+        assertEquals(2, handler.created.get());
+        assertEquals(4, handler.acquired.get());
+        assertEquals(2, handler.released.get());
+
+        pool.release(ch1).sync();
+        pool.close();
+        ch1.closeFuture().sync();
+        pool.release(ch2).sync();
+        ch2.closeFuture().sync();
+        assertFalse(pool.acquire().await().isSuccess());
+    }
+
+    @Test(timeout = 10000)
+    public void testUnhealthyChannelIsReplaced() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(bootstrap, handler);
+        Channel ch1 = pool.acquire().sync().getNow();
+        pool.release(ch1).sync();
+        ch1.close().sync();
+
+        Channel ch2 = pool.acquire().sync().getNow();
+        assertNotSame(ch1, ch2);
+        assertTrue(ch2.isActive());
+        pool.release(ch2).sync();
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxIdleChannels() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, 1);
+        Channel ch1 = pool.acquire().sync().getNow();
+        Channel ch2 = pool.acquire().sync().getNow();
+        pool.release(ch1).sync();
+        pool.release(ch2).sync();
+
+        // The least recently used channel was evicted.
+        ch1.closeFuture().sync();
+        assertTrue(ch2.isActive());
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testIdleChannelIsEvicted() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(
+                bootstrap, handler, ChannelHealthChecker.ACTIVE, 100, Integer.MAX_VALUE);
+        Channel ch = pool.acquire().sync().getNow();
+        pool.release(ch).sync();
+        ch.closeFuture().sync();
+
+        assertNotSame(ch, pool.acquire().sync().getNow());
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testReleaseForeignChannel() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(bootstrap, handler);
+        SimpleChannelPool pool2 = new SimpleChannelPool(bootstrap, handler);
+        Channel ch = pool.acquire().sync().getNow();
+        assertTrue(pool2.release(ch).await().cause() instanceof IllegalArgumentException);
+        pool.release(ch).sync();
+        pool.close();
+        pool2.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testDoubleRelease() throws Exception {
+        SimpleChannelPool pool = new SimpleChannelPool(bootstrap, handler);
+        Channel ch = pool.acquire().sync().getNow();
+        pool.release(ch).sync();
+        assertTrue(pool.release(ch).await().cause() instanceof IllegalArgumentException);
+        assertEquals(1, handler.released.get());
+
+        // The channel was returned to the pool only once.
+        assertSame(ch, pool.acquire().sync().getNow());
+        assertNotSame(ch, pool.acquire().sync().getNow());
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testFixedChannelPoolDoubleRelease() throws Exception {
+        FixedChannelPool pool = new FixedChannelPool(
+                bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, 1, 1, 0);
+        Channel ch = pool.acquire().sync().getNow();
+        pool.release(ch).sync();
+        ch = pool.acquire().sync().getNow();
+        Future<Channel> pending = pool.acquire();
+
+        // A foreign release must not free the slot.
+        SimpleChannelPool pool2 = new SimpleChannelPool(bootstrap, handler);
+        Channel foreign = pool2.acquire().sync().getNow();
+        assertTrue(pool.release(foreign).await().cause() instanceof IllegalArgumentException);
+        assertFalse(pending.isDone());
+
+        pool.release(ch).sync();
+        assertSame(ch, pending.sync().getNow());
+        assertTrue(pool.release(ch).sync().isSuccess());
+        assertTrue(pool.release(ch).await().cause() instanceof IllegalArgumentException);
+
+        pool2.release(foreign).sync();
+        pool.close();
+        pool2.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testFixedChannelPool() throws Exception {
+        FixedChannelPool pool = new FixedChannelPool(
+                bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, 1, 1, 0);
+        Channel ch = pool.acquire().sync().getNow();
+        Future<Channel> pending = pool.acquire();
+        assertFalse(pending.isDone());
+        assertTrue(pool.acquire().await().cause() instanceof IllegalStateException);
+
+        pool.release(ch).sync();
+        assertSame(ch, pending.sync().getNow());
+        assertEquals(1, handler.created.get());
+
+        pool.release(ch).sync();
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testFixedChannelPoolAcquireTimeout() throws Exception {
+        FixedChannelPool pool = new FixedChannelPool(
+                bootstrap, handler, ChannelHealthChecker.ACTIVE, 0, 1, Integer.MAX_VALUE, 100);
+        Channel ch = pool.acquire().sync().getNow();
+        Future<Channel> pending = pool.acquire();
+        assertTrue(pending.await(5, TimeUnit.SECONDS));
+        assertTrue(pending.cause() instanceof TimeoutException);
+
+        // The timed out operation must not take the slot of the released channel.
+        pool.release(ch).sync();
+        assertSame(ch, pool.acquire().sync().getNow());
+        pool.release(ch).sync();
+        pool.close();
+    }
+
+    private static final class CountingHandler extends AbstractChannelPoolHandler {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger acquired = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+
+        @Override
+        public void channelCreated(Channel ch) throws Exception {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public void channelAcquired(Channel ch) throws Exception {
+            acquired.incrementAndGet();
+        }
+
+        @Override
+        public void channelReleased(Channel ch) throws Exception {
+            released.incrementAndGet();
+        }
+    }
+}
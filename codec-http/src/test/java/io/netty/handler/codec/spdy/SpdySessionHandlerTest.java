@@ -290,18 +290,18 @@ public class SpdySessionHandlerTest {
             SpdySynStreamFrame spdySynStreamFrame =
                     new DefaultSpdySynStreamFrame(streamId, 0, (byte) 0);
             spdySynStreamFrame.setLast(true);
-            ctx.write(spdySynStreamFrame);
+            ctx.writeAndFlush(spdySynStreamFrame);
             spdySynStreamFrame.setStreamId(spdySynStreamFrame.getStreamId() + 2);
-            ctx.write(spdySynStreamFrame);
+            ctx.writeAndFlush(spdySynStreamFrame);
             spdySynStreamFrame.setStreamId(spdySynStreamFrame.getStreamId() + 2);
-            ctx.write(spdySynStreamFrame);
+            ctx.writeAndFlush(spdySynStreamFrame);
             spdySynStreamFrame.setStreamId(spdySynStreamFrame.getStreamId() + 2);
-            ctx.write(spdySynStreamFrame);
+            ctx.writeAndFlush(spdySynStreamFrame);
 
             // Limit the number of concurrent streams to 3
             SpdySettingsFrame spdySettingsFrame = new DefaultSpdySettingsFrame();
             spdySettingsFrame.setValue(SpdySettingsFrame.SETTINGS_MAX_CONCURRENT_STREAMS, 3);
-            ctx.write(spdySettingsFrame);
+            ctx.writeAndFlush(spdySettingsFrame);
         }
 
         @Override
@@ -317,7 +317,7 @@ public class SpdySessionHandlerTest {
                         spdySynReplyFrame.headers().add(entry.getKey(), entry.getValue());
                     }
 
-                    ctx.write(spdySynReplyFrame);
+                    ctx.writeAndFlush(spdySynReplyFrame);
                 }
                 return;
             }
@@ -330,7 +330,7 @@ public class SpdySessionHandlerTest {
                     msg instanceof SpdyPingFrame ||
                     msg instanceof SpdyHeadersFrame) {
 
-                ctx.write(msg);
+                ctx.writeAndFlush(msg);
                 return;
             }
 
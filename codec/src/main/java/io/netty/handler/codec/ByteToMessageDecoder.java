@@ -16,6 +16,8 @@
 package io.netty.handler.codec;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -41,10 +43,91 @@ import io.netty.util.internal.StringUtil;
  *
  * Be aware that sub-classes of {@link ByteToMessageDecoder} <strong>MUST NOT</strong>
  * annotated with {@link @Sharable}.
+ *
+ * <h3>Cumulation</h3>
+ *
+ * The received bytes which were not decoded yet are kept in a cumulation buffer.  By default, the
+ * {@link #MERGE_CUMULATOR} copies the received buffers into the cumulation buffer, which is expanded if needed.
+ * A decoder of large messages can {@linkplain #setCumulator(Cumulator) use} the {@link #COMPOSITE_CUMULATOR}
+ * instead, which avoids copying the bytes and expanding the cumulation buffer again and again.
  */
 public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter {
 
+    /**
+     * Cumulates the received buffers by copying them into a single buffer, which is expanded if needed.  This is
+     * the default, as decoders read a single buffer faster than a {@link CompositeByteBuf}.
+     */
+    public static final Cumulator MERGE_CUMULATOR = new Cumulator() {
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            try {
+                ByteBuf buffer = cumulation;
+                if (buffer.writerIndex() > buffer.maxCapacity() - in.readableBytes()) {
+                    buffer = alloc.buffer(cumulation.readableBytes() + in.readableBytes());
+                    buffer.writeBytes(cumulation);
+                    cumulation.release();
+                }
+                buffer.writeBytes(in);
+                return buffer;
+            } finally {
+                in.release();
+            }
+        }
+    };
+
+    /**
+     * Cumulates the received buffers by adding them to a {@link CompositeByteBuf} without copying them.  Only
+     * small buffers are copied, once a few of them have been received in a row, so that the cumulation buffer does
+     * not end up with a component for each of them.  This is faster than the {@link #MERGE_CUMULATOR} for messages
+     * which span many received buffers, such as large messages of a length-prefixed protocol.
+     */
+    public static final Cumulator COMPOSITE_CUMULATOR = new Cumulator() {
+        // A component smaller than this is merged with the small components before it.
+        private static final int MIN_COMPONENT_SIZE = 4096;
+        // The number of small components in a row which are merged, even if they are smaller than MIN_COMPONENT_SIZE
+        // in total.  It bounds the work done for each received buffer.
+        private static final int MAX_SMALL_COMPONENTS = 16;
+
+        @Override
+        public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+            if (!in.isReadable()) {
+                in.release();
+                return cumulation;
+            }
+
+            CompositeByteBuf composite;
+            if (cumulation instanceof CompositeByteBuf && cumulation.writerIndex() == cumulation.capacity()) {
+                composite = (CompositeByteBuf) cumulation;
+            } else {
+                // Wrap the received buffer which became the cumulation buffer, or a composite buffer with writable
+                // bytes, which new components cannot be appended to.
+                composite = alloc.compositeBuffer(Integer.MAX_VALUE);
+                composite.addComponent(cumulation);
+                composite.writerIndex(composite.capacity());
+            }
+            composite.addComponent(in);
+            composite.writerIndex(composite.writerIndex() + in.readableBytes());
+
+            int end = composite.numComponents();
+            int start = end;
+            int smallBytes = 0;
+            while (start > 0 && end - start < MAX_SMALL_COMPONENTS) {
+                int length = composite.internalComponent(start - 1).readableBytes();
+                if (length >= MIN_COMPONENT_SIZE) {
+                    break;
+                }
+                smallBytes += length;
+                start --;
+            }
+            if (end - start == MAX_SMALL_COMPONENTS || end - start > 1 && smallBytes >= MIN_COMPONENT_SIZE) {
+                composite.consolidate(start, end - start);
+            }
+            return composite;
+        }
+    };
+
     protected ByteBuf cumulation;
+    private Cumulator cumulator = MERGE_CUMULATOR;
     private boolean singleDecode;
     private boolean decodeWasNull;
     private MessageList<Object> out;
@@ -75,6 +158,24 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         return singleDecode;
     }
 
+    /**
+     * Sets the {@link Cumulator} which adds the received buffers to the cumulation buffer.  The default is the
+     * {@link #MERGE_CUMULATOR}.
+     */
+    public void setCumulator(Cumulator cumulator) {
+        if (cumulator == null) {
+            throw new NullPointerException("cumulator");
+        }
+        this.cumulator = cumulator;
+    }
+
+    /**
+     * Returns the {@link Cumulator} which adds the received buffers to the cumulation buffer.
+     */
+    public Cumulator getCumulator() {
+        return cumulator;
+    }
+
     /**
      * Returns the actual number of readable bytes in the internal cumulative
      * buffer of this decoder. You usually do not need to rely on this value
@@ -144,13 +245,7 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
                         }
                     } else {
                         try {
-                            if (cumulation.writerIndex() > cumulation.maxCapacity() - data.readableBytes()) {
-                                ByteBuf oldCumulation = cumulation;
-                                cumulation = ctx.alloc().buffer(oldCumulation.readableBytes() + data.readableBytes());
-                                cumulation.writeBytes(oldCumulation);
-                                oldCumulation.release();
-                            }
-                            cumulation.writeBytes(data);
+                            cumulation = cumulator.cumulate(ctx.alloc(), cumulation, data);
                             callDecode(ctx, cumulation, out);
                         } finally {
                             if (!cumulation.isReadable()) {
@@ -159,7 +254,6 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
                             } else {
                                 cumulation.discardSomeReadBytes();
                             }
-                            data.release();
                         }
                     }
                 } else {
@@ -278,4 +372,21 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
     protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, MessageList<Object> out) throws Exception {
         decode(ctx, in, out);
     }
+
+    /**
+     * Adds a received buffer to the cumulation buffer of a {@link ByteToMessageDecoder}.
+     */
+    public interface Cumulator {
+        /**
+         * Adds the readable bytes of {@code in} to {@code cumulation}.  The cumulator takes over the ownership of
+         * both buffers: it must release {@code in} unless it keeps it as a part of the returned buffer, and it must
+         * release {@code cumulation} if it returns another buffer.
+         *
+         * @param alloc         the {@link ByteBufAllocator} to allocate a new cumulation buffer with
+         * @param cumulation    the current cumulation buffer, which is readable
+         * @param in            the received buffer
+         * @return the new cumulation buffer, which may be {@code cumulation} itself
+         */
+        ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in);
+    }
 }
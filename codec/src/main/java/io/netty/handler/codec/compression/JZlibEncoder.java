@@ -385,7 +385,7 @@ public class JZlibEncoder extends ZlibEncoder {
             }
         }
 
-        ctx.write(footer, future);
+        ctx.writeAndFlush(footer, future);
         return future;
     }
 
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.MessageList;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses a {@link ByteBuf} using the {@link Inflater} of the JDK, which is backed by the native zlib.
+ */
+public class JdkZlibDecoder extends ZlibDecoder {
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int FRESERVED = 0xE0;
+
+    private enum GzipState {
+        HEADER_START,
+        HEADER_END,
+        FLG_READ,
+        XLEN_READ,
+        SKIP_FNAME,
+        SKIP_COMMENT,
+        PROCESS_FHCRC,
+        FOOTER_START,
+    }
+
+    private Inflater inflater;
+    private final byte[] dictionary;
+
+    // GZIP related
+    private final CRC32 crc;
+    private GzipState gzipState = GzipState.HEADER_START;
+    private int flags = -1;
+    private int xlen = -1;
+
+    private byte[] inputBuffer;
+    private volatile boolean finished;
+    private boolean decideZlibOrNone;
+
+    /**
+     * Creates a new instance with the default wrapper ({@link ZlibWrapper#ZLIB}).
+     */
+    public JdkZlibDecoder() {
+        this(ZlibWrapper.ZLIB, null);
+    }
+
+    /**
+     * Creates a new instance with the specified preset dictionary. The wrapper
+     * is always {@link ZlibWrapper#ZLIB} because it is the only format that
+     * supports the preset dictionary.
+     */
+    public JdkZlibDecoder(byte[] dictionary) {
+        this(ZlibWrapper.ZLIB, dictionary);
+        if (dictionary == null) {
+            throw new NullPointerException("dictionary");
+        }
+    }
+
+    /**
+     * Creates a new instance with the specified wrapper.
+     */
+    public JdkZlibDecoder(ZlibWrapper wrapper) {
+        this(wrapper, null);
+    }
+
+    private JdkZlibDecoder(ZlibWrapper wrapper, byte[] dictionary) {
+        if (wrapper == null) {
+            throw new NullPointerException("wrapper");
+        }
+        switch (wrapper) {
+            case GZIP:
+                inflater = new Inflater(true);
+                crc = new CRC32();
+                break;
+            case NONE:
+                inflater = new Inflater(true);
+                crc = null;
+                break;
+            case ZLIB:
+                inflater = new Inflater();
+                crc = null;
+                break;
+            case ZLIB_OR_NONE:
+                // Postpone the decision until decode(...) is called.
+                decideZlibOrNone = true;
+                crc = null;
+                break;
+            default:
+                throw new IllegalArgumentException("Only GZIP or ZLIB is supported, but you used " + wrapper);
+        }
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return finished;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, MessageList<Object> out) throws Exception {
+        if (finished) {
+            // Skip data received after finished.
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        if (decideZlibOrNone) {
+            // First two bytes are needed to decide if it's a ZLIB stream.
+            if (in.readableBytes() < 2) {
+                return;
+            }
+
+            boolean nowrap = !looksLikeZlib(in.getUnsignedShort(in.readerIndex()));
+            inflater = new Inflater(nowrap);
+            decideZlibOrNone = false;
+        }
+
+        if (crc != null) {
+            switch (gzipState) {
+                case FOOTER_START:
+                    if (readGZIPFooter(in)) {
+                        finish();
+                    }
+                    return;
+                default:
+                    if (gzipState != GzipState.HEADER_END && !readGZIPHeader(in)) {
+                        return;
+                    }
+            }
+        }
+
+        int readableBytes = in.readableBytes();
+        if (readableBytes == 0) {
+            return;
+        }
+
+        // Inflate the backing array of a heap buffer directly and copy only the data of direct buffers.
+        if (in.hasArray()) {
+            inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readableBytes);
+        } else {
+            byte[] array = inputBuffer;
+            if (array == null || array.length < readableBytes) {
+                inputBuffer = array = new byte[readableBytes];
+            }
+            in.getBytes(in.readerIndex(), array, 0, readableBytes);
+            inflater.setInput(array, 0, readableBytes);
+        }
+
+        int maxOutputLength = readableBytes << 1;
+        ByteBuf decompressed = ctx.alloc().heapBuffer(maxOutputLength);
+        try {
+            boolean readFooter = false;
+            while (!inflater.needsInput()) {
+                if (!decompressed.isWritable()) {
+                    // Hand over the full buffer instead of copying it into a bigger one.
+                    out.add(decompressed);
+                    decompressed = ctx.alloc().heapBuffer(maxOutputLength);
+                }
+
+                int writerIndex = decompressed.writerIndex();
+                byte[] outArray = decompressed.array();
+                int outIndex = decompressed.arrayOffset() + writerIndex;
+                int outputLength = inflater.inflate(outArray, outIndex, decompressed.writableBytes());
+                if (outputLength > 0) {
+                    decompressed.writerIndex(writerIndex + outputLength);
+                    if (crc != null) {
+                        crc.update(outArray, outIndex, outputLength);
+                    }
+                } else if (inflater.needsDictionary()) {
+                    if (dictionary == null) {
+                        throw new DecompressionException(
+                                "decompression failure, unable to set dictionary as non was specified");
+                    }
+                    inflater.setDictionary(dictionary);
+                }
+
+                if (inflater.finished()) {
+                    if (crc == null) {
+                        finished = true; // Do not decode anymore.
+                    } else {
+                        readFooter = true;
+                    }
+                    break;
+                }
+            }
+
+            in.skipBytes(readableBytes - inflater.getRemaining());
+
+            if (readFooter) {
+                gzipState = GzipState.FOOTER_START;
+                if (readGZIPFooter(in)) {
+                    finish();
+                }
+            } else if (finished) {
+                inflater.end();
+            }
+        } catch (DataFormatException e) {
+            throw new DecompressionException("decompression failure", e);
+        } finally {
+            if (decompressed.isReadable()) {
+                out.add(decompressed);
+            } else {
+                decompressed.release();
+            }
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        inflater.end();
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved0(ctx);
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    private boolean readGZIPHeader(ByteBuf in) {
+        switch (gzipState) {
+            case HEADER_START:
+                if (in.readableBytes() < 10) {
+                    return false;
+                }
+                // read magic numbers
+                int magic0 = in.readUnsignedByte();
+                int magic1 = in.readUnsignedByte();
+
+                if (magic0 != 0x1f || magic1 != 0x8b) {
+                    throw new DecompressionException("Input is not in the GZIP format");
+                }
+                crc.update(magic0);
+                crc.update(magic1);
+
+                int method = in.readUnsignedByte();
+                if (method != Deflater.DEFLATED) {
+                    throw new DecompressionException("Unsupported compression method "
+                            + method + " in the GZIP header");
+                }
+                crc.update(method);
+
+                flags = in.readUnsignedByte();
+                crc.update(flags);
+
+                if ((flags & FRESERVED) != 0) {
+                    throw new DecompressionException(
+                            "Reserved flags are set in the GZIP header");
+                }
+
+                // mtime (int)
+                crc.update(in.readUnsignedByte());
+                crc.update(in.readUnsignedByte());
+                crc.update(in.readUnsignedByte());
+                crc.update(in.readUnsignedByte());
+
+                crc.update(in.readUnsignedByte()); // extra flags
+                crc.update(in.readUnsignedByte()); // operating system
+
+                gzipState = GzipState.FLG_READ;
+                // fall through
+            case FLG_READ:
+                if ((flags & FEXTRA) != 0) {
+                    if (in.readableBytes() < 2) {
+                        return false;
+                    }
+                    int xlen1 = in.readUnsignedByte();
+                    int xlen2 = in.readUnsignedByte();
+                    crc.update(xlen1);
+                    crc.update(xlen2);
+
+                    xlen = xlen1 | xlen2 << 8;
+                }
+                gzipState = GzipState.XLEN_READ;
+                // fall through
+            case XLEN_READ:
+                if (xlen != -1) {
+                    if (in.readableBytes() < xlen) {
+                        return false;
+                    }
+                    byte[] xtra = new byte[xlen];
+                    in.readBytes(xtra);
+                    crc.update(xtra);
+                }
+                gzipState = GzipState.SKIP_FNAME;
+                // fall through
+            case SKIP_FNAME:
+                if ((flags & FNAME) != 0 && !skipZeroTerminatedField(in)) {
+                    return false;
+                }
+                gzipState = GzipState.SKIP_COMMENT;
+                // fall through
+            case SKIP_COMMENT:
+                if ((flags & FCOMMENT) != 0 && !skipZeroTerminatedField(in)) {
+                    return false;
+                }
+                gzipState = GzipState.PROCESS_FHCRC;
+                // fall through
+            case PROCESS_FHCRC:
+                if ((flags & FHCRC) != 0) {
+                    if (in.readableBytes() < 2) {
+                        return false;
+                    }
+                    // The header CRC consists of the two least significant bytes of the CRC32 of the header.
+                    int headerCrc = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+                    int expectedCrc = (int) crc.getValue() & 0xFFFF;
+                    if (headerCrc != expectedCrc) {
+                        throw new DecompressionException(
+                                "Header CRC value missmatch. Expected: " + expectedCrc + ", Got: " + headerCrc);
+                    }
+                }
+                crc.reset();
+                gzipState = GzipState.HEADER_END;
+                // fall through
+            case HEADER_END:
+                return true;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Skips a zero-terminated header field.
+     *
+     * @return {@code true} if the terminating zero was read
+     */
+    private boolean skipZeroTerminatedField(ByteBuf in) {
+        while (in.isReadable()) {
+            int b = in.readUnsignedByte();
+            crc.update(b);
+            if (b == 0x00) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean readGZIPFooter(ByteBuf buf) {
+        if (buf.readableBytes() < 8) {
+            return false;
+        }
+
+        long crcValue = 0;
+        for (int i = 0; i < 4; ++i) {
+            crcValue |= (long) buf.readUnsignedByte() << i * 8;
+        }
+        long readCrc = crc.getValue();
+        if (crcValue != readCrc) {
+            throw new DecompressionException(
+                    "CRC value missmatch. Expected: " + crcValue + ", Got: " + readCrc);
+        }
+
+        // read ISIZE and verify
+        int dataLength = 0;
+        for (int i = 0; i < 4; ++i) {
+            dataLength |= buf.readUnsignedByte() << i * 8;
+        }
+        int readLength = inflater.getTotalOut();
+        if (dataLength != readLength) {
+            throw new DecompressionException(
+                    "Number of bytes mismatch. Expected: " + dataLength + ", Got: " + readLength);
+        }
+        return true;
+    }
+
+    /*
+     * Returns true if the cmf_flg parameter (think: first two bytes of a zlib stream)
+     * indicates that this is a zlib stream.
+     * <p>
+     * You can lookup the details in the ZLIB RFC:
+     * <a href="http://tools.ietf.org/html/rfc1950#section-2.2">RFC 1950</a>.
+     */
+    private static boolean looksLikeZlib(int cmfFlg) {
+        // The compression method must be DEFLATE and the check bits must be valid.
+        return (cmfFlg & 0x0F00) == 0x0800 && cmfFlg % 31 == 0;
+    }
+}
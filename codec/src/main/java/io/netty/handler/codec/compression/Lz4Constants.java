@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Constants of the block format which is written by {@link Lz4FrameEncoder}.  It is compatible with the format of
+ * {@code net.jpountz.lz4.LZ4BlockOutputStream}:
+ * <pre>
+ *  * magic number         (8 bytes, "LZ4Block")
+ *  * token                (1 byte, block type | compression level)
+ *  * compressed length    (4 bytes, little endian)
+ *  * decompressed length  (4 bytes, little endian)
+ *  * checksum             (4 bytes, little endian)
+ *  * compressed data      (compressed length bytes)
+ * </pre>
+ * The stream ends with a block whose lengths and checksum are {@code 0}.
+ */
+final class Lz4Constants {
+    /**
+     * Magic number of the LZ4 block format, {@code "LZ4Block"} in ASCII.
+     */
+    static final long MAGIC_NUMBER = (long) 'L' << 56 | (long) 'Z' << 48 | (long) '4' << 40 | (long) 'B' << 32 |
+                                     'l' << 24 | 'o' << 16 | 'c' << 8 | 'k';
+
+    static final int HEADER_LENGTH = 8 + 1 + 4 + 4 + 4;
+
+    static final int COMPRESSION_LEVEL_BASE = 10;
+
+    static final int MIN_BLOCK_SIZE = 64;
+    static final int MAX_BLOCK_SIZE = 1 << COMPRESSION_LEVEL_BASE + 0x0F;   //  32 M
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;                          //  64 KB
+
+    static final int BLOCK_TYPE_NON_COMPRESSED = 0x10;
+    static final int BLOCK_TYPE_COMPRESSED = 0x20;
+
+    /**
+     * Seed of the XXHash32 checksum which is used by default.
+     */
+    static final int DEFAULT_SEED = 0x9747b28c;
+
+    private Lz4Constants() { }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.MessageList;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.zip.Checksum;
+
+import static io.netty.handler.codec.compression.Lz4Constants.*;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded by {@link Lz4FrameEncoder} or {@code net.jpountz.lz4.LZ4BlockOutputStream}.
+ * <p>
+ * Note that by default, validation of the checksum header in each block is
+ * DISABLED for performance improvements. If performance is less of an issue,
+ * or if you would prefer the safety that checksum validation brings, please
+ * use the {@link #Lz4FrameDecoder(boolean)} constructor with the argument
+ * set to {@code true}.
+ */
+public class Lz4FrameDecoder extends ByteToMessageDecoder {
+
+    private final LZ4FastDecompressor decompressor;
+    private final Checksum checksum;
+
+    private byte[] compressedBlock;
+    private boolean finished;
+    private boolean corrupted;
+
+    /**
+     * Creates a new decoder with validation of checksums turned OFF. To turn checksum validation on, please use
+     * the alternate {@link #Lz4FrameDecoder(boolean)} constructor.
+     */
+    public Lz4FrameDecoder() {
+        this(false);
+    }
+
+    /**
+     * Creates a new decoder with validation of checksums as specified.
+     *
+     * @param validateChecksums
+     *        If true, the checksum field will be validated against the actual
+     *        uncompressed data, and if the checksums do not match, a suitable
+     *        {@link DecompressionException} will be thrown
+     */
+    public Lz4FrameDecoder(boolean validateChecksums) {
+        this(LZ4Factory.fastestInstance(), validateChecksums ?
+                XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum() : null);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param factory
+     *        the {@link LZ4Factory} which provides the {@link LZ4FastDecompressor}
+     * @param checksum
+     *        the {@link Checksum} which is validated against the checksum of each block, or {@code null} to
+     *        disable the validation
+     */
+    public Lz4FrameDecoder(LZ4Factory factory, Checksum checksum) {
+        if (factory == null) {
+            throw new NullPointerException("factory");
+        }
+        decompressor = factory.fastDecompressor();
+        this.checksum = checksum;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, MessageList<Object> out) throws Exception {
+        if (corrupted || finished) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        try {
+            int idx = in.readerIndex();
+            if (in.writerIndex() - idx < HEADER_LENGTH) {
+                return;
+            }
+
+            if (in.getLong(idx) != MAGIC_NUMBER) {
+                throw new DecompressionException("unexpected block identifier");
+            }
+
+            int token = in.getByte(idx + 8);
+            int compressionLevel = (token & 0x0F) + COMPRESSION_LEVEL_BASE;
+            int blockType = token & 0xF0;
+            int compressedLength = Integer.reverseBytes(in.getInt(idx + 9));
+            int decompressedLength = Integer.reverseBytes(in.getInt(idx + 13));
+            int currentChecksum = Integer.reverseBytes(in.getInt(idx + 17));
+
+            int maxDecompressedLength = 1 << compressionLevel;
+            if (compressedLength < 0 || compressedLength > maxDecompressedLength) {
+                throw new DecompressionException(String.format(
+                        "invalid compressedLength: %d (expected: 0-%d)", compressedLength, maxDecompressedLength));
+            }
+            if (decompressedLength < 0 || decompressedLength > maxDecompressedLength) {
+                throw new DecompressionException(String.format(
+                        "invalid decompressedLength: %d (expected: 0-%d)",
+                        decompressedLength, maxDecompressedLength));
+            }
+            if (blockType == BLOCK_TYPE_NON_COMPRESSED && compressedLength != decompressedLength ||
+                blockType != BLOCK_TYPE_NON_COMPRESSED && blockType != BLOCK_TYPE_COMPRESSED) {
+                throw new DecompressionException(String.format(
+                        "invalid block: type 0x%x, compressedLength %d, decompressedLength %d",
+                        blockType, compressedLength, decompressedLength));
+            }
+
+            if (decompressedLength == 0) {
+                if (compressedLength != 0 || currentChecksum != 0) {
+                    throw new DecompressionException("stream corrupted: unexpected end of stream block");
+                }
+                // End of the stream; everything which follows is discarded.
+                in.skipBytes(HEADER_LENGTH);
+                finished = true;
+                in.skipBytes(in.readableBytes());
+                return;
+            }
+
+            if (in.writerIndex() - idx < HEADER_LENGTH + compressedLength) {
+                return;
+            }
+            in.skipBytes(HEADER_LENGTH);
+
+            ByteBuf uncompressed;
+            if (blockType == BLOCK_TYPE_NON_COMPRESSED) {
+                uncompressed = in.readSlice(decompressedLength).retain();
+            } else {
+                uncompressed = ctx.alloc().heapBuffer(decompressedLength, decompressedLength);
+                boolean success = false;
+                try {
+                    decompress(in, compressedLength, uncompressed, decompressedLength);
+                    success = true;
+                } catch (LZ4Exception e) {
+                    throw new DecompressionException(e);
+                } finally {
+                    if (!success) {
+                        uncompressed.release();
+                    }
+                }
+            }
+
+            if (checksum != null) {
+                try {
+                    validateChecksum(uncompressed, currentChecksum);
+                } catch (DecompressionException e) {
+                    uncompressed.release();
+                    throw e;
+                }
+            }
+            out.add(uncompressed);
+        } catch (Exception e) {
+            corrupted = true;
+            throw e;
+        }
+    }
+
+    private void decompress(ByteBuf in, int compressedLength, ByteBuf out, int decompressedLength) {
+        // Use the backing arrays directly and copy only the data of direct buffers.
+        byte[] src;
+        int srcOff;
+        if (in.hasArray()) {
+            src = in.array();
+            srcOff = in.arrayOffset() + in.readerIndex();
+        } else {
+            if (compressedBlock == null || compressedBlock.length < compressedLength) {
+                compressedBlock = new byte[compressedLength];
+            }
+            src = compressedBlock;
+            srcOff = 0;
+            in.getBytes(in.readerIndex(), src, 0, compressedLength);
+        }
+
+        int read = decompressor.decompress(
+                src, srcOff, out.array(), out.arrayOffset() + out.writerIndex(), decompressedLength);
+        if (read != compressedLength) {
+            throw new DecompressionException(String.format(
+                    "stream corrupted: compressedLength(%d) and actual length(%d) mismatch",
+                    compressedLength, read));
+        }
+        in.skipBytes(compressedLength);
+        out.writerIndex(out.writerIndex() + decompressedLength);
+    }
+
+    private void validateChecksum(ByteBuf data, int expected) {
+        checksum.reset();
+        if (data.hasArray()) {
+            checksum.update(data.array(), data.arrayOffset() + data.readerIndex(), data.readableBytes());
+        } else {
+            byte[] tmp = new byte[data.readableBytes()];
+            data.getBytes(data.readerIndex(), tmp);
+            checksum.update(tmp, 0, tmp.length);
+        }
+        int actual = (int) checksum.getValue();
+        if (actual != expected) {
+            throw new DecompressionException(String.format(
+                    "stream corrupted: mismatching checksum: %d (expected: %d)", actual, expected));
+        }
+    }
+
+    /**
+     * Returns {@code true} if and only if the end of the compressed stream has been reached.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.MessageToByteEncoder;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+import static io.netty.handler.codec.compression.Lz4Constants.*;
+
+/**
+ * Compresses a {@link ByteBuf} using the LZ4 block format of
+ * <a href="https://github.com/jpountz/lz4-java">lz4-java</a>, which can be read by
+ * {@code net.jpountz.lz4.LZ4BlockInputStream} and {@link Lz4FrameDecoder}.
+ * <p>
+ * LZ4 is several times faster than zlib at a lower compression ratio.  The data is buffered until a block is full
+ * or the channel is flushed, so that small writes are compressed together.  Each block carries a checksum of its
+ * uncompressed data, which is an XXHash32 by default.
+ */
+public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    // The time to wait for the end of the stream to be written before the channel is closed anyway.
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final LZ4Compressor compressor;
+    private final Checksum checksum;
+    private final int compressionLevel;
+
+    private final byte[] buffer;
+    private int currentBlockLength;
+    private byte[] compressedBlock;
+
+    private volatile boolean finished;
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new encoder which uses the fast LZ4 compressor, a block size of 64 KB and XXHash32 checksums.
+     */
+    public Lz4FrameEncoder() {
+        this(false);
+    }
+
+    /**
+     * Creates a new encoder with a block size of 64 KB and XXHash32 checksums.
+     *
+     * @param highCompressor
+     *        {@code true} to use the slower LZ4 compressor which achieves a better compression ratio
+     */
+    public Lz4FrameEncoder(boolean highCompressor) {
+        this(LZ4Factory.fastestInstance(), highCompressor, DEFAULT_BLOCK_SIZE,
+             XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED).asChecksum());
+    }
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param factory
+     *        the {@link LZ4Factory} which provides the {@link LZ4Compressor}
+     * @param highCompressor
+     *        {@code true} to use the slower LZ4 compressor which achieves a better compression ratio
+     * @param blockSize
+     *        the maximum number of bytes which are compressed as one block, between 64 bytes and 32 MB
+     * @param checksum
+     *        the {@link Checksum} of the uncompressed data of each block
+     */
+    public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize, Checksum checksum) {
+        // Prefer heap buffers so that the blocks are compressed directly into the backing array.
+        super(false);
+        if (factory == null) {
+            throw new NullPointerException("factory");
+        }
+        if (checksum == null) {
+            throw new NullPointerException("checksum");
+        }
+        compressor = highCompressor ? factory.highCompressor() : factory.fastCompressor();
+        this.checksum = checksum;
+        compressionLevel = compressionLevel(blockSize);
+        buffer = new byte[blockSize];
+    }
+
+    private static int compressionLevel(int blockSize) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "blockSize: %d (expected: %d-%d)", blockSize, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE));
+        }
+        int compressionLevel = 32 - Integer.numberOfLeadingZeros(blockSize - 1); // ceil of log2
+        compressionLevel = Math.max(0, compressionLevel - COMPRESSION_LEVEL_BASE);
+        return compressionLevel;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+
+        int length = in.readableBytes();
+        while (length > 0) {
+            int nextChunkSize = Math.min(length, buffer.length - currentBlockLength);
+            in.readBytes(buffer, currentBlockLength, nextChunkSize);
+            currentBlockLength += nextChunkSize;
+            length -= nextChunkSize;
+            if (currentBlockLength == buffer.length) {
+                flushBufferedData(out);
+            }
+        }
+    }
+
+    private void flushBufferedData(ByteBuf out) {
+        int blockLength = currentBlockLength;
+        if (blockLength == 0) {
+            return;
+        }
+        checksum.reset();
+        checksum.update(buffer, 0, blockLength);
+        int check = (int) checksum.getValue();
+
+        int maxCompressedLength = compressor.maxCompressedLength(blockLength);
+        out.ensureWritable(HEADER_LENGTH + maxCompressedLength);
+        int headerIndex = out.writerIndex();
+
+        // Compress directly into the backing array of the output buffer if it has one.
+        final boolean intoOutArray = out.hasArray();
+        byte[] dest;
+        int destOff;
+        if (intoOutArray) {
+            dest = out.array();
+            destOff = out.arrayOffset() + headerIndex + HEADER_LENGTH;
+        } else {
+            if (compressedBlock == null || compressedBlock.length < maxCompressedLength) {
+                compressedBlock = new byte[maxCompressedLength];
+            }
+            dest = compressedBlock;
+            destOff = 0;
+        }
+        int compressedLength = compressor.compress(buffer, 0, blockLength, dest, destOff, maxCompressedLength);
+
+        int blockType;
+        if (compressedLength >= blockLength) {
+            blockType = BLOCK_TYPE_NON_COMPRESSED;
+            compressedLength = blockLength;
+            out.setBytes(headerIndex + HEADER_LENGTH, buffer, 0, blockLength);
+        } else {
+            blockType = BLOCK_TYPE_COMPRESSED;
+            if (!intoOutArray) {
+                out.setBytes(headerIndex + HEADER_LENGTH, dest, 0, compressedLength);
+            }
+        }
+
+        out.setLong(headerIndex, MAGIC_NUMBER);
+        out.setByte(headerIndex + 8, (byte) (blockType | compressionLevel));
+        out.setInt(headerIndex + 9, Integer.reverseBytes(compressedLength));
+        out.setInt(headerIndex + 13, Integer.reverseBytes(blockLength));
+        out.setInt(headerIndex + 17, Integer.reverseBytes(check));
+        out.writerIndex(headerIndex + HEADER_LENGTH + compressedLength);
+        currentBlockLength = 0;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (!finished && currentBlockLength > 0) {
+            // Compress the pending data as a smaller block so that it is not held back.
+            ByteBuf buf = ctx.alloc().heapBuffer(HEADER_LENGTH + compressor.maxCompressedLength(currentBlockLength));
+            flushBufferedData(buf);
+            ctx.write(buf);
+        }
+        ctx.flush();
+    }
+
+    /**
+     * Returns {@code true} if and only if the end of the compressed stream has been reached.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Writes the pending data and the end of the stream to the channel, without closing it.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Writes the pending data and the end of the stream to the channel, without closing it, and notifies the
+     * specified {@link ChannelPromise}.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        final ChannelHandlerContext ctx = ctx();
+        if (ctx.executor().inEventLoop()) {
+            return finishEncode(ctx, promise);
+        }
+        ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                finishEncode(ctx, promise);
+            }
+        });
+        return promise;
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation does not complete in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChannelFuture finishEncode(ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        ByteBuf footer = ctx.alloc().heapBuffer(
+                HEADER_LENGTH * 2 + compressor.maxCompressedLength(currentBlockLength));
+        flushBufferedData(footer);
+
+        int idx = footer.writerIndex();
+        footer.setLong(idx, MAGIC_NUMBER);
+        footer.setByte(idx + 8, (byte) (BLOCK_TYPE_NON_COMPRESSED | compressionLevel));
+        footer.setInt(idx + 9, 0);
+        footer.setInt(idx + 13, 0);
+        footer.setInt(idx + 17, 0);
+        footer.writerIndex(idx + HEADER_LENGTH);
+
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+}
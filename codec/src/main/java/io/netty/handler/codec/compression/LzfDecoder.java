@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.ChunkDecoder;
+import com.ning.compress.lzf.LZFException;
+import com.ning.compress.lzf.util.ChunkDecoderFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.MessageList;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import static com.ning.compress.lzf.LZFChunk.*;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded by {@link LzfEncoder} or {@code com.ning.compress.lzf.LZFOutputStream}.
+ * Chunks which were not compressed are passed on as slices of the received {@link ByteBuf}.
+ */
+public class LzfDecoder extends ByteToMessageDecoder {
+
+    private final ChunkDecoder decoder;
+
+    private byte[] inputBuffer;
+    private boolean corrupted;
+
+    /**
+     * Creates a new decoder which uses the fastest available {@link ChunkDecoder}.
+     */
+    public LzfDecoder() {
+        this(false);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param safeInstance
+     *        {@code true} to use the {@link ChunkDecoder} which does not use {@code sun.misc.Unsafe}
+     */
+    public LzfDecoder(boolean safeInstance) {
+        decoder = safeInstance ? ChunkDecoderFactory.safeInstance() : ChunkDecoderFactory.optimalInstance();
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, MessageList<Object> out) throws Exception {
+        if (corrupted) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        try {
+            final int idx = in.readerIndex();
+            final int inSize = in.writerIndex() - idx;
+            if (inSize < HEADER_LEN_NOT_COMPRESSED) {
+                return;
+            }
+
+            if (in.getByte(idx) != BYTE_Z || in.getByte(idx + 1) != BYTE_V) {
+                throw new DecompressionException("unexpected block identifier");
+            }
+            final int type = in.getByte(idx + 2);
+            final int chunkLength = in.getUnsignedShort(idx + 3);
+
+            switch (type) {
+                case BLOCK_TYPE_NON_COMPRESSED:
+                    if (inSize < HEADER_LEN_NOT_COMPRESSED + chunkLength) {
+                        return;
+                    }
+                    in.skipBytes(HEADER_LEN_NOT_COMPRESSED);
+                    out.add(in.readSlice(chunkLength).retain());
+                    break;
+                case BLOCK_TYPE_COMPRESSED:
+                    if (inSize < HEADER_LEN_COMPRESSED + chunkLength) {
+                        return;
+                    }
+                    final int originalLength = in.getUnsignedShort(idx + 5);
+                    in.skipBytes(HEADER_LEN_COMPRESSED);
+                    out.add(decompress(ctx, in, chunkLength, originalLength));
+                    break;
+                default:
+                    throw new DecompressionException(String.format("unknown type of chunk: %d (expected: %d or %d)",
+                            type, BLOCK_TYPE_NON_COMPRESSED, BLOCK_TYPE_COMPRESSED));
+            }
+        } catch (Exception e) {
+            corrupted = true;
+            throw e;
+        }
+    }
+
+    private ByteBuf decompress(ChannelHandlerContext ctx, ByteBuf in, int chunkLength, int originalLength) {
+        // Use the backing arrays directly and copy only the data of direct buffers.
+        final byte[] input;
+        final int inputPtr;
+        if (in.hasArray()) {
+            input = in.array();
+            inputPtr = in.arrayOffset() + in.readerIndex();
+        } else {
+            if (inputBuffer == null || inputBuffer.length < chunkLength) {
+                inputBuffer = new byte[chunkLength];
+            }
+            input = inputBuffer;
+            inputPtr = 0;
+            in.getBytes(in.readerIndex(), input, 0, chunkLength);
+        }
+
+        ByteBuf uncompressed = ctx.alloc().heapBuffer(originalLength, originalLength);
+        boolean success = false;
+        try {
+            final int outputPtr = uncompressed.arrayOffset() + uncompressed.writerIndex();
+            decoder.decodeChunk(input, inputPtr, uncompressed.array(), outputPtr, outputPtr + originalLength);
+            uncompressed.writerIndex(uncompressed.writerIndex() + originalLength);
+            in.skipBytes(chunkLength);
+            success = true;
+        } catch (LZFException e) {
+            throw new DecompressionException(e);
+        } finally {
+            if (!success) {
+                uncompressed.release();
+            }
+        }
+        return uncompressed;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.ChunkEncoder;
+import com.ning.compress.lzf.LZFChunk;
+import com.ning.compress.lzf.LZFEncoder;
+import com.ning.compress.lzf.util.ChunkEncoderFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import static com.ning.compress.lzf.LZFChunk.*;
+
+/**
+ * Compresses a {@link ByteBuf} using the chunk format of
+ * <a href="https://github.com/ning/compress">compress-lzf</a>, which can be read by
+ * {@code com.ning.compress.lzf.LZFInputStream} and {@link LzfDecoder}.
+ * <p>
+ * LZF compresses faster and better than Snappy in many cases.  Each written {@link ByteBuf} is split into chunks
+ * of at most {@code chunkSize} bytes; chunks which can not be compressed are written as they are.
+ */
+public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
+    /**
+     * The minimum length of a chunk which is compressed.  Shorter chunks are written as they are.
+     */
+    private static final int MIN_BLOCK_TO_COMPRESS = 16;
+
+    private final ChunkEncoder encoder;
+    private final int chunkSize;
+
+    private byte[] inputBuffer;
+    private byte[] outputBuffer;
+
+    /**
+     * Creates a new encoder which uses the fastest available {@link ChunkEncoder} and chunks of at most 64 KB.
+     */
+    public LzfEncoder() {
+        this(false, MAX_CHUNK_LEN);
+    }
+
+    /**
+     * Creates a new encoder with chunks of at most 64 KB.
+     *
+     * @param safeInstance
+     *        {@code true} to use the {@link ChunkEncoder} which does not use {@code sun.misc.Unsafe}
+     */
+    public LzfEncoder(boolean safeInstance) {
+        this(safeInstance, MAX_CHUNK_LEN);
+    }
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param safeInstance
+     *        {@code true} to use the {@link ChunkEncoder} which does not use {@code sun.misc.Unsafe}
+     * @param chunkSize
+     *        the maximum number of bytes which are compressed as one chunk, between 16 bytes and 64 KB
+     */
+    public LzfEncoder(boolean safeInstance, int chunkSize) {
+        super(false);
+        if (chunkSize < MIN_BLOCK_TO_COMPRESS || chunkSize > MAX_CHUNK_LEN) {
+            throw new IllegalArgumentException(String.format(
+                    "chunkSize: %d (expected: %d-%d)", chunkSize, MIN_BLOCK_TO_COMPRESS, MAX_CHUNK_LEN));
+        }
+        this.chunkSize = chunkSize;
+        encoder = safeInstance ?
+                ChunkEncoderFactory.safeNonAllocatingInstance(chunkSize) :
+                ChunkEncoderFactory.optimalNonAllocatingInstance(chunkSize);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        final int length = in.readableBytes();
+
+        // Use the backing arrays directly and copy only the data of direct buffers.
+        final byte[] input;
+        int inputPtr;
+        if (in.hasArray()) {
+            input = in.array();
+            inputPtr = in.arrayOffset() + in.readerIndex();
+        } else {
+            if (inputBuffer == null || inputBuffer.length < length) {
+                inputBuffer = new byte[length];
+            }
+            input = inputBuffer;
+            inputPtr = 0;
+            in.getBytes(in.readerIndex(), input, 0, length);
+        }
+
+        final int maxOutputLength = LZFEncoder.estimateMaxWorkspaceSize(length) +
+                (length / chunkSize + 1) * LZFChunk.HEADER_LEN_COMPRESSED;
+        out.ensureWritable(maxOutputLength);
+        final byte[] output;
+        final int outputOffset;
+        if (out.hasArray()) {
+            output = out.array();
+            outputOffset = out.arrayOffset() + out.writerIndex();
+        } else {
+            if (outputBuffer == null || outputBuffer.length < maxOutputLength) {
+                outputBuffer = new byte[maxOutputLength];
+            }
+            output = outputBuffer;
+            outputOffset = 0;
+        }
+
+        int outputPtr = outputOffset;
+        int remaining = length;
+        while (remaining > 0) {
+            int chunkLength = Math.min(remaining, chunkSize);
+            outputPtr = encoder.appendEncodedChunk(input, inputPtr, chunkLength, output, outputPtr);
+            inputPtr += chunkLength;
+            remaining -= chunkLength;
+        }
+        in.skipBytes(length);
+
+        final int outputLength = outputPtr - outputOffset;
+        if (out.hasArray()) {
+            out.writerIndex(out.writerIndex() + outputLength);
+        } else {
+            out.writeBytes(output, 0, outputLength);
+        }
+    }
+}
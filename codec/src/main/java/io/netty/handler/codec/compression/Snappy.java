@@ -17,7 +17,9 @@ package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.util.internal.PlatformDependent;
 
+import java.util.Arrays;
 import java.util.zip.CRC32;
 
 /**
@@ -30,6 +32,8 @@ public class Snappy {
 
     private static final int MAX_HT_SIZE = 1 << 14;
     private static final int MIN_COMPRESSIBLE_BYTES = 15;
+    // The hash table stores the offsets from the start of a fragment as shorts, so a fragment must not be longer.
+    private static final int MAX_FRAGMENT_SIZE = Short.MAX_VALUE;
 
     // used as a return value to indicate that we haven't yet read our full preamble
     private static final int PREAMBLE_NOT_FULL = -1;
@@ -41,6 +45,17 @@ public class Snappy {
     private static final int COPY_2_BYTE_OFFSET = 2;
     private static final int COPY_4_BYTE_OFFSET = 3;
 
+    private static final boolean UNALIGNED = PlatformDependent.isUnaligned();
+    private static final boolean BIG_ENDIAN_NATIVE_ORDER = PlatformDependent.BIG_ENDIAN_NATIVE_ORDER;
+
+    // Reused by all encode() calls of this instance
+    private short[] hashTable;
+
+    // The memory of the input of the current encode() call, if it is accessible
+    private byte[] inArray;
+    private int inArrayOffset;
+    private long inAddress;
+
     private State state = State.READY;
     private byte tag;
     private int written;
@@ -60,6 +75,11 @@ public class Snappy {
     }
 
     public void encode(ByteBuf in, ByteBuf out, int length) {
+        if (length > in.readableBytes()) {
+            throw new IndexOutOfBoundsException(
+                    "length: " + length + " (expected: <= " + in.readableBytes() + ')');
+        }
+
         // Write the preamble length to the output buffer
         for (int i = 0;; i ++) {
             int b = length >>> i * 7;
@@ -71,12 +91,36 @@ public class Snappy {
             }
         }
 
+        // Read the input directly from its memory if the platform allows unaligned access. Otherwise fall back
+        // to the ByteBuf accessors. The input is encoded in fragments of at most MAX_FRAGMENT_SIZE bytes, so the
+        // offsets kept in the hash table never overflow, and every read is within the current fragment and
+        // therefore within [readerIndex, readerIndex + length), which was checked above.
+        if (in.hasArray() && UNALIGNED) {
+            inArray = in.array();
+            inArrayOffset = in.arrayOffset();
+        } else if (in.hasMemoryAddress() && UNALIGNED) {
+            inAddress = in.memoryAddress();
+        }
+        try {
+            while (length > 0) {
+                int fragmentLength = Math.min(length, MAX_FRAGMENT_SIZE);
+                encode0(in, out, fragmentLength);
+                length -= fragmentLength;
+            }
+        } finally {
+            inArray = null;
+            inAddress = 0;
+        }
+    }
+
+    private void encode0(ByteBuf in, ByteBuf out, int length) {
         int inIndex = in.readerIndex();
         final int baseIndex = in.readerIndex();
-        final int maxIndex = length;
+        final int maxIndex = baseIndex + length;
 
-        final short[] table = getHashTable(maxIndex);
-        final int shift = 32 - (int) Math.floor(Math.log(table.length) / Math.log(2));
+        final int tableSize = hashTableSize(length);
+        final short[] table = getHashTable(tableSize);
+        final int shift = Integer.numberOfLeadingZeros(tableSize) + 1;
 
         int nextEmit = inIndex;
 
@@ -104,7 +148,7 @@ public class Snappy {
 
                     table[hash] = (short) (inIndex - baseIndex);
                 }
-                while (in.getInt(inIndex) != in.getInt(candidate));
+                while (getInt(in, inIndex) != getInt(in, candidate));
 
                 encodeLiteral(in, out, inIndex - nextEmit);
 
@@ -128,7 +172,7 @@ public class Snappy {
                     candidate = baseIndex + table[currentHash];
                     table[currentHash] = (short) (inIndex - baseIndex);
                 }
-                while (in.getInt(insertTail + 1) == in.getInt(candidate));
+                while (getInt(in, insertTail + 1) == getInt(in, candidate));
 
                 nextHash = hash(in, insertTail + 2, shift);
                 ++inIndex;
@@ -151,36 +195,76 @@ public class Snappy {
      *     withing the range of our hash table size
      * @return A 32-bit hash of 4 bytes located at index
      */
-    private static int hash(ByteBuf in, int index, int shift) {
-        return in.getInt(index) + 0x1e35a7bd >>> shift;
+    private int hash(ByteBuf in, int index, int shift) {
+        return getInt(in, index) + 0x1e35a7bd >>> shift;
+    }
+
+    /**
+     * Reads the big-endian {@code int} at index of the input, directly from its memory if possible.
+     */
+    private int getInt(ByteBuf in, int index) {
+        int value;
+        if (inArray != null) {
+            value = PlatformDependent.getInt(inArray, inArrayOffset + index);
+        } else if (inAddress != 0) {
+            value = PlatformDependent.getInt(inAddress + index);
+        } else {
+            return in.getInt(index);
+        }
+        return BIG_ENDIAN_NATIVE_ORDER ? value : Integer.reverseBytes(value);
     }
 
     /**
-     * Creates an appropriately sized hashtable for the given input size
+     * Reads the big-endian {@code long} at index of the input, directly from its memory if possible.
+     */
+    private long getLong(ByteBuf in, int index) {
+        long value;
+        if (inArray != null) {
+            value = PlatformDependent.getLong(inArray, inArrayOffset + index);
+        } else if (inAddress != 0) {
+            value = PlatformDependent.getLong(inAddress + index);
+        } else {
+            return in.getLong(index);
+        }
+        return BIG_ENDIAN_NATIVE_ORDER ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Calculates an appropriate hashtable size for the given input size
      *
      * @param inputSize The size of our input, ie. the number of bytes we need to encode
-     * @return An appropriately sized empty hashtable
+     * @return A power of two between 256 and {@link #MAX_HT_SIZE}
      */
-    private static short[] getHashTable(int inputSize) {
+    private static int hashTableSize(int inputSize) {
         int htSize = 256;
         while (htSize < MAX_HT_SIZE && htSize < inputSize) {
             htSize <<= 1;
         }
+        return htSize;
+    }
 
-        short[] table;
-        if (htSize <= 256) {
-            table = new short[256];
+    /**
+     * Returns an empty hashtable with at least the given size.  The table is
+     * reused by subsequent calls, so only the first {@code htSize} entries are
+     * cleared.
+     *
+     * @param htSize The number of entries of the hashtable that will be used
+     * @return A hashtable whose first {@code htSize} entries are zero
+     */
+    private short[] getHashTable(int htSize) {
+        short[] table = hashTable;
+        if (table == null || table.length < htSize) {
+            table = hashTable = new short[htSize];
         } else {
-            table = new short[MAX_HT_SIZE];
+            Arrays.fill(table, 0, htSize, (short) 0);
         }
-
         return table;
     }
 
     /**
      * Iterates over the supplied input buffer between the supplied minIndex and
      * maxIndex to find how long our matched copy overlaps with an already-written
-     * literal value.
+     * literal value.  The input is compared 8 bytes at a time.
      *
      * @param in The input buffer to scan over
      * @param minIndex The index in the input buffer to start scanning from
@@ -188,13 +272,17 @@ public class Snappy {
      * @param maxIndex The length of our input buffer
      * @return The number of bytes for which our candidate copy is a repeat of
      */
-    private static int findMatchingLength(ByteBuf in, int minIndex, int inIndex, int maxIndex) {
+    private int findMatchingLength(ByteBuf in, int minIndex, int inIndex, int maxIndex) {
         int matched = 0;
 
-        while (inIndex <= maxIndex - 4 &&
-                in.getInt(inIndex) == in.getInt(minIndex + matched)) {
-            inIndex += 4;
-            matched += 4;
+        while (inIndex <= maxIndex - 8) {
+            long diff = getLong(in, inIndex) ^ getLong(in, minIndex + matched);
+            if (diff != 0) {
+                // The first differing byte is the most significant non-zero byte of a big-endian word.
+                return matched + (Long.numberOfLeadingZeros(diff) >>> 3);
+            }
+            inIndex += 8;
+            matched += 8;
         }
 
         while (inIndex < maxIndex && in.getByte(minIndex + matched) == in.getByte(inIndex)) {
@@ -16,11 +16,21 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 /**
  * Creates a new {@link ZlibEncoder} and a new {@link ZlibDecoder}.
  */
 public final class ZlibCodecFactory {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ZlibCodecFactory.class);
+
+    private static final boolean noJdkZlibDecoder = SystemPropertyUtil.getBoolean("io.netty.noJdkZlibDecoder", false);
+
+    static {
+        logger.debug("-Dio.netty.noJdkZlibDecoder: {}", noJdkZlibDecoder);
+    }
 
     public static ZlibEncoder newZlibEncoder(int compressionLevel) {
         if (PlatformDependent.javaVersion() < 7) {
@@ -79,15 +89,27 @@ public final class ZlibCodecFactory {
     }
 
     public static ZlibDecoder newZlibDecoder() {
-        return new JZlibDecoder();
+        if (noJdkZlibDecoder) {
+            return new JZlibDecoder();
+        } else {
+            return new JdkZlibDecoder();
+        }
     }
 
     public static ZlibDecoder newZlibDecoder(ZlibWrapper wrapper) {
-        return new JZlibDecoder(wrapper);
+        if (noJdkZlibDecoder) {
+            return new JZlibDecoder(wrapper);
+        } else {
+            return new JdkZlibDecoder(wrapper);
+        }
     }
 
     public static ZlibDecoder newZlibDecoder(byte[] dictionary) {
-        return new JZlibDecoder(dictionary);
+        if (noJdkZlibDecoder) {
+            return new JZlibDecoder(dictionary);
+        } else {
+            return new JdkZlibDecoder(dictionary);
+        }
     }
 
     private ZlibCodecFactory() {
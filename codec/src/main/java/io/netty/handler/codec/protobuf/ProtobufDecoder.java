@@ -54,7 +54,7 @@ import io.netty.handler.codec.MessageToMessageDecoder;
  * void messageReceived({@link ChannelHandlerContext} ctx, MyMessage req) {
  *     MyMessage res = MyMessage.newBuilder().setText(
  *                               "Did you say '" + req.getText() + "'?").build();
- *     ch.write(res);
+ *     ch.writeAndFlush(res);
  * }
  * </pre>
  */
@@ -52,7 +52,7 @@ import static io.netty.buffer.Unpooled.*;
  * void messageReceived({@link ChannelHandlerContext} ctx, MyMessage req) {
  *     MyMessage res = MyMessage.newBuilder().setText(
  *                               "Did you say '" + req.getText() + "'?").build();
- *     ch.write(res);
+ *     ch.writeAndFlush(res);
  * }
  * </pre>
  */
@@ -42,7 +42,7 @@ import java.nio.charset.Charset;
  * as a message:
  * <pre>
  * void messageReceived({@link ChannelHandlerContext} ctx, {@link String} msg) {
- *     ch.write("Did you say '" + msg + "'?\n");
+ *     ch.writeAndFlush("Did you say '" + msg + "'?\n");
  * }
  * </pre>
  */
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.buffer.Unpooled.*;
+import static org.junit.Assert.*;
+
+public class ByteToMessageDecoderTest {
+
+    private static final UnpooledByteBufAllocator ALLOC = new UnpooledByteBufAllocator(false);
+
+    @Test
+    public void testMergeCumulatorIsDefault() {
+        assertSame(ByteToMessageDecoder.MERGE_CUMULATOR, new FixedLengthFrameDecoder(1).getCumulator());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullCumulator() {
+        new FixedLengthFrameDecoder(1).setCumulator(null);
+    }
+
+    @Test
+    public void testCompositeCumulatorDoesNotCopyLargeBuffers() {
+        ByteBuf first = wrappedBuffer(newBytes(8192, 0));
+        ByteBuf second = wrappedBuffer(newBytes(8192, 8192));
+        ByteBuf third = wrappedBuffer(newBytes(8192, 16384));
+        first.skipBytes(100);
+
+        ByteBuf cumulation = ByteToMessageDecoder.COMPOSITE_CUMULATOR.cumulate(ALLOC, first, second);
+        assertTrue(cumulation instanceof CompositeByteBuf);
+        cumulation = ByteToMessageDecoder.COMPOSITE_CUMULATOR.cumulate(ALLOC, cumulation, third);
+
+        CompositeByteBuf composite = (CompositeByteBuf) cumulation;
+        assertEquals(3, composite.numComponents());
+        assertSame(second.array(), composite.internalComponent(1).array());
+        assertSame(third.array(), composite.internalComponent(2).array());
+        assertEquals(24576 - 100, composite.readableBytes());
+        for (int i = 100; i < 24576; i ++) {
+            assertEquals((byte) i, composite.readByte());
+        }
+
+        composite.release();
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertEquals(0, third.refCnt());
+    }
+
+    @Test
+    public void testCompositeCumulatorMergesSmallBuffers() {
+        ByteBuf cumulation = wrappedBuffer(newBytes(8192, 0));
+        List<ByteBuf> received = new ArrayList<ByteBuf>();
+        int length = 8192;
+        for (int i = 0; i < 100; i ++) {
+            ByteBuf in = wrappedBuffer(newBytes(10, length));
+            received.add(in);
+            cumulation = ByteToMessageDecoder.COMPOSITE_CUMULATOR.cumulate(ALLOC, cumulation, in);
+            length += 10;
+        }
+
+        // The small buffers were merged into a few components.
+        assertTrue(((CompositeByteBuf) cumulation).numComponents() < 16);
+        assertEquals(length, cumulation.readableBytes());
+        for (int i = 0; i < length; i ++) {
+            assertEquals((byte) i, cumulation.readByte());
+        }
+
+        cumulation.release();
+        for (ByteBuf in: received) {
+            assertEquals(0, in.refCnt());
+        }
+    }
+
+    @Test
+    public void testCompositeCumulatorReleasesEmptyBuffer() {
+        ByteBuf cumulation = wrappedBuffer(new byte[1]);
+        ByteBuf in = wrappedBuffer(new byte[1]).skipBytes(1);
+        assertSame(cumulation, ByteToMessageDecoder.COMPOSITE_CUMULATOR.cumulate(ALLOC, cumulation, in));
+        assertEquals(0, in.refCnt());
+        cumulation.release();
+    }
+
+    @Test
+    public void testDecodeWithCompositeCumulator() {
+        FixedLengthFrameDecoder decoder = new FixedLengthFrameDecoder(10000);
+        decoder.setCumulator(ByteToMessageDecoder.COMPOSITE_CUMULATOR);
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+
+        byte[] bytes = newBytes(30000, 0);
+        List<ByteBuf> received = new ArrayList<ByteBuf>();
+        for (int i = 0; i < bytes.length;) {
+            // Mix large and small reads.
+            int length = Math.min(i % 3 == 0 ? 1000 : 7, bytes.length - i);
+            ByteBuf in = wrappedBuffer(bytes, i, length);
+            received.add(in);
+            ch.writeInbound(in);
+            i += length;
+        }
+
+        for (int i = 0; i < 3; i ++) {
+            ByteBuf frame = (ByteBuf) ch.readInbound();
+            assertEquals(wrappedBuffer(bytes, i * 10000, 10000), frame);
+            frame.release();
+        }
+        assertFalse(ch.finish());
+        for (ByteBuf in: received) {
+            assertEquals(0, in.refCnt());
+        }
+    }
+
+    private static byte[] newBytes(int length, int start) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            bytes[i] = (byte) (start + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class JdkZlibDecoderTest {
+
+    private static final byte[] DATA = new byte[100000];
+
+    static {
+        Random rand = new Random(42);
+        for (int i = 0; i < DATA.length; i ++) {
+            DATA[i] = (byte) ('a' + rand.nextInt(8));
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GZIPOutputStream os = new GZIPOutputStream(bos);
+        os.write(data);
+        os.close();
+        return bos.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean nowrap) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DeflaterOutputStream os = new DeflaterOutputStream(bos, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap));
+        os.write(data);
+        os.close();
+        return bos.toByteArray();
+    }
+
+    private static byte[] decode(ZlibDecoder decoder, byte[] compressed, int fragmentSize, boolean direct) {
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        for (int i = 0; i < compressed.length; i += fragmentSize) {
+            int length = Math.min(fragmentSize, compressed.length - i);
+            ByteBuf buf = direct ? Unpooled.directBuffer(length) : Unpooled.buffer(length);
+            channel.writeInbound(buf.writeBytes(compressed, i, length));
+        }
+        assertTrue(decoder.isClosed());
+
+        ByteBuf decompressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        assertFalse(channel.finish());
+        byte[] result = new byte[decompressed.readableBytes()];
+        decompressed.readBytes(result);
+        return result;
+    }
+
+    @Test
+    public void testGZIP() throws Exception {
+        byte[] compressed = gzip(DATA);
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.GZIP), compressed, compressed.length, false));
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.GZIP), compressed, 7, true));
+    }
+
+    @Test
+    public void testZLIB() throws Exception {
+        byte[] compressed = deflate(DATA, false);
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(), compressed, compressed.length, false));
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.ZLIB_OR_NONE), compressed, 100, true));
+    }
+
+    @Test
+    public void testNONE() throws Exception {
+        byte[] compressed = deflate(DATA, true);
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.NONE), compressed, compressed.length, true));
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.ZLIB_OR_NONE), compressed, 100, false));
+    }
+
+    @Test
+    public void testJZlibEncoder() throws Exception {
+        EmbeddedChannel encoder = new EmbeddedChannel(new JZlibEncoder(ZlibWrapper.GZIP));
+        encoder.writeOutbound(Unpooled.wrappedBuffer(DATA));
+        assertTrue(encoder.finish());
+        ByteBuf compressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) encoder.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed.writeBytes(buf);
+            buf.release();
+        }
+        byte[] array = new byte[compressed.readableBytes()];
+        compressed.readBytes(array);
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.GZIP), array, 1000, false));
+    }
+
+    @Test
+    public void testGZIPHeaderFields() throws Exception {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0x02 | 0x04 | 0x08 | 0x10, 0, 0, 0, 0, 0, 0 });
+        header.write(new byte[] { 3, 0, 'a', 'b', 'c' });   // FEXTRA
+        header.write("name\0".getBytes("US-ASCII"));        // FNAME
+        header.write("comment\0".getBytes("US-ASCII"));     // FCOMMENT
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header.toByteArray());
+        int hcrc = (int) headerCrc.getValue();
+        header.write(hcrc);                                  // FHCRC
+        header.write(hcrc >>> 8);
+
+        CRC32 crc = new CRC32();
+        crc.update(DATA);
+        header.write(deflate(DATA, true));
+        writeIntLE(header, (int) crc.getValue());
+        writeIntLE(header, DATA.length);
+
+        byte[] compressed = header.toByteArray();
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(ZlibWrapper.GZIP), compressed, 1, false));
+    }
+
+    @Test(expected = DecompressionException.class)
+    public void testGZIPCrcMismatch() throws Exception {
+        byte[] compressed = gzip(DATA);
+        compressed[compressed.length - 8] ^= 1;
+        decode(new JdkZlibDecoder(ZlibWrapper.GZIP), compressed, compressed.length, false);
+    }
+
+    @Test(expected = DecompressionException.class)
+    public void testNotGZIP() throws Exception {
+        byte[] compressed = deflate(DATA, false);
+        decode(new JdkZlibDecoder(ZlibWrapper.GZIP), compressed, compressed.length, false);
+    }
+
+    @Test
+    public void testDictionary() throws Exception {
+        byte[] dictionary = "abcdefgh".getBytes("US-ASCII");
+        Deflater deflater = new Deflater();
+        deflater.setDictionary(dictionary);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DeflaterOutputStream os = new DeflaterOutputStream(bos, deflater);
+        os.write(DATA);
+        os.close();
+        byte[] compressed = bos.toByteArray();
+        assertArrayEquals(DATA, decode(new JdkZlibDecoder(dictionary), compressed, compressed.length, false));
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+public class Lz4FrameDecoderTest {
+
+    private static byte[] compress(byte[] data, int blockSize) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        LZ4BlockOutputStream os = new LZ4BlockOutputStream(bos, blockSize);
+        os.write(data);
+        os.close();
+        return bos.toByteArray();
+    }
+
+    private static byte[] readAll(EmbeddedChannel channel) {
+        ByteBuf decompressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        byte[] result = new byte[decompressed.readableBytes()];
+        decompressed.readBytes(result);
+        return result;
+    }
+
+    @Test
+    public void testDecompressWholeStream() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(200000);
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameDecoder(true));
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(compress(data, 65536))));
+        assertArrayEquals(data, readAll(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testDecompressFragmentedDirectStream() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(20000);
+        byte[] compressed = compress(data, 1024);
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameDecoder(true));
+        for (int i = 0; i < compressed.length; i += 100) {
+            int length = Math.min(100, compressed.length - i);
+            channel.writeInbound(Unpooled.directBuffer(length).writeBytes(compressed, i, length));
+        }
+        assertArrayEquals(data, readAll(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testInvalidChecksum() throws Exception {
+        byte[] compressed = compress(Lz4FrameEncoderTest.newData(1000), 65536);
+        // Corrupt the checksum of the first block.
+        compressed[Lz4Constants.HEADER_LENGTH - 1] ^= 1;
+
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameDecoder(true));
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer(compressed));
+            fail();
+        } catch (DecompressionException e) {
+            // expected
+        }
+
+        // The checksum is not validated by default.
+        channel = new EmbeddedChannel(new Lz4FrameDecoder());
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(compressed)));
+        assertEquals(1000, readAll(channel).length);
+    }
+
+    @Test(expected = DecompressionException.class)
+    public void testInvalidMagicNumber() throws Exception {
+        byte[] compressed = compress(Lz4FrameEncoderTest.newData(1000), 65536);
+        compressed[0] = 'X';
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameDecoder());
+        channel.writeInbound(Unpooled.wrappedBuffer(compressed));
+    }
+}
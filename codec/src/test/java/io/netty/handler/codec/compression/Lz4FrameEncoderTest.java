@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Lz4FrameEncoderTest {
+
+    private static final Random rand = new Random(42);
+
+    static byte[] newData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            // Compressible but not trivial.
+            data[i] = (byte) ('a' + rand.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] encodeAndDecode(EmbeddedChannel channel, ByteBuf... msgs) throws Exception {
+        int length = 0;
+        for (ByteBuf msg: msgs) {
+            length += msg.readableBytes();
+        }
+        channel.writeOutbound((Object[]) msgs);
+        assertTrue(channel.finish());
+
+        ByteBuf compressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed.writeBytes(buf);
+            buf.release();
+        }
+
+        InputStream is = new LZ4BlockInputStream(new ByteBufInputStream(compressed));
+        byte[] decompressed = new byte[length];
+        int n = 0;
+        while (n < length) {
+            int read = is.read(decompressed, n, length - n);
+            assertTrue(read > 0);
+            n += read;
+        }
+        assertEquals(-1, is.read());
+        is.close();
+        return decompressed;
+    }
+
+    @Test
+    public void testCompressedData() throws Exception {
+        byte[] data = newData(100000);
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameEncoder());
+        assertArrayEquals(data, encodeAndDecode(channel, Unpooled.wrappedBuffer(data)));
+    }
+
+    @Test
+    public void testDirectBuffersAndSmallBlocks() throws Exception {
+        byte[] data = newData(10000);
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameEncoder(true));
+        ByteBuf a = Unpooled.directBuffer().writeBytes(data, 0, 3000);
+        ByteBuf b = Unpooled.directBuffer().writeBytes(data, 3000, 7000);
+        assertArrayEquals(data, encodeAndDecode(channel, a, b));
+    }
+
+    @Test
+    public void testIncompressibleData() throws Exception {
+        byte[] data = new byte[1024];
+        rand.nextBytes(data);
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameEncoder());
+        assertArrayEquals(data, encodeAndDecode(channel, Unpooled.wrappedBuffer(data)));
+    }
+
+    @Test
+    public void testFlushWritesPendingData() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new Lz4FrameEncoder());
+        channel.write(Unpooled.wrappedBuffer(newData(100)));
+        assertNull(channel.readOutbound());
+
+        channel.flush();
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        assertNotNull(buf);
+        assertEquals(Lz4Constants.MAGIC_NUMBER, buf.getLong(0));
+        buf.release();
+        assertTrue(channel.finish());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBlockSize() {
+        new Lz4FrameEncoder(net.jpountz.lz4.LZ4Factory.fastestInstance(), false, 32, new java.util.zip.CRC32());
+    }
+}
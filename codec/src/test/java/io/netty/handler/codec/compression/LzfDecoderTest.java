@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.LZFEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LzfDecoderTest {
+
+    private static byte[] readAll(EmbeddedChannel channel) {
+        ByteBuf decompressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) channel.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        byte[] result = new byte[decompressed.readableBytes()];
+        decompressed.readBytes(result);
+        return result;
+    }
+
+    @Test
+    public void testDecompress() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(200000);
+        EmbeddedChannel channel = new EmbeddedChannel(new LzfDecoder());
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(LZFEncoder.encode(data))));
+        assertArrayEquals(data, readAll(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testDecompressFragmentedDirectBuffers() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(100000);
+        byte[] compressed = LZFEncoder.encode(data);
+        EmbeddedChannel channel = new EmbeddedChannel(new LzfDecoder(true));
+        for (int i = 0; i < compressed.length; i += 1000) {
+            int length = Math.min(1000, compressed.length - i);
+            channel.writeInbound(Unpooled.directBuffer(length).writeBytes(compressed, i, length));
+        }
+        assertArrayEquals(data, readAll(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(50000);
+        EmbeddedChannel encoder = new EmbeddedChannel(new LzfEncoder());
+        EmbeddedChannel decoder = new EmbeddedChannel(new LzfDecoder());
+        encoder.writeOutbound(Unpooled.wrappedBuffer(data));
+        decoder.writeInbound(encoder.readOutbound());
+        assertArrayEquals(data, readAll(decoder));
+        assertFalse(encoder.finish());
+        assertFalse(decoder.finish());
+    }
+
+    @Test(expected = DecompressionException.class)
+    public void testUnexpectedBlockIdentifier() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new LzfDecoder());
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { 'Z', 'X', 0, 0, 1, 'a' }));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.LZFDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LzfEncoderTest {
+
+    private static byte[] encode(EmbeddedChannel channel, ByteBuf msg) {
+        assertTrue(channel.writeOutbound(msg));
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        byte[] compressed = new byte[buf.readableBytes()];
+        buf.readBytes(compressed);
+        buf.release();
+        assertFalse(channel.finish());
+        return compressed;
+    }
+
+    @Test
+    public void testCompressHeapBuffer() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(200000);
+        byte[] compressed = encode(new EmbeddedChannel(new LzfEncoder()), Unpooled.wrappedBuffer(data));
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, LZFDecoder.decode(compressed));
+    }
+
+    @Test
+    public void testCompressDirectBufferWithSmallChunks() throws Exception {
+        byte[] data = Lz4FrameEncoderTest.newData(10000);
+        byte[] compressed = encode(new EmbeddedChannel(new LzfEncoder(true, 1000)),
+                Unpooled.directBuffer().writeBytes(data));
+        assertArrayEquals(data, LZFDecoder.decode(compressed));
+    }
+
+    @Test
+    public void testSmallDataIsNotCompressed() throws Exception {
+        byte[] data = { 'n', 'e', 't', 't', 'y' };
+        byte[] compressed = encode(new EmbeddedChannel(new LzfEncoder()), Unpooled.wrappedBuffer(data));
+        assertArrayEquals(new byte[] { 'Z', 'V', 0, 0, 5, 'n', 'e', 't', 't', 'y' }, compressed);
+    }
+}
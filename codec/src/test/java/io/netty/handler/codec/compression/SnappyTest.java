@@ -20,6 +20,8 @@ import io.netty.buffer.Unpooled;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static io.netty.handler.codec.compression.Snappy.*;
 import static org.junit.Assert.*;
 
@@ -170,6 +172,49 @@ public class SnappyTest {
         assertEquals("Encoded result was incorrect", expected, out);
     }
 
+    @Test
+    public void encodeAndDecodeMoreThanShortMaxValue() throws Exception {
+        // Random words from a small vocabulary, so that there are short matches all over the input.
+        Random random = new Random(42);
+        byte[][] words = new byte[64][];
+        for (int i = 0; i < words.length; i ++) {
+            words[i] = new byte[4 + random.nextInt(8)];
+            random.nextBytes(words[i]);
+        }
+        byte[] data = new byte[40000];
+        for (int i = 0; i < data.length;) {
+            byte[] word = words[random.nextInt(words.length)];
+            int length = Math.min(word.length, data.length - i);
+            System.arraycopy(word, 0, data, i, length);
+            i += length;
+        }
+
+        ByteBuf heap = Unpooled.buffer(data.length + 7).writerIndex(7).readerIndex(7).writeBytes(data);
+        ByteBuf direct = Unpooled.directBuffer(data.length + 7).writerIndex(7).readerIndex(7).writeBytes(data);
+        // Neither has an array nor a memory address, so it is read with the ByteBuf accessors.
+        ByteBuf readOnly = Unpooled.unmodifiableBuffer(Unpooled.wrappedBuffer(data));
+
+        ByteBuf expected = encodeAndDecode(readOnly, data);
+        assertEquals(expected, encodeAndDecode(heap, data));
+        assertEquals(expected, encodeAndDecode(direct, data));
+        expected.release();
+        direct.release();
+    }
+
+    private ByteBuf encodeAndDecode(ByteBuf in, byte[] data) {
+        ByteBuf encoded = Unpooled.buffer();
+        snappy.encode(in, encoded, in.readableBytes());
+        assertFalse(in.isReadable());
+        assertTrue(encoded.readableBytes() < data.length);
+
+        ByteBuf decoded = Unpooled.buffer(data.length);
+        snappy.reset();
+        snappy.decode(encoded.duplicate(), decoded);
+        snappy.reset();
+        assertEquals(Unpooled.wrappedBuffer(data), decoded);
+        return encoded;
+    }
+
     @Test
     public void testCalculateChecksum() {
         ByteBuf input = Unpooled.wrappedBuffer(new byte[] {
@@ -195,4 +240,47 @@ public class SnappyTest {
 
         validateChecksum(maskChecksum(0xddaa8ce6), input);
     }
+
+    @Test
+    public void testEncodeHeapAndDirectProduceSameOutput() throws Exception {
+        byte[] data = newCompressibleData(20000);
+        ByteBuf expected = Unpooled.buffer();
+        snappy.encode(Unpooled.wrappedBuffer(data), expected, data.length);
+
+        // Encode again with the same instance, which reuses its hash table.
+        ByteBuf heapOut = Unpooled.buffer();
+        snappy.encode(Unpooled.wrappedBuffer(data), heapOut, data.length);
+        assertEquals(expected, heapOut);
+
+        ByteBuf directOut = Unpooled.buffer();
+        snappy.encode(Unpooled.directBuffer().writeBytes(data), directOut, data.length);
+        assertEquals(expected, directOut);
+
+        ByteBuf decoded = Unpooled.buffer();
+        snappy.decode(expected, decoded);
+        assertEquals(Unpooled.wrappedBuffer(data), decoded);
+    }
+
+    @Test
+    public void testEncodeWithNonZeroReaderIndex() throws Exception {
+        byte[] data = newCompressibleData(1000);
+        ByteBuf in = Unpooled.buffer().writeZero(7).writeBytes(data).writeZero(5);
+        in.skipBytes(7);
+        ByteBuf out = Unpooled.buffer();
+        snappy.encode(in, out, data.length);
+        assertEquals(5, in.readableBytes());
+
+        ByteBuf decoded = Unpooled.buffer();
+        snappy.decode(out, decoded);
+        assertEquals(Unpooled.wrappedBuffer(data), decoded);
+    }
+
+    private static byte[] newCompressibleData(int length) {
+        byte[] data = new byte[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i ++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return data;
+    }
 }
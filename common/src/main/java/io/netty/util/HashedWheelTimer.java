@@ -15,22 +15,23 @@
  */
 package io.netty.util;
 
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link Timer} optimized for approximated I/O timeout scheduling.
@@ -55,6 +56,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * function is 'dead line of the task'.  The default number of ticks per wheel
  * (i.e. the size of the wheel) is 512.  You could specify a larger value
  * if you are going to schedule a lot of timeouts.
+ * <p>
+ * The timeouts which expire after one revolution of the wheel are kept in an
+ * overflow wheel of the same size, whose tick duration is one revolution of
+ * the wheel.  They are moved to the wheel once they are due within its
+ * revolution, so they are not visited on every tick of the wheel.
  *
  * <h3>Do not create many instances.</h3>
  *
@@ -72,6 +78,12 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * and Hierarchical Timing Wheels: data structures to efficiently implement a
  * timer facility'</a>.  More comprehensive slides are located
  * <a href="http://www.cse.wustl.edu/~cdgill/courses/cs6874/TimingWheels.ppt">here</a>.
+ * <p>
+ * {@link #newTimeout(TimerTask, long, TimeUnit)} and {@link Timeout#cancel()}
+ * do not take any lock.  They only add the timeout to a queue, which is
+ * drained by the worker thread on the next tick.  The buckets of the wheels
+ * are doubly-linked lists of the timeouts, which are only accessed by the
+ * worker thread, so a cancelled timeout is removed in constant time.
  */
 public class HashedWheelTimer implements Timer {
 
@@ -82,6 +94,12 @@ public class HashedWheelTimer implements Timer {
             new ResourceLeakDetector<HashedWheelTimer>(
                     HashedWheelTimer.class, 1, Runtime.getRuntime().availableProcessors() * 4);
 
+    /**
+     * The maximum number of new timeouts which are put into the wheel on each tick, so that a thread which keeps
+     * adding timeouts can not stall the worker thread.
+     */
+    private static final int MAX_NEW_TIMEOUTS_PER_TICK = 100000;
+
     private final ResourceLeak leak;
     private final Worker worker = new Worker();
     final Thread workerThread;
@@ -92,10 +110,15 @@ public class HashedWheelTimer implements Timer {
     final AtomicInteger workerState = new AtomicInteger(); // 0 - init, 1 - started, 2 - shut down
 
     final long tickDuration;
-    final Set<HashedWheelTimeout>[] wheel;
+    final HashedWheelBucket[] wheel;
+    final HashedWheelBucket[] overflowWheel;
     final int mask;
-    final ReadWriteLock lock = new ReentrantReadWriteLock();
-    volatile int wheelCursor;
+    final int wheelShift;
+    final Queue<HashedWheelTimeout> newTimeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    final Queue<HashedWheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    final LongCounter pendingTimeouts = PlatformDependent.newLongCounter();
+    private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+    volatile long startTime;
 
     /**
      * Creates a new timer with the default thread factory
@@ -192,9 +215,11 @@ public class HashedWheelTimer implements Timer {
             throw new IllegalArgumentException("ticksPerWheel must be greater than 0: " + ticksPerWheel);
         }
 
-        // Normalize ticksPerWheel to power of two and initialize the wheel.
+        // Normalize ticksPerWheel to power of two and initialize the wheels.
         wheel = createWheel(ticksPerWheel);
+        overflowWheel = createWheel(ticksPerWheel);
         mask = wheel.length - 1;
+        wheelShift = Integer.numberOfTrailingZeros(wheel.length);
 
         // Convert tickDuration to nanos.
         this.tickDuration = unit.toNanos(tickDuration);
@@ -210,8 +235,7 @@ public class HashedWheelTimer implements Timer {
         leak = leakDetector.open(this);
     }
 
-    @SuppressWarnings("unchecked")
-    private static Set<HashedWheelTimeout>[] createWheel(int ticksPerWheel) {
+    private static HashedWheelBucket[] createWheel(int ticksPerWheel) {
         if (ticksPerWheel <= 0) {
             throw new IllegalArgumentException(
                     "ticksPerWheel must be greater than 0: " + ticksPerWheel);
@@ -222,10 +246,9 @@ public class HashedWheelTimer implements Timer {
         }
 
         ticksPerWheel = normalizeTicksPerWheel(ticksPerWheel);
-        Set<HashedWheelTimeout>[] wheel = new Set[ticksPerWheel];
+        HashedWheelBucket[] wheel = new HashedWheelBucket[ticksPerWheel];
         for (int i = 0; i < wheel.length; i ++) {
-            wheel[i] = Collections.newSetFromMap(
-                    PlatformDependent.<HashedWheelTimeout, Boolean>newConcurrentHashMap());
+            wheel[i] = new HashedWheelBucket();
         }
         return wheel;
     }
@@ -259,6 +282,15 @@ public class HashedWheelTimer implements Timer {
             default:
                 throw new Error("Invalid WorkerState");
         }
+
+        // Wait until the worker thread has initialized the start time, which the deadlines are relative to.
+        while (startTime == 0) {
+            try {
+                startTimeInitialized.await();
+            } catch (InterruptedException ignore) {
+                // Ignore - it will be ready very soon.
+            }
+        }
     }
 
     @Override
@@ -292,19 +324,11 @@ public class HashedWheelTimer implements Timer {
 
         leak.close();
 
-        Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
-        for (Set<HashedWheelTimeout> bucket: wheel) {
-            unprocessedTimeouts.addAll(bucket);
-            bucket.clear();
-        }
-
-        return Collections.unmodifiableSet(unprocessedTimeouts);
+        return Collections.unmodifiableSet(worker.unprocessedTimeouts);
     }
 
     @Override
     public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
-        final long currentTime = System.nanoTime();
-
         if (task == null) {
             throw new NullPointerException("task");
         }
@@ -314,46 +338,29 @@ public class HashedWheelTimer implements Timer {
 
         start();
 
+        // The timeout is put into its bucket by the worker thread on the next tick.
         long delayInNanos = unit.toNanos(delay);
-        HashedWheelTimeout timeout = new HashedWheelTimeout(task, currentTime + delayInNanos);
-        scheduleTimeout(timeout, delayInNanos);
+        long deadline = System.nanoTime() + delayInNanos - startTime;
+        if (delayInNanos > 0 && deadline < 0) {
+            // Guard against an overflow; that's 292 years from now.
+            deadline = Long.MAX_VALUE;
+        }
+        HashedWheelTimeout timeout = new HashedWheelTimeout(this, task, deadline);
+        pendingTimeouts.add(1);
+        newTimeouts.add(timeout);
         return timeout;
     }
 
-    void scheduleTimeout(HashedWheelTimeout timeout, long delay) {
-        // Prepare the required parameters to schedule the timeout object.
-        long relativeIndex = (delay + tickDuration - 1) / tickDuration;
-        // if the previous line had an overflow going on, then we’ll just schedule this timeout
-        // one tick early; that shouldn’t matter since we’re talking 270 years here
-        if (relativeIndex < 0) {
-            relativeIndex = delay / tickDuration;
-        }
-        if (relativeIndex == 0) {
-            relativeIndex = 1;
-        }
-        if ((relativeIndex & mask) == 0) {
-            relativeIndex--;
-        }
-        final long remainingRounds = relativeIndex / wheel.length;
-
-        // Add the timeout to the wheel.
-        lock.readLock().lock();
-        try {
-            if (workerState.get() == WORKER_STATE_SHUTDOWN) {
-                throw new IllegalStateException("Cannot enqueue after shutdown");
-            }
-            final int stopIndex = (int) (wheelCursor + relativeIndex & mask);
-            timeout.stopIndex = stopIndex;
-            timeout.remainingRounds = remainingRounds;
-            wheel[stopIndex].add(timeout);
-        } finally {
-            lock.readLock().unlock();
-        }
+    /**
+     * Returns the number of timeouts which are neither expired nor cancelled yet.
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.value();
     }
 
     private final class Worker implements Runnable {
 
-        private long startTime;
+        private final Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
         private long tick;
 
         Worker() {
@@ -361,102 +368,117 @@ public class HashedWheelTimer implements Timer {
 
         @Override
         public void run() {
-            List<HashedWheelTimeout> expiredTimeouts =
-                    new ArrayList<HashedWheelTimeout>();
-
-            startTime = System.nanoTime();
-            tick = 1;
+            long startTime = System.nanoTime();
+            if (startTime == 0) {
+                // 0 means that the start time is not initialized yet.
+                startTime = 1;
+            }
+            HashedWheelTimer.this.startTime = startTime;
+            startTimeInitialized.countDown();
 
             while (workerState.get() == WORKER_STATE_STARTED) {
                 final long deadline = waitForNextTick();
                 if (deadline > 0) {
-                    fetchExpiredTimeouts(expiredTimeouts, deadline);
-                    notifyExpiredTimeouts(expiredTimeouts);
+                    processCancelledTimeouts();
+                    if ((tick & mask) == 0) {
+                        // A new revolution of the wheel starts, so move the timeouts which are due within it from
+                        // the overflow wheel.  This must be done before new timeouts are put into the overflow
+                        // wheel, as their remaining rounds are counted from the current revolution.
+                        cascadeOverflowTimeouts();
+                    }
+                    transferNewTimeouts();
+                    wheel[(int) (tick & mask)].expireTimeouts();
+                    tick ++;
                 }
             }
-        }
 
-        private void fetchExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts, long deadline) {
-
-            // Find the expired timeouts and decrease the round counter
-            // if necessary.  Note that we don't send the notification
-            // immediately to make sure the listeners are called without
-            // an exclusive lock.
-            lock.writeLock().lock();
-            try {
-                int newWheelCursor = wheelCursor = wheelCursor + 1 & mask;
-                fetchExpiredTimeouts(expiredTimeouts, wheel[newWheelCursor].iterator(), deadline);
-            } finally {
-                lock.writeLock().unlock();
+            processCancelledTimeouts();
+            for (HashedWheelBucket bucket: wheel) {
+                bucket.clearTimeouts(unprocessedTimeouts);
+            }
+            for (HashedWheelBucket bucket: overflowWheel) {
+                bucket.clearTimeouts(unprocessedTimeouts);
+            }
+            for (;;) {
+                HashedWheelTimeout timeout = newTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (!timeout.isCancelled()) {
+                    unprocessedTimeouts.add(timeout);
+                }
             }
         }
 
-        private void fetchExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts,
-                Iterator<HashedWheelTimeout> i, long deadline) {
-
-            List<HashedWheelTimeout> slipped = null;
-            while (i.hasNext()) {
-                HashedWheelTimeout timeout = i.next();
-                if (timeout.remainingRounds <= 0) {
-                    i.remove();
-                    if (timeout.deadline <= deadline) {
-                        expiredTimeouts.add(timeout);
-                    } else {
-                        // Handle the case where the timeout is put into a wrong
-                        // place, usually one tick earlier.  For now, just add
-                        // it to a temporary list - we will reschedule it in a
-                        // separate loop.
-                        if (slipped == null) {
-                            slipped = new ArrayList<HashedWheelTimeout>();
-                        }
-                        slipped.add(timeout);
-                    }
-                } else {
-                    timeout.remainingRounds --;
+        private void processCancelledTimeouts() {
+            for (;;) {
+                HashedWheelTimeout timeout = cancelledTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                // The bucket is null if the timeout was not transferred from newTimeouts yet, or has expired
+                // before it was cancelled.
+                HashedWheelBucket bucket = timeout.bucket;
+                if (bucket != null) {
+                    bucket.remove(timeout);
                 }
             }
+        }
 
-            // Reschedule the slipped timeouts.
-            if (slipped != null) {
-                for (HashedWheelTimeout timeout: slipped) {
-                    scheduleTimeout(timeout, timeout.deadline - deadline);
+        private void transferNewTimeouts() {
+            for (int i = 0; i < MAX_NEW_TIMEOUTS_PER_TICK; i ++) {
+                HashedWheelTimeout timeout = newTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (!timeout.isCancelled()) {
+                    schedule(timeout);
                 }
             }
         }
 
-        private void notifyExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts) {
-            // Notify the expired timeouts.
-            for (int i = expiredTimeouts.size() - 1; i >= 0; i --) {
-                expiredTimeouts.get(i).expire();
+        private void cascadeOverflowTimeouts() {
+            HashedWheelBucket bucket = overflowWheel[(int) (tick >>> wheelShift & mask)];
+            HashedWheelTimeout timeout = bucket.head;
+            while (timeout != null) {
+                HashedWheelTimeout next = timeout.next;
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds --;
+                } else {
+                    bucket.remove(timeout);
+                    schedule(timeout);
+                }
+                timeout = next;
             }
+        }
 
-            // Clean up the temporary list.
-            expiredTimeouts.clear();
+        private void schedule(HashedWheelTimeout timeout) {
+            // Never schedule a timeout for a tick which has passed already.
+            long ticks = Math.max(timeout.deadline / tickDuration, tick);
+            if (ticks - tick < wheel.length) {
+                wheel[(int) (ticks & mask)].add(timeout);
+            } else {
+                long round = ticks >>> wheelShift;
+                timeout.remainingRounds = (round - (tick >>> wheelShift) - 1) >>> wheelShift;
+                overflowWheel[(int) (round & mask)].add(timeout);
+            }
         }
 
         /**
          * calculate goal nanoTime from startTime and current tick number,
          * then wait until that goal has been reached.
          * @return Long.MIN_VALUE if received a shutdown request,
-         * current time otherwise (with Long.MIN_VALUE changed by +1)
+         * current time relative to startTime otherwise
          */
         private long waitForNextTick() {
-            long deadline = startTime + tickDuration * tick;
+            long deadline = tickDuration * (tick + 1);
 
             for (;;) {
-                final long currentTime = System.nanoTime();
+                final long currentTime = System.nanoTime() - startTime;
                 long sleepTimeMs = (deadline - currentTime + 999999) / 1000000;
 
                 if (sleepTimeMs <= 0) {
-                    tick += 1;
-                    if (currentTime == Long.MIN_VALUE) {
-                        return -Long.MAX_VALUE;
-                    } else {
-                        return currentTime;
-                    }
+                    return currentTime;
                 }
 
                 // Check if we run on windows, as if thats the case we will need
@@ -479,26 +501,103 @@ public class HashedWheelTimer implements Timer {
         }
     }
 
-    private final class HashedWheelTimeout implements Timeout {
+    /**
+     * A doubly-linked list of {@link HashedWheelTimeout}s, which is only accessed by the worker thread.
+     */
+    private static final class HashedWheelBucket {
+
+        HashedWheelTimeout head;
+        private HashedWheelTimeout tail;
+
+        void add(HashedWheelTimeout timeout) {
+            assert timeout.bucket == null;
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(HashedWheelTimeout timeout) {
+            HashedWheelTimeout prev = timeout.prev;
+            HashedWheelTimeout next = timeout.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Expires all timeouts of this bucket, which are all due as the wheel only contains the timeouts which are
+         * due within its current revolution.
+         */
+        void expireTimeouts() {
+            for (;;) {
+                HashedWheelTimeout timeout = head;
+                if (timeout == null) {
+                    break;
+                }
+                remove(timeout);
+                timeout.expire();
+            }
+        }
+
+        void clearTimeouts(Set<Timeout> unprocessedTimeouts) {
+            for (;;) {
+                HashedWheelTimeout timeout = head;
+                if (timeout == null) {
+                    break;
+                }
+                remove(timeout);
+                if (!timeout.isExpired()) {
+                    unprocessedTimeouts.add(timeout);
+                }
+            }
+        }
+    }
+
+    private static final class HashedWheelTimeout implements Timeout {
 
         private static final int ST_INIT = 0;
         private static final int ST_CANCELLED = 1;
         private static final int ST_EXPIRED = 2;
 
+        private static final AtomicIntegerFieldUpdater<HashedWheelTimeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimeout.class, "state");
+
+        private final HashedWheelTimer timer;
         private final TimerTask task;
         final long deadline;
-        volatile int stopIndex;
-        volatile long remainingRounds;
-        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        @SuppressWarnings("unused")
+        private volatile int state = ST_INIT;
+
+        // Only accessed by the worker thread.
+        long remainingRounds;
+        HashedWheelTimeout next;
+        HashedWheelTimeout prev;
+        HashedWheelBucket bucket;
 
-        HashedWheelTimeout(TimerTask task, long deadline) {
+        HashedWheelTimeout(HashedWheelTimer timer, TimerTask task, long deadline) {
+            this.timer = timer;
             this.task = task;
             this.deadline = deadline;
         }
 
         @Override
         public Timer timer() {
-            return HashedWheelTimer.this;
+            return timer;
         }
 
         @Override
@@ -508,29 +607,32 @@ public class HashedWheelTimer implements Timer {
 
         @Override
         public boolean cancel() {
-            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
                 return false;
             }
 
-            wheel[stopIndex].remove(this);
+            timer.pendingTimeouts.add(-1);
+            // Removed from its bucket by the worker thread on the next tick.
+            timer.cancelledTimeouts.add(this);
             return true;
         }
 
         @Override
         public boolean isCancelled() {
-            return state.get() == ST_CANCELLED;
+            return state == ST_CANCELLED;
         }
 
         @Override
         public boolean isExpired() {
-            return state.get() != ST_INIT;
+            return state != ST_INIT;
         }
 
         public void expire() {
-            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
                 return;
             }
 
+            timer.pendingTimeouts.add(-1);
             try {
                 task.run(this);
             } catch (Throwable t) {
@@ -542,7 +644,7 @@ public class HashedWheelTimer implements Timer {
 
         @Override
         public String toString() {
-            final long currentTime = System.nanoTime();
+            final long currentTime = System.nanoTime() - timer.startTime;
             long remaining = deadline - currentTime;
 
             StringBuilder buf = new StringBuilder(192);
@@ -16,44 +16,91 @@
 
 package io.netty.util;
 
-import java.util.IdentityHashMap;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Light-weight object pool based on a thread-local stack.
+ * <p>
+ * An object may be recycled by any thread.  When it is recycled by a thread other than the one that created it, it
+ * is put into a queue owned by the recycling thread, and the owner thread transfers it back to its stack lazily the
+ * next time its stack runs empty.
+ * </p>
  *
  * @param <T> the type of the pooled object
  */
 public abstract class Recycler<T> {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Recycler.class);
+
+    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(Integer.MIN_VALUE);
+    private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
+    private static final int DEFAULT_MAX_CAPACITY;
+    private static final int INITIAL_CAPACITY;
+
+    static {
+        // Maximum number of pooled objects kept per thread and per Recycler.
+        int maxCapacity = SystemPropertyUtil.getInt("io.netty.recycler.maxCapacity", 262144);
+        if (maxCapacity <= 0) {
+            maxCapacity = 262144;
+        }
+
+        DEFAULT_MAX_CAPACITY = maxCapacity;
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.recycler.maxCapacity: {}", DEFAULT_MAX_CAPACITY);
+        }
+
+        INITIAL_CAPACITY = Math.min(DEFAULT_MAX_CAPACITY, 256);
+    }
+
+    private final int maxCapacity;
     private final ThreadLocal<Stack<T>> threadLocal = new ThreadLocal<Stack<T>>() {
         @Override
         protected Stack<T> initialValue() {
-            return new Stack<T>(Recycler.this, Thread.currentThread());
+            return new Stack<T>(Recycler.this, Thread.currentThread(), maxCapacity);
         }
     };
 
+    protected Recycler() {
+        this(DEFAULT_MAX_CAPACITY);
+    }
+
+    protected Recycler(int maxCapacity) {
+        this.maxCapacity = Math.max(0, maxCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
     public final T get() {
         Stack<T> stack = threadLocal.get();
-        T o = stack.pop();
-        if (o == null) {
-            o = newObject(stack);
+        DefaultHandle handle = stack.pop();
+        if (handle == null) {
+            handle = stack.newHandle();
+            handle.value = newObject(handle);
         }
-        return o;
+        return (T) handle.value;
     }
 
     public final boolean recycle(T o, Handle handle) {
-        @SuppressWarnings("unchecked")
-        Stack<T> stack = (Stack<T>) handle;
+        DefaultHandle h = (DefaultHandle) handle;
+        Stack<?> stack = h.stack;
+        if (stack == null) {
+            // Sitting in the queue of another thread already.
+            throw new IllegalStateException("recycled already");
+        }
         if (stack.parent != this) {
             return false;
         }
-
-        if (Thread.currentThread() != stack.thread) {
-            return false;
+        if (o != h.value) {
+            throw new IllegalArgumentException("o does not belong to handle");
         }
-
-        stack.push(o);
+        h.recycle();
         return true;
     }
 
@@ -61,55 +108,331 @@ public abstract class Recycler<T> {
 
     public interface Handle { }
 
-    static final class Stack<T> implements Handle {
+    static final class DefaultHandle implements Handle {
+        private int lastRecycledId;
+        private int recycleId;
+
+        private Stack<?> stack;
+        private Object value;
+
+        DefaultHandle(Stack<?> stack) {
+            this.stack = stack;
+        }
+
+        void recycle() {
+            Thread thread = Thread.currentThread();
+            if (thread == stack.thread) {
+                stack.push(this);
+                return;
+            }
+
+            // Recycled by a foreign thread; hand it over via the queue this thread keeps for the owner stack.
+            Map<Stack<?>, WeakOrderQueue> delayedRecycled = DELAYED_RECYCLED.get();
+            WeakOrderQueue queue = delayedRecycled.get(stack);
+            if (queue == null) {
+                queue = WeakOrderQueue.allocate(stack, thread);
+                if (queue == null) {
+                    // Drop the object as the owner stack cannot take more objects from other threads.
+                    return;
+                }
+                delayedRecycled.put(stack, queue);
+            }
+            queue.add(this);
+        }
+    }
+
+    private static final ThreadLocal<Map<Stack<?>, WeakOrderQueue>> DELAYED_RECYCLED =
+            new ThreadLocal<Map<Stack<?>, WeakOrderQueue>>() {
+        @Override
+        protected Map<Stack<?>, WeakOrderQueue> initialValue() {
+            return new WeakHashMap<Stack<?>, WeakOrderQueue>();
+        }
+    };
+
+    /**
+     * A queue that makes only moderate guarantees about visibility: items are seen in the correct order,
+     * but we aren't absolutely guaranteed to ever see anything at all, thereby keeping the queue cheap to maintain.
+     * <p>
+     * Every {@link Link} is charged against the shared capacity of the owner stack until the owner has consumed it,
+     * so objects recycled by other threads are dropped instead of piling up when the owner does not take them back.
+     * </p>
+     */
+    private static final class WeakOrderQueue {
+        private static final int LINK_CAPACITY = 16;
+
+        // Let Link extend AtomicInteger for intrinsics. The Link itself will be used as writerIndex.
+        @SuppressWarnings("serial")
+        private static final class Link extends AtomicInteger {
+            private final DefaultHandle[] elements = new DefaultHandle[LINK_CAPACITY];
+
+            private int readIndex;
+            private Link next;
+        }
+
+        // chain of data items
+        private Link head, tail;
+        // pointer to another queue of delayed items for the same stack
+        private WeakOrderQueue next;
+        private final WeakReference<Thread> owner;
+        private final AtomicInteger availableSharedCapacity;
+        private final int id = ID_GENERATOR.getAndIncrement();
+
+        private WeakOrderQueue(Stack<?> stack, Thread thread) {
+            head = tail = new Link();
+            owner = new WeakReference<Thread>(thread);
+            availableSharedCapacity = stack.availableSharedCapacity;
+            synchronized (stack) {
+                next = stack.head;
+                stack.head = this;
+            }
+        }
 
-        private static final int INITIAL_CAPACITY = 256;
+        /**
+         * Creates a new queue for the specified stack, or returns {@code null} if the shared capacity of the stack
+         * is used up.
+         */
+        static WeakOrderQueue allocate(Stack<?> stack, Thread thread) {
+            return reserveSpace(stack.availableSharedCapacity) ? new WeakOrderQueue(stack, thread) : null;
+        }
+
+        private static boolean reserveSpace(AtomicInteger availableSharedCapacity) {
+            for (;;) {
+                int available = availableSharedCapacity.get();
+                if (available < LINK_CAPACITY) {
+                    return false;
+                }
+                if (availableSharedCapacity.compareAndSet(available, available - LINK_CAPACITY)) {
+                    return true;
+                }
+            }
+        }
+
+        private void reclaimSpace(int links) {
+            availableSharedCapacity.addAndGet(links * LINK_CAPACITY);
+        }
 
+        void add(DefaultHandle handle) {
+            Link tail = this.tail;
+            int writeIndex;
+            if ((writeIndex = tail.get()) == LINK_CAPACITY) {
+                if (!reserveSpace(availableSharedCapacity)) {
+                    // Drop the object as the owner stack cannot take more objects from other threads.
+                    return;
+                }
+                this.tail = tail = tail.next = new Link();
+                writeIndex = tail.get();
+            }
+            handle.lastRecycledId = id;
+            tail.elements[writeIndex] = handle;
+            // The queue is the value of a WeakHashMap keyed by the stack, so it must not keep the stack reachable.
+            handle.stack = null;
+            // we lazy set to ensure that setting stack to null appears before we unnull it in the owning thread;
+            // this also means we guarantee visibility of an element in the queue if we see the index updated
+            tail.lazySet(writeIndex + 1);
+        }
+
+        boolean hasFinalData() {
+            return tail.readIndex != tail.get();
+        }
+
+        // transfer as many items as we can from this queue to the stack, returning true if any were transferred
+        boolean transfer(Stack<?> to) {
+
+            Link head = this.head;
+            if (head == null) {
+                return false;
+            }
+
+            if (head.readIndex == LINK_CAPACITY) {
+                if (head.next == null) {
+                    return false;
+                }
+                this.head = head = head.next;
+                reclaimSpace(1);
+            }
+
+            int start = head.readIndex;
+            int end = head.get();
+            if (start == end) {
+                return false;
+            }
+
+            int count = end - start;
+            if (to.size + count > to.elements.length) {
+                to.elements = Arrays.copyOf(to.elements, Math.min((to.size + count) * 2, to.maxCapacity));
+            }
+
+            DefaultHandle[] src = head.elements;
+            DefaultHandle[] trg = to.elements;
+            int size = to.size;
+            while (start < end) {
+                DefaultHandle element = src[start];
+                src[start] = null;
+                start ++;
+
+                if (size == trg.length) {
+                    // Drop the object as the stack is full already.
+                    continue;
+                }
+
+                if (element.recycleId == 0) {
+                    element.recycleId = element.lastRecycledId;
+                } else if (element.recycleId != element.lastRecycledId) {
+                    throw new IllegalStateException("recycled already");
+                }
+                element.stack = to;
+                trg[size++] = element;
+            }
+            to.size = size;
+
+            if (end == LINK_CAPACITY && head.next != null) {
+                this.head = head.next;
+                reclaimSpace(1);
+            }
+
+            head.readIndex = end;
+            return true;
+        }
+
+        /**
+         * Returns the capacity of the remaining links to the owner stack once this queue is unlinked from it.
+         */
+        void reclaimAllSpace() {
+            int links = 0;
+            for (Link link = head; link != null; link = link.next) {
+                links ++;
+            }
+            this.head = null;
+            reclaimSpace(links);
+        }
+    }
+
+    static final class Stack<T> {
+
+        // we keep a queue of per-thread queues, which is appended to once only, each time a new thread other
+        // than the stack owner recycles: when we run out of items in our stack we iterate this collection
+        // to scavenge those that can be reused. this permits us to incur minimal thread synchronisation whilst
+        // still recycling all items.
         final Recycler<T> parent;
         final Thread thread;
-        private T[] elements;
+        private DefaultHandle[] elements;
+        private final int maxCapacity;
+        // The number of objects which other threads may still queue for this stack
+        final AtomicInteger availableSharedCapacity;
         private int size;
-        private final Map<T, Boolean> map = new IdentityHashMap<T, Boolean>(INITIAL_CAPACITY);
 
-        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
-        Stack(Recycler<T> parent, Thread thread) {
+        private volatile WeakOrderQueue head;
+        private WeakOrderQueue cursor, prev;
+
+        Stack(Recycler<T> parent, Thread thread, int maxCapacity) {
             this.parent = parent;
             this.thread = thread;
-            elements = newArray(INITIAL_CAPACITY);
+            this.maxCapacity = maxCapacity;
+            availableSharedCapacity = new AtomicInteger(Math.max(maxCapacity, WeakOrderQueue.LINK_CAPACITY));
+            elements = new DefaultHandle[Math.min(INITIAL_CAPACITY, maxCapacity)];
         }
 
-        T pop() {
+        DefaultHandle pop() {
             int size = this.size;
             if (size == 0) {
-                return null;
+                if (!scavenge()) {
+                    return null;
+                }
+                size = this.size;
             }
             size --;
-            T ret = elements[size];
+            DefaultHandle ret = elements[size];
             elements[size] = null;
-            map.remove(ret);
+            if (ret.lastRecycledId != ret.recycleId) {
+                throw new IllegalStateException("recycled multiple times");
+            }
+            ret.recycleId = 0;
+            ret.lastRecycledId = 0;
             this.size = size;
             return ret;
         }
 
-        void push(T o) {
-            if (map.put(o, Boolean.TRUE) != null) {
+        boolean scavenge() {
+            // continue an existing scavenge, if any
+            if (scavengeSome()) {
+                return true;
+            }
+
+            // reset our scavenge cursor
+            prev = null;
+            cursor = head;
+            return false;
+        }
+
+        boolean scavengeSome() {
+            WeakOrderQueue cursor = this.cursor;
+            if (cursor == null) {
+                cursor = head;
+                if (cursor == null) {
+                    return false;
+                }
+            }
+
+            boolean success = false;
+            WeakOrderQueue prev = this.prev;
+            do {
+                if (cursor.transfer(this)) {
+                    success = true;
+                    break;
+                }
+
+                WeakOrderQueue next = cursor.next;
+                if (cursor.owner.get() == null) {
+                    // If the thread associated with the queue is gone, unlink it, after
+                    // performing a volatile read to confirm there is no data left to collect.
+                    // We never unlink the first queue, as we don't want to synchronize on updating the head.
+                    if (cursor.hasFinalData()) {
+                        for (;;) {
+                            if (cursor.transfer(this)) {
+                                success = true;
+                            } else {
+                                break;
+                            }
+                        }
+                    }
+                    if (prev != null) {
+                        prev.next = next;
+                        cursor.reclaimAllSpace();
+                    }
+                } else {
+                    prev = cursor;
+                }
+
+                cursor = next;
+
+            } while (cursor != null && !success);
+
+            this.prev = prev;
+            this.cursor = cursor;
+            return success;
+        }
+
+        void push(DefaultHandle item) {
+            if ((item.recycleId | item.lastRecycledId) != 0) {
                 throw new IllegalStateException("recycled already");
             }
+            item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
 
             int size = this.size;
+            if (size == maxCapacity) {
+                // Hit the maximum capacity - drop the possibly youngest object.
+                return;
+            }
             if (size == elements.length) {
-                T[] newElements = newArray(size << 1);
-                System.arraycopy(elements, 0, newElements, 0, size);
-                elements = newElements;
+                elements = Arrays.copyOf(elements, Math.min(size << 1, maxCapacity));
             }
 
-            elements[size] = o;
+            elements[size] = item;
             this.size = size + 1;
         }
 
-        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
-        private static <T> T[] newArray(int length) {
-            return (T[]) new Object[length];
+        DefaultHandle newHandle() {
+            return new DefaultHandle(this);
         }
     }
 }
@@ -16,7 +16,6 @@
 
 package io.netty.util.concurrent;
 
-import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
@@ -36,20 +35,22 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     private final long id = nextTaskId.getAndIncrement();
-    private final Queue<ScheduledFutureTask<?>> delayedTaskQueue;
+    private final ScheduledFutureTaskQueue delayedTaskQueue;
     private long deadlineNanos;
     /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
     private final long periodNanos;
+    /* The index in the delayedTaskQueue, or -1 if not in the queue. Only accessed by the executor thread. */
+    int queueIndex = -1;
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Runnable runnable, V result, long nanoTime) {
 
         this(executor, delayedTaskQueue, toCallable(runnable, result), nanoTime);
     }
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Callable<V> callable, long nanoTime, long period) {
 
         super(executor, callable);
@@ -62,7 +63,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Callable<V> callable, long nanoTime) {
 
         super(executor, callable);
@@ -114,6 +115,16 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
         }
     }
 
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            // Do not keep the cancelled task in the queue until its deadline.
+            delayedTaskQueue.cancelTask(this);
+        }
+        return cancelled;
+    }
+
     @Override
     public void run() {
         assert executor().inEventLoop();
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The queue of the {@link ScheduledFutureTask}s of an {@link EventExecutor}, ordered by their deadlines.
+ * <p>
+ * It is a binary heap which stores the index of each task in the task itself, so that a cancelled task is removed
+ * in {@code O(log n)} instead of staying in the queue until its deadline.  The {@link Queue} methods must be called
+ * by the executor thread only.  Other threads call {@link #scheduleTask(ScheduledFutureTask)} and
+ * {@link #cancelTask(ScheduledFutureTask)}, which queue the task so that the executor thread adds or removes it
+ * later.  The tasks queued until the executor thread gets to them are handled in a single batch.
+ */
+final class ScheduledFutureTaskQueue extends AbstractQueue<ScheduledFutureTask<?>> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final AtomicIntegerFieldUpdater<ScheduledFutureTaskQueue> DRAIN_SCHEDULED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ScheduledFutureTaskQueue.class, "drainScheduled");
+
+    private final EventExecutor executor;
+    private final Queue<ScheduledFutureTask<?>> pendingTasks = new ConcurrentLinkedQueue<ScheduledFutureTask<?>>();
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainPendingTasks();
+        }
+    };
+    @SuppressWarnings("unused")
+    private volatile int drainScheduled;
+
+    // Only accessed by the executor thread.
+    private ScheduledFutureTask<?>[] heap = new ScheduledFutureTask<?>[INITIAL_CAPACITY];
+    private int size;
+
+    ScheduledFutureTaskQueue(EventExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds the specified task, or lets the executor thread add it if called by another thread.
+     */
+    void scheduleTask(ScheduledFutureTask<?> task) {
+        if (executor.inEventLoop()) {
+            add(task);
+        } else {
+            addPendingTask(task);
+        }
+    }
+
+    /**
+     * Removes the specified cancelled task, or lets the executor thread remove it if called by another thread.
+     */
+    void cancelTask(ScheduledFutureTask<?> task) {
+        if (executor.inEventLoop()) {
+            remove(task);
+        } else {
+            try {
+                addPendingTask(task);
+            } catch (RejectedExecutionException ignore) {
+                // The executor has been shut down, and cancels all remaining tasks itself.
+            }
+        }
+    }
+
+    private void addPendingTask(ScheduledFutureTask<?> task) {
+        pendingTasks.add(task);
+        // Execute a single task which drains all pending tasks, instead of one task for each.
+        if (DRAIN_SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+            executor.execute(drainTask);
+        }
+    }
+
+    private void drainPendingTasks() {
+        // Reset the flag first, so a task added from now on schedules another drain if it is not polled below.
+        drainScheduled = 0;
+        for (;;) {
+            ScheduledFutureTask<?> task = pendingTasks.poll();
+            if (task == null) {
+                break;
+            }
+            if (task.isCancelled()) {
+                remove(task);
+            } else if (task.queueIndex < 0) {
+                add(task);
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(ScheduledFutureTask<?> task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        assert task.queueIndex < 0;
+
+        int index = size;
+        if (index == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        }
+        size = index + 1;
+        siftUp(index, task);
+        return true;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll() {
+        if (size == 0) {
+            return null;
+        }
+        ScheduledFutureTask<?> result = heap[0];
+        result.queueIndex = -1;
+
+        int last = -- size;
+        ScheduledFutureTask<?> task = heap[last];
+        heap[last] = null;
+        if (last != 0) {
+            siftDown(0, task);
+        }
+        return result;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof ScheduledFutureTask)) {
+            return false;
+        }
+        ScheduledFutureTask<?> task = (ScheduledFutureTask<?>) o;
+        int index = task.queueIndex;
+        return index >= 0 && index < size && heap[index] == task;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        ScheduledFutureTask<?> task = (ScheduledFutureTask<?>) o;
+        int index = task.queueIndex;
+        task.queueIndex = -1;
+
+        int last = -- size;
+        if (last == index) {
+            heap[last] = null;
+        } else {
+            // Move the last task into the hole, and restore the heap order from there.
+            ScheduledFutureTask<?> moved = heap[last];
+            heap[last] = null;
+            siftDown(index, moved);
+            if (heap[index] == moved) {
+                siftUp(index, moved);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i ++) {
+            heap[i].queueIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an iterator over the tasks in no particular order, which does not support removal.
+     */
+    @Override
+    public Iterator<ScheduledFutureTask<?>> iterator() {
+        return new Iterator<ScheduledFutureTask<?>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public ScheduledFutureTask<?> next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return heap[index ++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    private void siftUp(int index, ScheduledFutureTask<?> task) {
+        while (index > 0) {
+            int parentIndex = index - 1 >>> 1;
+            ScheduledFutureTask<?> parent = heap[parentIndex];
+            if (task.compareTo(parent) >= 0) {
+                break;
+            }
+            heap[index] = parent;
+            parent.queueIndex = index;
+            index = parentIndex;
+        }
+        heap[index] = task;
+        task.queueIndex = index;
+    }
+
+    private void siftDown(int index, ScheduledFutureTask<?> task) {
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            ScheduledFutureTask<?> child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && child.compareTo(heap[rightIndex]) > 0) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (task.compareTo(child) <= 0) {
+                break;
+            }
+            heap[index] = child;
+            child.queueIndex = index;
+            index = childIndex;
+        }
+        heap[index] = task;
+        task.queueIndex = index;
+    }
+}
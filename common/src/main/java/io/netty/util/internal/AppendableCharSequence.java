@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.Arrays;
+
+/**
+ * A {@link CharSequence} which can be appended to and reset, so that the same instance, and so the same backing
+ * {@code char[]}, can be reused for parsing many lines.
+ */
+public final class AppendableCharSequence implements CharSequence, Appendable {
+    private char[] chars;
+    private int pos;
+
+    public AppendableCharSequence(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length: " + length + " (length: >= 1)");
+        }
+        chars = new char[length];
+    }
+
+    private AppendableCharSequence(char[] chars) {
+        this.chars = chars;
+        pos = chars.length;
+    }
+
+    @Override
+    public int length() {
+        return pos;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= pos) {
+            throw new IndexOutOfBoundsException();
+        }
+        return chars[index];
+    }
+
+    @Override
+    public AppendableCharSequence subSequence(int start, int end) {
+        return new AppendableCharSequence(Arrays.copyOfRange(chars, start, end));
+    }
+
+    @Override
+    public AppendableCharSequence append(char c) {
+        if (pos == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length << 1);
+        }
+        chars[pos ++] = c;
+        return this;
+    }
+
+    @Override
+    public AppendableCharSequence append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public AppendableCharSequence append(CharSequence csq, int start, int end) {
+        if (csq.length() < end) {
+            throw new IndexOutOfBoundsException();
+        }
+        int length = end - start;
+        if (length > chars.length - pos) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length << 1, pos + length));
+        }
+        if (csq instanceof AppendableCharSequence) {
+            // Optimize append operations via array copy
+            System.arraycopy(((AppendableCharSequence) csq).chars, start, chars, pos, length);
+            pos += length;
+            return this;
+        }
+        for (int i = start; i < end; i ++) {
+            chars[pos ++] = csq.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Resets the {@link AppendableCharSequence}.  The backing {@code char[]} is kept, so it is not required to
+     * create a new instance for every line.
+     */
+    public void reset() {
+        pos = 0;
+    }
+
+    /**
+     * Returns {@code true} if the characters from {@code start} to {@code end} (exclusive) are equal to the
+     * characters of the specified {@link String}.
+     */
+    public boolean regionEquals(int start, int end, String value) {
+        int length = end - start;
+        if (length != value.length() || start < 0 || end > pos) {
+            return false;
+        }
+        final char[] chars = this.chars;
+        for (int i = 0; i < length; i ++) {
+            if (chars[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, pos);
+    }
+
+    /**
+     * Create a new {@link String} from the given start to end.
+     */
+    public String substring(int start, int end) {
+        int length = end - start;
+        if (start > pos || length > pos) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new String(chars, start, length);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks many {@link Entry}s periodically with a single scheduled task per {@link EventExecutor}, instead of one
+ * scheduled task per entry.  The task of an {@link EventExecutor} is only scheduled while entries are registered to
+ * it, so an event loop without entries is not woken up.  The entries of an {@link EventExecutor} are kept in a
+ * doubly-linked list, so registering and unregistering take constant time, and an entry may unregister itself or
+ * other entries while it is ticked.
+ */
+public class EventExecutorTickers {
+
+    private final long tickInterval;
+    private final TimeUnit unit;
+    private final ConcurrentMap<EventExecutor, Ticker> tickers = PlatformDependent.newConcurrentHashMap();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param tickInterval  the interval between two ticks
+     * @param unit          the {@link TimeUnit} of {@code tickInterval}
+     */
+    public EventExecutorTickers(long tickInterval, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (tickInterval <= 0) {
+            throw new IllegalArgumentException("tickInterval: " + tickInterval + " (expected: > 0)");
+        }
+        this.tickInterval = tickInterval;
+        this.unit = unit;
+    }
+
+    /**
+     * Registers the specified entry to the ticker of the specified {@link EventExecutor}, unless it is registered
+     * already.  Must be called by the {@link EventExecutor}.
+     */
+    public final void register(EventExecutor executor, Entry entry) {
+        if (entry.ticker != null) {
+            return;
+        }
+        Ticker ticker = tickers.get(executor);
+        if (ticker == null) {
+            ticker = new Ticker(executor);
+            Ticker oldTicker = tickers.putIfAbsent(executor, ticker);
+            if (oldTicker != null) {
+                ticker = oldTicker;
+            }
+        }
+        ticker.add(entry);
+    }
+
+    /**
+     * Unregisters the specified entry if it is registered.  Must be called by the {@link EventExecutor} which the
+     * entry is registered to.
+     */
+    public final void unregister(Entry entry) {
+        Ticker ticker = entry.ticker;
+        if (ticker != null) {
+            ticker.remove(entry);
+        }
+    }
+
+    /**
+     * Returns the time which is passed to the entries on every tick.  The default implementation returns
+     * {@link System#nanoTime()}.
+     */
+    protected long currentTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called by an {@link EventExecutor} on every tick, before its entries are ticked.
+     */
+    protected void beforeTick(long currentTime) {
+        // NOOP
+    }
+
+    /**
+     * An object which is ticked periodically by the {@link EventExecutor} which it is registered to.
+     */
+    public abstract static class Entry {
+
+        // Only accessed by the event loop.
+        private Ticker ticker;
+        private Entry prev;
+        private Entry next;
+
+        /**
+         * Returns {@code true} if this entry is registered.  Must be called by the {@link EventExecutor} which the
+         * entry is registered to.
+         */
+        public final boolean isRegistered() {
+            return ticker != null;
+        }
+
+        /**
+         * Called on every tick while this entry is registered.
+         *
+         * @param currentTime the {@linkplain EventExecutorTickers#currentTime() current time}
+         */
+        protected abstract void tick(long currentTime);
+    }
+
+    /**
+     * Ticks the entries of an {@link EventExecutor}.  All methods are called by the event loop only.
+     */
+    private final class Ticker implements Runnable {
+        private final EventExecutor executor;
+        private Entry head;
+        private Entry tail;
+        // The next entry to tick while the entries are ticked, which is moved on if it is removed by a tick.
+        private Entry cursor;
+        private ScheduledFuture<?> future;
+
+        Ticker(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void add(Entry entry) {
+            entry.ticker = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+            if (future == null) {
+                future = executor.scheduleAtFixedRate(this, tickInterval, tickInterval, unit);
+            }
+        }
+
+        void remove(Entry entry) {
+            if (cursor == entry) {
+                cursor = entry.next;
+            }
+            Entry prev = entry.prev;
+            Entry next = entry.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.ticker = null;
+
+            if (head == null && future != null) {
+                // Do not wake up an event loop which has nothing to tick.
+                future.cancel(false);
+                future = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            long currentTime = currentTime();
+            beforeTick(currentTime);
+            Entry entry = head;
+            try {
+                while (entry != null) {
+                    cursor = entry.next;
+                    entry.tick(currentTime);
+                    entry = cursor;
+                }
+            } finally {
+                cursor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+/**
+ * A counter which is updated by many threads but read rarely, such as a statistics counter.
+ *
+ * @see PlatformDependent#newLongCounter()
+ */
+public interface LongCounter {
+
+    /**
+     * Adds the specified value to this counter.
+     */
+    void add(long delta);
+
+    /**
+     * Returns the current value of this counter.  The returned value is not an atomic snapshot if the counter is
+     * updated concurrently.
+     */
+    long value();
+
+    /**
+     * Returns the current value of this counter and resets it to zero.  An update which happens concurrently may
+     * be lost.
+     */
+    long valueThenReset();
+
+    /**
+     * Resets this counter to zero.
+     */
+    void reset();
+}
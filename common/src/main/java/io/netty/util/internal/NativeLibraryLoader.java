@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * Helper class to load JNI resources.
+ */
+public final class NativeLibraryLoader {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(NativeLibraryLoader.class);
+
+    private static final String NATIVE_RESOURCE_HOME = "META-INF/native/";
+    private static final String OSNAME;
+    private static final File WORKDIR;
+
+    static {
+        OSNAME = SystemPropertyUtil.get("os.name", "").toLowerCase(Locale.UK).replaceAll("[^a-z0-9]+", "");
+
+        String workdir = SystemPropertyUtil.get("io.netty.native.workdir");
+        if (workdir != null) {
+            File f = new File(workdir);
+            if (!f.exists()) {
+                // ok to ignore as createTempFile will take care
+                //noinspection ResultOfMethodCallIgnored
+                f.mkdirs();
+            }
+
+            try {
+                f = f.getAbsoluteFile();
+            } catch (Exception ignored) {
+                // Good to have an absolute path, but it's OK.
+            }
+
+            WORKDIR = f;
+            logger.debug("-Dio.netty.native.workdir: {}", WORKDIR);
+        } else {
+            WORKDIR = tmpdir();
+            logger.debug("-Dio.netty.native.workdir: {} (io.netty.tmpdir)", WORKDIR);
+        }
+    }
+
+    private static File tmpdir() {
+        File f;
+        try {
+            f = toDirectory(SystemPropertyUtil.get("io.netty.tmpdir"));
+            if (f != null) {
+                logger.debug("-Dio.netty.tmpdir: {}", f);
+                return f;
+            }
+
+            f = toDirectory(SystemPropertyUtil.get("java.io.tmpdir"));
+            if (f != null) {
+                logger.debug("-Dio.netty.tmpdir: {} (java.io.tmpdir)", f);
+                return f;
+            }
+        } catch (Exception ignored) {
+            // Environment variable inaccessible
+        }
+
+        f = new File("/tmp");
+        logger.warn("Failed to get the temporary directory; falling back to: {}", f);
+        return f;
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private static File toDirectory(String path) {
+        if (path == null) {
+            return null;
+        }
+
+        File f = new File(path);
+        f.mkdirs();
+
+        if (!f.isDirectory()) {
+            return null;
+        }
+
+        try {
+            return f.getAbsoluteFile();
+        } catch (Exception ignored) {
+            return f;
+        }
+    }
+
+    /**
+     * Load the given library with the specified {@link ClassLoader}.  The library is looked up in the
+     * {@code META-INF/native} directory of the class path first, and then in {@code java.library.path}.
+     */
+    public static void load(String name, ClassLoader loader) {
+        String libname = System.mapLibraryName(name);
+        String path = NATIVE_RESOURCE_HOME + libname;
+
+        URL url = loader.getResource(path);
+        if (url == null) {
+            // Fall back to normal loading of JNI stuff
+            System.loadLibrary(name);
+            return;
+        }
+
+        int index = libname.lastIndexOf('.');
+        String prefix = libname.substring(0, index);
+        String suffix = libname.substring(index, libname.length());
+        InputStream in = null;
+        OutputStream out = null;
+        File tmpFile = null;
+        boolean loaded = false;
+        try {
+            tmpFile = File.createTempFile(prefix, suffix, WORKDIR);
+            in = url.openStream();
+            out = new FileOutputStream(tmpFile);
+
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            out.flush();
+            out.close();
+            out = null;
+
+            System.load(tmpFile.getPath());
+            loaded = true;
+        } catch (Exception e) {
+            throw (UnsatisfiedLinkError) new UnsatisfiedLinkError(
+                    "could not load a native library: " + name).initCause(e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+            if (tmpFile != null) {
+                if (loaded) {
+                    tmpFile.deleteOnExit();
+                } else {
+                    if (!tmpFile.delete()) {
+                        tmpFile.deleteOnExit();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the normalized name of the operating system, e.g. {@code "linux"}.
+     */
+    public static String osName() {
+        return OSNAME;
+    }
+
+    private NativeLibraryLoader() {
+        // Utility
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.util.internal;
 
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
+import io.netty.util.internal.chmv8.LongAdder;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -28,12 +29,14 @@ import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,6 +74,11 @@ public final class PlatformDependent {
 
     private static final boolean HAS_JAVASSIST = hasJavassist0();
 
+    /**
+     * {@code true} if and only if the native byte order of the platform is big endian.
+     */
+    public static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
     static {
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.noPreferDirect: {}", !DIRECT_BUFFER_PREFERRED);
@@ -222,6 +230,18 @@ public final class PlatformDependent {
         }
     }
 
+    /**
+     * Creates a new fastest {@link LongCounter} implementaion for the current platform.  If possible, the counter
+     * is striped, so that threads which update it concurrently do not contend on the same cache line.
+     */
+    public static LongCounter newLongCounter() {
+        if (HAS_UNSAFE) {
+            return new LongAdderCounter();
+        } else {
+            return new AtomicLongCounter();
+        }
+    }
+
     /**
      * Try to deallocate the specified direct {@link ByteBuffer}.  Please note this method does nothing if
      * the current platform does not support this operation or the specified buffer is not a direct buffer.
@@ -244,6 +264,30 @@ public final class PlatformDependent {
         return PlatformDependent0.getInt(object, fieldOffset);
     }
 
+    /**
+     * Return {@code true} if {@code sun.misc.Unsafe} is available and the platform supports unaligned access, so
+     * that {@link #getInt(byte[], int)} and {@link #getLong(byte[], int)} can be used.
+     */
+    public static boolean isUnaligned() {
+        return HAS_UNSAFE && PlatformDependent0.isUnaligned();
+    }
+
+    /**
+     * Reads an {@code int} in native byte order from the specified array.  The caller must make sure that
+     * {@link #isUnaligned()} returns {@code true} and the index is within the bounds of the array.
+     */
+    public static int getInt(byte[] data, int index) {
+        return PlatformDependent0.getInt(data, ARRAY_BASE_OFFSET + index);
+    }
+
+    /**
+     * Reads a {@code long} in native byte order from the specified array.  The caller must make sure that
+     * {@link #isUnaligned()} returns {@code true} and the index is within the bounds of the array.
+     */
+    public static long getLong(byte[] data, int index) {
+        return PlatformDependent0.getLong(data, ARRAY_BASE_OFFSET + index);
+    }
+
     public static long objectFieldOffset(Field field) {
         return PlatformDependent0.objectFieldOffset(field);
     }
@@ -575,4 +619,44 @@ public final class PlatformDependent {
     private PlatformDependent() {
         // only static method supported
     }
+
+    private static final class LongAdderCounter extends LongAdder implements LongCounter {
+
+        private static final long serialVersionUID = 7483096488389532412L;
+
+        @Override
+        public long value() {
+            return sum();
+        }
+
+        @Override
+        public long valueThenReset() {
+            return sumThenReset();
+        }
+    }
+
+    private static final class AtomicLongCounter extends AtomicLong implements LongCounter {
+
+        private static final long serialVersionUID = 4074772784610639305L;
+
+        @Override
+        public void add(long delta) {
+            addAndGet(delta);
+        }
+
+        @Override
+        public long value() {
+            return get();
+        }
+
+        @Override
+        public long valueThenReset() {
+            return getAndSet(0);
+        }
+
+        @Override
+        public void reset() {
+            set(0);
+        }
+    }
 }
@@ -134,6 +134,10 @@ final class PlatformDependent0 {
         }
     }
 
+    static boolean isUnaligned() {
+        return UNALIGNED;
+    }
+
     static boolean hasUnsafe() {
         return UNSAFE != null;
     }
@@ -172,7 +176,7 @@ final class PlatformDependent0 {
         return UNSAFE.getInt(object, fieldOffset);
     }
 
-    private static long getLong(Object object, long fieldOffset) {
+    static long getLong(Object object, long fieldOffset) {
         return UNSAFE.getLong(object, fieldOffset);
     }
 
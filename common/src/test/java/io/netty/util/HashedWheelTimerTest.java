@@ -16,6 +16,9 @@
 package io.netty.util;
 
 import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.assertEquals;
@@ -102,4 +105,56 @@ public class HashedWheelTimerTest {
             }
         }, 1, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void testLongDelayInOverflowWheel() throws InterruptedException {
+        // One revolution of the wheel takes 40ms and one revolution of the overflow wheel 160ms.
+        final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 4);
+        final List<Long> expiredTimes = new ArrayList<Long>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final long startTime = System.nanoTime();
+        for (long delay: new long[] { 30, 100, 500 }) {
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    expiredTimes.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, expiredTimes.size());
+        assertTrue("expired after: " + expiredTimes, expiredTimes.get(0) >= 30);
+        assertTrue("expired after: " + expiredTimes, expiredTimes.get(1) >= 100);
+        assertTrue("expired after: " + expiredTimes, expiredTimes.get(2) >= 500);
+        assertEquals(0, timer.pendingTimeouts());
+        timer.stop();
+    }
+
+    @Test
+    public void testPendingTimeouts() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 4);
+        final TimerTask task = new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+            }
+        };
+        List<Timeout> timeouts = new ArrayList<Timeout>();
+        for (int i = 0; i < 10; i ++) {
+            timeouts.add(timer.newTimeout(task, 10, TimeUnit.SECONDS));
+        }
+        assertEquals(10, timer.pendingTimeouts());
+
+        for (int i = 0; i < 4; i ++) {
+            assertTrue(timeouts.get(i).cancel());
+            assertFalse(timeouts.get(i).cancel());
+        }
+        assertEquals(6, timer.pendingTimeouts());
+
+        // Let the worker thread move the timeouts into the overflow wheel.
+        Thread.sleep(100);
+        assertTrue(timeouts.get(4).cancel());
+        assertEquals(5, timer.pendingTimeouts());
+        assertEquals(5, timer.stop().size());
+    }
 }
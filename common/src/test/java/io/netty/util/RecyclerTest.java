@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RecyclerTest {
+
+    private static final Recycler<RecyclableObject> RECYCLER = new Recycler<RecyclableObject>() {
+        @Override
+        protected RecyclableObject newObject(Handle handle) {
+            return new RecyclableObject(handle);
+        }
+    };
+
+    @Test
+    public void testRecycle() {
+        RecyclableObject object = RECYCLER.get();
+        assertTrue(object.recycle());
+        assertSame(object, RECYCLER.get());
+        assertTrue(object.recycle());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycle() {
+        RecyclableObject object = RECYCLER.get();
+        object.recycle();
+        object.recycle();
+    }
+
+    @Test
+    public void testRecycleAtDifferentThread() throws Exception {
+        final RecyclableObject object = RECYCLER.get();
+        final boolean[] recycled = new boolean[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                recycled[0] = object.recycle();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertTrue(recycled[0]);
+        assertSame(object, RECYCLER.get());
+        assertTrue(object.recycle());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycleAtDifferentThread() throws Exception {
+        final RecyclableObject object = RECYCLER.get();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                object.recycle();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        object.recycle();
+    }
+
+    @Test
+    public void testMaxCapacity() {
+        Recycler<RecyclableObject> recycler = new Recycler<RecyclableObject>(2) {
+            @Override
+            protected RecyclableObject newObject(Handle handle) {
+                return new RecyclableObject(handle);
+            }
+        };
+
+        RecyclableObject[] objects = new RecyclableObject[3];
+        for (int i = 0; i < objects.length; i ++) {
+            objects[i] = recycler.get();
+        }
+        for (RecyclableObject o: objects) {
+            recycler.recycle(o, o.handle);
+        }
+
+        assertSame(objects[1], recycler.get());
+        assertSame(objects[0], recycler.get());
+        assertNotSame(objects[2], recycler.get());
+    }
+
+    @Test
+    public void testMaxSharedCapacity() throws Exception {
+        final Recycler<RecyclableObject> recycler = new Recycler<RecyclableObject>(32) {
+            @Override
+            protected RecyclableObject newObject(Handle handle) {
+                return new RecyclableObject(handle);
+            }
+        };
+
+        final RecyclableObject[] objects = new RecyclableObject[100];
+        for (int i = 0; i < objects.length; i ++) {
+            objects[i] = recycler.get();
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (RecyclableObject o: objects) {
+                    recycler.recycle(o, o.handle);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // Only as many objects as the stack can hold were queued by the other thread; the rest were dropped.
+        Set<RecyclableObject> recycled = new HashSet<RecyclableObject>(Arrays.asList(objects));
+        int reused = 0;
+        for (int i = 0; i < objects.length; i ++) {
+            if (recycled.contains(recycler.get())) {
+                reused ++;
+            }
+        }
+        assertEquals(32, reused);
+    }
+
+    static final class RecyclableObject {
+
+        private final Recycler.Handle handle;
+
+        RecyclableObject(Recycler.Handle handle) {
+            this.handle = handle;
+        }
+
+        boolean recycle() {
+            return RECYCLER.recycle(this, handle);
+        }
+    }
+}
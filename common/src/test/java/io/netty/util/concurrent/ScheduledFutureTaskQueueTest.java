@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScheduledFutureTaskQueueTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Test
+    public void testOrderAfterRemoval() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue(ImmediateEventExecutor.INSTANCE);
+        Random random = new Random(42);
+        List<ScheduledFutureTask<?>> tasks = new ArrayList<ScheduledFutureTask<?>>();
+        for (int i = 0; i < 1000; i ++) {
+            ScheduledFutureTask<?> task = newTask(queue, random.nextInt(100000));
+            tasks.add(task);
+            assertTrue(queue.offer(task));
+        }
+
+        // Remove every third task from anywhere in the heap.
+        List<ScheduledFutureTask<?>> remaining = new ArrayList<ScheduledFutureTask<?>>();
+        for (int i = 0; i < tasks.size(); i ++) {
+            ScheduledFutureTask<?> task = tasks.get(i);
+            if (i % 3 == 0) {
+                assertTrue(queue.remove(task));
+                assertFalse(queue.contains(task));
+                assertFalse(queue.remove(task));
+            } else {
+                remaining.add(task);
+            }
+        }
+        assertEquals(remaining.size(), queue.size());
+
+        Collections.sort(remaining);
+        for (ScheduledFutureTask<?> task: remaining) {
+            assertSame(task, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testCancelRemovesTask() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue(ImmediateEventExecutor.INSTANCE);
+        ScheduledFutureTask<?> task = newTask(queue, 1000);
+        queue.scheduleTask(task);
+        assertTrue(queue.contains(task));
+        assertTrue(task.cancel(false));
+        assertFalse(queue.contains(task));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelFromOtherThread() throws Exception {
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1);
+        final SingleThreadEventExecutor executor = (SingleThreadEventExecutor) group.next();
+        try {
+            List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+            for (int i = 0; i < 1000; i ++) {
+                futures.add(executor.schedule(NOOP, 1, TimeUnit.HOURS));
+            }
+            for (ScheduledFuture<?> future: futures) {
+                assertTrue(future.cancel(false));
+            }
+
+            // The tasks are removed by the executor thread before it runs this task.
+            int size = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return executor.delayedTaskQueue.size();
+                }
+            }).sync().getNow();
+            assertEquals(0, size);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static ScheduledFutureTask<Void> newTask(ScheduledFutureTaskQueue queue, long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(ImmediateEventExecutor.INSTANCE, queue, NOOP, null, deadlineNanos);
+    }
+}
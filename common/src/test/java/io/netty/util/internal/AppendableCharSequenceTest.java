@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AppendableCharSequenceTest {
+
+    @Test
+    public void testSimpleAppend() {
+        testSimpleAppend0(new AppendableCharSequence(128));
+    }
+
+    @Test
+    public void testAppendExpand() {
+        testSimpleAppend0(new AppendableCharSequence(2));
+        testAppendString0(new AppendableCharSequence(2));
+    }
+
+    @Test
+    public void testAppendString() {
+        testAppendString0(new AppendableCharSequence(128));
+    }
+
+    @Test
+    public void testReset() {
+        AppendableCharSequence seq = new AppendableCharSequence(4);
+        seq.append("foo");
+        seq.reset();
+        assertEquals(0, seq.length());
+        seq.append("barbaz");
+        assertEquals("barbaz", seq.toString());
+    }
+
+    @Test
+    public void testSubSequence() {
+        AppendableCharSequence seq = new AppendableCharSequence(128);
+        seq.append("abcdefghijlkmonpqrstuvwxyz");
+        assertEquals("abcdefghij", seq.subSequence(0, 10).toString());
+        assertEquals("abcdefghij", seq.substring(0, 10));
+        assertEquals("uvwxyz", seq.substring(20, 26));
+    }
+
+    @Test
+    public void testRegionEquals() {
+        AppendableCharSequence seq = new AppendableCharSequence(128);
+        seq.append("GET / HTTP/1.1");
+        assertTrue(seq.regionEquals(0, 3, "GET"));
+        assertTrue(seq.regionEquals(6, 14, "HTTP/1.1"));
+        assertFalse(seq.regionEquals(0, 3, "PUT"));
+        assertFalse(seq.regionEquals(0, 4, "GET"));
+        assertFalse(seq.regionEquals(10, 18, "HTTP/1.1"));
+    }
+
+    private static void testSimpleAppend0(AppendableCharSequence seq) {
+        for (char c = 'a'; c <= 'z'; c ++) {
+            seq.append(c);
+        }
+        assertEquals('a', seq.charAt(0));
+        assertEquals('z', seq.charAt(25));
+        assertEquals(26, seq.length());
+        assertEquals("abcdefghijklmnopqrstuvwxyz", seq.toString());
+    }
+
+    private static void testAppendString0(AppendableCharSequence seq) {
+        seq.append("abcdefghij");
+        seq.append(new StringBuilder("kl"), 0, 2);
+        AppendableCharSequence other = new AppendableCharSequence(8);
+        other.append("mnopqrstuvwxyz");
+        seq.append(other);
+        assertEquals("abcdefghijklmnopqrstuvwxyz", seq.toString());
+    }
+}
@@ -84,7 +84,7 @@ public class DiscardClientHandler extends ChannelInboundHandlerAdapter {
     private void generateTraffic() {
         // Flush the outbound buffer to the socket.
         // Once flushed, generate the same amount of traffic again.
-        ctx.write(content.duplicate().retain()).addListener(trafficGenerator);
+        ctx.writeAndFlush(content.duplicate().retain()).addListener(trafficGenerator);
     }
 
     private final ChannelFutureListener trafficGenerator = new ChannelFutureListener() {
@@ -34,7 +34,7 @@ public class EchoServerHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 
     @Override
@@ -108,7 +108,7 @@ public class FactorialClientHandler extends SimpleChannelInboundHandler<BigInteg
             }
         }
 
-        ChannelFuture f = ctx.write(out);
+        ChannelFuture f = ctx.writeAndFlush(out);
         if (!finished) {
             f.addListener(numberSender);
         }
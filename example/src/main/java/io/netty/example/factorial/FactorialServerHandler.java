@@ -48,7 +48,7 @@ public class FactorialServerHandler extends ChannelInboundHandlerAdapter {
             // Calculate the cumulative factorial and send it to the client.
             lastMultiplier = msg;
             factorial = factorial.multiply(msg);
-            ctx.write(factorial);
+            ctx.writeAndFlush(factorial);
         }
         msgs.recycle();
     }
@@ -98,17 +98,17 @@ public class FileServer {
             File file = new File(msg);
             if (file.exists()) {
                 if (!file.isFile()) {
-                    ctx.write("Not a file: " + file + '\n');
+                    ctx.writeAndFlush("Not a file: " + file + '\n');
                     return;
                 }
-                ctx.write(file + " " + file.length() + '\n');
+                ctx.writeAndFlush(file + " " + file.length() + '\n');
                 MessageList<Object> out = MessageList.newInstance();
                 FileRegion region = new DefaultFileRegion(new FileInputStream(file).getChannel(), 0, file.length());
                 out.add(region);
                 out.add("\n");
-                ctx.write(out);
+                ctx.writeAndFlush(out);
             } else {
-                ctx.write("File not found: " + file + '\n');
+                ctx.writeAndFlush("File not found: " + file + '\n');
             }
         }
 
@@ -43,7 +43,7 @@ public class HttpHelloWorldServerHandler extends SimpleChannelInboundHandler<Obj
 
     @Override
     protected void endMessageReceived(ChannelHandlerContext ctx) {
-        ctx.write(out);
+        ctx.writeAndFlush(out);
         out = null;
     }
 
@@ -62,7 +62,7 @@ public class HttpHelloWorldServerHandler extends SimpleChannelInboundHandler<Obj
 
             if (!keepAlive) {
                 out.add(response);
-                ctx.write(out).addListener(ChannelFutureListener.CLOSE);
+                ctx.writeAndFlush(out).addListener(ChannelFutureListener.CLOSE);
                 out = MessageList.newInstance();
             } else {
                 out.add(response);
@@ -62,7 +62,7 @@ public class HttpSnoopServerHandler extends ChannelInboundHandlerAdapter {
             }
         } finally {
             msgs.releaseAllAndRecycle();
-            ctx.write(out);
+            ctx.writeAndFlush(out);
         }
     }
 
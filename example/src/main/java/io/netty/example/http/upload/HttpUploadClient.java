@@ -202,7 +202,7 @@ public class HttpUploadClient {
 
         // send request
         List<Entry<String, String>> entries = headers.entries();
-        channel.write(request).sync();
+        channel.writeAndFlush(request).sync();
 
         // Wait for the server to close the connection.
         channel.closeFuture().sync();
@@ -270,13 +270,13 @@ public class HttpUploadClient {
         List<InterfaceHttpData> bodylist = bodyRequestEncoder.getBodyListAttributes();
 
         // send request
-        channel.write(request);
+        channel.writeAndFlush(request);
 
         // test if request was chunked and if so, finish the write
         if (bodyRequestEncoder.isChunked()) {
             // could do either request.isChunked()
             // either do it through ChunkedWriteHandler
-            channel.write(bodyRequestEncoder).awaitUninterruptibly();
+            channel.writeAndFlush(bodyRequestEncoder).awaitUninterruptibly();
         }
 
         // Do not clear here since we will reuse the InterfaceHttpData on the
@@ -347,11 +347,11 @@ public class HttpUploadClient {
         }
 
         // send request
-        channel.write(request);
+        channel.writeAndFlush(request);
 
         // test if request was chunked and if so, finish the write
         if (bodyRequestEncoder.isChunked()) {
-            channel.write(bodyRequestEncoder).awaitUninterruptibly();
+            channel.writeAndFlush(bodyRequestEncoder).awaitUninterruptibly();
         }
 
         // Now no more use of file representation (and list of HttpData)
@@ -313,7 +313,7 @@ public class HttpUploadServerHandler extends SimpleChannelInboundHandler<HttpObj
             }
         }
         // Write the response.
-        ChannelFuture future = channel.write(response);
+        ChannelFuture future = channel.writeAndFlush(response);
         // Close the connection after the write operation is done if necessary.
         if (close) {
             future.addListener(ChannelFutureListener.CLOSE);
@@ -401,7 +401,7 @@ public class HttpUploadServerHandler extends SimpleChannelInboundHandler<HttpObj
         response.headers().set(CONTENT_LENGTH, buf.readableBytes());
 
         // Write the response.
-        ctx.channel().write(response);
+        ctx.channel().writeAndFlush(response);
     }
 
     @Override
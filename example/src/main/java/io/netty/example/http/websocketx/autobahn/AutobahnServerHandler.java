@@ -64,7 +64,7 @@ public class AutobahnServerHandler extends ChannelInboundHandlerAdapter {
             }
         }
         msgs.recycle();
-        ctx.write(out);
+        ctx.writeAndFlush(out);
     }
 
     private void handleHttpRequest(ChannelHandlerContext ctx, FullHttpRequest req)
@@ -126,7 +126,7 @@ public class AutobahnServerHandler extends ChannelInboundHandlerAdapter {
         }
 
         // Send the response and close the connection if necessary.
-        ChannelFuture f = ctx.channel().write(res);
+        ChannelFuture f = ctx.channel().writeAndFlush(res);
         if (!isKeepAlive(req) || res.getStatus().code() != 200) {
             f.addListener(ChannelFutureListener.CLOSE);
         }
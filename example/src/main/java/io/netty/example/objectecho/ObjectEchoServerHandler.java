@@ -35,7 +35,7 @@ public class ObjectEchoServerHandler extends ChannelInboundHandlerAdapter {
     public void messageReceived(
             ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
         // Echo back the received object to the client.
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 
     @Override
@@ -34,12 +34,12 @@ public class HexDumpProxyBackendHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         ctx.read();
-        ctx.write(Unpooled.EMPTY_BUFFER);
+        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER);
     }
 
     @Override
     public void messageReceived(final ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
-        inboundChannel.write(msgs).addListener(new ChannelFutureListener() {
+        inboundChannel.writeAndFlush(msgs).addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
                 if (future.isSuccess()) {
@@ -66,7 +66,7 @@ public class HexDumpProxyFrontendHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void messageReceived(final ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
         if (outboundChannel.isActive()) {
-            outboundChannel.write(msgs).addListener(new ChannelFutureListener() {
+            outboundChannel.writeAndFlush(msgs).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (future.isSuccess()) {
@@ -98,7 +98,7 @@ public class HexDumpProxyFrontendHandler extends ChannelInboundHandlerAdapter {
      */
     static void closeOnFlush(Channel ch) {
         if (ch.isActive()) {
-            ch.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            ch.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
         }
     }
 }
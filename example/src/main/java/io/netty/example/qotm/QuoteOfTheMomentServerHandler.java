@@ -47,7 +47,7 @@ public class QuoteOfTheMomentServerHandler extends SimpleChannelInboundHandler<D
     public void messageReceived(ChannelHandlerContext ctx, DatagramPacket packet) throws Exception {
         System.err.println(packet);
         if ("QOTM?".equals(packet.content().toString(CharsetUtil.UTF_8))) {
-            ctx.write(new DatagramPacket(
+            ctx.writeAndFlush(new DatagramPacket(
                     Unpooled.copiedBuffer("QOTM: " + nextQuote(), CharsetUtil.UTF_8), packet.sender()));
         }
     }
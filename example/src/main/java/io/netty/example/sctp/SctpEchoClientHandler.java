@@ -53,12 +53,12 @@ public class SctpEchoClientHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
-        ctx.write(new SctpMessage(0, 0, firstMessage));
+        ctx.writeAndFlush(new SctpMessage(0, 0, firstMessage));
     }
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> messages) throws Exception {
-        ctx.write(messages);
+        ctx.writeAndFlush(messages);
     }
 
     @Override
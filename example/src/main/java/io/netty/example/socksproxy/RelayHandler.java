@@ -37,13 +37,13 @@ public final class RelayHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        ctx.write(Unpooled.EMPTY_BUFFER);
+        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER);
     }
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
         if (relayChannel.isActive()) {
-            relayChannel.write(msgs);
+            relayChannel.writeAndFlush(msgs);
         }
     }
 
@@ -42,14 +42,14 @@ public final class SocksServerHandler extends SimpleChannelInboundHandler<SocksR
             case INIT: {
 //                auth support example
 //                ctx.pipeline().addFirst("socksAuthRequestDecoder",new SocksAuthRequestDecoder());
-//                ctx.write(new SocksInitResponse(SocksMessage.SocksAuthScheme.AUTH_PASSWORD));
+//                ctx.writeAndFlush(new SocksInitResponse(SocksMessage.SocksAuthScheme.AUTH_PASSWORD));
                 ctx.pipeline().addFirst(SocksCmdRequestDecoder.getName(), new SocksCmdRequestDecoder());
-                ctx.write(new SocksInitResponse(SocksAuthScheme.NO_AUTH));
+                ctx.writeAndFlush(new SocksInitResponse(SocksAuthScheme.NO_AUTH));
                 break;
             }
             case AUTH:
                 ctx.pipeline().addFirst(SocksCmdRequestDecoder.getName(), new SocksCmdRequestDecoder());
-                ctx.write(new SocksAuthResponse(SocksAuthStatus.SUCCESS));
+                ctx.writeAndFlush(new SocksAuthResponse(SocksAuthStatus.SUCCESS));
                 break;
             case CMD:
                 SocksCmdRequest req = (SocksCmdRequest) socksRequest;
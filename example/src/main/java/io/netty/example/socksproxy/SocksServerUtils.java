@@ -30,7 +30,7 @@ public final class SocksServerUtils {
      */
     public static void closeOnFlush(Channel ch) {
         if (ch.isActive()) {
-            ch.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            ch.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
         }
     }
 }
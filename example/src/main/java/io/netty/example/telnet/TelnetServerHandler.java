@@ -37,9 +37,9 @@ public class TelnetServerHandler extends SimpleChannelInboundHandler<String> {
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         // Send greeting for a new connection.
-        ctx.write(
+        ctx.writeAndFlush(
                 "Welcome to " + InetAddress.getLocalHost().getHostName() + "!\r\n");
-        ctx.write("It is " + new Date() + " now.\r\n");
+        ctx.writeAndFlush("It is " + new Date() + " now.\r\n");
     }
 
     @Override
@@ -59,7 +59,7 @@ public class TelnetServerHandler extends SimpleChannelInboundHandler<String> {
 
         // We do not need to write a ChannelBuffer here.
         // We know the encoder inserted at TelnetPipelineFactory will do the conversion.
-        ChannelFuture future = ctx.write(response);
+        ChannelFuture future = ctx.writeAndFlush(response);
 
         // Close the connection after sending 'Have a good day!'
         // if the client has sent 'bye'.
@@ -53,7 +53,7 @@ public class ByteEchoClientHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(final ChannelHandlerContext ctx) throws Exception {
         log.info("ECHO active " + NioUdtProvider.socketUDT(ctx.channel()).toStringOptions());
-        ctx.write(message);
+        ctx.writeAndFlush(message);
     }
 
     @Override
@@ -64,7 +64,7 @@ public class ByteEchoClientHandler extends ChannelInboundHandlerAdapter {
             ByteBuf buf = buffers.get(i);
             meter.mark(buf.readableBytes());
         }
-        ctx.write(buffers);
+        ctx.writeAndFlush(buffers);
     }
 
     @Override
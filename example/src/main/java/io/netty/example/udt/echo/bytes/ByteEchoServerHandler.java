@@ -34,7 +34,7 @@ public class ByteEchoServerHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void messageReceived(final ChannelHandlerContext ctx, MessageList<Object> msgs) {
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 
     @Override
@@ -54,7 +54,7 @@ public class MsgEchoClientHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(final ChannelHandlerContext ctx) throws Exception {
         log.info("ECHO active " + NioUdtProvider.socketUDT(ctx.channel()).toStringOptions());
-        ctx.write(message);
+        ctx.writeAndFlush(message);
     }
 
     @Override
@@ -72,6 +72,6 @@ public class MsgEchoClientHandler extends ChannelInboundHandlerAdapter {
             UdtMessage message = buffers.get(i);
             meter.mark(message.content().readableBytes());
         }
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 }
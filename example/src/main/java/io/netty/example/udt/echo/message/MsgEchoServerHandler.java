@@ -46,6 +46,6 @@ public class MsgEchoServerHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 }
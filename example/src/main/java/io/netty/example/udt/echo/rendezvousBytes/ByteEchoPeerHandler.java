@@ -50,7 +50,7 @@ public class ByteEchoPeerHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         log.info("ECHO active " + NioUdtProvider.socketUDT(ctx.channel()).toStringOptions());
-        ctx.write(message);
+        ctx.writeAndFlush(message);
     }
 
     @Override
@@ -67,6 +67,6 @@ public class ByteEchoPeerHandler extends ChannelInboundHandlerAdapter {
             ByteBuf buf = buffers.get(i);
             meter.mark(buf.readableBytes());
         }
-        ctx.write(buffers);
+        ctx.writeAndFlush(buffers);
     }
 }
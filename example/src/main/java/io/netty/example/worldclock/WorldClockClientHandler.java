@@ -56,7 +56,7 @@ public class WorldClockClientHandler extends ChannelInboundHandlerAdapter {
                 setCity(components[1]).build());
         }
 
-        channel.write(builder.build());
+        channel.writeAndFlush(builder.build());
 
         LocalTimes localTimes;
         boolean interrupted = false;
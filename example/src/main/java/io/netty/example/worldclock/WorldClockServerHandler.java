@@ -66,7 +66,7 @@ public class WorldClockServerHandler extends ChannelInboundHandlerAdapter {
         }
 
         msgs.recycle();
-        ctx.write(out);
+        ctx.writeAndFlush(out);
     }
 
     @Override
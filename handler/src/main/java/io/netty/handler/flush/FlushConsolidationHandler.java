@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flush;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.MessageList;
+
+/**
+ * {@link ChannelDuplexHandler} which consolidates {@link Channel#flush()} / {@link ChannelHandlerContext#flush()}
+ * operations that are issued while messages of the same read operation are processed.  The flushes are deferred
+ * until {@link ChannelInboundHandler#channelReadSuspended(ChannelHandlerContext)} is triggered, so that a handler
+ * which writes a response for each pipelined request of a read batch causes only one flush, and so only one
+ * (gathering) write to the socket.
+ * <p>
+ * Flushes which are issued outside of a read operation are passed through immediately.  If a read operation
+ * triggers a lot of flushes, the pending flush is passed through after {@code explicitFlushAfterFlushes} flushes
+ * in order to limit the amount of data which piles up in the outbound buffer.
+ * <p>
+ * The handler should be placed as close to the head of the {@link ChannelPipeline} as possible:
+ * <pre>
+ * {@link ChannelPipeline} p = ...;
+ * p.addLast("flushConsolidation", <b>new {@link FlushConsolidationHandler}()</b>);
+ * p.addLast("decoder", new MyRequestDecoder());
+ * p.addLast("encoder", new MyResponseEncoder());
+ * p.addLast("handler", new MyRequestHandler());
+ * </pre>
+ */
+public class FlushConsolidationHandler extends ChannelDuplexHandler {
+
+    /**
+     * The default number of flushes after which a flush is passed through even though a read is in progress.
+     */
+    public static final int DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+    private final int explicitFlushAfterFlushes;
+    private int flushPendingCount;
+    private boolean readInProgress;
+
+    /**
+     * Creates a new instance which passes a flush through after
+     * {@value #DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES} consolidated flushes.
+     */
+    public FlushConsolidationHandler() {
+        this(DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param explicitFlushAfterFlushes
+     *        the number of flushes after which a flush is passed through even though a read is in progress
+     */
+    public FlushConsolidationHandler(int explicitFlushAfterFlushes) {
+        if (explicitFlushAfterFlushes <= 0) {
+            throw new IllegalArgumentException(
+                    "explicitFlushAfterFlushes: " + explicitFlushAfterFlushes + " (expected: > 0)");
+        }
+        this.explicitFlushAfterFlushes = explicitFlushAfterFlushes;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (readInProgress) {
+            // The flush will be done once the read operation is finished, unless too many flushes are pending.
+            if (++ flushPendingCount == explicitFlushAfterFlushes) {
+                flushNow(ctx);
+            }
+        } else {
+            flushNow(ctx);
+        }
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
+        readInProgress = true;
+        ctx.fireMessageReceived(msgs);
+    }
+
+    @Override
+    public void channelReadSuspended(ChannelHandlerContext ctx) throws Exception {
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.fireChannelReadSuspended();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        // Try to flush all pending data before the connection is disconnected.
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        // Try to flush all pending data before the connection is closed.
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            // The outbound buffer is full already, so write it out instead of adding more to it.
+            flushIfNeeded(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushIfNeeded(ctx);
+    }
+
+    private void resetReadAndFlushIfNeeded(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfNeeded(ctx);
+    }
+
+    private void flushIfNeeded(ChannelHandlerContext ctx) {
+        if (flushPendingCount > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        flushPendingCount = 0;
+        ctx.flush();
+    }
+}
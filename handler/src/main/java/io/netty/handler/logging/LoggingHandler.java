@@ -303,6 +303,14 @@ public class LoggingHandler extends ChannelDuplexHandler {
         ctx.write(msgs, promise);
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (logger.isEnabled(internalLevel)) {
+            logger.log(internalLevel, format(ctx, "FLUSH"));
+        }
+        ctx.flush();
+    }
+
     private void logMessages(ChannelHandlerContext ctx, String eventName, MessageList<Object> msgs) {
         if (logger.isEnabled(internalLevel)) {
             int size = msgs.size();
@@ -319,6 +319,7 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
                 future.addListener(closeNotifyWriteListener);
                 try {
                     write(ctx, MessageList.<Object>newInstance(Unpooled.EMPTY_BUFFER), future);
+                    flush(ctx);
                 } catch (Exception e) {
                     if (!future.tryFailure(e)) {
                         logger.warn("flush() raised a masked exception.", e);
@@ -410,12 +411,20 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
                     pendingUnencryptedWrites.add(new PendingWrite(msg, cp));
                 }
             }
-            flush0(ctx);
         } finally {
             msgs.recycle();
         }
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        try {
+            flush0(ctx);
+        } finally {
+            ctx.flush();
+        }
+    }
+
     private void flush0(ChannelHandlerContext ctx) throws SSLException {
         boolean unwrapLater = false;
         ByteBuf out = null;
@@ -576,6 +585,8 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
             if (out != null) {
                 out.release();
             }
+            // The handshake messages are not written on behalf of the user, so flush them now.
+            ctx.flush();
         }
     }
 
@@ -975,6 +986,7 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
 
         ChannelPromise closeNotifyFuture = ctx.newPromise().addListener(closeNotifyWriteListener);
         write(ctx, MessageList.<Object>newInstance(Unpooled.EMPTY_BUFFER), closeNotifyFuture);
+        flush(ctx);
         safeClose(ctx, closeNotifyFuture, promise);
     }
 
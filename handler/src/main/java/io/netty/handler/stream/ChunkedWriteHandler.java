@@ -54,7 +54,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * stream chunk by chunk and write the fetched chunk downstream:
  * <pre>
  * {@link Channel} ch = ...;
- * ch.write(new {@link ChunkedFile}(new File("video.mkv"));
+ * ch.writeAndFlush(new {@link ChunkedFile}(new File("video.mkv"));
  * </pre>
  *
  * <h3>Sending a stream which generates a chunk intermittently</h3>
@@ -144,9 +144,11 @@ public class ChunkedWriteHandler
         }
         msgs.recycle();
         queue.add(promise);
-        if (isWritable() || !ctx.channel().isActive()) {
-            doFlush(ctx);
-        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        doFlush(ctx);
     }
 
     @Override
@@ -208,6 +210,7 @@ public class ChunkedWriteHandler
             discard(ctx, null);
             return;
         }
+        boolean written = false;
         MessageList<Object> messages = MessageList.newInstance();
         while (isWritable()) {
             if (currentEvent == null) {
@@ -223,6 +226,7 @@ public class ChunkedWriteHandler
                 this.currentEvent = null;
                 ctx.write(messages, (ChannelPromise) currentEvent);
                 messages = MessageList.newInstance();
+                written = true;
             } else if (currentEvent instanceof ChunkedInput) {
                 MessageList<Object> out = MessageList.newInstance();
                 final ChunkedInput<?> chunks = (ChunkedInput<?>) currentEvent;
@@ -266,6 +270,7 @@ public class ChunkedWriteHandler
 
                 pendingWrites.incrementAndGet();
                 ChannelFuture f = ctx.write(out);
+                written = true;
                 if (endOfInput) {
                     this.currentEvent = null;
 
@@ -279,6 +284,10 @@ public class ChunkedWriteHandler
                         public void operationComplete(ChannelFuture future) throws Exception {
                             pendingWrites.decrementAndGet();
                             closeInput(chunks);
+                            if (isWritable()) {
+                                // Continue with the remaining events if the loop below was stopped.
+                                resumeTransfer();
+                            }
                         }
                     });
                 } else if (isWritable()) {
@@ -307,6 +316,7 @@ public class ChunkedWriteHandler
             } else {
                 ctx.write(currentEvent);
                 this.currentEvent = null;
+                written = true;
             }
 
             if (!channel.isActive()) {
@@ -314,6 +324,11 @@ public class ChunkedWriteHandler
                 return;
             }
         }
+
+        if (written) {
+            // The chunks count as pending writes until they are written, so they must be flushed right away.
+            ctx.flush();
+        }
     }
 
     /**
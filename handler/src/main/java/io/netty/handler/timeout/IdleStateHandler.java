@@ -83,7 +83,7 @@ import java.util.concurrent.TimeUnit;
  *             if (e.getState() == {@link IdleState}.READER_IDLE) {
  *                 ctx.channel().close();
  *             } else if (e.getState() == {@link IdleState}.WRITER_IDLE) {
- *                 ctx.channel().write(new PingMessage());
+ *                 ctx.channel().writeAndFlush(new PingMessage());
  *             }
  *         }
  *     }
@@ -95,6 +95,12 @@ import java.util.concurrent.TimeUnit;
  * ...
  * </pre>
  *
+ * <h3>Tracking many channels</h3>
+ * By default, a task is scheduled on the event loop for every idle time of every channel, and rescheduled whenever
+ * it runs.  If there are many channels, create an {@link IdleStateTracker}, and pass it to the {@link IdleStateHandler}
+ * of every channel.  Their idle times will be checked by a single periodic task per event loop instead.
+ *
+ * @see IdleStateTracker
  * @see ReadTimeoutHandler
  * @see WriteTimeoutHandler
  */
@@ -103,6 +109,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
     private final long readerIdleTimeMillis;
     private final long writerIdleTimeMillis;
     private final long allIdleTimeMillis;
+    private final IdleStateTracker tracker;
 
     volatile ScheduledFuture<?> readerIdleTimeout;
     volatile long lastReadTime;
@@ -116,6 +123,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
     private boolean firstAllIdleEvent = true;
 
     private volatile int state; // 0 - none, 1 - initialized, 2 - destroyed
+    private IdleStateTask trackerTask;
 
     /**
      * Creates a new instance firing {@link IdleStateEvent}s.
@@ -164,6 +172,36 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
     public IdleStateHandler(
             long readerIdleTime, long writerIdleTime, long allIdleTime,
             TimeUnit unit) {
+        this(null, readerIdleTime, writerIdleTime, allIdleTime, unit);
+    }
+
+    /**
+     * Creates a new instance firing {@link IdleStateEvent}s, whose idle times are checked by the specified
+     * {@link IdleStateTracker} instead of scheduled tasks.
+     *
+     * @param tracker
+     *        the {@link IdleStateTracker} which checks the idle times of the channel,
+     *        or {@code null} to schedule a task for every idle time
+     * @param readerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#READER_IDLE}
+     *        will be triggered when no read was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param writerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#WRITER_IDLE}
+     *        will be triggered when no write was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param allIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#ALL_IDLE}
+     *        will be triggered when neither read nor write was performed for
+     *        the specified period of time.  Specify {@code 0} to disable.
+     * @param unit
+     *        the {@link TimeUnit} of {@code readerIdleTime},
+     *        {@code writeIdleTime}, and {@code allIdleTime}
+     */
+    public IdleStateHandler(
+            IdleStateTracker tracker,
+            long readerIdleTime, long writerIdleTime, long allIdleTime,
+            TimeUnit unit) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
@@ -183,6 +221,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
         } else {
             allIdleTimeMillis = Math.max(unit.toMillis(allIdleTime), 1);
         }
+        this.tracker = tracker;
     }
 
     /**
@@ -274,6 +313,11 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
         ctx.write(msgs, promise);
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+    }
+
     @Override
     public void bind(ChannelHandlerContext ctx, SocketAddress localAddress, ChannelPromise promise) throws Exception {
         ctx.bind(localAddress, promise);
@@ -314,6 +358,14 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
         EventExecutor loop = ctx.executor();
 
         lastReadTime = lastWriteTime = System.currentTimeMillis();
+        if (tracker != null) {
+            if (readerIdleTimeMillis > 0 || writerIdleTimeMillis > 0 || allIdleTimeMillis > 0) {
+                trackerTask = new IdleStateTask(ctx);
+                tracker.register(trackerTask);
+            }
+            return;
+        }
+
         if (readerIdleTimeMillis > 0) {
             readerIdleTimeout = loop.schedule(
                     new ReaderIdleTimeoutTask(ctx),
@@ -334,6 +386,11 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
     private void destroy() {
         state = 2;
 
+        if (trackerTask != null) {
+            tracker.unregister(trackerTask);
+            trackerTask = null;
+        }
+
         if (readerIdleTimeout != null) {
             readerIdleTimeout.cancel(false);
             readerIdleTimeout = null;
@@ -352,6 +409,93 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
         ctx.fireUserEventTriggered(evt);
     }
 
+    private void readerIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstReaderIdleEvent) {
+                firstReaderIdleEvent = false;
+                event = IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.READER_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    private void writerIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstWriterIdleEvent) {
+                firstWriterIdleEvent = false;
+                event = IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.WRITER_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    private void allIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstAllIdleEvent) {
+                firstAllIdleEvent = false;
+                event = IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.ALL_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    /**
+     * Checks all idle times of the channel on every tick of the {@link IdleStateTracker}.  Like the scheduled tasks,
+     * it triggers an event again after another idle time if the channel is still idle.
+     */
+    private final class IdleStateTask extends IdleStateTracker.Task {
+
+        // The time of the last event of each kind, so that the next event is triggered one idle time later.
+        private long lastReaderIdleTime;
+        private long lastWriterIdleTime;
+        private long lastAllIdleTime;
+
+        IdleStateTask(ChannelHandlerContext ctx) {
+            super(ctx);
+        }
+
+        @Override
+        void check(long currentTime) {
+            if (!ctx.channel().isOpen()) {
+                return;
+            }
+
+            long lastReadTime = IdleStateHandler.this.lastReadTime;
+            long lastWriteTime = IdleStateHandler.this.lastWriteTime;
+            if (readerIdleTimeMillis > 0 &&
+                    currentTime - Math.max(lastReadTime, lastReaderIdleTime) >= readerIdleTimeMillis) {
+                lastReaderIdleTime = currentTime;
+                readerIdle(ctx);
+            }
+            if (writerIdleTimeMillis > 0 &&
+                    currentTime - Math.max(lastWriteTime, lastWriterIdleTime) >= writerIdleTimeMillis) {
+                lastWriterIdleTime = currentTime;
+                writerIdle(ctx);
+            }
+            if (allIdleTimeMillis > 0 &&
+                    currentTime - Math.max(Math.max(lastReadTime, lastWriteTime), lastAllIdleTime)
+                            >= allIdleTimeMillis) {
+                lastAllIdleTime = currentTime;
+                allIdle(ctx);
+            }
+        }
+    }
+
     private final class ReaderIdleTimeoutTask implements Runnable {
 
         private final ChannelHandlerContext ctx;
@@ -373,18 +517,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
                 // Reader is idle - set a new timeout and notify the callback.
                 readerIdleTimeout =
                     ctx.executor().schedule(this, readerIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstReaderIdleEvent) {
-                        firstReaderIdleEvent = false;
-                        event = IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.READER_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                readerIdle(ctx);
             } else {
                 // Read occurred before the timeout - set a new timeout with shorter delay.
                 readerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
@@ -413,18 +546,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
                 // Writer is idle - set a new timeout and notify the callback.
                 writerIdleTimeout = ctx.executor().schedule(
                         this, writerIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstWriterIdleEvent) {
-                        firstWriterIdleEvent = false;
-                        event = IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.WRITER_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                writerIdle(ctx);
             } else {
                 // Write occurred before the timeout - set a new timeout with shorter delay.
                 writerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
@@ -454,18 +576,7 @@ public class IdleStateHandler extends ChannelInboundHandlerAdapter implements Ch
                 // notify the callback.
                 allIdleTimeout = ctx.executor().schedule(
                         this, allIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstAllIdleEvent) {
-                        firstAllIdleEvent = false;
-                        event = IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.ALL_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                allIdle(ctx);
             } else {
                 // Either read or write occurred before the timeout - set a new
                 // timeout with shorter delay.
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.EventExecutorTickers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the last activity of many channels with a single periodic task per event loop, instead of one scheduled
+ * task per channel and timeout.
+ * <p>
+ * By default, {@link IdleStateHandler}, {@link ReadTimeoutHandler} and {@link WriteTimeoutHandler} schedule and
+ * reschedule a task on the event loop for every channel, so the scheduled task queue of the event loop grows with
+ * the number of connections.  Pass the same {@link IdleStateTracker} to these handlers to let them register their
+ * channels here instead.  Every tick, the tracker asks each registered channel whether a timeout has elapsed.
+ * Registering and unregistering a channel take constant time.
+ * <p>
+ * The timeouts are coarse-grained: an event is triggered up to one tick interval after the timeout has elapsed.
+ * Choose a tick interval which is much shorter than the timeouts of the handlers.
+ *
+ * <pre>
+ * // Create one tracker and share it between all channels.
+ * {@link IdleStateTracker} tracker = new {@link IdleStateTracker}();
+ * ...
+ * channel.pipeline().addLast("readTimeoutHandler", new {@link ReadTimeoutHandler}(tracker, 30, TimeUnit.SECONDS));
+ * </pre>
+ */
+public final class IdleStateTracker {
+
+    /**
+     * The default tick interval in milliseconds.
+     */
+    public static final long DEFAULT_TICK_INTERVAL = 100;
+
+    private final long tickIntervalMillis;
+    private final EventExecutorTickers tickers;
+
+    /**
+     * Creates a new instance with the {@linkplain #DEFAULT_TICK_INTERVAL default tick interval}.
+     */
+    public IdleStateTracker() {
+        this(DEFAULT_TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param tickInterval  the interval between two checks of the registered channels
+     * @param unit          the {@link TimeUnit} of {@code tickInterval}
+     */
+    public IdleStateTracker(long tickInterval, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (tickInterval <= 0) {
+            throw new IllegalArgumentException("tickInterval: " + tickInterval + " (expected: > 0)");
+        }
+        tickIntervalMillis = Math.max(unit.toMillis(tickInterval), 1);
+        tickers = new EventExecutorTickers(tickIntervalMillis, TimeUnit.MILLISECONDS) {
+            @Override
+            protected long currentTime() {
+                return System.currentTimeMillis();
+            }
+        };
+    }
+
+    /**
+     * Returns the interval between two checks of the registered channels in milliseconds.
+     */
+    public long getTickIntervalInMillis() {
+        return tickIntervalMillis;
+    }
+
+    /**
+     * Registers the specified task to the ticker of the event loop of its channel.
+     */
+    void register(final Task task) {
+        EventExecutor executor = task.ctx.executor();
+        if (executor.inEventLoop()) {
+            task.unregistered = false;
+            register0(task);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Do not register a task which has been unregistered in the meantime.
+                    if (!task.unregistered) {
+                        register0(task);
+                    }
+                }
+            });
+        }
+    }
+
+    private void register0(Task task) {
+        tickers.register(task.ctx.executor(), task);
+    }
+
+    /**
+     * Unregisters the specified task, which will not be checked anymore.
+     */
+    void unregister(final Task task) {
+        EventExecutor executor = task.ctx.executor();
+        if (!executor.inEventLoop()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    unregister(task);
+                }
+            });
+            return;
+        }
+
+        task.unregistered = true;
+        tickers.unregister(task);
+    }
+
+    /**
+     * A check of the last activity of a channel, which is run on every tick of the event loop of the channel.
+     */
+    abstract static class Task extends EventExecutorTickers.Entry {
+
+        final ChannelHandlerContext ctx;
+
+        // Only accessed by the event loop.
+        boolean unregistered;
+
+        Task(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        protected final void tick(long currentTime) {
+            try {
+                check(currentTime);
+            } catch (Throwable t) {
+                ctx.fireExceptionCaught(t);
+            }
+        }
+
+        /**
+         * Checks if a timeout of the channel has elapsed.
+         *
+         * @param currentTime the current time in milliseconds
+         */
+        abstract void check(long currentTime);
+    }
+}
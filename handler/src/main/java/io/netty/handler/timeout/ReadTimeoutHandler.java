@@ -59,12 +59,17 @@ import java.util.concurrent.TimeUnit;
  * bootstrap.childHandler(new MyChannelInitializer());
  * ...
  * </pre>
+ * If there are many channels, pass an {@link IdleStateTracker} shared by all channels to let it check the read
+ * timeouts, instead of scheduling a task for every channel.
+ *
+ * @see IdleStateTracker
  * @see WriteTimeoutHandler
  * @see IdleStateHandler
  */
 public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
 
     private final long timeoutMillis;
+    private final IdleStateTracker tracker;
 
     private volatile ScheduledFuture<?> timeout;
     private volatile long lastReadTime;
@@ -72,6 +77,7 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
     private volatile int state; // 0 - none, 1 - Initialized, 2 - Destroyed;
 
     private boolean closed;
+    private ReadTimeoutTrackerTask trackerTask;
 
     /**
      * Creates a new instance.
@@ -92,6 +98,21 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public ReadTimeoutHandler(long timeout, TimeUnit unit) {
+        this(null, timeout, unit);
+    }
+
+    /**
+     * Creates a new instance whose timeout is checked by the specified {@link IdleStateTracker}.
+     *
+     * @param tracker
+     *        the {@link IdleStateTracker} which checks the read timeout,
+     *        or {@code null} to schedule a task instead
+     * @param timeout
+     *        read timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     */
+    public ReadTimeoutHandler(IdleStateTracker tracker, long timeout, TimeUnit unit) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
@@ -101,6 +122,7 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
         } else {
             timeoutMillis = Math.max(unit.toMillis(timeout), 1);
         }
+        this.tracker = tracker;
     }
 
     @Override
@@ -163,6 +185,11 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
 
         lastReadTime = System.currentTimeMillis();
         if (timeoutMillis > 0) {
+            if (tracker != null) {
+                trackerTask = new ReadTimeoutTrackerTask(ctx);
+                tracker.register(trackerTask);
+                return;
+            }
             timeout = ctx.executor().schedule(
                     new ReadTimeoutTask(ctx),
                     timeoutMillis, TimeUnit.MILLISECONDS);
@@ -176,6 +203,10 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
             timeout.cancel(false);
             timeout = null;
         }
+        if (trackerTask != null) {
+            tracker.unregister(trackerTask);
+            trackerTask = null;
+        }
     }
 
     protected void readTimedOut(ChannelHandlerContext ctx) throws Exception {
@@ -216,4 +247,30 @@ public class ReadTimeoutHandler extends ChannelInboundHandlerAdapter {
             }
         }
     }
+
+    private final class ReadTimeoutTrackerTask extends IdleStateTracker.Task {
+
+        // The time of the last timeout, so that the next timeout is raised one timeout later.
+        private long lastTimeoutTime;
+
+        ReadTimeoutTrackerTask(ChannelHandlerContext ctx) {
+            super(ctx);
+        }
+
+        @Override
+        void check(long currentTime) {
+            if (!ctx.channel().isOpen()) {
+                return;
+            }
+
+            if (currentTime - Math.max(lastReadTime, lastTimeoutTime) >= timeoutMillis) {
+                lastTimeoutTime = currentTime;
+                try {
+                    readTimedOut(ctx);
+                } catch (Throwable t) {
+                    ctx.fireExceptionCaught(t);
+                }
+            }
+        }
+    }
 }
@@ -26,6 +26,8 @@ import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.MessageList;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -62,14 +64,20 @@ import java.util.concurrent.TimeUnit;
  * bootstrap.childHandler(new MyChannelInitializer());
  * ...
  * </pre>
+ * If there are many channels, pass an {@link IdleStateTracker} shared by all channels to let it check the write
+ * timeouts, instead of scheduling a task for every write.
+ *
+ * @see IdleStateTracker
  * @see ReadTimeoutHandler
  * @see IdleStateHandler
  */
 public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
 
     private final long timeoutMillis;
+    private final IdleStateTracker tracker;
 
     private boolean closed;
+    private WriteTimeoutTrackerTask trackerTask;
 
     /**
      * Creates a new instance.
@@ -90,6 +98,21 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public WriteTimeoutHandler(long timeout, TimeUnit unit) {
+        this(null, timeout, unit);
+    }
+
+    /**
+     * Creates a new instance whose timeouts are checked by the specified {@link IdleStateTracker}.
+     *
+     * @param tracker
+     *        the {@link IdleStateTracker} which checks the write timeouts,
+     *        or {@code null} to schedule a task for every write instead
+     * @param timeout
+     *        write timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     */
+    public WriteTimeoutHandler(IdleStateTracker tracker, long timeout, TimeUnit unit) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
@@ -99,6 +122,7 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
         } else {
             timeoutMillis = Math.max(unit.toMillis(timeout), 1);
         }
+        this.tracker = tracker;
     }
 
     @Override
@@ -108,7 +132,12 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
     }
 
     private void scheduleTimeout(final ChannelHandlerContext ctx, final ChannelPromise future) {
-        if (timeoutMillis > 0) {
+        if (timeoutMillis > 0 && tracker != null) {
+            if (trackerTask == null) {
+                trackerTask = new WriteTimeoutTrackerTask(ctx);
+            }
+            trackerTask.add(future, System.currentTimeMillis() + timeoutMillis);
+        } else if (timeoutMillis > 0) {
             // Schedule a timeout.
             final ScheduledFuture<?> sf = ctx.executor().schedule(new Runnable() {
                 @Override
@@ -141,4 +170,60 @@ public class WriteTimeoutHandler extends ChannelOutboundHandlerAdapter {
             closed = true;
         }
     }
+
+    /**
+     * Fails the writes whose timeout has elapsed on every tick of the {@link IdleStateTracker}.  The task is only
+     * registered while there are writes which are not done yet.
+     */
+    private final class WriteTimeoutTrackerTask extends IdleStateTracker.Task {
+
+        // The writes are queued in the order of their deadlines, as all writes have the same timeout.
+        private final Queue<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+
+        WriteTimeoutTrackerTask(ChannelHandlerContext ctx) {
+            super(ctx);
+        }
+
+        void add(ChannelPromise promise, long deadline) {
+            if (pendingWrites.isEmpty()) {
+                tracker.register(this);
+            }
+            pendingWrites.add(new PendingWrite(promise, deadline));
+        }
+
+        @Override
+        void check(long currentTime) {
+            for (;;) {
+                PendingWrite pendingWrite = pendingWrites.peek();
+                if (pendingWrite == null) {
+                    tracker.unregister(this);
+                    break;
+                }
+                ChannelPromise promise = pendingWrite.promise;
+                if (!promise.isDone() && pendingWrite.deadline > currentTime) {
+                    break;
+                }
+
+                pendingWrites.remove();
+                if (promise.tryFailure(WriteTimeoutException.INSTANCE)) {
+                    // If succeeded to mark as failure, notify the pipeline, too.
+                    try {
+                        writeTimedOut(ctx);
+                    } catch (Throwable t) {
+                        ctx.fireExceptionCaught(t);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final ChannelPromise promise;
+        final long deadline;
+
+        PendingWrite(ChannelPromise promise, long deadline) {
+            this.promise = promise;
+            this.deadline = deadline;
+        }
+    }
 }
@@ -303,7 +303,8 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
                 ctx.executor().schedule(new Runnable() {
                     @Override
                     public void run() {
-                        ctx.write(msgs, promise);
+                        // The flush which followed this write has passed already, so flush here.
+                        ctx.writeAndFlush(msgs, promise);
                     }
                 }, wait, TimeUnit.MILLISECONDS);
                 return;
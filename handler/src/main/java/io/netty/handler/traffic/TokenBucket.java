@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket which is refilled at a configurable rate in bytes per second.  Tokens can be consumed as long as
+ * the bucket is not empty, so a message bigger than the bucket is not stalled forever, but makes the bucket go into
+ * debt which is paid back by the following refills.
+ */
+final class TokenBucket {
+
+    private static final long ONE_SECOND = 1000000000L;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private volatile long limit;
+
+    // Guarded by 'this'.
+    private long lastRefillTime = System.nanoTime();
+    private long remainder;
+
+    TokenBucket(long limit) {
+        setLimit(limit);
+    }
+
+    /**
+     * Returns the limit in bytes per second, or {@code 0} if the bucket is unlimited.
+     */
+    long limit() {
+        return limit;
+    }
+
+    /**
+     * Changes the limit in bytes per second.  {@code 0} means no limit.  The tokens which are available already are
+     * kept.
+     */
+    void setLimit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit: " + limit + " (expected: >= 0)");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the number of tokens which are available right now, which is negative if the bucket is in debt.
+     */
+    long tokens() {
+        return tokens.get();
+    }
+
+    /**
+     * Returns {@code true} if tokens can be consumed, which is always the case if the bucket is unlimited.
+     */
+    boolean isAvailable() {
+        return limit == 0 || tokens.get() > 0;
+    }
+
+    /**
+     * Consumes the specified number of tokens.
+     */
+    void consume(long bytes) {
+        if (limit != 0) {
+            tokens.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * Adds the tokens which were earned since the last refill.  The bucket never holds more tokens than what is
+     * earned in {@code maxBurstNanos}, so an idle channel can not send a big burst once it becomes busy again.
+     */
+    synchronized void refill(long currentTimeNanos, long maxBurstNanos) {
+        long elapsed = currentTimeNanos - lastRefillTime;
+        if (elapsed <= 0) {
+            // Another event loop refilled the bucket already.
+            return;
+        }
+        lastRefillTime = currentTimeNanos;
+
+        long limit = this.limit;
+        if (limit == 0) {
+            tokens.set(0);
+            remainder = 0;
+            return;
+        }
+
+        if (elapsed > ONE_SECOND) {
+            elapsed = ONE_SECOND;
+        }
+        // Keep the fraction of a token which was earned, so that the rate is exact even if a tick earns less than
+        // one token.
+        long earned = limit * elapsed + remainder;
+        remainder = earned % ONE_SECOND;
+        earned /= ONE_SECOND;
+
+        long maxTokens = Math.max(1, limit * Math.min(maxBurstNanos, ONE_SECOND) / ONE_SECOND);
+        for (;;) {
+            long oldTokens = tokens.get();
+            long newTokens = Math.min(maxTokens, oldTokens + earned);
+            if (newTokens <= oldTokens || tokens.compareAndSet(oldTokens, newTokens)) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.MessageList;
+import io.netty.util.AttributeKey;
+import io.netty.util.internal.EventExecutorTickers;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shapes the traffic of all channels it is added to with token buckets, which limit the bandwidth of all channels
+ * together (global limit) and of every single channel (channel limit).
+ * <p>
+ * Unlike the {@link AbstractTrafficShapingHandler}s, this handler does not schedule a task per throttled message.
+ * Instead, a single task per event loop refills the buckets periodically and releases the writes which were queued
+ * by the handler in a batch, and resumes reading once tokens are available again.  The queued writes are only
+ * released while the channel {@linkplain Channel#isWritable() is writable}, so a slow peer does not make the
+ * outbound buffer grow.
+ * <p>
+ * One instance should be shared by all channels which are subject to the same global limit.  All limits are in
+ * bytes per second, where {@code 0} means no limit, and can be changed at any time:
+ * <pre>
+ * {@link TokenBucketTrafficShapingHandler} shaper = new {@link TokenBucketTrafficShapingHandler}(
+ *         10 * 1024 * 1024, 10 * 1024 * 1024, 64 * 1024, 64 * 1024);
+ * ...
+ * pipeline.addFirst("shaper", shaper);
+ * ...
+ * // Give a single channel more bandwidth.
+ * shaper.setWriteLimit(channel, 1024 * 1024);
+ * </pre>
+ * The size of a message is the number of readable bytes of a {@link io.netty.buffer.ByteBuf} or
+ * {@link io.netty.buffer.ByteBufHolder}, or the number of bytes of a {@link io.netty.channel.FileRegion}.
+ */
+@Sharable
+public class TokenBucketTrafficShapingHandler extends ChannelDuplexHandler {
+
+    /**
+     * Default interval between two refills of the token buckets: 10ms
+     */
+    public static final long DEFAULT_TICK_INTERVAL = 10;
+
+    private static final AttributeKey<ChannelState> STATE =
+            new AttributeKey<ChannelState>(TokenBucketTrafficShapingHandler.class.getName() + ".STATE");
+
+    private final TokenBucket globalWriteBucket;
+    private final TokenBucket globalReadBucket;
+    private volatile long channelWriteLimit;
+    private volatile long channelReadLimit;
+    private final long tickIntervalNanos;
+    private final EventExecutorTickers tickers;
+
+    /**
+     * Creates a new instance which refills the token buckets every {@value #DEFAULT_TICK_INTERVAL}ms.
+     *
+     * @param globalWriteLimit  0 or the write limit of all channels together in bytes/s
+     * @param globalReadLimit   0 or the read limit of all channels together in bytes/s
+     * @param channelWriteLimit 0 or the write limit of every channel in bytes/s
+     * @param channelReadLimit  0 or the read limit of every channel in bytes/s
+     */
+    public TokenBucketTrafficShapingHandler(
+            long globalWriteLimit, long globalReadLimit, long channelWriteLimit, long channelReadLimit) {
+        this(globalWriteLimit, globalReadLimit, channelWriteLimit, channelReadLimit,
+             DEFAULT_TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param globalWriteLimit  0 or the write limit of all channels together in bytes/s
+     * @param globalReadLimit   0 or the read limit of all channels together in bytes/s
+     * @param channelWriteLimit 0 or the write limit of every channel in bytes/s
+     * @param channelReadLimit  0 or the read limit of every channel in bytes/s
+     * @param tickInterval      the interval between two refills of the token buckets.  A shorter interval makes
+     *                          the traffic smoother at the cost of more wake-ups of the event loops.
+     * @param unit              the {@link TimeUnit} of {@code tickInterval}
+     */
+    public TokenBucketTrafficShapingHandler(
+            long globalWriteLimit, long globalReadLimit, long channelWriteLimit, long channelReadLimit,
+            long tickInterval, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (tickInterval <= 0) {
+            throw new IllegalArgumentException("tickInterval: " + tickInterval + " (expected: > 0)");
+        }
+        globalWriteBucket = new TokenBucket(globalWriteLimit);
+        globalReadBucket = new TokenBucket(globalReadLimit);
+        setChannelWriteLimit(channelWriteLimit);
+        setChannelReadLimit(channelReadLimit);
+        tickIntervalNanos = unit.toNanos(tickInterval);
+        tickers = new EventExecutorTickers(tickIntervalNanos, TimeUnit.NANOSECONDS) {
+            @Override
+            protected void beforeTick(long currentTime) {
+                globalWriteBucket.refill(currentTime, tickIntervalNanos);
+                globalReadBucket.refill(currentTime, tickIntervalNanos);
+            }
+        };
+    }
+
+    /**
+     * Returns the write limit of all channels together in bytes/s, or {@code 0} if there is no limit.
+     */
+    public long getGlobalWriteLimit() {
+        return globalWriteBucket.limit();
+    }
+
+    /**
+     * Changes the write limit of all channels together in bytes/s.  {@code 0} means no limit.
+     */
+    public void setGlobalWriteLimit(long globalWriteLimit) {
+        globalWriteBucket.setLimit(globalWriteLimit);
+    }
+
+    /**
+     * Returns the read limit of all channels together in bytes/s, or {@code 0} if there is no limit.
+     */
+    public long getGlobalReadLimit() {
+        return globalReadBucket.limit();
+    }
+
+    /**
+     * Changes the read limit of all channels together in bytes/s.  {@code 0} means no limit.
+     */
+    public void setGlobalReadLimit(long globalReadLimit) {
+        globalReadBucket.setLimit(globalReadLimit);
+    }
+
+    /**
+     * Returns the write limit of every channel in bytes/s, or {@code 0} if there is no limit.
+     */
+    public long getChannelWriteLimit() {
+        return channelWriteLimit;
+    }
+
+    /**
+     * Changes the write limit of every channel in bytes/s, except for the channels whose limit was changed by
+     * {@link #setWriteLimit(Channel, long)}.  {@code 0} means no limit.
+     */
+    public void setChannelWriteLimit(long channelWriteLimit) {
+        checkLimit("channelWriteLimit", channelWriteLimit);
+        this.channelWriteLimit = channelWriteLimit;
+    }
+
+    /**
+     * Returns the read limit of every channel in bytes/s, or {@code 0} if there is no limit.
+     */
+    public long getChannelReadLimit() {
+        return channelReadLimit;
+    }
+
+    /**
+     * Changes the read limit of every channel in bytes/s, except for the channels whose limit was changed by
+     * {@link #setReadLimit(Channel, long)}.  {@code 0} means no limit.
+     */
+    public void setChannelReadLimit(long channelReadLimit) {
+        checkLimit("channelReadLimit", channelReadLimit);
+        this.channelReadLimit = channelReadLimit;
+    }
+
+    /**
+     * Changes the write limit of the specified channel in bytes/s.  {@code 0} means no limit, and {@code -1} means
+     * that the {@linkplain #getChannelWriteLimit() default channel write limit} is used again.
+     */
+    public void setWriteLimit(Channel channel, long writeLimit) {
+        if (writeLimit < -1) {
+            throw new IllegalArgumentException("writeLimit: " + writeLimit + " (expected: >= -1)");
+        }
+        ChannelState state = state(channel);
+        state.writeLimit = writeLimit;
+    }
+
+    /**
+     * Changes the read limit of the specified channel in bytes/s.  {@code 0} means no limit, and {@code -1} means
+     * that the {@linkplain #getChannelReadLimit() default channel read limit} is used again.
+     */
+    public void setReadLimit(Channel channel, long readLimit) {
+        if (readLimit < -1) {
+            throw new IllegalArgumentException("readLimit: " + readLimit + " (expected: >= -1)");
+        }
+        ChannelState state = state(channel);
+        state.readLimit = readLimit;
+    }
+
+    /**
+     * Returns the number of bytes which are queued by this handler for the specified channel.
+     */
+    public long pendingWriteBytes(Channel channel) {
+        return state(channel).pendingWriteBytes;
+    }
+
+    private static void checkLimit(String name, long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException(name + ": " + limit + " (expected: >= 0)");
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        ctx.attr(STATE).set(new ChannelState(ctx, channelWriteLimit, channelReadLimit));
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        ChannelState state = ctx.attr(STATE).getAndRemove();
+        state.unregister();
+        // Let the queued writes through as the handler does not shape the traffic anymore.
+        state.releaseWrites(true);
+        if (state.flushPending) {
+            state.flushPending = false;
+            ctx.flush();
+        }
+        state.resumeRead();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        ChannelState state = ctx.attr(STATE).get();
+        state.closed = true;
+        state.unregister();
+        state.failWrites(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
+        ChannelState state = activeState(ctx);
+        long size = TrafficMetricsHandler.size(msgs);
+        globalReadBucket.consume(size);
+        state.readBucket.consume(size);
+        if (!state.canRead()) {
+            state.suspendRead();
+        }
+        ctx.fireMessageReceived(msgs);
+    }
+
+    @Override
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        ChannelState state = activeState(ctx);
+        if (state.readSuspended) {
+            state.readPending = true;
+        } else {
+            ctx.read();
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, MessageList<Object> msgs, ChannelPromise promise) throws Exception {
+        ChannelState state = activeState(ctx);
+        long size = TrafficMetricsHandler.size(msgs);
+        if (state.closed || state.pendingWrites.isEmpty() && state.canWrite()) {
+            globalWriteBucket.consume(size);
+            state.writeBucket.consume(size);
+            ctx.write(msgs, promise);
+        } else {
+            state.pendingWrites.add(new PendingWrite(msgs, promise, size));
+            state.pendingWriteBytes += size;
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        ChannelState state = activeState(ctx);
+        if (state.pendingWrites.isEmpty()) {
+            ctx.flush();
+        } else {
+            // Flushed once the queued writes are released.
+            state.flushPending = true;
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            activeState(ctx).releaseWrites(false);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucketTrafficShaping with Global Write Limit: " + getGlobalWriteLimit() +
+               " Global Read Limit: " + getGlobalReadLimit() + " Channel Write Limit: " + channelWriteLimit +
+               " Channel Read Limit: " + channelReadLimit;
+    }
+
+    private ChannelState state(Channel channel) {
+        ChannelHandlerContext ctx = channel.pipeline().context(this);
+        ChannelState state = ctx == null ? null : ctx.attr(STATE).get();
+        if (state == null) {
+            throw new IllegalArgumentException(
+                    "channel not handled by " + TokenBucketTrafficShapingHandler.class.getSimpleName());
+        }
+        return state;
+    }
+
+    /**
+     * Returns the state of the channel, and registers it to the ticker of its event loop if not done yet.
+     * This is not done in {@link #handlerAdded(ChannelHandlerContext)} because the handler may be added before the
+     * channel is registered.
+     */
+    private ChannelState activeState(ChannelHandlerContext ctx) {
+        ChannelState state = ctx.attr(STATE).get();
+        if (!state.isRegistered() && !state.closed) {
+            tickers.register(ctx.executor(), state);
+        }
+        return state;
+    }
+
+    /**
+     * The shaping state of a channel, whose token buckets are refilled on every tick of its event loop.  The queued
+     * writes are released and reading is resumed as soon as tokens are available.
+     */
+    private final class ChannelState extends EventExecutorTickers.Entry {
+        final ChannelHandlerContext ctx;
+        final TokenBucket writeBucket;
+        final TokenBucket readBucket;
+        final Queue<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+        // Written by the user, but read by the event loop.
+        volatile long writeLimit = -1;
+        volatile long readLimit = -1;
+        // Written by the event loop, but read by the user.
+        volatile long pendingWriteBytes;
+        boolean flushPending;
+        boolean readSuspended;
+        boolean readPending;
+        boolean autoReadDisabled;
+        boolean closed;
+
+        ChannelState(ChannelHandlerContext ctx, long writeLimit, long readLimit) {
+            this.ctx = ctx;
+            writeBucket = new TokenBucket(writeLimit);
+            readBucket = new TokenBucket(readLimit);
+        }
+
+        void unregister() {
+            tickers.unregister(this);
+        }
+
+        boolean canWrite() {
+            return globalWriteBucket.isAvailable() && writeBucket.isAvailable();
+        }
+
+        boolean canRead() {
+            return globalReadBucket.isAvailable() && readBucket.isAvailable();
+        }
+
+        @Override
+        protected void tick(long currentTime) {
+            long writeLimit = this.writeLimit;
+            writeBucket.setLimit(writeLimit < 0 ? channelWriteLimit : writeLimit);
+            long readLimit = this.readLimit;
+            readBucket.setLimit(readLimit < 0 ? channelReadLimit : readLimit);
+            writeBucket.refill(currentTime, tickIntervalNanos);
+            readBucket.refill(currentTime, tickIntervalNanos);
+
+            if (!pendingWrites.isEmpty()) {
+                releaseWrites(false);
+            }
+            if (readSuspended && canRead()) {
+                resumeRead();
+            }
+        }
+
+        /**
+         * Releases the queued writes while tokens are available and the channel is writable, or all of them if
+         * {@code force} is {@code true}.
+         */
+        void releaseWrites(boolean force) {
+            boolean released = false;
+            for (;;) {
+                PendingWrite write = pendingWrites.peek();
+                if (write == null) {
+                    break;
+                }
+                if (!force && (!canWrite() || !ctx.channel().isWritable())) {
+                    break;
+                }
+                pendingWrites.remove();
+                pendingWriteBytes -= write.size;
+                globalWriteBucket.consume(write.size);
+                writeBucket.consume(write.size);
+                ctx.write(write.msgs, write.promise);
+                released = true;
+            }
+            if (released && flushPending) {
+                if (pendingWrites.isEmpty()) {
+                    flushPending = false;
+                }
+                ctx.flush();
+            }
+        }
+
+        void failWrites(Throwable cause) {
+            for (;;) {
+                PendingWrite write = pendingWrites.poll();
+                if (write == null) {
+                    break;
+                }
+                write.msgs.releaseAllAndRecycle();
+                write.promise.tryFailure(cause);
+            }
+            pendingWriteBytes = 0;
+            flushPending = false;
+        }
+
+        void suspendRead() {
+            readSuspended = true;
+            ChannelConfig config = ctx.channel().config();
+            if (config.isAutoRead()) {
+                // The transport keeps reading while auto read is on, so turn it off until tokens are available.
+                autoReadDisabled = true;
+                config.setAutoRead(false);
+            }
+        }
+
+        void resumeRead() {
+            readSuspended = false;
+            if (autoReadDisabled) {
+                autoReadDisabled = false;
+                // Triggers a read by itself.
+                ctx.channel().config().setAutoRead(true);
+            } else if (readPending) {
+                readPending = false;
+                ctx.read();
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final MessageList<Object> msgs;
+        final ChannelPromise promise;
+        final long size;
+
+        PendingWrite(MessageList<Object> msgs, ChannelPromise promise, long size) {
+            this.msgs = msgs;
+            this.promise = promise;
+            this.size = size;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package io.netty.handler.traffic;
 
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -31,27 +34,31 @@ import java.util.concurrent.atomic.AtomicLong;
  * back to its parent {@link AbstractTrafficShapingHandler#doAccounting} method.  If the checkInterval
  * is set to 0, no accounting will be done and statistics will only be computed at each receive or
  * write operation.</p>
+ *
+ * <p>The byte counters are striped, so that a <tt>TrafficCounter</tt> which is shared by channels of different
+ * event loops, like the one of {@link GlobalTrafficShapingHandler}, does not make the event loops contend on the
+ * same cache line.  The stripes are only summed up when a value is requested.</p>
  */
 public class TrafficCounter {
     /**
      * Current written bytes
      */
-    private final AtomicLong currentWrittenBytes = new AtomicLong();
+    private final LongCounter currentWrittenBytes = PlatformDependent.newLongCounter();
 
     /**
      * Current read bytes
      */
-    private final AtomicLong currentReadBytes = new AtomicLong();
+    private final LongCounter currentReadBytes = PlatformDependent.newLongCounter();
 
     /**
      * Long life written bytes
      */
-    private final AtomicLong cumulativeWrittenBytes = new AtomicLong();
+    private final LongCounter cumulativeWrittenBytes = PlatformDependent.newLongCounter();
 
     /**
      * Long life read bytes
      */
-    private final AtomicLong cumulativeReadBytes = new AtomicLong();
+    private final LongCounter cumulativeReadBytes = PlatformDependent.newLongCounter();
 
     /**
      * Last Time where cumulative bytes where reset to zero
@@ -209,8 +216,8 @@ public class TrafficCounter {
                 // nothing to do
                 return;
             }
-            lastReadBytes = currentReadBytes.getAndSet(0);
-            lastWrittenBytes = currentWrittenBytes.getAndSet(0);
+            lastReadBytes = currentReadBytes.valueThenReset();
+            lastWrittenBytes = currentWrittenBytes.valueThenReset();
             lastReadThroughput = lastReadBytes / interval * 1000;
             // nb byte / checkInterval in ms * 1000 (1s)
             lastWriteThroughput = lastWrittenBytes / interval * 1000;
@@ -262,8 +269,8 @@ public class TrafficCounter {
      *            the size in bytes to read
      */
     void bytesRecvFlowControl(long recv) {
-        currentReadBytes.addAndGet(recv);
-        cumulativeReadBytes.addAndGet(recv);
+        currentReadBytes.add(recv);
+        cumulativeReadBytes.add(recv);
     }
 
     /**
@@ -273,8 +280,8 @@ public class TrafficCounter {
      *            the size in bytes to write
      */
     void bytesWriteFlowControl(long write) {
-        currentWrittenBytes.addAndGet(write);
-        cumulativeWrittenBytes.addAndGet(write);
+        currentWrittenBytes.add(write);
+        cumulativeWrittenBytes.add(write);
     }
 
     /**
@@ -323,7 +330,7 @@ public class TrafficCounter {
     * @return the current number of bytes read since the last checkInterval
     */
     public long currentReadBytes() {
-        return currentReadBytes.get();
+        return currentReadBytes.value();
     }
 
     /**
@@ -331,7 +338,7 @@ public class TrafficCounter {
      * @return the current number of bytes written since the last check Interval
      */
     public long currentWrittenBytes() {
-        return currentWrittenBytes.get();
+        return currentWrittenBytes.value();
     }
 
     /**
@@ -345,14 +352,14 @@ public class TrafficCounter {
      * @return the cumulativeWrittenBytes
      */
     public long cumulativeWrittenBytes() {
-        return cumulativeWrittenBytes.get();
+        return cumulativeWrittenBytes.value();
     }
 
     /**
      * @return the cumulativeReadBytes
      */
     public long cumulativeReadBytes() {
-        return cumulativeReadBytes.get();
+        return cumulativeReadBytes.value();
     }
 
     /**
@@ -368,8 +375,8 @@ public class TrafficCounter {
      */
     public void resetCumulativeTime() {
         lastCumulativeTime = System.currentTimeMillis();
-        cumulativeReadBytes.set(0);
-        cumulativeWrittenBytes.set(0);
+        cumulativeReadBytes.reset();
+        cumulativeWrittenBytes.reset();
     }
 
     /**
@@ -387,7 +394,7 @@ public class TrafficCounter {
         return "Monitor " + name + " Current Speed Read: " +
                 (lastReadThroughput >> 10) + " KB/s, Write: " +
                 (lastWriteThroughput >> 10) + " KB/s Current Read: " +
-                (currentReadBytes.get() >> 10) + " KB Current Write: " +
-                (currentWrittenBytes.get() >> 10) + " KB";
+                (currentReadBytes.value() >> 10) + " KB Current Write: " +
+                (currentWrittenBytes.value() >> 10) + " KB";
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+/**
+ * The traffic statistics of a channel, or of all channels of an event loop, which are collected by a
+ * {@link TrafficMetricsHandler}.
+ * <p>
+ * The statistics are only updated by the event loop of the channels, so they can be read from any thread without
+ * locking.  Please note that the values are read one by one, so they may not be consistent with each other if they
+ * are read while the event loop updates them.
+ */
+public final class TrafficMetrics {
+
+    // Every field has a single writer, so a volatile write is enough to publish the updated value.
+    private volatile long bytesRead;
+    private volatile long messagesRead;
+    private volatile long bytesWritten;
+    private volatile long messagesWritten;
+    private volatile long pendingWriteBytes;
+    private volatile long writabilityChanges;
+
+    TrafficMetrics() { }
+
+    /**
+     * Returns the number of bytes which were read.
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of messages which were read.
+     */
+    public long messagesRead() {
+        return messagesRead;
+    }
+
+    /**
+     * Returns the number of bytes which were written successfully.
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of messages which were written successfully.
+     */
+    public long messagesWritten() {
+        return messagesWritten;
+    }
+
+    /**
+     * Returns the number of bytes which were requested to be written but are not written yet, i.e. the depth of
+     * the write queue.
+     */
+    public long pendingWriteBytes() {
+        return pendingWriteBytes;
+    }
+
+    /**
+     * Returns how many times the writability of the channel changed.
+     */
+    public long writabilityChanges() {
+        return writabilityChanges;
+    }
+
+    void read(long bytes, int messages) {
+        bytesRead += bytes;
+        messagesRead += messages;
+    }
+
+    void writeRequested(long bytes) {
+        pendingWriteBytes += bytes;
+    }
+
+    void writeDone(long bytes, int messages, boolean success) {
+        pendingWriteBytes -= bytes;
+        if (success) {
+            bytesWritten += bytes;
+            messagesWritten += messages;
+        }
+    }
+
+    void writabilityChanged() {
+        writabilityChanges ++;
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficMetrics(bytesRead: " + bytesRead + ", messagesRead: " + messagesRead +
+               ", bytesWritten: " + bytesWritten + ", messagesWritten: " + messagesWritten +
+               ", pendingWriteBytes: " + pendingWriteBytes + ", writabilityChanges: " + writabilityChanges + ')';
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.channel.MessageList;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects the {@link TrafficMetrics} of every channel it is added to, and of all these channels per event loop.
+ * Unlike the {@link AbstractTrafficShapingHandler}s, it does not shape the traffic and does not schedule any task,
+ * and it never updates a counter which is shared by different event loops.
+ * <p>
+ * One instance should be shared by all channels whose metrics are of interest, and be placed as close to the head
+ * of the pipeline as possible, so that it sees the messages as they are read from and written to the transport:
+ * <pre>
+ * {@link TrafficMetricsHandler} metrics = new {@link TrafficMetricsHandler}();
+ * ...
+ * pipeline.addFirst("metrics", metrics);
+ * ...
+ * {@link TrafficMetrics} channelMetrics = metrics.channelMetrics(channel);
+ * {@link Map}&lt;{@link EventExecutor}, {@link TrafficMetrics}&gt; loopMetrics = metrics.eventLoopMetrics();
+ * </pre>
+ * The size of a message is the number of readable bytes of a {@link ByteBuf} or {@link ByteBufHolder}, or the
+ * number of bytes of a {@link FileRegion}.  Other messages are counted with a size of {@code 0}.
+ */
+@Sharable
+public class TrafficMetricsHandler extends ChannelDuplexHandler {
+
+    private static final AttributeKey<TrafficMetrics> METRICS =
+            new AttributeKey<TrafficMetrics>(TrafficMetricsHandler.class.getName() + ".METRICS");
+
+    private final ConcurrentMap<EventExecutor, TrafficMetrics> eventLoopMetrics =
+            PlatformDependent.newConcurrentHashMap();
+
+    /**
+     * Returns the {@link TrafficMetrics} of the specified channel, or {@code null} if this handler was never added
+     * to its pipeline.
+     */
+    public TrafficMetrics channelMetrics(Channel channel) {
+        return channel.attr(METRICS).get();
+    }
+
+    /**
+     * Returns the {@link TrafficMetrics} of all channels handled by this handler, per event loop.
+     */
+    public Map<EventExecutor, TrafficMetrics> eventLoopMetrics() {
+        return Collections.unmodifiableMap(eventLoopMetrics);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().attr(METRICS).setIfAbsent(new TrafficMetrics());
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
+        long bytes = size(msgs);
+        int messages = msgs.size();
+        channelMetrics(ctx).read(bytes, messages);
+        eventLoopMetrics(ctx).read(bytes, messages);
+        ctx.fireMessageReceived(msgs);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, MessageList<Object> msgs, ChannelPromise promise)
+            throws Exception {
+        final long bytes = size(msgs);
+        final int messages = msgs.size();
+        final TrafficMetrics channelMetrics = channelMetrics(ctx);
+        final TrafficMetrics eventLoopMetrics = eventLoopMetrics(ctx);
+        channelMetrics.writeRequested(bytes);
+        eventLoopMetrics.writeRequested(bytes);
+
+        final boolean voidPromise = promise == ctx.channel().voidPromise();
+        if (voidPromise) {
+            // A listener can not be added to the void promise, so use a new one which behaves the same.
+            promise = ctx.newPromise();
+        }
+        promise.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                boolean success = future.isSuccess();
+                channelMetrics.writeDone(bytes, messages, success);
+                eventLoopMetrics.writeDone(bytes, messages, success);
+                if (voidPromise && !success) {
+                    ctx.fireExceptionCaught(future.cause());
+                }
+            }
+        });
+        ctx.write(msgs, promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        channelMetrics(ctx).writabilityChanged();
+        eventLoopMetrics(ctx).writabilityChanged();
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    private static TrafficMetrics channelMetrics(ChannelHandlerContext ctx) {
+        return ctx.channel().attr(METRICS).get();
+    }
+
+    private TrafficMetrics eventLoopMetrics(ChannelHandlerContext ctx) {
+        // Created lazily because the handler may be added before the channel is registered to its event loop.
+        EventExecutor executor = ctx.executor();
+        TrafficMetrics metrics = eventLoopMetrics.get(executor);
+        if (metrics == null) {
+            metrics = new TrafficMetrics();
+            TrafficMetrics old = eventLoopMetrics.putIfAbsent(executor, metrics);
+            if (old != null) {
+                metrics = old;
+            }
+        }
+        return metrics;
+    }
+
+    static long size(MessageList<Object> msgs) {
+        long size = 0;
+        for (int i = 0; i < msgs.size(); i ++) {
+            Object msg = msgs.get(i);
+            if (msg instanceof ByteBuf) {
+                size += ((ByteBuf) msg).readableBytes();
+            } else if (msg instanceof ByteBufHolder) {
+                size += ((ByteBufHolder) msg).content().readableBytes();
+            } else if (msg instanceof FileRegion) {
+                size += ((FileRegion) msg).count();
+            }
+        }
+        return size;
+    }
+}
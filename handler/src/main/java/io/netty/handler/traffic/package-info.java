@@ -31,6 +31,14 @@
  * of traffic shaping. It could be extended to fit your needs. Two classes are proposed as default
  * implementations: see {@link ChannelTrafficShapingHandler} and see {@link GlobalTrafficShapingHandler}
  * respectively for Channel traffic shaping and Global traffic shaping.</li>
+ *
+ * <li> <tt>{@link TokenBucketTrafficShapingHandler}</tt>: this handler shapes both the global and the per channel
+ * traffic with token buckets.  Instead of scheduling a task per throttled message, it queues the pending writes
+ * and releases them in batches from a single periodic task per event loop.</li>
+ *
+ * <li> <tt>{@link TrafficMetricsHandler}</tt>: this handler does not shape the traffic, but collects the
+ * {@link TrafficMetrics} (bytes, messages, write queue depth and writability changes) of every channel and of
+ * every event loop, which can be sampled at any time without locking.</li>
  * </ul></p>
  *
  * <p>Both inbound and outbound traffic can be shaped independently.  This is done by either passing in
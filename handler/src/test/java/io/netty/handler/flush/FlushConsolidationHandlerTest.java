@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flush;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.MessageList;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FlushConsolidationHandlerTest {
+
+    @Test
+    public void testFlushViaReadSuspended() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, 256);
+
+        // Each message is echoed back and flushed by the handler.
+        assertFalse(channel.writeInbound(1L, 2L, 3L));
+        assertEquals(0, flushCount.get());
+        assertNull(channel.readOutbound());
+
+        channel.pipeline().fireChannelReadSuspended();
+        assertEquals(1, flushCount.get());
+        assertEquals(1L, channel.readOutbound());
+        assertEquals(2L, channel.readOutbound());
+        assertEquals(3L, channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushAfterExplicitFlushes() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, 2);
+
+        channel.writeInbound(1L, 2L, 3L);
+        assertEquals(1, flushCount.get());
+        assertEquals(1L, channel.readOutbound());
+        assertEquals(2L, channel.readOutbound());
+        assertNull(channel.readOutbound());
+
+        channel.pipeline().fireChannelReadSuspended();
+        assertEquals(2, flushCount.get());
+        assertEquals(3L, channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOutsideOfRead() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, 256);
+
+        channel.writeAndFlush(1L);
+        assertEquals(1, flushCount.get());
+        assertEquals(1L, channel.readOutbound());
+
+        // Nothing is pending, so there is no need to flush again.
+        channel.pipeline().fireChannelReadSuspended();
+        assertEquals(1, flushCount.get());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOnClose() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, 256);
+
+        channel.writeInbound(1L);
+        assertEquals(0, flushCount.get());
+
+        channel.close();
+        assertEquals(1, flushCount.get());
+        assertEquals(1L, channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidExplicitFlushAfterFlushes() {
+        new FlushConsolidationHandler(0);
+    }
+
+    private static EmbeddedChannel newChannel(final AtomicInteger flushCount, int explicitFlushAfterFlushes) {
+        return new EmbeddedChannel(
+                new ChannelOutboundHandlerAdapter() {
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) throws Exception {
+                        flushCount.incrementAndGet();
+                        ctx.flush();
+                    }
+                },
+                new FlushConsolidationHandler(explicitFlushAfterFlushes),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                        // Echo every message back with an explicit flush.
+                        for (int i = 0; i < msgs.size(); i ++) {
+                            ctx.writeAndFlush(msgs.get(i));
+                        }
+                        msgs.recycle();
+                    }
+                });
+    }
+}
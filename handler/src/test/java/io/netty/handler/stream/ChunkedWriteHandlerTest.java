@@ -135,7 +135,7 @@ public class ChunkedWriteHandlerTest {
         };
 
         EmbeddedChannel ch = new EmbeddedChannel(new ChunkedWriteHandler());
-        ch.write(input).addListener(listener).syncUninterruptibly();
+        ch.writeAndFlush(input).addListener(listener).syncUninterruptibly();
         ch.checkException();
         ch.finish();
 
@@ -174,7 +174,7 @@ public class ChunkedWriteHandlerTest {
         };
 
         EmbeddedChannel ch = new EmbeddedChannel(new ChunkedWriteHandler());
-        ch.write(input).syncUninterruptibly();
+        ch.writeAndFlush(input).syncUninterruptibly();
         ch.checkException();
         assertTrue(ch.finish());
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IdleStateTrackerTest {
+
+    private static final EventLoopGroup group = new LocalEventLoopGroup(1);
+
+    @AfterClass
+    public static void destroyGroup() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testIdleStateHandler() throws Exception {
+        IdleStateTracker tracker = new IdleStateTracker(10, TimeUnit.MILLISECONDS);
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+        Channel channel = connect(
+                new IdleStateHandler(tracker, 0, 0, 100, TimeUnit.MILLISECONDS),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                        events.add(evt);
+                    }
+                });
+
+        long startTime = System.nanoTime();
+        assertSame(IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT, events.take());
+        assertSame(IdleStateEvent.ALL_IDLE_STATE_EVENT, events.take());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        assertTrue("elapsed: " + elapsed, elapsed >= 100);
+
+        channel.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testReadTimeoutHandler() throws Exception {
+        IdleStateTracker tracker = new IdleStateTracker(10, TimeUnit.MILLISECONDS);
+        final BlockingQueue<Throwable> causes = new LinkedBlockingQueue<Throwable>();
+        Channel channel = connect(
+                new ReadTimeoutHandler(tracker, 100, TimeUnit.MILLISECONDS),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        causes.add(cause);
+                    }
+                });
+
+        assertSame(ReadTimeoutException.INSTANCE, causes.take());
+        channel.closeFuture().sync();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTickInterval() {
+        new IdleStateTracker(0, TimeUnit.MILLISECONDS);
+    }
+
+    private static Channel connect(final ChannelHandler... handlers) throws Exception {
+        Channel serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        // NOOP
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(handlers);
+                    }
+                }).connect(serverChannel.localAddress()).sync().channel();
+        serverChannel.close();
+        return cc;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MessageList;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTrafficShapingHandlerTest {
+
+    private static final EventLoopGroup group = new LocalEventLoopGroup(1);
+
+    @AfterClass
+    public static void destroyGroup() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteLimit() throws Exception {
+        TokenBucketTrafficShapingHandler shaper = new TokenBucketTrafficShapingHandler(0, 0, 1000, 0);
+        AtomicLong received = new AtomicLong();
+        Channel[] channels = connect(shaper, received);
+        Channel sc = channels[0];
+        Channel cc = channels[1];
+
+        long startTime = System.nanoTime();
+        ChannelFuture future = null;
+        for (int i = 0; i < 10; i ++) {
+            future = sc.writeAndFlush(Unpooled.wrappedBuffer(new byte[100]));
+        }
+        future.sync();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        assertTrue("elapsed: " + elapsed, elapsed >= 700);
+        waitForBytes(received, 1000);
+        assertEquals(0, shaper.pendingWriteBytes(sc));
+
+        cc.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testChangeLimitAtRuntime() throws Exception {
+        TokenBucketTrafficShapingHandler shaper = new TokenBucketTrafficShapingHandler(0, 0, 100, 0);
+        AtomicLong received = new AtomicLong();
+        Channel[] channels = connect(shaper, received);
+        Channel sc = channels[0];
+        Channel cc = channels[1];
+
+        ChannelFuture future = null;
+        for (int i = 0; i < 100; i ++) {
+            future = sc.writeAndFlush(Unpooled.wrappedBuffer(new byte[100]));
+        }
+        // Wait until the writes are queued by the shaper.
+        sc.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+        assertTrue(shaper.pendingWriteBytes(sc) > 0);
+
+        // Without a limit, all writes are released by the next tick instead of taking 100 seconds.
+        shaper.setWriteLimit(sc, 0);
+        future.sync();
+        waitForBytes(received, 10000);
+        assertEquals(0, shaper.pendingWriteBytes(sc));
+
+        cc.close().sync();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new TokenBucketTrafficShapingHandler(-1, 0, 0, 0);
+    }
+
+    @Test
+    public void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(1000);
+        long startTime = System.nanoTime();
+        assertFalse(bucket.isAvailable());
+
+        bucket.refill(startTime + TimeUnit.MILLISECONDS.toNanos(1000), Long.MAX_VALUE);
+        assertEquals(1000, bucket.tokens());
+
+        // A bucket never holds more than the maximum burst.
+        bucket.refill(startTime + TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1000, bucket.tokens());
+
+        // The bucket goes into debt.
+        bucket.consume(1100);
+        assertFalse(bucket.isAvailable());
+        bucket.refill(startTime + TimeUnit.MILLISECONDS.toNanos(1600), Long.MAX_VALUE);
+        assertEquals(0, bucket.tokens());
+        assertFalse(bucket.isAvailable());
+
+        // Fractions of a token are not lost.
+        for (int i = 1; i <= 10; i ++) {
+            bucket.refill(startTime + TimeUnit.MILLISECONDS.toNanos(1600) + i * 100000L, Long.MAX_VALUE);
+        }
+        assertEquals(1, bucket.tokens());
+        assertTrue(bucket.isAvailable());
+
+        // An unlimited bucket is always available.
+        bucket.setLimit(0);
+        bucket.consume(10000);
+        assertTrue(bucket.isAvailable());
+    }
+
+    private static Channel[] connect(final TokenBucketTrafficShapingHandler shaper, final AtomicLong received)
+            throws Exception {
+        final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<Channel>();
+        Channel serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(shaper);
+                        accepted.add(ch);
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+                        for (int i = 0; i < msgs.size(); i ++) {
+                            received.addAndGet(((ByteBuf) msgs.get(i)).readableBytes());
+                        }
+                        msgs.releaseAllAndRecycle();
+                    }
+                }).connect(serverChannel.localAddress()).sync().channel();
+        serverChannel.close();
+        return new Channel[] { accepted.take(), cc };
+    }
+
+    private static void waitForBytes(AtomicLong received, long expected) throws InterruptedException {
+        while (received.get() < expected) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, received.get());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrafficMetricsHandlerTest {
+
+    @Test
+    public void testReadAndWrite() {
+        TrafficMetricsHandler handler = new TrafficMetricsHandler();
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        TrafficMetrics metrics = handler.channelMetrics(channel);
+        assertNotNull(metrics);
+
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(new byte[8]), "message"));
+        assertEquals(8, metrics.bytesRead());
+        assertEquals(2, metrics.messagesRead());
+        releaseInbound(channel);
+
+        channel.write(Unpooled.wrappedBuffer(new byte[4]));
+        assertEquals(4, metrics.pendingWriteBytes());
+        assertEquals(0, metrics.bytesWritten());
+
+        channel.flush();
+        assertEquals(0, metrics.pendingWriteBytes());
+        assertEquals(4, metrics.bytesWritten());
+        assertEquals(1, metrics.messagesWritten());
+
+        assertEquals(1, handler.eventLoopMetrics().size());
+        TrafficMetrics loopMetrics = handler.eventLoopMetrics().values().iterator().next();
+        assertEquals(8, loopMetrics.bytesRead());
+        assertEquals(4, loopMetrics.bytesWritten());
+
+        ((ByteBuf) channel.readOutbound()).release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSharedHandler() {
+        TrafficMetricsHandler handler = new TrafficMetricsHandler();
+        EmbeddedChannel channel1 = new EmbeddedChannel(handler);
+        EmbeddedChannel channel2 = new EmbeddedChannel(handler);
+
+        channel1.writeInbound(Unpooled.wrappedBuffer(new byte[3]));
+        channel2.writeInbound(Unpooled.wrappedBuffer(new byte[5]));
+        assertEquals(3, handler.channelMetrics(channel1).bytesRead());
+        assertEquals(5, handler.channelMetrics(channel2).bytesRead());
+        releaseInbound(channel1);
+        releaseInbound(channel2);
+        assertFalse(channel1.finish());
+        assertFalse(channel2.finish());
+    }
+
+    private static void releaseInbound(EmbeddedChannel channel) {
+        for (;;) {
+            Object msg = channel.readInbound();
+            if (msg == null) {
+                break;
+            }
+            if (msg instanceof ByteBuf) {
+                ((ByteBuf) msg).release();
+            }
+        }
+    }
+}
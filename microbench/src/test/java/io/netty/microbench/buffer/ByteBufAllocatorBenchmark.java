@@ -1,5 +1,5 @@
 /*
- * Copyright 2012 The Netty Project
+ * Copyright 2013 The Netty Project
  *
  * The Netty Project licenses this file to you under the Apache License,
  * version 2.0 (the "License"); you may not use this file except in compliance
@@ -13,20 +13,25 @@
  * License for the specific language governing permissions and limitations
  * under the License.
  */
-
 package io.netty.microbench.buffer;
 
-import com.google.caliper.Param;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
-import io.netty.microbench.util.DefaultBenchmark;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
 
-public class ByteBufAllocatorBenchmark extends DefaultBenchmark {
+/**
+ * Allocates and frees buffers of a fixed size with the different {@link ByteBufAllocator}s from a single thread.
+ */
+public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
 
     private static final ByteBufAllocator UNPOOLED_ALLOCATOR_HEAP = new UnpooledByteBufAllocator(false);
     private static final ByteBufAllocator UNPOOLED_ALLOCATOR_DIRECT = new UnpooledByteBufAllocator(true);
@@ -34,39 +39,34 @@ public class ByteBufAllocatorBenchmark extends DefaultBenchmark {
     private static final ByteBufAllocator POOLED_ALLOCATOR_DIRECT = new PooledByteBufAllocator(true);
 
     @Param({ "0", "256", "1024", "4096", "16384", "65536" })
-    private int size;
+    public int size;
 
-    @Param
-    private Allocator allocator;
+    @Param({ "UNPOOLED_HEAP", "UNPOOLED_DIRECT", "POOLED_HEAP", "POOLED_DIRECT" })
+    public String allocator;
 
     private final Deque<ByteBuf> queue = new ArrayDeque<ByteBuf>();
     private ByteBufAllocator alloc;
 
-    @Override
-    protected void setUp() throws Exception {
-        alloc = allocator.alloc();
+    @Setup
+    public void setUp() {
+        alloc = Allocator.valueOf(allocator).alloc();
         for (int i = 0; i < 2560; i ++) {
             queue.add(alloc.buffer(size));
         }
     }
 
-    @Override
-    protected void tearDown() throws Exception {
+    @TearDown
+    public void tearDown() {
         for (ByteBuf b: queue) {
             b.release();
         }
         queue.clear();
     }
 
-    public void timeAllocAndFree(int reps) {
-        final ByteBufAllocator alloc = this.alloc;
-        final Deque<ByteBuf> queue = this.queue;
-        final int size = this.size;
-
-        for (int i = 0; i < reps; i ++) {
-            queue.add(alloc.buffer(size));
-            queue.removeFirst().release();
-        }
+    @Benchmark
+    public void allocAndFree() {
+        queue.add(alloc.buffer(size));
+        queue.removeFirst().release();
     }
 
     public enum Allocator {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reads from a {@link CompositeByteBuf} which consists of a number of equally sized components.
+ */
+public class CompositeByteBufBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufProcessor FIND_NON_ZERO = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value == 0;
+        }
+    };
+
+    @Param({ "2", "16", "128" })
+    public int components;
+
+    @Param({ "1024" })
+    public int componentSize;
+
+    private CompositeByteBuf buffer;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        buffer = Unpooled.compositeBuffer(components);
+        for (int i = 0; i < components; i ++) {
+            ByteBuf component = Unpooled.directBuffer(componentSize);
+            component.writeZero(componentSize);
+            buffer.addComponent(component);
+        }
+        buffer.writerIndex(components * componentSize);
+        bytes = new byte[componentSize * 3 / 2];
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public int sequentialGetByte() {
+        final CompositeByteBuf buffer = this.buffer;
+        int sum = 0;
+        for (int i = 0, length = buffer.capacity(); i < length; i ++) {
+            sum += buffer.getByte(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sequentialReadByte() {
+        final CompositeByteBuf buffer = this.buffer;
+        buffer.readerIndex(0);
+        int sum = 0;
+        while (buffer.isReadable()) {
+            sum += buffer.readByte();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequentialReadLong() {
+        final CompositeByteBuf buffer = this.buffer;
+        buffer.readerIndex(0);
+        long sum = 0;
+        while (buffer.readableBytes() >= 8) {
+            sum += buffer.readLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sequentialGetIntAcrossComponents() {
+        final CompositeByteBuf buffer = this.buffer;
+        int sum = 0;
+        // Start in the middle of an int, so that every component boundary is crossed by a read.
+        for (int i = 2, length = buffer.capacity() - 4; i <= length; i += 4) {
+            sum += buffer.getInt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int forEachByte() {
+        return buffer.forEachByte(0, buffer.capacity(), FIND_NON_ZERO);
+    }
+
+    @Benchmark
+    public byte[] readBytesAcrossComponents() {
+        final CompositeByteBuf buffer = this.buffer;
+        final byte[] bytes = this.bytes;
+        buffer.readerIndex(0);
+        while (buffer.readableBytes() >= bytes.length) {
+            buffer.readBytes(bytes);
+        }
+        return bytes;
+    }
+}
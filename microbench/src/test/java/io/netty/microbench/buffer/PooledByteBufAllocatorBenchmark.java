@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Allocates and frees buffers with a shared {@link PooledByteBufAllocator} from several threads at the same time,
+ * so that the contention on the arenas and the efficiency of the thread caches show up.
+ */
+@Threads(4)
+public class PooledByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator POOLED_ALLOCATOR_HEAP = new PooledByteBufAllocator(false);
+    private static final PooledByteBufAllocator POOLED_ALLOCATOR_DIRECT = new PooledByteBufAllocator(true);
+
+    @Param({ "64", "1024", "8192", "65536" })
+    public int size;
+
+    @Benchmark
+    public void heapAllocAndFree(HeapQueue queue) {
+        allocAndFree(POOLED_ALLOCATOR_HEAP, queue.queue);
+    }
+
+    @Benchmark
+    public void directAllocAndFree(DirectQueue queue) {
+        allocAndFree(POOLED_ALLOCATOR_DIRECT, queue.queue);
+    }
+
+    private void allocAndFree(PooledByteBufAllocator alloc, Deque<ByteBuf> queue) {
+        queue.add(alloc.buffer(size));
+        queue.removeFirst().release();
+    }
+
+    /**
+     * Keeps a number of buffers of each thread alive, so that the pool does not simply return the last freed buffer.
+     * The buffers are allocated by the same allocator and with the same size as the buffers of the benchmark.
+     */
+    public abstract static class ThreadQueue {
+        final Deque<ByteBuf> queue = new ArrayDeque<ByteBuf>();
+        private final PooledByteBufAllocator alloc;
+
+        ThreadQueue(PooledByteBufAllocator alloc) {
+            this.alloc = alloc;
+        }
+
+        @Setup
+        public void setUp(PooledByteBufAllocatorBenchmark benchmark) {
+            for (int i = 0; i < 128; i ++) {
+                queue.add(alloc.buffer(benchmark.size));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            for (ByteBuf b: queue) {
+                b.release();
+            }
+            queue.clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HeapQueue extends ThreadQueue {
+        public HeapQueue() {
+            super(POOLED_ALLOCATOR_HEAP);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DirectQueue extends ThreadQueue {
+        public DirectQueue() {
+            super(POOLED_ALLOCATOR_DIRECT);
+        }
+    }
+}
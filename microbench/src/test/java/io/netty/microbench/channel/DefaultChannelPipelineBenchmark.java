@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.MessageList;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Propagates events through a {@link ChannelPipeline} which consists of a number of handlers that only pass the
+ * events on to the next handler.
+ */
+public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "1", "8", "32" })
+    public int handlers;
+
+    private EmbeddedChannel channel;
+    private ChannelPipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        pipeline = channel.pipeline();
+        for (int i = 0; i < handlers; i ++) {
+            pipeline.addLast(PassThroughHandler.INSTANCE);
+        }
+        pipeline.addLast(ConsumingHandler.INSTANCE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public void fireMessageReceived() {
+        pipeline.fireMessageReceived(MESSAGE);
+    }
+
+    @Benchmark
+    public void fireChannelReadSuspended() {
+        pipeline.fireChannelReadSuspended();
+    }
+
+    @Benchmark
+    public Object writeAndFlush() {
+        pipeline.writeAndFlush(MESSAGE);
+        return channel.readOutbound();
+    }
+
+    @Sharable
+    private static final class PassThroughHandler extends ChannelDuplexHandler {
+        static final PassThroughHandler INSTANCE = new PassThroughHandler();
+    }
+
+    @Sharable
+    private static final class ConsumingHandler extends ChannelInboundHandlerAdapter {
+        static final ConsumingHandler INSTANCE = new ConsumingHandler();
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) {
+            msgs.recycle();
+        }
+
+        @Override
+        public void channelReadSuspended(ChannelHandlerContext ctx) {
+            // Consumed.
+        }
+    }
+}
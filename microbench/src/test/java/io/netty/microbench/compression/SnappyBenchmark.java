@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.compression.Snappy;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Compresses a chunk of text-like data with {@link Snappy} from a heap and from a direct buffer.
+ */
+public class SnappyBenchmark extends AbstractMicrobenchmark {
+
+    private static final String[] WORDS = {
+        "netty", "channel", "pipeline", "handler", "buffer", "event", "loop", "future", "promise", "codec",
+        "the", "a", "of", "to", "and", "in", "is", "it", "that", "for"
+    };
+
+    @Param({ "1024", "32767" })
+    public int size;
+
+    private final Snappy snappy = new Snappy();
+    private ByteBuf heapIn;
+    private ByteBuf directIn;
+    private ByteBuf out;
+
+    @Setup
+    public void setUp() {
+        StringBuilder buf = new StringBuilder(size);
+        Random random = new Random(42);
+        while (buf.length() < size) {
+            buf.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        byte[] data = buf.substring(0, size).getBytes();
+
+        heapIn = PooledByteBufAllocator.DEFAULT.heapBuffer(size).writeBytes(data);
+        directIn = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeBytes(data);
+        out = PooledByteBufAllocator.DEFAULT.heapBuffer(size * 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        heapIn.release();
+        directIn.release();
+        out.release();
+    }
+
+    @Benchmark
+    public int encodeHeap() {
+        return encode(heapIn);
+    }
+
+    @Benchmark
+    public int encodeDirect() {
+        return encode(directIn);
+    }
+
+    private int encode(ByteBuf in) {
+        in.readerIndex(0);
+        out.clear();
+        snappy.encode(in, out, size);
+        return out.writerIndex();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Notifies the listeners of a {@link DefaultPromise} when it is completed, both from within its
+ * {@link EventExecutor} and from another thread.
+ */
+public class DefaultPromiseBenchmark extends AbstractMicrobenchmark {
+
+    private static final GenericFutureListener<Future<Object>> NOOP_LISTENER =
+            new GenericFutureListener<Future<Object>>() {
+                @Override
+                public void operationComplete(Future<Object> future) {
+                    // NOOP
+                }
+            };
+
+    @Param({ "1", "4" })
+    public int listeners;
+
+    private DefaultEventExecutorGroup group;
+    private EventExecutor executor;
+
+    @Setup
+    public void setUp() {
+        group = new DefaultEventExecutorGroup(1);
+        executor = group.next();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public Promise<Object> notifyInEventLoop() {
+        return complete(new DefaultPromise<Object>(ImmediateEventExecutor.INSTANCE));
+    }
+
+    @Benchmark
+    public Object notifyFromOtherThread() throws Exception {
+        return complete(new DefaultPromise<Object>(executor)).sync();
+    }
+
+    @Benchmark
+    public Object addListenerToCompletedPromise() {
+        Promise<Object> promise = new DefaultPromise<Object>(ImmediateEventExecutor.INSTANCE);
+        promise.setSuccess(null);
+        return addListeners(promise);
+    }
+
+    private Promise<Object> complete(Promise<Object> promise) {
+        addListeners(promise);
+        promise.setSuccess(null);
+        return promise;
+    }
+
+    private Promise<Object> addListeners(Promise<Object> promise) {
+        for (int i = 0; i < listeners; i ++) {
+            promise.addListener(NOOP_LISTENER);
+        }
+        return promise;
+    }
+}
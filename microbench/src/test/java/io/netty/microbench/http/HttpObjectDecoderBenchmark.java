@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectDecoder;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Decodes a buffer of pipelined requests with a {@link HttpObjectDecoder}.
+ */
+public class HttpObjectDecoderBenchmark extends AbstractMicrobenchmark {
+
+    private static final String REQUEST =
+            "GET /plaintext HTTP/1.1\r\n" +
+            "Host: localhost:8080\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) Gecko/20130501 Firefox/30.0\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+            "Accept-Language: en-US,en;q=0.5\r\n" +
+            "Accept-Encoding: gzip, deflate\r\n" +
+            "Cookie: uid=12345678901234567890; __utma=1.1234567890.1234567890.1234567890.1234567890.12\r\n" +
+            "Connection: keep-alive\r\n" +
+            "\r\n";
+
+    @Param({ "1", "16" })
+    public int pipelinedRequests;
+
+    private ByteBuf requests;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setUp() {
+        StringBuilder buf = new StringBuilder(REQUEST.length() * pipelinedRequests);
+        for (int i = 0; i < pipelinedRequests; i ++) {
+            buf.append(REQUEST);
+        }
+        requests = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer().writeBytes(buf.toString().getBytes(CharsetUtil.US_ASCII)));
+        channel = new EmbeddedChannel(new HttpRequestDecoder());
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int decode() {
+        channel.writeInbound(requests.duplicate());
+        int decoded = 0;
+        for (;;) {
+            Object msg = channel.readInbound();
+            if (msg == null) {
+                return decoded;
+            }
+            ReferenceCountUtil.release(msg);
+            decoded ++;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectEncoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.PreEncodedHttpResponse;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Encodes a small {@link FullHttpResponse} with a {@link HttpObjectEncoder}, and the same response when it is
+ * a {@link PreEncodedHttpResponse}.
+ */
+public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
+
+    private ByteBuf content;
+    private FullHttpResponse preEncoded;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setUp() {
+        content = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer().writeBytes("Hello, World!".getBytes(CharsetUtil.US_ASCII)));
+        preEncoded = new PreEncodedHttpResponse(newResponse());
+        channel = new EmbeddedChannel(new HttpResponseEncoder());
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int encode() {
+        return encode(newResponse());
+    }
+
+    @Benchmark
+    public int encodePreEncoded() {
+        return encode(preEncoded);
+    }
+
+    private FullHttpResponse newResponse() {
+        FullHttpResponse response =
+                new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content.duplicate());
+        HttpHeaders headers = response.headers();
+        headers.set(HttpHeaders.Names.CONTENT_TYPE, "text/plain");
+        headers.set(HttpHeaders.Names.SERVER, "Netty");
+        headers.set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+        return response;
+    }
+
+    private int encode(FullHttpResponse response) {
+        channel.writeOutbound(response);
+
+        int encoded = 0;
+        for (;;) {
+            Object msg = channel.readOutbound();
+            if (msg == null) {
+                return encoded;
+            }
+            ReferenceCountUtil.release(msg);
+            encoded ++;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Decodes a buffer of masked binary frames, as sent by a client, with a {@link WebSocket08FrameDecoder}.
+ */
+public class WebSocket08FrameDecoderBenchmark extends AbstractMicrobenchmark {
+
+    private static final int FRAMES = 16;
+
+    @Param({ "16", "1024", "65536" })
+    public int payloadSize;
+
+    private ByteBuf frames;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setUp() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new WebSocket08FrameEncoder(true));
+        ByteBuf frames = Unpooled.directBuffer();
+        for (int i = 0; i < FRAMES; i ++) {
+            encoder.writeOutbound(new BinaryWebSocketFrame(Unpooled.buffer(payloadSize).writeZero(payloadSize)));
+            for (;;) {
+                ByteBuf encoded = (ByteBuf) encoder.readOutbound();
+                if (encoded == null) {
+                    break;
+                }
+                frames.writeBytes(encoded);
+                encoded.release();
+            }
+        }
+        encoder.finish();
+
+        this.frames = Unpooled.unreleasableBuffer(frames);
+        channel = new EmbeddedChannel(new WebSocket08FrameDecoder(true, false, Integer.MAX_VALUE));
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int decode() {
+        channel.writeInbound(frames.duplicate());
+        int decoded = 0;
+        for (;;) {
+            Object msg = channel.readInbound();
+            if (msg == null) {
+                return decoded;
+            }
+            ReferenceCountUtil.release(msg);
+            decoded ++;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.timer;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules and cancels timeouts on a {@link HashedWheelTimer}, which is what happens for most read and write
+ * timeouts as they rarely expire.
+ */
+@Threads(2)
+public class HashedWheelTimerBenchmark extends AbstractMicrobenchmark {
+
+    private static final TimerTask NOOP_TASK = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+            // NOOP
+        }
+    };
+
+    private HashedWheelTimer timer;
+
+    @Setup
+    public void setUp() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        timer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Benchmark
+    public Timeout newTimeoutAndCancel() {
+        Timeout timeout = timer.newTimeout(NOOP_TASK, 30, TimeUnit.SECONDS);
+        timeout.cancel();
+        return timeout;
+    }
+
+    @Benchmark
+    public Timeout newShortTimeout() {
+        return timer.newTimeout(NOOP_TASK, 1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -15,6 +15,6 @@
  */
 
 /**
- * Caliper VM arguments
+ * Benchmark classes for Netty timers
  */
-package com.google.caliper;
+package io.netty.microbench.timer;
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.internal.SystemPropertyUtil;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Base class for all JMH benchmarks.  Every subclass is a JUnit test which runs its own benchmark methods, so a
+ * single benchmark can be run with:
+ * <pre>
+ * mvn -pl microbench test -DskipTests=false -Dtest=ByteBufAllocatorBenchmark
+ * </pre>
+ * The number of forks and iterations can be overridden with the {@code forks}, {@code warmupIterations} and
+ * {@code measurementIterations} system properties.  If {@code perfReportDir} is set, the results are written there
+ * as JSON files.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = AbstractMicrobenchmark.DEFAULT_WARMUP_ITERATIONS)
+@Measurement(iterations = AbstractMicrobenchmark.DEFAULT_MEASURE_ITERATIONS)
+@Fork(AbstractMicrobenchmark.DEFAULT_FORKS)
+public abstract class AbstractMicrobenchmark {
+
+    protected static final int DEFAULT_WARMUP_ITERATIONS = 10;
+    protected static final int DEFAULT_MEASURE_ITERATIONS = 10;
+    protected static final int DEFAULT_FORKS = 2;
+
+    private static final String[] JVM_ARGS = {
+        "-server", "-dsa", "-da", "-ea:io.netty...", "-Xms768m", "-Xmx768m",
+        "-XX:MaxDirectMemorySize=768m", "-XX:+HeapDumpOnOutOfMemoryError"
+    };
+
+    @Test
+    public void run() throws Exception {
+        String className = getClass().getSimpleName();
+
+        ChainedOptionsBuilder runnerOptions = new OptionsBuilder()
+                .include(".*\\." + className + "\\..*")
+                .jvmArgs(JVM_ARGS);
+
+        int warmupIterations = SystemPropertyUtil.getInt("warmupIterations", -1);
+        if (warmupIterations > 0) {
+            runnerOptions.warmupIterations(warmupIterations);
+        }
+
+        int measurementIterations = SystemPropertyUtil.getInt("measurementIterations", -1);
+        if (measurementIterations > 0) {
+            runnerOptions.measurementIterations(measurementIterations);
+        }
+
+        int forks = SystemPropertyUtil.getInt("forks", -1);
+        if (forks > 0) {
+            runnerOptions.forks(forks);
+        }
+
+        String reportDir = SystemPropertyUtil.get("perfReportDir");
+        if (reportDir != null) {
+            File dir = new File(reportDir);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                fail("failed to create the report directory: " + dir.getAbsolutePath());
+            }
+            runnerOptions.resultFormat(ResultFormatType.JSON);
+            runnerOptions.result(dir.getAbsolutePath() + File.separator + className + ".json");
+        }
+
+        assertFalse(new Runner(runnerOptions.shouldFailOnError(true).build()).run().isEmpty());
+    }
+}
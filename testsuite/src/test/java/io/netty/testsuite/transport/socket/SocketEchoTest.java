@@ -125,9 +125,9 @@ public class SocketEchoTest extends AbstractSocketTest {
             int length = Math.min(random.nextInt(1024 * 64), data.length - i);
             ByteBuf buf = Unpooled.wrappedBuffer(data, i, length);
             if (voidPromise) {
-                assertEquals(cc.voidPromise(), cc.write(buf, cc.voidPromise()));
+                assertEquals(cc.voidPromise(), cc.writeAndFlush(buf, cc.voidPromise()));
             } else {
-                assertNotEquals(cc.voidPromise(), cc.write(buf));
+                assertNotEquals(cc.voidPromise(), cc.writeAndFlush(buf));
             }
             i += length;
         }
@@ -202,7 +202,7 @@ public class SocketEchoTest extends AbstractSocketTest {
             }
 
             if (channel.parent() != null) {
-                channel.write(Unpooled.wrappedBuffer(actual));
+                channel.writeAndFlush(Unpooled.wrappedBuffer(actual));
             }
 
             counter += actual.length;
@@ -71,7 +71,7 @@ public class SocketFixedLengthEchoTest extends AbstractSocketTest {
         Channel cc = cb.connect().sync().channel();
         for (int i = 0; i < data.length;) {
             int length = Math.min(random.nextInt(1024 * 3), data.length - i);
-            cc.write(Unpooled.wrappedBuffer(data, i, length));
+            cc.writeAndFlush(Unpooled.wrappedBuffer(data, i, length));
             i += length;
         }
 
@@ -146,7 +146,7 @@ public class SocketFixedLengthEchoTest extends AbstractSocketTest {
             }
 
             if (channel.parent() != null) {
-                channel.write(msg.retain());
+                channel.writeAndFlush(msg.retain());
             }
 
             counter += actual.length;
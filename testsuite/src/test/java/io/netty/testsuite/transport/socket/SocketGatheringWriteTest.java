@@ -88,7 +88,7 @@ public class SocketGatheringWriteTest extends AbstractSocketTest {
             }
             i += length;
         }
-        assertNotEquals(cc.voidPromise(), cc.write(messages).sync());
+        assertNotEquals(cc.voidPromise(), cc.writeAndFlush(messages).sync());
 
         while (sh.counter < data.length) {
             if (sh.exception.get() != null) {
@@ -83,7 +83,7 @@ public class SocketObjectEchoTest extends AbstractSocketTest {
         Channel sc = sb.bind().sync().channel();
         Channel cc = cb.connect().sync().channel();
         for (String element : data) {
-            cc.write(element);
+            cc.writeAndFlush(element);
         }
 
         while (ch.counter < data.length) {
@@ -155,7 +155,7 @@ public class SocketObjectEchoTest extends AbstractSocketTest {
                 assertEquals(data[counter], msg);
 
                 if (channel.parent() != null) {
-                    channel.write(msg);
+                    channel.writeAndFlush(msg);
                 }
 
                 counter ++;
@@ -199,7 +199,7 @@ public class SocketSpdyEchoTest extends AbstractSocketTest {
         int port = ((InetSocketAddress) sc.localAddress()).getPort();
 
         Channel cc = cb.remoteAddress(NetUtil.LOCALHOST, port).connect().sync().channel();
-        cc.write(frames);
+        cc.writeAndFlush(frames);
 
         while (ch.counter < frames.writerIndex() - ignoredBytes) {
             if (sh.exception.get() != null) {
@@ -235,7 +235,7 @@ public class SocketSpdyEchoTest extends AbstractSocketTest {
 
         @Override
         public void messageReceived(ChannelHandlerContext ctx, MessageList<Object> msgs) throws Exception {
-            ctx.write(msgs);
+            ctx.writeAndFlush(msgs);
         }
 
         @Override
@@ -85,7 +85,7 @@ public class SocketStringEchoTest extends AbstractSocketTest {
         Channel cc = cb.connect().sync().channel();
         for (String element : data) {
             String delimiter = random.nextBoolean() ? "\r\n" : "\n";
-            cc.write(element + delimiter);
+            cc.writeAndFlush(element + delimiter);
         }
 
         while (ch.counter < data.length) {
@@ -151,7 +151,7 @@ public class SocketStringEchoTest extends AbstractSocketTest {
 
             if (channel.parent() != null) {
                 String delimiter = random.nextBoolean() ? "\r\n" : "\n";
-                channel.write(msg + delimiter);
+                channel.writeAndFlush(msg + delimiter);
             }
 
             counter ++;
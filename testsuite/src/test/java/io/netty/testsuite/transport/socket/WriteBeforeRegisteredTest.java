@@ -34,7 +34,7 @@ public class WriteBeforeRegisteredTest extends AbstractClientSocketTest {
         SocketChannel ch = null;
         try {
             ch = (SocketChannel) cb.handler(h).connect().channel();
-            ch.write(Unpooled.wrappedBuffer(new byte[] { 1 })).await();
+            ch.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 1 })).await();
         } finally {
             if (ch != null) {
                 ch.close();
@@ -0,0 +1,964 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <limits.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <unistd.h>
+#include <arpa/inet.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+#include <sys/sendfile.h>
+#include <sys/socket.h>
+#include <sys/types.h>
+#include <sys/uio.h>
+
+/* Must be kept in sync with the constants of io.netty.channel.epoll.Native */
+#define NETTY_EPOLLIN    0x01
+#define NETTY_EPOLLOUT   0x02
+#define NETTY_EPOLLRDHUP 0x04
+
+#define MAX_EVENTS_ON_STACK 1024
+
+#define NATIVE_CLASS "io/netty/channel/epoll/Native"
+#define DATAGRAM_ADDRESS_CLASS "io/netty/channel/epoll/EpollDatagramChannel$DatagramSocketAddress"
+
+static jclass runtimeExceptionClass = NULL;
+static jclass ioExceptionClass = NULL;
+static jclass closedChannelExceptionClass = NULL;
+static jclass connectExceptionClass = NULL;
+static jclass channelExceptionClass = NULL;
+static jclass nativeClass = NULL;
+static jclass datagramSocketAddressClass = NULL;
+
+static jmethodID nativeAddressMethodId = NULL;
+static jmethodID datagramSocketAddressMethodId = NULL;
+static jmethodID closedChannelExceptionMethodId = NULL;
+
+static jfieldID fileChannelFieldId = NULL;
+static jfieldID transferedFieldId = NULL;
+static jfieldID fileDescriptorFieldId = NULL;
+static jfieldID fdFieldId = NULL;
+static jfieldID positionFieldId = NULL;
+static jfieldID limitFieldId = NULL;
+
+/* The address family of all sockets; AF_INET6 (dual stack) if available, AF_INET otherwise. */
+static int socketType = AF_INET;
+
+/* Exception helpers */
+
+static void throwRuntimeException(JNIEnv *env, const char *message) {
+    (*env)->ThrowNew(env, runtimeExceptionClass, message);
+}
+
+static void throwErrno(JNIEnv *env, jclass exceptionClass, const char *message, int err) {
+    char buf[256];
+    const char *error = strerror(err);
+    snprintf(buf, sizeof(buf), "%s() failed: %s", message, error);
+    (*env)->ThrowNew(env, exceptionClass, buf);
+}
+
+static void throwIOException(JNIEnv *env, const char *message, int err) {
+    throwErrno(env, ioExceptionClass, message, err);
+}
+
+static void throwChannelException(JNIEnv *env, const char *message, int err) {
+    throwErrno(env, channelExceptionClass, message, err);
+}
+
+static void throwClosedChannelException(JNIEnv *env) {
+    jobject exception = (*env)->NewObject(env, closedChannelExceptionClass, closedChannelExceptionMethodId);
+    (*env)->Throw(env, exception);
+}
+
+static void throwIOExceptionOrClosed(JNIEnv *env, const char *message, int err) {
+    if (err == EBADF) {
+        throwClosedChannelException(env);
+    } else {
+        throwIOException(env, message, err);
+    }
+}
+
+static jclass findGlobalClass(JNIEnv *env, const char *name) {
+    jclass localClass = (*env)->FindClass(env, name);
+    if (localClass == NULL) {
+        return NULL;
+    }
+    jclass globalClass = (jclass) (*env)->NewGlobalRef(env, localClass);
+    (*env)->DeleteLocalRef(env, localClass);
+    return globalClass;
+}
+
+/* Address helpers */
+
+static jobject createAddress(JNIEnv *env, const struct sockaddr_storage *addr, int received, int datagram) {
+    jbyteArray array;
+    jint scopeId = 0;
+    jint port;
+
+    if (addr->ss_family == AF_INET) {
+        const struct sockaddr_in *s = (const struct sockaddr_in *) addr;
+        port = ntohs(s->sin_port);
+        array = (*env)->NewByteArray(env, 4);
+        if (array == NULL) {
+            return NULL;
+        }
+        (*env)->SetByteArrayRegion(env, array, 0, 4, (const jbyte *) &s->sin_addr.s_addr);
+    } else {
+        const struct sockaddr_in6 *s = (const struct sockaddr_in6 *) addr;
+        port = ntohs(s->sin6_port);
+        if (IN6_IS_ADDR_V4MAPPED(&s->sin6_addr)) {
+            // Hand out IPv4-mapped addresses as plain IPv4 addresses.
+            array = (*env)->NewByteArray(env, 4);
+            if (array == NULL) {
+                return NULL;
+            }
+            (*env)->SetByteArrayRegion(env, array, 0, 4, (const jbyte *) &s->sin6_addr.s6_addr[12]);
+        } else {
+            array = (*env)->NewByteArray(env, 16);
+            if (array == NULL) {
+                return NULL;
+            }
+            (*env)->SetByteArrayRegion(env, array, 0, 16, (const jbyte *) &s->sin6_addr.s6_addr);
+            scopeId = s->sin6_scope_id;
+        }
+    }
+
+    if (datagram) {
+        return (*env)->NewObject(env, datagramSocketAddressClass, datagramSocketAddressMethodId,
+                array, scopeId, port, received);
+    }
+    return (*env)->CallStaticObjectMethod(env, nativeClass, nativeAddressMethodId, array, scopeId, port);
+}
+
+static int initSockaddr(JNIEnv *env, jbyteArray address, jint scopeId, jint port,
+                        struct sockaddr_storage *addr, socklen_t *addrLen) {
+    jsize len = (*env)->GetArrayLength(env, address);
+    memset(addr, 0, sizeof(struct sockaddr_storage));
+
+    if (socketType == AF_INET6) {
+        struct sockaddr_in6 *s = (struct sockaddr_in6 *) addr;
+        s->sin6_family = AF_INET6;
+        s->sin6_port = htons((uint16_t) port);
+        if (len == 4) {
+            // Map the IPv4 address into the IPv6 address space as the socket is a dual stack one.
+            s->sin6_addr.s6_addr[10] = 0xff;
+            s->sin6_addr.s6_addr[11] = 0xff;
+            (*env)->GetByteArrayRegion(env, address, 0, 4, (jbyte *) &s->sin6_addr.s6_addr[12]);
+        } else {
+            (*env)->GetByteArrayRegion(env, address, 0, 16, (jbyte *) &s->sin6_addr.s6_addr);
+            s->sin6_scope_id = scopeId;
+        }
+        *addrLen = sizeof(struct sockaddr_in6);
+    } else {
+        struct sockaddr_in *s = (struct sockaddr_in *) addr;
+        s->sin_family = AF_INET;
+        s->sin_port = htons((uint16_t) port);
+        if (len == 4) {
+            (*env)->GetByteArrayRegion(env, address, 0, 4, (jbyte *) &s->sin_addr.s_addr);
+        } else {
+            jbyte bytes[16];
+            (*env)->GetByteArrayRegion(env, address, 0, 16, bytes);
+            if (!IN6_IS_ADDR_V4MAPPED((struct in6_addr *) bytes)) {
+                throwIOException(env, "initSockaddr", EAFNOSUPPORT);
+                return -1;
+            }
+            memcpy(&s->sin_addr.s_addr, bytes + 12, 4);
+        }
+        *addrLen = sizeof(struct sockaddr_in);
+    }
+    return 0;
+}
+
+/* Socket option helpers */
+
+static int getOption(JNIEnv *env, jint fd, int level, int optname, void *optval, socklen_t optlen) {
+    if (getsockopt(fd, level, optname, optval, &optlen) == -1) {
+        throwChannelException(env, "getsockopt", errno);
+        return -1;
+    }
+    return 0;
+}
+
+static void setOption(JNIEnv *env, jint fd, int level, int optname, const void *optval, socklen_t optlen) {
+    if (setsockopt(fd, level, optname, optval, optlen) == -1) {
+        throwChannelException(env, "setsockopt", errno);
+    }
+}
+
+static jint getIntOption(JNIEnv *env, jint fd, int level, int optname) {
+    int value = 0;
+    if (getOption(env, fd, level, optname, &value, sizeof(value)) == -1) {
+        return -1;
+    }
+    return value;
+}
+
+static void setIntOption(JNIEnv *env, jint fd, int level, int optname, jint optval) {
+    int value = optval;
+    setOption(env, fd, level, optname, &value, sizeof(value));
+}
+
+/* Buffer helpers */
+
+static void *directBufferAddress(JNIEnv *env, jobject buffer) {
+    void *address = (*env)->GetDirectBufferAddress(env, buffer);
+    if (address == NULL) {
+        throwRuntimeException(env, "failed to get direct buffer address");
+    }
+    return address;
+}
+
+/* Library lifecycle */
+
+jint JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    jclass localClass;
+    int fd;
+
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    if ((runtimeExceptionClass = findGlobalClass(env, "java/lang/RuntimeException")) == NULL ||
+            (ioExceptionClass = findGlobalClass(env, "java/io/IOException")) == NULL ||
+            (closedChannelExceptionClass = findGlobalClass(env, "java/nio/channels/ClosedChannelException")) == NULL ||
+            (connectExceptionClass = findGlobalClass(env, "java/net/ConnectException")) == NULL ||
+            (channelExceptionClass = findGlobalClass(env, "io/netty/channel/ChannelException")) == NULL ||
+            (nativeClass = findGlobalClass(env, NATIVE_CLASS)) == NULL ||
+            (datagramSocketAddressClass = findGlobalClass(env, DATAGRAM_ADDRESS_CLASS)) == NULL) {
+        return JNI_ERR;
+    }
+
+    closedChannelExceptionMethodId = (*env)->GetMethodID(env, closedChannelExceptionClass, "<init>", "()V");
+    nativeAddressMethodId = (*env)->GetStaticMethodID(
+            env, nativeClass, "address", "([BII)Ljava/net/InetSocketAddress;");
+    datagramSocketAddressMethodId = (*env)->GetMethodID(env, datagramSocketAddressClass, "<init>", "([BIII)V");
+    if (closedChannelExceptionMethodId == NULL || nativeAddressMethodId == NULL ||
+            datagramSocketAddressMethodId == NULL) {
+        return JNI_ERR;
+    }
+
+    localClass = (*env)->FindClass(env, "io/netty/channel/DefaultFileRegion");
+    if (localClass == NULL) {
+        return JNI_ERR;
+    }
+    fileChannelFieldId = (*env)->GetFieldID(env, localClass, "file", "Ljava/nio/channels/FileChannel;");
+    transferedFieldId = (*env)->GetFieldID(env, localClass, "transfered", "J");
+    (*env)->DeleteLocalRef(env, localClass);
+    if (fileChannelFieldId == NULL || transferedFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    localClass = (*env)->FindClass(env, "sun/nio/ch/FileChannelImpl");
+    if (localClass == NULL) {
+        return JNI_ERR;
+    }
+    fileDescriptorFieldId = (*env)->GetFieldID(env, localClass, "fd", "Ljava/io/FileDescriptor;");
+    (*env)->DeleteLocalRef(env, localClass);
+    if (fileDescriptorFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    localClass = (*env)->FindClass(env, "java/io/FileDescriptor");
+    if (localClass == NULL) {
+        return JNI_ERR;
+    }
+    fdFieldId = (*env)->GetFieldID(env, localClass, "fd", "I");
+    (*env)->DeleteLocalRef(env, localClass);
+    if (fdFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    localClass = (*env)->FindClass(env, "java/nio/Buffer");
+    if (localClass == NULL) {
+        return JNI_ERR;
+    }
+    positionFieldId = (*env)->GetFieldID(env, localClass, "position", "I");
+    limitFieldId = (*env)->GetFieldID(env, localClass, "limit", "I");
+    (*env)->DeleteLocalRef(env, localClass);
+    if (positionFieldId == NULL || limitFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    // Use dual stack sockets if the kernel supports IPv6.
+    fd = socket(AF_INET6, SOCK_STREAM, 0);
+    if (fd != -1) {
+        socketType = AF_INET6;
+        close(fd);
+    }
+
+    return JNI_VERSION_1_6;
+}
+
+void JNI_OnUnload(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return;
+    }
+
+    if (runtimeExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, runtimeExceptionClass);
+        runtimeExceptionClass = NULL;
+    }
+    if (ioExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, ioExceptionClass);
+        ioExceptionClass = NULL;
+    }
+    if (closedChannelExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, closedChannelExceptionClass);
+        closedChannelExceptionClass = NULL;
+    }
+    if (connectExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, connectExceptionClass);
+        connectExceptionClass = NULL;
+    }
+    if (channelExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, channelExceptionClass);
+        channelExceptionClass = NULL;
+    }
+    if (nativeClass != NULL) {
+        (*env)->DeleteGlobalRef(env, nativeClass);
+        nativeClass = NULL;
+    }
+    if (datagramSocketAddressClass != NULL) {
+        (*env)->DeleteGlobalRef(env, datagramSocketAddressClass);
+        datagramSocketAddressClass = NULL;
+    }
+}
+
+/* Event loop operations */
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_eventFd(JNIEnv *env, jclass clazz) {
+    jint eventFD = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    if (eventFD < 0) {
+        throwChannelException(env, "eventfd", errno);
+    }
+    return eventFD;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_eventFdWrite(
+        JNIEnv *env, jclass clazz, jint fd, jlong value) {
+    if (eventfd_write(fd, (eventfd_t) value) < 0 && errno != EAGAIN) {
+        throwChannelException(env, "eventfd_write", errno);
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_eventFdRead(JNIEnv *env, jclass clazz, jint fd) {
+    eventfd_t value;
+    if (eventfd_read(fd, &value) < 0 && errno != EAGAIN) {
+        throwChannelException(env, "eventfd_read", errno);
+    }
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_epollCreate(JNIEnv *env, jclass clazz) {
+    jint efd = epoll_create1(EPOLL_CLOEXEC);
+    if (efd < 0) {
+        throwChannelException(env, "epoll_create1", errno);
+    }
+    return efd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_epollWait(
+        JNIEnv *env, jclass clazz, jint efd, jlongArray events, jint timeout) {
+    struct epoll_event ev[MAX_EVENTS_ON_STACK];
+    jlong elements[MAX_EVENTS_ON_STACK];
+    int len = (*env)->GetArrayLength(env, events);
+    int ready;
+    int i;
+
+    if (len > MAX_EVENTS_ON_STACK) {
+        len = MAX_EVENTS_ON_STACK;
+    }
+
+    ready = epoll_wait(efd, ev, len, timeout);
+    if (ready < 0) {
+        if (errno == EINTR) {
+            return 0;
+        }
+        throwChannelException(env, "epoll_wait", errno);
+        return -1;
+    }
+
+    for (i = 0; i < ready; i++) {
+        uint32_t e = ev[i].events;
+        jlong flags = 0;
+        if (e & (EPOLLERR | EPOLLHUP)) {
+            // Let the read and write handlers pick up the error.
+            flags |= NETTY_EPOLLIN | NETTY_EPOLLOUT;
+        }
+        if (e & EPOLLIN) {
+            flags |= NETTY_EPOLLIN;
+        }
+        if (e & EPOLLOUT) {
+            flags |= NETTY_EPOLLOUT;
+        }
+        if (e & EPOLLRDHUP) {
+            flags |= NETTY_EPOLLRDHUP;
+        }
+        elements[i] = (((jlong) ev[i].data.fd) << 32) | flags;
+    }
+    if (ready > 0) {
+        (*env)->SetLongArrayRegion(env, events, 0, ready, elements);
+    }
+    return ready;
+}
+
+static uint32_t epollEvents(jint flags) {
+    uint32_t events = EPOLLET;
+    if (flags & NETTY_EPOLLIN) {
+        events |= EPOLLIN | EPOLLRDHUP;
+    }
+    if (flags & NETTY_EPOLLOUT) {
+        events |= EPOLLOUT;
+    }
+    return events;
+}
+
+static void epollCtl(JNIEnv *env, jint efd, int op, jint fd, jint flags) {
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    ev.events = epollEvents(flags);
+    ev.data.fd = fd;
+
+    if (epoll_ctl(efd, op, fd, &ev) < 0) {
+        throwChannelException(env, "epoll_ctl", errno);
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_epollCtlAdd(
+        JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags) {
+    epollCtl(env, efd, EPOLL_CTL_ADD, fd, flags);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_epollCtlMod(
+        JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags) {
+    epollCtl(env, efd, EPOLL_CTL_MOD, fd, flags);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_epollCtlDel(JNIEnv *env, jclass clazz, jint efd, jint fd) {
+    // Pass a non-NULL event for kernels older than 2.6.9.
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    if (epoll_ctl(efd, EPOLL_CTL_DEL, fd, &ev) < 0) {
+        throwChannelException(env, "epoll_ctl", errno);
+    }
+}
+
+/* File-descriptor operations */
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_close(JNIEnv *env, jclass clazz, jint fd) {
+    if (close(fd) < 0) {
+        throwIOException(env, "close", errno);
+    }
+}
+
+static jint writeInternal(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit) {
+    ssize_t res;
+    do {
+        res = write(fd, (char *) buffer + pos, (size_t) (limit - pos));
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionOrClosed(env, "write", errno);
+        return -1;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_write(
+        JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void *buffer = directBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        return -1;
+    }
+    return writeInternal(env, fd, buffer, pos, limit);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_writeAddress(
+        JNIEnv *env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return writeInternal(env, fd, (void *) (intptr_t) address, pos, limit);
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_writev(
+        JNIEnv *env, jclass clazz, jint fd, jobjectArray buffers, jint offset, jint length) {
+    struct iovec iov[IOV_MAX];
+    ssize_t res;
+    int i;
+
+    if (length > IOV_MAX) {
+        length = IOV_MAX;
+    }
+
+    for (i = 0; i < length; i++) {
+        jobject bufObj = (*env)->GetObjectArrayElement(env, buffers, offset + i);
+        jint pos = (*env)->GetIntField(env, bufObj, positionFieldId);
+        jint limit = (*env)->GetIntField(env, bufObj, limitFieldId);
+        void *buffer = directBufferAddress(env, bufObj);
+        (*env)->DeleteLocalRef(env, bufObj);
+        if (buffer == NULL) {
+            return -1;
+        }
+        iov[i].iov_base = (char *) buffer + pos;
+        iov[i].iov_len = (size_t) (limit - pos);
+    }
+
+    do {
+        res = writev(fd, iov, length);
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionOrClosed(env, "writev", errno);
+        return -1;
+    }
+    return (jlong) res;
+}
+
+static jint readInternal(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit) {
+    ssize_t res;
+    do {
+        res = read(fd, (char *) buffer + pos, (size_t) (limit - pos));
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionOrClosed(env, "read", errno);
+        return -1;
+    }
+    if (res == 0) {
+        // end of stream
+        return -1;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_read(
+        JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void *buffer = directBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        return -1;
+    }
+    return readInternal(env, fd, buffer, pos, limit);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_readAddress(
+        JNIEnv *env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return readInternal(env, fd, (void *) (intptr_t) address, pos, limit);
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_sendfile(
+        JNIEnv *env, jclass clazz, jint fd, jobject fileRegion, jlong baseOffset, jlong offset, jlong length) {
+    jobject fileChannel = (*env)->GetObjectField(env, fileRegion, fileChannelFieldId);
+    jobject fileDescriptor;
+    jint srcFd;
+    off_t off = (off_t) (baseOffset + offset);
+    ssize_t res;
+
+    if (fileChannel == NULL) {
+        throwRuntimeException(env, "failed to get the file channel");
+        return -1;
+    }
+    fileDescriptor = (*env)->GetObjectField(env, fileChannel, fileDescriptorFieldId);
+    if (fileDescriptor == NULL) {
+        throwRuntimeException(env, "failed to get the file descriptor");
+        return -1;
+    }
+    srcFd = (*env)->GetIntField(env, fileDescriptor, fdFieldId);
+
+    do {
+        res = sendfile(fd, srcFd, &off, (size_t) length);
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionOrClosed(env, "sendfile", errno);
+        return -1;
+    }
+    if (res > 0) {
+        // update the transfered field of the DefaultFileRegion
+        (*env)->SetLongField(env, fileRegion, transferedFieldId, offset + res);
+    }
+    return (jlong) res;
+}
+
+/* Datagram operations */
+
+static jint sendToInternal(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit,
+                           jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    ssize_t res;
+
+    if (initSockaddr(env, address, scopeId, port, &addr, &addrLen) == -1) {
+        return -1;
+    }
+
+    do {
+        res = sendto(fd, (char *) buffer + pos, (size_t) (limit - pos), 0, (struct sockaddr *) &addr, addrLen);
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionOrClosed(env, "sendto", errno);
+        return -1;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendTo0(
+        JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit,
+        jbyteArray address, jint scopeId, jint port) {
+    void *buffer = directBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        return -1;
+    }
+    return sendToInternal(env, fd, buffer, pos, limit, address, scopeId, port);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendToAddress0(
+        JNIEnv *env, jclass clazz, jint fd, jlong memoryAddress, jint pos, jint limit,
+        jbyteArray address, jint scopeId, jint port) {
+    return sendToInternal(env, fd, (void *) (intptr_t) memoryAddress, pos, limit, address, scopeId, port);
+}
+
+static jobject recvFromInternal(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen = sizeof(addr);
+    ssize_t res;
+
+    do {
+        res = recvfrom(fd, (char *) buffer + pos, (size_t) (limit - pos), 0, (struct sockaddr *) &addr, &addrLen);
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return NULL;
+        }
+        throwIOExceptionOrClosed(env, "recvfrom", errno);
+        return NULL;
+    }
+    return createAddress(env, &addr, (int) res, 1);
+}
+
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFrom(
+        JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void *buffer = directBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        return NULL;
+    }
+    return recvFromInternal(env, fd, buffer, pos, limit);
+}
+
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFromAddress(
+        JNIEnv *env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return recvFromInternal(env, fd, (void *) (intptr_t) address, pos, limit);
+}
+
+/* Socket operations */
+
+static jint socketFd(JNIEnv *env, int type) {
+    int fd = socket(socketType, type | SOCK_NONBLOCK | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        throwChannelException(env, "socket", errno);
+        return -1;
+    }
+    if (socketType == AF_INET6) {
+        // Allow to use IPv4 addresses as well.
+        int v6only = 0;
+        if (setsockopt(fd, IPPROTO_IPV6, IPV6_V6ONLY, &v6only, sizeof(v6only)) < 0) {
+            int err = errno;
+            close(fd);
+            throwChannelException(env, "setsockopt", err);
+            return -1;
+        }
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_socketStreamFd(JNIEnv *env, jclass clazz) {
+    return socketFd(env, SOCK_STREAM);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_socketDgramFd(JNIEnv *env, jclass clazz) {
+    return socketFd(env, SOCK_DGRAM);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_bind0(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    if (initSockaddr(env, address, scopeId, port, &addr, &addrLen) == -1) {
+        return;
+    }
+
+    if (bind(fd, (struct sockaddr *) &addr, addrLen) < 0) {
+        throwIOExceptionOrClosed(env, "bind", errno);
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_listen(JNIEnv *env, jclass clazz, jint fd, jint backlog) {
+    if (listen(fd, backlog) < 0) {
+        throwIOExceptionOrClosed(env, "listen", errno);
+    }
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_connect0(
+        JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    socklen_t addrLen;
+    int res;
+
+    if (initSockaddr(env, address, scopeId, port, &addr, &addrLen) == -1) {
+        return JNI_FALSE;
+    }
+
+    do {
+        res = connect(fd, (struct sockaddr *) &addr, addrLen);
+    } while (res == -1 && errno == EINTR);
+
+    if (res < 0) {
+        if (errno == EINPROGRESS) {
+            // connect not complete yet, need to wait for EPOLLOUT
+            return JNI_FALSE;
+        }
+        throwErrno(env, connectExceptionClass, "connect", errno);
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_channel_epoll_Native_finishConnect(JNIEnv *env, jclass clazz, jint fd) {
+    int error = 0;
+    socklen_t len = sizeof(error);
+    if (getsockopt(fd, SOL_SOCKET, SO_ERROR, &error, &len) < 0) {
+        throwIOExceptionOrClosed(env, "getsockopt", errno);
+        return JNI_FALSE;
+    }
+    if (error == EINPROGRESS) {
+        return JNI_FALSE;
+    }
+    if (error != 0) {
+        throwErrno(env, connectExceptionClass, "connect", error);
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_disconnect(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr addr;
+    memset(&addr, 0, sizeof(addr));
+    addr.sa_family = AF_UNSPEC;
+    if (connect(fd, &addr, sizeof(addr)) < 0 && errno != EAFNOSUPPORT) {
+        throwIOExceptionOrClosed(env, "connect", errno);
+    }
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_accept(JNIEnv *env, jclass clazz, jint fd) {
+    jint socketFd;
+    do {
+        socketFd = accept4(fd, NULL, NULL, SOCK_NONBLOCK | SOCK_CLOEXEC);
+    } while (socketFd == -1 && errno == EINTR);
+
+    if (socketFd < 0) {
+        if (errno == EAGAIN || errno == EWOULDBLOCK) {
+            return -1;
+        }
+        throwIOExceptionOrClosed(env, "accept", errno);
+        return -1;
+    }
+    return socketFd;
+}
+
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_remoteAddress(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getpeername(fd, (struct sockaddr *) &addr, &len) < 0) {
+        return NULL;
+    }
+    return createAddress(env, &addr, 0, 0);
+}
+
+JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_localAddress(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getsockname(fd, (struct sockaddr *) &addr, &len) < 0) {
+        return NULL;
+    }
+    return createAddress(env, &addr, 0, 0);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_shutdown(
+        JNIEnv *env, jclass clazz, jint fd, jboolean read, jboolean write) {
+    int mode;
+    if (read && write) {
+        mode = SHUT_RDWR;
+    } else if (read) {
+        mode = SHUT_RD;
+    } else if (write) {
+        mode = SHUT_WR;
+    } else {
+        return;
+    }
+    if (shutdown(fd, mode) < 0) {
+        throwIOExceptionOrClosed(env, "shutdown", errno);
+    }
+}
+
+/* Socket option operations */
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isReuseAddress(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, SOL_SOCKET, SO_REUSEADDR);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isReusePort(JNIEnv *env, jclass clazz, jint fd) {
+#ifdef SO_REUSEPORT
+    return getIntOption(env, fd, SOL_SOCKET, SO_REUSEPORT);
+#else
+    return 0;
+#endif
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isKeepAlive(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, SOL_SOCKET, SO_KEEPALIVE);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isTcpNoDelay(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, IPPROTO_TCP, TCP_NODELAY);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isTcpCork(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, IPPROTO_TCP, TCP_CORK);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isBroadcast(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, SOL_SOCKET, SO_BROADCAST);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getReceiveBufferSize(
+        JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, SOL_SOCKET, SO_RCVBUF);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getSendBufferSize(JNIEnv *env, jclass clazz, jint fd) {
+    return getIntOption(env, fd, SOL_SOCKET, SO_SNDBUF);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getSoLinger(JNIEnv *env, jclass clazz, jint fd) {
+    struct linger solinger;
+    if (getOption(env, fd, SOL_SOCKET, SO_LINGER, &solinger, sizeof(solinger)) == -1) {
+        return -1;
+    }
+    if (solinger.l_onoff == 0) {
+        return -1;
+    }
+    return solinger.l_linger;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getTrafficClass(JNIEnv *env, jclass clazz, jint fd) {
+    if (socketType == AF_INET6) {
+        return getIntOption(env, fd, IPPROTO_IPV6, IPV6_TCLASS);
+    }
+    return getIntOption(env, fd, IPPROTO_IP, IP_TOS);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setReuseAddress(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, SOL_SOCKET, SO_REUSEADDR, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setReusePort(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+#ifdef SO_REUSEPORT
+    setIntOption(env, fd, SOL_SOCKET, SO_REUSEPORT, optval);
+#else
+    throwChannelException(env, "setsockopt", ENOPROTOOPT);
+#endif
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setKeepAlive(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, SOL_SOCKET, SO_KEEPALIVE, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpNoDelay(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, IPPROTO_TCP, TCP_NODELAY, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpCork(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, IPPROTO_TCP, TCP_CORK, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setBroadcast(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, SOL_SOCKET, SO_BROADCAST, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setReceiveBufferSize(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, SOL_SOCKET, SO_RCVBUF, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSendBufferSize(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setIntOption(env, fd, SOL_SOCKET, SO_SNDBUF, optval);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setSoLinger(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    struct linger solinger;
+    if (optval < 0) {
+        solinger.l_onoff = 0;
+        solinger.l_linger = 0;
+    } else {
+        solinger.l_onoff = 1;
+        solinger.l_linger = optval;
+    }
+    setOption(env, fd, SOL_SOCKET, SO_LINGER, &solinger, sizeof(solinger));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTrafficClass(
+        JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    if (socketType == AF_INET6) {
+        setIntOption(env, fd, IPPROTO_IPV6, IPV6_TCLASS, optval);
+    } else {
+        setIntOption(env, fd, IPPROTO_IP, IP_TOS, optval);
+    }
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_iovMax(JNIEnv *env, jclass clazz) {
+    return IOV_MAX;
+}
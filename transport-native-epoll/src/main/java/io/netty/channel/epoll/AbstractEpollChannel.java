@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.EventLoop;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.UnresolvedAddressException;
+
+/**
+ * Abstract base class for {@link Channel} implementations which use edge-triggered epoll.
+ */
+abstract class AbstractEpollChannel extends AbstractChannel {
+    private static final ChannelMetadata DATA = new ChannelMetadata(false);
+    private final int readFlag;
+    final int fd;
+    int flags;
+    volatile boolean active;
+    private volatile boolean open = true;
+
+    AbstractEpollChannel(int fd, int flag) {
+        this(null, fd, flag, false);
+    }
+
+    AbstractEpollChannel(Channel parent, int fd, int flag, boolean active) {
+        super(parent);
+        this.fd = fd;
+        readFlag = flag;
+        this.active = active;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return DATA;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (!open) {
+            return;
+        }
+        active = false;
+        open = false;
+        Native.close(fd);
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof EpollEventLoop;
+    }
+
+    @Override
+    protected boolean isFlushPending() {
+        return (flags & Native.EPOLLOUT) != 0;
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        setFlag(readFlag);
+    }
+
+    @Override
+    protected Runnable doRegister() throws Exception {
+        ((EpollEventLoop) eventLoop()).add(this);
+        return null;
+    }
+
+    @Override
+    protected Runnable doDeregister() throws Exception {
+        ((EpollEventLoop) eventLoop()).remove(this);
+        return null;
+    }
+
+    /**
+     * Adds the given {@code EPOLL*} flag to the interest set of this {@link Channel}.
+     */
+    protected final void setFlag(int flag) {
+        if ((flags & flag) == 0) {
+            flags |= flag;
+            modifyEvents();
+        }
+    }
+
+    /**
+     * Removes the given {@code EPOLL*} flag from the interest set of this {@link Channel}.
+     */
+    protected final void clearFlag(int flag) {
+        if ((flags & flag) != 0) {
+            flags &= ~flag;
+            modifyEvents();
+        }
+    }
+
+    protected final boolean isFlagSet(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void modifyEvents() {
+        if (isOpen() && isRegistered()) {
+            // As the registration is edge-triggered, re-arming it makes the kernel report the current readiness
+            // again, so no event is lost while a flag was cleared.
+            ((EpollEventLoop) eventLoop()).modify(this);
+        }
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    @Override
+    protected abstract AbstractEpollUnsafe newUnsafe();
+
+    protected abstract class AbstractEpollUnsafe extends AbstractUnsafe {
+
+        private final Runnable epollInReadyRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (isOpen() && isFlagSet(readFlag)) {
+                    epollInReady();
+                }
+            }
+        };
+
+        /**
+         * Called once EPOLLIN event is ready to be processed
+         */
+        abstract void epollInReady();
+
+        /**
+         * Called once EPOLLOUT event is ready to be processed
+         */
+        void epollOutReady() {
+            // The outbound buffer is flushed right below, so stop listening for EPOLLOUT.  doWrite() sets it
+            // again if it could not write everything.
+            clearFlag(Native.EPOLLOUT);
+            flushNow();
+        }
+
+        /**
+         * Schedules another {@link #epollInReady()} because the last one stopped before it drained the socket.
+         * As epoll is used in edge-triggered mode, no further EPOLLIN event would be reported for the data left.
+         */
+        protected final void epollInReadyLater() {
+            eventLoop().execute(epollInReadyRunnable);
+        }
+
+        /**
+         * Stops listening for EPOLLIN if auto-read is disabled; it is set again once {@link Channel#read()} is
+         * called.
+         */
+        protected final void clearEpollInIfNotAutoRead() {
+            if (!config().isAutoRead()) {
+                clearFlag(readFlag);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelOption;
+
+/**
+ * Options for the native epoll transport
+ */
+public final class EpollChannelOption<T> extends ChannelOption<T> {
+
+    /**
+     * See {@code TCP_CORK} in {@code tcp(7)}.
+     */
+    public static final EpollChannelOption<Boolean> TCP_CORK = new EpollChannelOption<Boolean>("TCP_CORK");
+
+    /**
+     * See {@code SO_REUSEPORT} in {@code socket(7)}.  Requires Linux 3.9 or later.
+     */
+    public static final EpollChannelOption<Boolean> SO_REUSEPORT = new EpollChannelOption<Boolean>("SO_REUSEPORT");
+
+    private EpollChannelOption(String name) {
+        super(name);
+    }
+}
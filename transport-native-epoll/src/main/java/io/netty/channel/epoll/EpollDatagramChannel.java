@@ -0,0 +1,450 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.MessageList;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DatagramChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
+ * maximal performance.
+ *
+ * Multicast is not supported yet; all {@code joinGroup}, {@code leaveGroup} and {@code block} operations fail with
+ * an {@link UnsupportedOperationException}.
+ */
+public final class EpollDatagramChannel extends AbstractEpollChannel implements DatagramChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+    private volatile boolean connected;
+    private final EpollDatagramChannelConfig config;
+
+    public EpollDatagramChannel() {
+        super(Native.socketDgramFd(), Native.EPOLLIN);
+        config = new EpollDatagramChannelConfig(this);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isOpen() && (active || connected);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress source, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source,
+            ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        return multicastNotSupported(promise);
+    }
+
+    private static ChannelFuture multicastNotSupported(ChannelPromise promise) {
+        promise.setFailure(new UnsupportedOperationException("multicast not supported"));
+        return promise;
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected InetSocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        checkResolvable(addr);
+        Native.bind(fd, addr.getAddress(), addr.getPort());
+        local = Native.localAddress(fd);
+        active = true;
+    }
+
+    @Override
+    protected int doWrite(MessageList<Object> msgs, int index) throws Exception {
+        final int size = msgs.size();
+        final Object[] messages = msgs.array();
+        int writeIndex = index;
+        while (writeIndex < size) {
+            if (!doWriteMessage(messages, writeIndex)) {
+                // The socket buffer is full; wait until it becomes writable again.
+                setFlag(Native.EPOLLOUT);
+                break;
+            }
+            writeIndex ++;
+        }
+        return writeIndex - index;
+    }
+
+    private boolean doWriteMessage(Object[] messages, int index) throws IOException {
+        final Object msg = messages[index];
+        final ByteBuf data;
+        final InetSocketAddress remoteAddress;
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, InetSocketAddress> envelope = (AddressedEnvelope<Object, InetSocketAddress>) msg;
+            data = content(envelope.content());
+            remoteAddress = envelope.recipient();
+        } else {
+            data = content(msg);
+            remoteAddress = null;
+        }
+
+        final int dataLen = data.readableBytes();
+        if (dataLen == 0) {
+            ReferenceCountUtil.release(msg);
+            return true;
+        }
+
+        boolean copied = false;
+        ByteBuf buf = data;
+        if (!buf.hasMemoryAddress() && (!buf.isDirect() || buf.nioBufferCount() != 1)) {
+            // A datagram must be sent with a single system call, so merge it into one direct buffer.
+            buf = alloc().directBuffer(dataLen).writeBytes(data, data.readerIndex(), dataLen);
+            copied = true;
+        }
+
+        try {
+            final int writtenBytes;
+            if (buf.hasMemoryAddress()) {
+                long memoryAddress = buf.memoryAddress();
+                if (remoteAddress == null) {
+                    writtenBytes = Native.writeAddress(fd, memoryAddress, buf.readerIndex(), buf.writerIndex());
+                } else {
+                    writtenBytes = Native.sendToAddress(fd, memoryAddress, buf.readerIndex(), buf.writerIndex(),
+                            remoteAddress.getAddress(), remoteAddress.getPort());
+                }
+            } else {
+                ByteBuffer nioData = buf.internalNioBuffer(buf.readerIndex(), dataLen);
+                if (remoteAddress == null) {
+                    writtenBytes = Native.write(fd, nioData, nioData.position(), nioData.limit());
+                } else {
+                    writtenBytes = Native.sendTo(fd, nioData, nioData.position(), nioData.limit(),
+                            remoteAddress.getAddress(), remoteAddress.getPort());
+                }
+            }
+            if (writtenBytes <= 0) {
+                return false;
+            }
+        } finally {
+            if (copied) {
+                buf.release();
+            }
+        }
+
+        // Wrote a packet - free the message.
+        ReferenceCountUtil.release(msg);
+        return true;
+    }
+
+    private static ByteBuf content(Object msg) {
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content();
+        }
+        if (msg instanceof ByteBuf) {
+            return (ByteBuf) msg;
+        }
+        throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
+    }
+
+    @Override
+    public EpollDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        connected = false;
+        remote = null;
+        Native.disconnect(fd);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        super.doClose();
+        connected = false;
+    }
+
+    final class EpollDatagramChannelUnsafe extends AbstractEpollUnsafe {
+        private RecvByteBufAllocator.Handle allocHandle;
+
+        @Override
+        public void connect(SocketAddress remote, SocketAddress local, ChannelPromise promise) {
+            if (!ensureOpen(promise)) {
+                return;
+            }
+
+            boolean success = false;
+            try {
+                try {
+                    boolean wasActive = isActive();
+                    InetSocketAddress remoteAddress = (InetSocketAddress) remote;
+                    if (local != null) {
+                        doBind(local);
+                    }
+                    checkResolvable(remoteAddress);
+
+                    // Connecting a datagram socket never blocks, it only sets the default destination.
+                    Native.connect(fd, remoteAddress.getAddress(), remoteAddress.getPort());
+                    EpollDatagramChannel.this.remote = remoteAddress;
+                    EpollDatagramChannel.this.local = Native.localAddress(fd);
+                    connected = true;
+                    success = true;
+                    promise.setSuccess();
+                    if (!wasActive && isActive()) {
+                        pipeline().fireChannelActive();
+                    }
+                } finally {
+                    if (!success) {
+                        doClose();
+                    }
+                }
+            } catch (Throwable cause) {
+                closeIfClosed();
+                promise.setFailure(cause);
+            }
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            clearEpollInIfNotAutoRead();
+
+            final EpollDatagramChannelConfig config = config();
+            final ChannelPipeline pipeline = pipeline();
+
+            RecvByteBufAllocator.Handle allocHandle = this.allocHandle;
+            if (allocHandle == null) {
+                this.allocHandle = allocHandle = config.getRecvByteBufAllocator().newHandle();
+            }
+
+            final ByteBufAllocator allocator = config.getAllocator();
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
+            final MessageList<Object> messages = MessageList.newInstance();
+
+            Throwable exception = null;
+            ByteBuf data = null;
+            try {
+                for (;;) {
+                    data = allocHandle.allocate(allocator);
+                    if (!data.isDirect()) {
+                        // The native read needs memory which is not moved around by the garbage collector.
+                        int capacity = data.capacity();
+                        data.release();
+                        data = allocator.directBuffer(capacity);
+                    }
+
+                    int writerIndex = data.writerIndex();
+                    DatagramSocketAddress remoteAddress;
+                    if (data.hasMemoryAddress()) {
+                        remoteAddress = Native.recvFromAddress(
+                                fd, data.memoryAddress(), writerIndex, data.capacity());
+                    } else {
+                        ByteBuffer nioData = data.internalNioBuffer(writerIndex, data.writableBytes());
+                        remoteAddress = Native.recvFrom(fd, nioData, nioData.position(), nioData.limit());
+                    }
+
+                    if (remoteAddress == null) {
+                        break;
+                    }
+
+                    int readBytes = remoteAddress.receivedAmount;
+                    data.writerIndex(writerIndex + readBytes);
+                    allocHandle.record(readBytes);
+
+                    messages.add(new DatagramPacket(data, EpollDatagramChannel.this.localAddress(), remoteAddress));
+                    data = null;
+
+                    if (messages.size() == maxMessagesPerRead) {
+                        // There may be more datagrams, but no new EPOLLIN will be reported for them.
+                        if (config.isAutoRead()) {
+                            epollInReadyLater();
+                        }
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                exception = t;
+            } finally {
+                if (data != null) {
+                    data.release();
+                }
+            }
+
+            pipeline.fireMessageReceived(messages);
+
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+            pipeline.fireChannelReadSuspended();
+        }
+    }
+
+    /**
+     * Act as special {@link InetSocketAddress} to be able to easily pass all needed data from JNI without the need
+     * to create more objects then needed.
+     */
+    static final class DatagramSocketAddress extends InetSocketAddress {
+
+        private static final long serialVersionUID = 1348596211215015739L;
+
+        // holds the amount of received bytes
+        final int receivedAmount;
+
+        /**
+         * Called from the native code.
+         */
+        DatagramSocketAddress(byte[] addr, int scopeId, int port, int receivedAmount) {
+            super(Native.address(addr, scopeId), port);
+            this.receivedAmount = receivedAmount;
+        }
+    }
+}
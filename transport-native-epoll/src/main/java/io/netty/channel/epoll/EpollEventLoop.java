@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link EventLoop} which uses edge-triggered epoll under the covers. Only works on Linux!
+ */
+final class EpollEventLoop extends SingleThreadEventLoop {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollEventLoop.class);
+
+    private final int epollFd;
+    private final int eventFd;
+
+    /**
+     * The registered channels, indexed by their file descriptor.  File descriptors are small and dense on Linux,
+     * which allows to look up the channel of a ready event without any hashing or boxing.
+     */
+    private AbstractEpollChannel[] channels = new AbstractEpollChannel[64];
+    private long[] events;
+
+    /**
+     * Boolean that controls determines if a blocked epoll_wait should break out of its waiting. As we use a timeout
+     * for epoll_wait it will block for that time unless waken up via the eventfd.
+     */
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+    private volatile int ioRatio = 50;
+
+    EpollEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, int maxEvents) {
+        super(parent, threadFactory, false);
+        events = new long[maxEvents];
+        boolean success = false;
+        int epollFd = -1;
+        int eventFd = -1;
+        try {
+            this.epollFd = epollFd = Native.epollCreate();
+            this.eventFd = eventFd = Native.eventFd();
+            Native.epollCtlAdd(epollFd, eventFd, Native.EPOLLIN);
+            success = true;
+        } finally {
+            if (!success) {
+                if (epollFd != -1) {
+                    try {
+                        Native.close(epollFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+                if (eventFd != -1) {
+                    try {
+                        Native.close(eventFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && wakenUp.compareAndSet(false, true)) {
+            // write to the evfd which will then wake-up epoll_wait(...)
+            Native.eventFdWrite(eventFd, 1L);
+        }
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop}.
+     */
+    void add(AbstractEpollChannel ch) {
+        assert inEventLoop();
+        int fd = ch.fd;
+        if (fd >= channels.length) {
+            channels = Arrays.copyOf(channels, Math.max(fd + 1, channels.length << 1));
+        }
+        Native.epollCtlAdd(epollFd, fd, ch.flags);
+        channels[fd] = ch;
+    }
+
+    /**
+     * The flags of the given epoll was modified so update the registration
+     */
+    void modify(AbstractEpollChannel ch) {
+        assert inEventLoop();
+        Native.epollCtlMod(epollFd, ch.fd, ch.flags);
+    }
+
+    /**
+     * Deregister the given channel from this {@link EventLoop}.
+     */
+    void remove(AbstractEpollChannel ch) {
+        assert inEventLoop();
+        int fd = ch.fd;
+        if (fd < channels.length && channels[fd] == ch) {
+            channels[fd] = null;
+        }
+        if (ch.isOpen()) {
+            // Remove the fd explicitly as it is only removed automatically by the kernel once it is closed.
+            Native.epollCtlDel(epollFd, fd);
+        }
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio > 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio <= 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    private int epollWait(boolean oldWakenUp) {
+        int selectCnt = 0;
+        long currentTimeNanos = System.nanoTime();
+        long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
+        for (;;) {
+            long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
+            if (timeoutMillis <= 0) {
+                if (selectCnt == 0) {
+                    int ready = Native.epollWait(epollFd, events, 0);
+                    if (ready > 0) {
+                        return ready;
+                    }
+                }
+                break;
+            }
+
+            int selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
+            selectCnt ++;
+
+            if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks()) {
+                // Selected something,
+                // waken up by user, or
+                // the task queue has a pending task.
+                return selectedKeys;
+            }
+            currentTimeNanos = System.nanoTime();
+        }
+        return 0;
+    }
+
+    @Override
+    protected void run() {
+        for (;;) {
+            boolean oldWakenUp = wakenUp.getAndSet(false);
+            try {
+                int ready;
+                if (hasTasks()) {
+                    // Non blocking just return what is ready directly without block
+                    ready = Native.epollWait(epollFd, events, 0);
+                } else {
+                    ready = epollWait(oldWakenUp);
+
+                    // 'wakenUp.compareAndSet(false, true)' is always evaluated
+                    // before calling 'Native.eventFdWrite(...)' to reduce the wake-up overhead.
+                    //
+                    // If 'wakenUp' was set to true between 'wakenUp.getAndSet(false)' and 'epollWait(...)',
+                    // the write to the eventfd may have been consumed already by this epollWait(...) and any
+                    // further wake-up attempt fails until 'wakenUp' is reset in the next round.  Write to the
+                    // eventfd again so that the next epollWait(...) does not block unnecessarily.
+                    // See NioEventLoop.run() for the detailed explanation of the same race.
+                    if (wakenUp.get()) {
+                        Native.eventFdWrite(eventFd, 1L);
+                    }
+                }
+
+                final long ioStartTime = System.nanoTime();
+                if (ready > 0) {
+                    processReady(events, ready);
+                }
+                final long ioTime = System.nanoTime() - ioStartTime;
+
+                final int ioRatio = this.ioRatio;
+                runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+
+                if (ready == events.length) {
+                    // There may be more events ready than fit into the array; double it so we can pick them up
+                    // all at once next time.
+                    events = new long[events.length << 1];
+                }
+
+                if (isShuttingDown()) {
+                    closeAll();
+                    if (confirmShutdown()) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception in the selector loop.", t);
+
+                // Prevent possible consecutive immediate failures that lead to
+                // excessive CPU consumption.
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void closeAll() {
+        List<AbstractEpollChannel> array = new ArrayList<AbstractEpollChannel>();
+        for (AbstractEpollChannel ch: channels) {
+            if (ch != null) {
+                array.add(ch);
+            }
+        }
+
+        for (AbstractEpollChannel ch: array) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    private void processReady(long[] events, int ready) {
+        AbstractEpollChannel[] channels = this.channels;
+        for (int i = 0; i < ready; i ++) {
+            final long ev = events[i];
+
+            int fd = (int) (ev >> 32L);
+            if (fd == eventFd) {
+                // consume wakeup event
+                Native.eventFdRead(eventFd);
+                continue;
+            }
+
+            if (fd >= channels.length) {
+                continue;
+            }
+            AbstractEpollChannel ch = channels[fd];
+            if (ch == null) {
+                // closed and deregistered in the meantime
+                continue;
+            }
+
+            AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
+            int readyFlags = (int) ev & ch.flags;
+
+            // First check if EPOLLOUT was set, this will notify us if the connection is completed or
+            // we can write again.
+            if ((readyFlags & Native.EPOLLOUT) != 0 && ch.isOpen()) {
+                unsafe.epollOutReady();
+            }
+
+            // EPOLLRDHUP is reported together with EPOLLIN if the remote peer shut down its output, in which case
+            // the read will hit the end of the stream.
+            if ((readyFlags & Native.EPOLLIN) != 0 && ch.isOpen()) {
+                unsafe.epollInReady();
+            }
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            Native.close(epollFd);
+        } catch (IOException e) {
+            logger.warn("Failed to close the epoll fd.", e);
+        }
+        try {
+            Native.close(eventFd);
+        } catch (IOException e) {
+            logger.warn("Failed to close the event fd.", e);
+        }
+    }
+}
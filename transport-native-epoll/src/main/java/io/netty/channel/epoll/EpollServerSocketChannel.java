@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.MessageList;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * {@link ServerSocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
+ * maximal performance.
+ */
+public final class EpollServerSocketChannel extends AbstractEpollChannel implements ServerSocketChannel {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollServerSocketChannel.class);
+
+    private final EpollServerSocketChannelConfig config;
+    private volatile InetSocketAddress local;
+
+    public EpollServerSocketChannel() {
+        super(Native.socketStreamFd(), Native.EPOLLIN);
+        config = new EpollServerSocketChannelConfig(this);
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        checkResolvable(addr);
+        Native.bind(fd, addr.getAddress(), addr.getPort());
+        local = Native.localAddress(fd);
+        Native.listen(fd, config.getBacklog());
+        active = true;
+    }
+
+    @Override
+    public EpollServerSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return null;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollServerSocketUnsafe();
+    }
+
+    @Override
+    protected int doWrite(MessageList<Object> msgs, int index) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    final class EpollServerSocketUnsafe extends AbstractEpollUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise promise) {
+            // Connect not supported by ServerChannel implementations
+            promise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            clearEpollInIfNotAutoRead();
+
+            final ChannelPipeline pipeline = pipeline();
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
+            final MessageList<Object> msgs = MessageList.newInstance();
+            Throwable exception = null;
+            try {
+                for (;;) {
+                    int socketFd = Native.accept(fd);
+                    if (socketFd == -1) {
+                        // this means everything was handled
+                        break;
+                    }
+                    try {
+                        msgs.add(new EpollSocketChannel(EpollServerSocketChannel.this, socketFd));
+                    } catch (Throwable t) {
+                        logger.warn("Failed to create a new channel from an accepted socket.", t);
+
+                        try {
+                            Native.close(socketFd);
+                        } catch (Throwable t2) {
+                            logger.warn("Failed to close a socket.", t2);
+                        }
+                    }
+
+                    if (msgs.size() == maxMessagesPerRead) {
+                        // There may be more pending connections, but no new EPOLLIN will be reported for them.
+                        if (config.isAutoRead()) {
+                            epollInReadyLater();
+                        }
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                exception = t;
+            }
+
+            pipeline.fireMessageReceived(msgs);
+
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+            pipeline.fireChannelReadSuspended();
+        }
+    }
+}
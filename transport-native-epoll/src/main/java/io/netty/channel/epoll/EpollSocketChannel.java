@@ -0,0 +1,574 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoop;
+import io.netty.channel.MessageList;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
+ * maximal performance.
+ */
+public final class EpollSocketChannel extends AbstractEpollChannel implements SocketChannel {
+
+    private final EpollSocketChannelConfig config;
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+    private volatile boolean inputShutdown;
+    private volatile boolean outputShutdown;
+
+    EpollSocketChannel(Channel parent, int fd) {
+        super(parent, fd, Native.EPOLLIN, true);
+        config = new EpollSocketChannelConfig(this);
+        // Cache the addresses of the accepted socket so they are still available after it was closed.
+        remote = Native.remoteAddress(fd);
+        local = Native.localAddress(fd);
+    }
+
+    public EpollSocketChannel() {
+        super(Native.socketStreamFd(), Native.EPOLLIN);
+        config = new EpollSocketChannelConfig(this);
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollSocketUnsafe();
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        InetSocketAddress localAddress = (InetSocketAddress) local;
+        checkResolvable(localAddress);
+        Native.bind(fd, localAddress.getAddress(), localAddress.getPort());
+        this.local = Native.localAddress(fd);
+    }
+
+    /**
+     * Write the pending {@link ByteBuf}s of the given {@link ChannelOutboundBuffer}, gathering as many of them as
+     * allowed by the {@link EpollSocketChannelConfig} into a single {@code writev(2)} call per spin.
+     *
+     * @return done         {@code true} if all gathered {@link ByteBuf}s were written completely
+     */
+    private boolean writeBytesMultiple(ChannelOutboundBuffer in) throws IOException {
+        ByteBuffer[] nioBuffers = in.nioBuffers(
+                Math.min(config.getMaxBuffersPerGatheringWrite(), Native.IOV_MAX),
+                config.getMaxBytesPerGatheringWrite());
+        final int nioBufferCnt = in.nioBufferCount();
+        long expectedWrittenBytes = in.nioBufferSize();
+
+        long writtenBytes = 0;
+        boolean done = expectedWrittenBytes == 0;
+        int offset = 0;
+        for (int i = config.getWriteSpinCount() - 1; !done && i >= 0; i --) {
+            final long localWrittenBytes;
+            if (nioBufferCnt - offset == 1) {
+                ByteBuffer nioBuf = nioBuffers[offset];
+                localWrittenBytes = Native.write(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+            } else {
+                localWrittenBytes = Native.writev(fd, nioBuffers, offset, nioBufferCnt - offset);
+            }
+            if (localWrittenBytes == 0) {
+                break;
+            }
+            expectedWrittenBytes -= localWrittenBytes;
+            writtenBytes += localWrittenBytes;
+            if (expectedWrittenBytes == 0) {
+                done = true;
+                break;
+            }
+
+            // Skip the buffers which were written completely and adjust the position of the partially written one,
+            // so the next write continues where this one stopped.
+            long remaining = localWrittenBytes;
+            while (offset < nioBufferCnt) {
+                ByteBuffer nioBuf = nioBuffers[offset];
+                int bytes = nioBuf.remaining();
+                if (bytes > remaining) {
+                    nioBuf.position(nioBuf.position() + (int) remaining);
+                    break;
+                }
+                remaining -= bytes;
+                nioBuf.position(nioBuf.limit());
+                offset ++;
+            }
+        }
+
+        // Release the fully written buffers and update the reader index of the partially written one.
+        in.removeBytes(writtenBytes);
+
+        if (!done) {
+            // Could not write everything; wait until the socket becomes writable again.
+            setFlag(Native.EPOLLOUT);
+        }
+        return done;
+    }
+
+    /**
+     * Write a {@link DefaultFileRegion}
+     *
+     * @param region        the {@link DefaultFileRegion} from which the bytes should be written
+     * @return done         {@code true} if the whole region was written
+     */
+    private boolean writeFileRegion(DefaultFileRegion region) throws Exception {
+        if (region.transfered() >= region.count()) {
+            return true;
+        }
+
+        for (int i = config.getWriteSpinCount() - 1; i >= 0; i --) {
+            final long offset = region.transfered();
+            final long localFlushedAmount =
+                    Native.sendfile(fd, region, region.position(), offset, region.count() - offset);
+            if (localFlushedAmount == 0) {
+                break;
+            }
+            if (region.transfered() >= region.count()) {
+                return true;
+            }
+        }
+
+        // Could not write everything; wait until the socket becomes writable again.
+        setFlag(Native.EPOLLOUT);
+        return false;
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                break;
+            }
+
+            boolean done;
+            if (msg instanceof ByteBuf) {
+                done = writeBytesMultiple(in);
+            } else if (msg instanceof DefaultFileRegion) {
+                done = writeFileRegion((DefaultFileRegion) msg);
+                if (done) {
+                    in.remove();
+                }
+            } else {
+                throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
+            }
+
+            if (!done) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public EpollSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return inputShutdown;
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return outputShutdown || !isActive();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            try {
+                Native.shutdown(fd, false, true);
+                outputShutdown = true;
+                promise.setSuccess();
+            } catch (Throwable t) {
+                promise.setFailure(t);
+            }
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownOutput(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ServerSocketChannel parent() {
+        return (ServerSocketChannel) super.parent();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    /**
+     * Connect to the remote peer
+     */
+    private boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            doBind(localAddress);
+        }
+
+        boolean success = false;
+        try {
+            InetSocketAddress remoteSocketAddr = (InetSocketAddress) remoteAddress;
+            checkResolvable(remoteSocketAddr);
+            boolean connected = Native.connect(fd, remoteSocketAddr.getAddress(), remoteSocketAddr.getPort());
+            remote = remoteSocketAddr;
+            if (!connected) {
+                // The connection is completed once the socket becomes writable.
+                setFlag(Native.EPOLLOUT);
+            } else {
+                onConnected();
+            }
+            success = true;
+            return connected;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    /**
+     * Finish the connect
+     */
+    private boolean doFinishConnect() throws Exception {
+        if (Native.finishConnect(fd)) {
+            clearFlag(Native.EPOLLOUT);
+            onConnected();
+            return true;
+        }
+        setFlag(Native.EPOLLOUT);
+        return false;
+    }
+
+    private void onConnected() {
+        active = true;
+        if (local == null) {
+            local = Native.localAddress(fd);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        ChannelPromise promise = connectPromise;
+        if (promise != null) {
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(new ClosedChannelException());
+            connectPromise = null;
+        }
+
+        ScheduledFuture<?> future = connectTimeoutFuture;
+        if (future != null) {
+            future.cancel(false);
+            connectTimeoutFuture = null;
+        }
+        super.doClose();
+    }
+
+    final class EpollSocketUnsafe extends AbstractEpollUnsafe {
+        private RecvByteBufAllocator.Handle allocHandle;
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new IllegalStateException("connection attempt already made");
+                }
+
+                boolean wasActive = isActive();
+                if (doConnect(remoteAddress, localAddress)) {
+                    promise.setSuccess();
+                    if (!wasActive && isActive()) {
+                        pipeline().fireChannelActive();
+                    }
+                } else {
+                    connectPromise = promise;
+                    requestedRemoteAddress = remoteAddress;
+
+                    // Schedule connect timeout.
+                    int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                    if (connectTimeoutMillis > 0) {
+                        connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                ChannelPromise connectPromise = EpollSocketChannel.this.connectPromise;
+                                ConnectTimeoutException cause =
+                                        new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                                if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                    close(voidPromise());
+                                }
+                            }
+                        }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+
+                    promise.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            if (future.isCancelled()) {
+                                if (connectTimeoutFuture != null) {
+                                    connectTimeoutFuture.cancel(false);
+                                }
+                                connectPromise = null;
+                                close(voidPromise());
+                            }
+                        }
+                    });
+                }
+            } catch (Throwable t) {
+                if (t instanceof ConnectException) {
+                    Throwable newT = new ConnectException(t.getMessage() + ": " + remoteAddress);
+                    newT.setStackTrace(t.getStackTrace());
+                    t = newT;
+                }
+                closeIfClosed();
+                promise.tryFailure(t);
+            }
+        }
+
+        private void finishConnect() {
+            // Note this method is invoked by the event loop only if the connection attempt was
+            // neither cancelled nor timed out.
+
+            assert eventLoop().inEventLoop();
+            assert connectPromise != null;
+
+            boolean connectStillInProgress = false;
+            try {
+                boolean wasActive = isActive();
+                if (!doFinishConnect()) {
+                    connectStillInProgress = true;
+                    return;
+                }
+                connectPromise.setSuccess();
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+            } catch (Throwable t) {
+                if (t instanceof ConnectException) {
+                    Throwable newT = new ConnectException(t.getMessage() + ": " + requestedRemoteAddress);
+                    newT.setStackTrace(t.getStackTrace());
+                    t = newT;
+                }
+
+                connectPromise.setFailure(t);
+                closeIfClosed();
+            } finally {
+                if (!connectStillInProgress) {
+                    // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                    // See https://github.com/netty/netty/issues/1770
+                    if (connectTimeoutFuture != null) {
+                        connectTimeoutFuture.cancel(false);
+                    }
+                    connectPromise = null;
+                }
+            }
+        }
+
+        @Override
+        void epollOutReady() {
+            if (connectPromise != null) {
+                // pending connect which is now complete so handle it.
+                finishConnect();
+                if (connectPromise == null && isActive()) {
+                    // Flush what was written while the connection attempt was in progress.
+                    flushNow();
+                }
+            } else {
+                super.epollOutReady();
+            }
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            clearEpollInIfNotAutoRead();
+
+            final EpollSocketChannelConfig config = config();
+            final ChannelPipeline pipeline = pipeline();
+
+            RecvByteBufAllocator.Handle allocHandle = this.allocHandle;
+            if (allocHandle == null) {
+                this.allocHandle = allocHandle = config.getRecvByteBufAllocator().newHandle();
+            }
+
+            final ByteBufAllocator allocator = config.getAllocator();
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
+            final MessageList<ByteBuf> messages = MessageList.newInstance();
+
+            boolean closed = false;
+            Throwable exception = null;
+            ByteBuf byteBuf = null;
+            try {
+                for (;;) {
+                    byteBuf = allocHandle.allocate(allocator);
+                    if (!byteBuf.isDirect()) {
+                        // The native read needs memory which is not moved around by the garbage collector.
+                        int capacity = byteBuf.capacity();
+                        byteBuf.release();
+                        byteBuf = allocator.directBuffer(capacity);
+                    }
+                    int localReadAmount = doReadBytes(byteBuf);
+                    if (localReadAmount == 0) {
+                        byteBuf.release();
+                        byteBuf = null;
+                        break;
+                    }
+                    if (localReadAmount < 0) {
+                        closed = true;
+                        byteBuf.release();
+                        byteBuf = null;
+                        break;
+                    }
+
+                    messages.add(byteBuf);
+                    allocHandle.record(localReadAmount);
+                    byteBuf = null;
+                    if (messages.size() == maxMessagesPerRead) {
+                        // There may be more data in the socket, but no new EPOLLIN will be reported for it.
+                        if (config.isAutoRead()) {
+                            epollInReadyLater();
+                        }
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                exception = t;
+            } finally {
+                if (byteBuf != null) {
+                    if (byteBuf.isReadable()) {
+                        messages.add(byteBuf);
+                    } else {
+                        byteBuf.release();
+                    }
+                }
+
+                pipeline.fireMessageReceived(messages);
+
+                if (exception != null) {
+                    if (exception instanceof IOException) {
+                        closed = true;
+                    }
+
+                    pipeline().fireExceptionCaught(exception);
+                }
+
+                if (closed) {
+                    inputShutdown = true;
+                    if (isOpen()) {
+                        if (Boolean.TRUE.equals(config().getOption(ChannelOption.ALLOW_HALF_CLOSURE))) {
+                            clearFlag(Native.EPOLLIN);
+                            pipeline.fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                        } else {
+                            close(voidPromise());
+                        }
+                    }
+                } else {
+                    pipeline.fireChannelReadSuspended();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read bytes into the given {@link ByteBuf} and return the amount.
+     */
+    private int doReadBytes(ByteBuf byteBuf) throws Exception {
+        int writerIndex = byteBuf.writerIndex();
+        int localReadAmount;
+        if (byteBuf.hasMemoryAddress()) {
+            localReadAmount = Native.readAddress(fd, byteBuf.memoryAddress(), writerIndex, byteBuf.capacity());
+        } else {
+            ByteBuffer buf = byteBuf.internalNioBuffer(writerIndex, byteBuf.writableBytes());
+            localReadAmount = Native.read(fd, buf, buf.position(), buf.limit());
+        }
+        if (localReadAmount > 0) {
+            byteBuf.writerIndex(writerIndex + localReadAmount);
+        }
+        return localReadAmount;
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        if (inputShutdown) {
+            return;
+        }
+        super.doBeginRead();
+    }
+}
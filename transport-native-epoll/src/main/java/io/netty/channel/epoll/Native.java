@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.DefaultFileRegion;
+import io.netty.util.internal.NativeLibraryLoader;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+/**
+ * Native helper methods
+ *
+ * <strong>Internal usage only!</strong>
+ */
+final class Native {
+
+    static {
+        if (!"linux".equals(NativeLibraryLoader.osName())) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        NativeLibraryLoader.load("netty-transport-native-epoll", Native.class.getClassLoader());
+    }
+
+    // EventLoop operations and constants
+    static final int EPOLLIN = 0x01;
+    static final int EPOLLOUT = 0x02;
+    static final int EPOLLRDHUP = 0x04;
+    static final int IOV_MAX = iovMax();
+
+    static native int eventFd();
+    static native void eventFdWrite(int fd, long value);
+    static native void eventFdRead(int fd);
+    static native int epollCreate();
+
+    /**
+     * Waits for events on the given epoll file descriptor.  Each element of {@code events} which is filled in
+     * holds the file descriptor in its upper 32 bits and the ready {@code EPOLL*} flags in its lower 32 bits.
+     *
+     * @return the number of elements of {@code events} which were filled in
+     */
+    static native int epollWait(int efd, long[] events, int timeout);
+    static native void epollCtlAdd(int efd, int fd, int flags);
+    static native void epollCtlMod(int efd, int fd, int flags);
+    static native void epollCtlDel(int efd, int fd);
+
+    // File-descriptor operations
+    static native void close(int fd) throws IOException;
+
+    static native int write(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    static native int writeAddress(int fd, long address, int pos, int limit) throws IOException;
+    static native long writev(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException;
+
+    /**
+     * Reads into the given direct {@link ByteBuffer}.
+     *
+     * @return the number of bytes read, {@code 0} if no data is available right now, or {@code -1} on end of stream
+     */
+    static native int read(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    static native int readAddress(int fd, long address, int pos, int limit) throws IOException;
+
+    /**
+     * Transfers the content of the {@link DefaultFileRegion} via {@code sendfile(2)} and updates its
+     * {@link DefaultFileRegion#transfered()} accordingly.
+     */
+    static native long sendfile(
+            int dest, DefaultFileRegion src, long baseOffset, long offset, long length) throws IOException;
+
+    static int sendTo(
+            int fd, ByteBuffer buf, int pos, int limit, InetAddress addr, int port) throws IOException {
+        return sendTo0(fd, buf, pos, limit, addr.getAddress(), scopeId(addr), port);
+    }
+
+    static int sendToAddress(
+            int fd, long memoryAddress, int pos, int limit, InetAddress addr, int port) throws IOException {
+        return sendToAddress0(fd, memoryAddress, pos, limit, addr.getAddress(), scopeId(addr), port);
+    }
+
+    private static native int sendTo0(
+            int fd, ByteBuffer buf, int pos, int limit, byte[] address, int scopeId, int port) throws IOException;
+    private static native int sendToAddress0(
+            int fd, long memoryAddress, int pos, int limit, byte[] address, int scopeId, int port)
+            throws IOException;
+
+    /**
+     * Receives a datagram into the given direct {@link ByteBuffer}.
+     *
+     * @return the sender of the datagram, or {@code null} if no datagram is available right now
+     */
+    static native EpollDatagramChannel.DatagramSocketAddress recvFrom(
+            int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    static native EpollDatagramChannel.DatagramSocketAddress recvFromAddress(
+            int fd, long memoryAddress, int pos, int limit) throws IOException;
+
+    // socket operations
+    static native int socketStreamFd();
+    static native int socketDgramFd();
+
+    static void bind(int fd, InetAddress addr, int port) throws IOException {
+        bind0(fd, addr.getAddress(), scopeId(addr), port);
+    }
+
+    private static native void bind0(int fd, byte[] address, int scopeId, int port) throws IOException;
+    static native void listen(int fd, int backlog) throws IOException;
+
+    /**
+     * Starts to connect the given socket.
+     *
+     * @return {@code true} if the connection was established immediately, {@code false} if it is in progress and
+     *         needs to be completed via {@link #finishConnect(int)} once the socket becomes writable
+     */
+    static boolean connect(int fd, InetAddress addr, int port) throws IOException {
+        return connect0(fd, addr.getAddress(), scopeId(addr), port);
+    }
+
+    private static native boolean connect0(int fd, byte[] address, int scopeId, int port) throws IOException;
+    static native boolean finishConnect(int fd) throws IOException;
+    static native void disconnect(int fd) throws IOException;
+
+    /**
+     * Accepts a new connection.
+     *
+     * @return the file descriptor of the accepted socket, or {@code -1} if there is no pending connection
+     */
+    static native int accept(int fd) throws IOException;
+    static native InetSocketAddress remoteAddress(int fd);
+    static native InetSocketAddress localAddress(int fd);
+    static native void shutdown(int fd, boolean read, boolean write) throws IOException;
+
+    // Socket option operations
+    static native int isReuseAddress(int fd);
+    static native int isReusePort(int fd);
+    static native int isKeepAlive(int fd);
+    static native int isTcpNoDelay(int fd);
+    static native int isTcpCork(int fd);
+    static native int isBroadcast(int fd);
+    static native int getReceiveBufferSize(int fd);
+    static native int getSendBufferSize(int fd);
+    static native int getSoLinger(int fd);
+    static native int getTrafficClass(int fd);
+
+    static native void setReuseAddress(int fd, int reuseAddress);
+    static native void setReusePort(int fd, int reusePort);
+    static native void setKeepAlive(int fd, int keepAlive);
+    static native void setTcpNoDelay(int fd, int tcpNoDelay);
+    static native void setTcpCork(int fd, int tcpCork);
+    static native void setBroadcast(int fd, int broadcast);
+    static native void setReceiveBufferSize(int fd, int receiveBufferSize);
+    static native void setSendBufferSize(int fd, int sendBufferSize);
+    static native void setSoLinger(int fd, int soLinger);
+    static native void setTrafficClass(int fd, int trafficClass);
+
+    private static native int iovMax();
+
+    private static int scopeId(InetAddress addr) {
+        if (addr instanceof Inet6Address) {
+            return ((Inet6Address) addr).getScopeId();
+        }
+        return 0;
+    }
+
+    /**
+     * Called from the native code to create the {@link InetAddress} of a {@code sockaddr}.
+     */
+    static InetAddress address(byte[] addr, int scopeId) {
+        try {
+            if (scopeId != 0 && addr.length == 16) {
+                return Inet6Address.getByAddress(null, addr, scopeId);
+            }
+            return InetAddress.getByAddress(addr);
+        } catch (UnknownHostException e) {
+            // Should never happen as the native code only hands out addresses of a valid length.
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    /**
+     * Called from the native code to create the {@link InetSocketAddress} of a {@code sockaddr}.
+     */
+    static InetSocketAddress address(byte[] addr, int scopeId, int port) {
+        return new InetSocketAddress(address(addr, scopeId), port);
+    }
+
+    private Native() {
+        // utility
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EpollDatagramUnicastTest {
+
+    private static final EventLoopGroup group = new EpollEventLoopGroup(1);
+
+    @AfterClass
+    public static void destroyGroup() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testSimpleSend() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        Bootstrap sb = new Bootstrap();
+        sb.group(group).channel(EpollDatagramChannel.class).handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+            @Override
+            public void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) throws Exception {
+                assertEquals(1, msg.content().readInt());
+                latch.countDown();
+            }
+        });
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollDatagramChannel.class).handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+        Channel cc = cb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+
+        InetSocketAddress addr = (InetSocketAddress) sc.localAddress();
+        cc.writeAndFlush(new DatagramPacket(Unpooled.copyInt(1), addr)).sync();
+        cc.writeAndFlush(new DatagramPacket(Unpooled.directBuffer().writeInt(1), addr)).sync();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        sc.close().sync();
+        cc.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testConnectedSend() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Bootstrap sb = new Bootstrap();
+        sb.group(group).channel(EpollDatagramChannel.class).handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+            @Override
+            public void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg) throws Exception {
+                assertEquals(1, msg.content().readInt());
+                latch.countDown();
+            }
+        });
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollDatagramChannel.class).handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+        Channel cc = cb.connect(sc.localAddress()).sync().channel();
+        assertTrue(cc.isActive());
+        assertEquals(sc.localAddress(), cc.remoteAddress());
+
+        cc.writeAndFlush(Unpooled.copyInt(1)).sync();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        sc.close().sync();
+        cc.close().sync();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MessageList;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EpollSocketEchoTest {
+
+    private static final Random random = new Random();
+    static final byte[] data = new byte[1048576];
+
+    private static final EventLoopGroup group = new EpollEventLoopGroup(2);
+
+    static {
+        random.nextBytes(data);
+    }
+
+    @AfterClass
+    public static void destroyGroup() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test(timeout = 30000)
+    public void testSimpleEcho() throws Throwable {
+        testSimpleEcho0(false, false);
+    }
+
+    @Test(timeout = 30000)
+    public void testSimpleEchoWithDirectBuffers() throws Throwable {
+        testSimpleEcho0(true, false);
+    }
+
+    @Test(timeout = 30000)
+    public void testGatheringEcho() throws Throwable {
+        testSimpleEcho0(false, true);
+    }
+
+    @Test(timeout = 30000)
+    public void testGatheringEchoWithDirectBuffers() throws Throwable {
+        testSimpleEcho0(true, true);
+    }
+
+    private static void testSimpleEcho0(boolean direct, boolean gathering) throws Throwable {
+        final EchoHandler sh = new EchoHandler();
+        final EchoHandler ch = new EchoHandler();
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class).childHandler(sh);
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollSocketChannel.class).handler(ch);
+
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+        Channel cc = cb.connect(sc.localAddress()).sync().channel();
+
+        MessageList<ByteBuf> msgs = MessageList.newInstance();
+        for (int i = 0; i < data.length;) {
+            int length = Math.min(random.nextInt(1024 * 64), data.length - i);
+            ByteBuf buf;
+            if (direct) {
+                buf = Unpooled.directBuffer(length).writeBytes(data, i, length);
+            } else {
+                buf = Unpooled.wrappedBuffer(data, i, length);
+            }
+            if (gathering) {
+                msgs.add(buf);
+            } else {
+                cc.writeAndFlush(buf);
+            }
+            i += length;
+        }
+        if (gathering) {
+            cc.writeAndFlush(msgs);
+        } else {
+            msgs.recycle();
+        }
+
+        waitForCounter(ch, sh, ch);
+        waitForCounter(sh, sh, ch);
+
+        sh.channel.close().sync();
+        ch.channel.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+        assertEquals(data.length, sh.counter);
+        assertEquals(data.length, ch.counter);
+    }
+
+    private static void waitForCounter(EchoHandler handler, EchoHandler sh, EchoHandler ch) {
+        while (handler.counter < data.length) {
+            if (sh.exception.get() != null || ch.exception.get() != null) {
+                break;
+            }
+
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+    }
+
+    private static class EchoHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            byte[] actual = new byte[in.readableBytes()];
+            in.readBytes(actual);
+
+            int lastIdx = counter;
+            for (int i = 0; i < actual.length; i ++) {
+                assertEquals(data[i + lastIdx], actual[i]);
+            }
+
+            if (channel.parent() != null) {
+                channel.writeAndFlush(Unpooled.wrappedBuffer(actual));
+            }
+
+            counter += actual.length;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
@@ -60,7 +60,7 @@ public class EchoByteHandler extends ChannelInboundHandlerAdapter {
         log.info("ECHO active {}", NioUdtProvider.socketUDT(ctx.channel())
                 .toStringOptions());
 
-        ctx.write(message);
+        ctx.writeAndFlush(message);
     }
 
     @Override
@@ -71,7 +71,7 @@ public class EchoByteHandler extends ChannelInboundHandlerAdapter {
                 meter.mark(buf.readableBytes());
             }
         }
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 
     @Override
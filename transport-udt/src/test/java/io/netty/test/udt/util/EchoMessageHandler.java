@@ -60,7 +60,7 @@ public class EchoMessageHandler extends ChannelInboundHandlerAdapter {
 
         log.info("ECHO active {}", NioUdtProvider.socketUDT(ctx.channel())
                 .toStringOptions());
-        ctx.write(message);
+        ctx.writeAndFlush(message);
     }
 
     @Override
@@ -77,6 +77,6 @@ public class EchoMessageHandler extends ChannelInboundHandlerAdapter {
                 meter.mark(udtMsg.content().readableBytes());
             }
         }
-        ctx.write(msgs);
+        ctx.writeAndFlush(msgs);
     }
 }
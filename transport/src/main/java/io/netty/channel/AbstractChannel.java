@@ -187,6 +187,22 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return pipeline.write(msgs);
     }
 
+    @Override
+    public ChannelFuture writeAndFlush(Object msg) {
+        return pipeline.writeAndFlush(msg);
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(MessageList<?> msgs) {
+        return pipeline.writeAndFlush(msgs);
+    }
+
+    @Override
+    public Channel flush() {
+        pipeline.flush();
+        return this;
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelPromise promise) {
         return pipeline.bind(localAddress, promise);
@@ -232,6 +248,16 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return pipeline.write(msgs, promise);
     }
 
+    @Override
+    public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
+        return pipeline.writeAndFlush(msg, promise);
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(MessageList<?> msgs, ChannelPromise promise) {
+        return pipeline.writeAndFlush(msgs, promise);
+    }
+
     @Override
     public ChannelPromise newPromise() {
         return new DefaultChannelPromise(this);
@@ -357,7 +383,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             @Override
             public void run() {
                 flushNowPending = false;
-                flush();
+                flush0();
             }
         };
 
@@ -591,11 +617,25 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
 
         @Override
         public void write(MessageList<?> msgs, ChannelPromise promise) {
+            if (!isOpen()) {
+                // The outbound buffer was failed on close already, so nobody would release the messages anymore.
+                for (int i = 0; i < msgs.size(); i ++) {
+                    ReferenceCountUtil.release(msgs.get(i));
+                }
+                msgs.recycle();
+                promise.setFailure(new ClosedChannelException());
+                return;
+            }
             outboundBuffer.add(msgs, promise);
-            flush();
         }
 
-        private void flush() {
+        @Override
+        public void flush() {
+            outboundBuffer.addFlush();
+            flush0();
+        }
+
+        private void flush0() {
             if (!inFlushNow) { // Avoid re-entrance
                 try {
                     // Flush immediately only when there's no pending flush.
@@ -638,58 +678,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             }
 
             try {
-                for (;;) {
-                    ChannelPromise promise = outboundBuffer.currentPromise;
-                    if (promise == null) {
-                        if (!outboundBuffer.next()) {
-                            break;
-                        }
-                        promise = outboundBuffer.currentPromise;
-                    }
-
-                    MessageList<Object> messages = outboundBuffer.currentMessages;
-                    int messageIndex = outboundBuffer.currentMessageIndex;
-                    int messageCount = messages.size();
-
-                    // Make sure the message list is not empty.
-                    if (messageCount == 0) {
-                        messages.recycle();
-                        promise.trySuccess();
-                        if (!outboundBuffer.next()) {
-                            break;
-                        } else {
-                            continue;
-                        }
-                    }
-
-                    // Make sure the promise has not been cancelled.
-                    if (promise.isCancelled()) {
-                        // If cancelled, release all unwritten messages and recycle.
-                        for (int i = messageIndex; i < messageCount; i ++) {
-                            ReferenceCountUtil.release(messages.get(i));
-                        }
-                        messages.recycle();
-                        if (!outboundBuffer.next()) {
-                            break;
-                        } else {
-                            continue;
-                        }
-                    }
-
-                    // Write the messages.
-                    int writtenMessages = doWrite(messages, messageIndex);
-                    outboundBuffer.currentMessageIndex = messageIndex += writtenMessages;
-                    if (messageIndex >= messageCount) {
-                        messages.recycle();
-                        promise.trySuccess();
-                        if (!outboundBuffer.next()) {
-                            break;
-                        }
-                    } else {
-                        // Could not flush the current write request completely. Try again later.
-                        break;
-                    }
-                }
+                doWrite(outboundBuffer);
             } catch (Throwable t) {
                 outboundBuffer.fail(t);
                 if (t instanceof IOException) {
@@ -802,13 +791,32 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
     protected abstract void doBeginRead() throws Exception;
 
     /**
-     * Flush the content of the given {@link ByteBuf} to the remote peer.
+     * Flush the content of the given {@link ChannelOutboundBuffer} to the remote peer.
+     *
+     * This implementation writes one write request after another via {@link #doWrite(MessageList, int)}.
+     * Sub-classes may override this to write the messages of several write requests at once, for example via
+     * {@link ChannelOutboundBuffer#nioBuffers(int, long)}.
+     */
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        while (in.current() != null) {
+            int writtenMessages = doWrite(in.currentMessages, in.currentMessageIndex);
+            if (!in.progress(writtenMessages)) {
+                // Could not flush the current write request completely. Try again later.
+                break;
+            }
+        }
+    }
+
+    /**
+     * Flush the content of the given {@link MessageList} to the remote peer, starting from the given index.
      *
      * Sub-classes may override this as this implementation will just thrown an {@link UnsupportedOperationException}
      *
      * @return the number of written messages
      */
-    protected abstract int doWrite(MessageList<Object> msgs, int index) throws Exception;
+    protected int doWrite(MessageList<Object> msgs, int index) throws Exception {
+        throw new UnsupportedOperationException();
+    }
 
     protected static void checkEOF(FileRegion region) throws IOException {
         if (region.transfered() < region.count()) {
@@ -147,6 +147,9 @@ public interface Channel extends AttributeMap, ChannelOutboundInvoker, ChannelPr
      */
     boolean isWritable();
 
+    @Override
+    Channel flush();
+
     /**
      * Returns an <em>internal-use-only</em> object that provides unsafe operations.
      */
@@ -229,10 +232,15 @@ public interface Channel extends AttributeMap, ChannelOutboundInvoker, ChannelPr
         void beginRead();
 
         /**
-         * Schedules a write operation.
+         * Schedules a write operation.  The messages are not written until {@link #flush()} is called.
          */
         void write(MessageList<?> msgs, ChannelPromise promise);
 
+        /**
+         * Flush out all write operations scheduled via {@link #write(MessageList, ChannelPromise)}.
+         */
+        void flush();
+
         /**
          * Flush out all data now.
          */
@@ -93,4 +93,9 @@ public class ChannelDuplexHandler extends ChannelInboundHandlerAdapter implement
     public void write(ChannelHandlerContext ctx, MessageList<Object> msgs, ChannelPromise promise) throws Exception {
         ctx.write(msgs, promise);
     }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+    }
 }
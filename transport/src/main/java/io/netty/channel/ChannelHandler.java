@@ -76,7 +76,7 @@ import java.lang.annotation.Target;
  *             <b>loggedIn = true;</b>
  *         } else (message instanceof GetDataMessage) {
  *             if (<b>loggedIn</b>) {
- *                 ch.write(fetchSecret((GetDataMessage) message));
+ *                 ch.writeAndFlush(fetchSecret((GetDataMessage) message));
  *             } else {
  *                 fail();
  *             }
@@ -131,7 +131,7 @@ import java.lang.annotation.Target;
  *             <b>attr.set(true)</b>;
  *         } else (message instanceof GetDataMessage) {
  *             if (<b>Boolean.TRUE.equals(attr.get())</b>) {
- *                 ch.write(fetchSecret((GetDataMessage) o));
+ *                 ch.writeAndFlush(fetchSecret((GetDataMessage) o));
  *             } else {
  *                 fail();
  *             }
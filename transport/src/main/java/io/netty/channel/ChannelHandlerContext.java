@@ -54,7 +54,7 @@ import java.nio.channels.Channels;
  *     }
  *
  *     public void login(String username, password) {
- *         ctx.write(new LoginMessage(username, password));
+ *         ctx.writeAndFlush(new LoginMessage(username, password));
  *     }
  *     ...
  * }
@@ -186,4 +186,7 @@ public interface ChannelHandlerContext
 
     @Override
     ChannelHandlerContext fireChannelWritabilityChanged();
+
+    @Override
+    ChannelHandlerContext flush();
 }
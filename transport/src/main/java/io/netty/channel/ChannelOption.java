@@ -50,6 +50,10 @@ public class ChannelOption<T> extends UniqueName {
             new ChannelOption<Integer>("WRITE_BUFFER_HIGH_WATER_MARK");
     public static final ChannelOption<Integer> WRITE_BUFFER_LOW_WATER_MARK =
             new ChannelOption<Integer>("WRITE_BUFFER_LOW_WATER_MARK");
+    public static final ChannelOption<Integer> MAX_BYTES_PER_GATHERING_WRITE =
+            new ChannelOption<Integer>("MAX_BYTES_PER_GATHERING_WRITE");
+    public static final ChannelOption<Integer> MAX_BUFFERS_PER_GATHERING_WRITE =
+            new ChannelOption<Integer>("MAX_BUFFERS_PER_GATHERING_WRITE");
 
     public static final ChannelOption<Boolean> ALLOW_HALF_CLOSURE =
             new ChannelOption<Boolean>("ALLOW_HALF_CLOSURE");
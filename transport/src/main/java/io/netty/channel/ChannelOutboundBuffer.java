@@ -19,18 +19,36 @@
  */
 package io.netty.channel;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
-final class ChannelOutboundBuffer {
+/**
+ * (Transport implementors only) an internal data structure used by {@link AbstractChannel} to store its pending
+ * outbound write requests.
+ * <p>
+ * A transport usually writes the messages one by one via {@link #current()} and {@link #remove()}.  A transport
+ * which supports gathering writes can also retrieve the pending {@link ByteBuf}s of all queued write requests at
+ * once via {@link #nioBuffers(int, long)}, so that many small write requests are written with a single system call.
+ */
+public final class ChannelOutboundBuffer {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
     private static final int MIN_INITIAL_CAPACITY = 8;
 
+    private static final ThreadLocal<ByteBuffer[]> NIO_BUFFERS = new ThreadLocal<ByteBuffer[]>() {
+        @Override
+        protected ByteBuffer[] initialValue() {
+            return new ByteBuffer[1024];
+        }
+    };
+
     ChannelPromise currentPromise;
     MessageList<Object> currentMessages;
     int currentMessageIndex;
@@ -41,11 +59,16 @@ final class ChannelOutboundBuffer {
 
     private int head;
     private int tail;
+    // The number of write requests, starting from head, which were flushed already.
+    private int flushed;
     private boolean inFail;
     private final AbstractChannel channel;
 
     private int pendingOutboundBytes;
 
+    private int nioBufferCount;
+    private long nioBufferSize;
+
     private static final AtomicIntegerFieldUpdater<ChannelOutboundBuffer> WRITABLE_UPDATER =
             AtomicIntegerFieldUpdater.newUpdater(ChannelOutboundBuffer.class, "writable");
 
@@ -96,6 +119,13 @@ final class ChannelOutboundBuffer {
         incrementPendingOutboundBytes(messageListSize(msgs));
     }
 
+    /**
+     * Marks all write requests added so far as flushed, so that they are written by the transport.
+     */
+    void addFlush() {
+        flushed = size();
+    }
+
     private void incrementPendingOutboundBytes(int size) {
         if (size == 0) {
             return;
@@ -156,16 +186,17 @@ final class ChannelOutboundBuffer {
     boolean next() {
         decrementPendingOutboundBytes(currentMessageListSize);
 
-        int h = head;
-
-        ChannelPromise e = promises[h]; // Element is null if deque empty
-        if (e == null) {
+        if (flushed == 0) {
+            // Nothing queued or nothing flushed yet.
             currentMessageListSize = 0;
             currentPromise = null;
             currentMessages = null;
             return false;
         }
 
+        int h = head;
+        ChannelPromise e = promises[h];
+
         currentPromise = e;
         currentMessages = messages[h];
         currentMessageIndex = 0;
@@ -175,9 +206,244 @@ final class ChannelOutboundBuffer {
         messages[h] = null;
 
         head = h + 1 & promises.length - 1;
+        flushed --;
         return true;
     }
 
+    /**
+     * Returns the message which has to be written next, or {@code null} if there is nothing to write.  Only the
+     * write requests which were flushed via {@link Channel.Unsafe#flush()} are taken into account.  Write
+     * requests which are empty are completed and cancelled ones are discarded along the way.
+     */
+    public Object current() {
+        for (;;) {
+            if (currentPromise == null && !next()) {
+                return null;
+            }
+
+            MessageList<Object> messages = currentMessages;
+            int index = currentMessageIndex;
+            int size = messages.size();
+            if (index >= size) {
+                // Nothing left to write in the current write request.
+                progress(0);
+                continue;
+            }
+
+            if (currentPromise.isCancelled()) {
+                // If cancelled, release all unwritten messages and recycle.
+                for (int i = index; i < size; i ++) {
+                    ReferenceCountUtil.release(messages.get(i));
+                }
+                messages.recycle();
+                next();
+                continue;
+            }
+
+            return messages.get(index);
+        }
+    }
+
+    /**
+     * Releases the message returned by {@link #current()} because it has been written completely, and moves on to
+     * the next message.  The promise of the current write request is notified if it was its last message.
+     *
+     * @return {@code false} if there was no message to remove
+     */
+    public boolean remove() {
+        MessageList<Object> messages = currentMessages;
+        if (currentPromise == null || currentMessageIndex >= messages.size()) {
+            return false;
+        }
+
+        ReferenceCountUtil.release(messages.get(currentMessageIndex));
+        progress(1);
+        return true;
+    }
+
+    /**
+     * Marks the specified number of messages of the current write request as written.  The transport is responsible
+     * for releasing them.
+     *
+     * @return {@code true} if and only if the current write request has been written completely
+     */
+    boolean progress(int writtenMessages) {
+        MessageList<Object> messages = currentMessages;
+        int index = currentMessageIndex += writtenMessages;
+        if (index < messages.size()) {
+            return false;
+        }
+
+        ChannelPromise promise = currentPromise;
+        messages.recycle();
+        // Move on before notifying the promise so that a listener which closes the channel does not see the
+        // completed write request anymore.
+        next();
+        promise.trySuccess();
+        return true;
+    }
+
+    /**
+     * Returns an array of direct NIO buffers which contain the readable bytes of the pending {@link ByteBuf}s,
+     * starting from the message returned by {@link #current()} and spanning as many flushed write requests as
+     * possible.  The collection stops at the first message which is not a {@link ByteBuf}, or when adding the next
+     * buffer would exceed {@code maxCount} NIO buffers or {@code maxBytes} bytes.  At least one buffer is always
+     * returned if the current message is a readable {@link ByteBuf}.
+     * <p>
+     * The number of returned NIO buffers and their total size are available via {@link #nioBufferCount()} and
+     * {@link #nioBufferSize()}.  Heap buffers are replaced by a direct copy.  Once the buffers were written,
+     * {@link #removeBytes(long)} must be called with the number of written bytes.
+     * <p>
+     * The returned array and its elements must not be modified apart from the position of the NIO buffers.
+     */
+    public ByteBuffer[] nioBuffers(int maxCount, long maxBytes) {
+        ByteBuffer[] nioBuffers = NIO_BUFFERS.get();
+        int nioBufferCount = 0;
+        long nioBufferSize = 0;
+
+        MessageList<Object> messages = currentMessages;
+        ChannelPromise promise = currentPromise;
+        int index = currentMessageIndex;
+        int i = head;
+        int remaining = flushed;
+        final int mask = promises.length - 1;
+
+        loop:
+        while (promise != null && !promise.isCancelled()) {
+            final int size = messages.size();
+            for (; index < size; index ++) {
+                Object msg = messages.get(index);
+                if (!(msg instanceof ByteBuf)) {
+                    break loop;
+                }
+
+                ByteBuf buf = (ByteBuf) msg;
+                final int readableBytes = buf.readableBytes();
+                if (readableBytes == 0) {
+                    continue;
+                }
+
+                if (nioBufferCount != 0 && (nioBufferSize + readableBytes > maxBytes ||
+                                            nioBufferCount + buf.nioBufferCount() > maxCount)) {
+                    break loop;
+                }
+
+                if (!buf.isDirect()) {
+                    ByteBuf directBuf = channel.alloc().directBuffer(readableBytes);
+                    directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+                    buf.release();
+                    messages.set(index, directBuf);
+                    buf = directBuf;
+                }
+
+                final int readerIndex = buf.readerIndex();
+                final int count = buf.nioBufferCount();
+                if (nioBufferCount + count > nioBuffers.length) {
+                    nioBuffers = expandNioBufferArray(nioBuffers, nioBufferCount + count, nioBufferCount);
+                }
+                if (count == 1) {
+                    ByteBuffer nioBuf;
+                    if (isInternalNioBufferShareable(buf)) {
+                        nioBuf = buf.internalNioBuffer(readerIndex, readableBytes);
+                    } else {
+                        nioBuf = buf.nioBuffer(readerIndex, readableBytes);
+                    }
+                    nioBuffers[nioBufferCount ++] = nioBuf;
+                } else {
+                    for (ByteBuffer nioBuf: buf.nioBuffers(readerIndex, readableBytes)) {
+                        if (nioBuf == null) {
+                            break;
+                        }
+                        nioBuffers[nioBufferCount ++] = nioBuf;
+                    }
+                }
+                nioBufferSize += readableBytes;
+            }
+
+            // Continue with the next flushed write request.
+            if (remaining == 0) {
+                break;
+            }
+            remaining --;
+            promise = promises[i];
+            messages = this.messages[i];
+            index = 0;
+            i = i + 1 & mask;
+        }
+
+        this.nioBufferCount = nioBufferCount;
+        this.nioBufferSize = nioBufferSize;
+        return nioBuffers;
+    }
+
+    /**
+     * Derived and composite buffers return the internal NIO buffer of the buffer they wrap, so two of them may
+     * return the same {@link ByteBuffer} instance.  Only buffers which own their internal NIO buffer may use it.
+     */
+    private static boolean isInternalNioBufferShareable(ByteBuf buf) {
+        return buf.unwrap() == null && !(buf instanceof CompositeByteBuf);
+    }
+
+    private static ByteBuffer[] expandNioBufferArray(ByteBuffer[] array, int neededSpace, int size) {
+        int newCapacity = array.length;
+        do {
+            // double capacity until it is big enough
+            newCapacity <<= 1;
+
+            if (newCapacity < 0) {
+                throw new IllegalStateException();
+            }
+        } while (neededSpace > newCapacity);
+
+        ByteBuffer[] newArray = new ByteBuffer[newCapacity];
+        System.arraycopy(array, 0, newArray, 0, size);
+        NIO_BUFFERS.set(newArray);
+        return newArray;
+    }
+
+    /**
+     * Returns the number of NIO buffers returned by the last {@link #nioBuffers(int, long)} call.
+     */
+    public int nioBufferCount() {
+        return nioBufferCount;
+    }
+
+    /**
+     * Returns the total number of readable bytes of the NIO buffers returned by the last
+     * {@link #nioBuffers(int, long)} call.
+     */
+    public long nioBufferSize() {
+        return nioBufferSize;
+    }
+
+    /**
+     * Removes the fully written {@link ByteBuf}s after a gathering write and updates the reader index of the
+     * partially written one.
+     */
+    public void removeBytes(long writtenBytes) {
+        for (;;) {
+            Object msg = current();
+            if (!(msg instanceof ByteBuf)) {
+                assert writtenBytes == 0;
+                break;
+            }
+
+            final ByteBuf buf = (ByteBuf) msg;
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes <= writtenBytes) {
+                writtenBytes -= readableBytes;
+                remove();
+            } else {
+                if (writtenBytes != 0) {
+                    buf.readerIndex(readerIndex + (int) writtenBytes);
+                }
+                break;
+            }
+        }
+    }
+
     private int messageListSize(MessageList<?> messages) {
         int size = 0;
         for (int i = 0; i < messages.size(); i++) {
@@ -203,6 +469,7 @@ final class ChannelOutboundBuffer {
         int tail = this.tail;
         if (head != tail) {
             this.head = this.tail = 0;
+            flushed = 0;
             final int mask = promises.length - 1;
             int i = head;
             do {
@@ -225,6 +492,8 @@ final class ChannelOutboundBuffer {
 
         try {
             inFail = true;
+            // Fail the write requests which were not flushed yet as well.
+            addFlush();
             if (currentPromise == null) {
                 if (!next()) {
                     return;
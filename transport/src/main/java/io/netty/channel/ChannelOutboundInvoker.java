@@ -102,10 +102,29 @@ interface ChannelOutboundInvoker {
     /**
      * Request to write a message via this ChannelOutboundInvoker and notify the {@link ChannelFuture}
      * once the operation completes, either because the operation was successful or because of an error.
+     * <p>
+     * This method does not request to actually flush, so be sure to call {@link #flush()}
+     * once you want to request to flush all pending data to the actual transport.
      */
     ChannelFuture write(Object msg);
     ChannelFuture write(MessageList<?> msgs);
 
+    /**
+     * Shortcut for call {@link #write(Object)} and {@link #flush()}.
+     */
+    ChannelFuture writeAndFlush(Object msg);
+    ChannelFuture writeAndFlush(MessageList<?> msgs);
+
+    /**
+     * Request to flush all pending messages via this ChannelOutboundInvoker.
+     * <p>
+     * This will result in having the
+     * {@link ChannelOutboundHandler#flush(ChannelHandlerContext)}
+     * method called of the next {@link ChannelOutboundHandler} contained in the  {@link ChannelPipeline} of the
+     * {@link Channel}.
+     */
+    ChannelOutboundInvoker flush();
+
     /**
      * Request to bind to the given {@link SocketAddress} and notify the {@link ChannelFuture} once the operation
      * completes, either because the operation was successful or because of an error.
@@ -210,7 +229,16 @@ interface ChannelOutboundInvoker {
     /**
      * Request to write a message via this ChannelOutboundInvoker and notify the {@link ChannelFuture}
      * once the operation completes, either because the operation was successful or because of an error.
+     * <p>
+     * This method does not request to actually flush, so be sure to call {@link #flush()}
+     * once you want to request to flush all pending data to the actual transport.
      */
     ChannelFuture write(Object msg, ChannelPromise promise);
     ChannelFuture write(MessageList<?> msgs, ChannelPromise promise);
+
+    /**
+     * Shortcut for call {@link #write(Object, ChannelPromise)} and {@link #flush()}.
+     */
+    ChannelFuture writeAndFlush(Object msg, ChannelPromise promise);
+    ChannelFuture writeAndFlush(MessageList<?> msgs, ChannelPromise promise);
 }
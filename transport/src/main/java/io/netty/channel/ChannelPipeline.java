@@ -622,4 +622,7 @@ public interface ChannelPipeline
 
     @Override
     ChannelPipeline fireChannelWritabilityChanged();
+
+    @Override
+    ChannelPipeline flush();
 }
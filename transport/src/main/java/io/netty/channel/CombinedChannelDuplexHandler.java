@@ -188,6 +188,11 @@ public class CombinedChannelDuplexHandler<I extends ChannelInboundHandler, O ext
         outboundHandler.write(ctx, msgs, promise);
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        outboundHandler.flush(ctx);
+    }
+
     @Override
     public void channelReadSuspended(ChannelHandlerContext ctx) throws Exception {
         inboundHandler.channelReadSuspended(ctx);
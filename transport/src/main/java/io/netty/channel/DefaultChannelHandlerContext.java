@@ -43,6 +43,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     // Lazily instantiated tasks used to trigger events to a handler with different executor.
     private Runnable invokeChannelReadSuspendedTask;
     private Runnable invokeRead0Task;
+    private Runnable invokeFlush0Task;
     private Runnable invokeChannelWritableStateChangedTask;
 
     @SuppressWarnings("unchecked")
@@ -480,6 +481,16 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         return write(msgs, newPromise());
     }
 
+    @Override
+    public ChannelFuture writeAndFlush(Object msg) {
+        return writeAndFlush(msg, newPromise());
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(MessageList<?> msgs) {
+        return writeAndFlush(msgs, newPromise());
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelPromise promise) {
         if (localAddress == null) {
@@ -722,6 +733,72 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         }
     }
 
+    @Override
+    public ChannelHandlerContext flush() {
+        findContextOutbound().invokeFlush();
+        return this;
+    }
+
+    private void invokeFlush() {
+        EventExecutor executor = executor();
+        if (executor.inEventLoop()) {
+            invokeFlush0();
+        } else {
+            Runnable task = invokeFlush0Task;
+            if (task == null) {
+                invokeFlush0Task = task = new Runnable() {
+                    @Override
+                    public void run() {
+                        invokeFlush0();
+                    }
+                };
+            }
+            executor.execute(task);
+        }
+    }
+
+    private void invokeFlush0() {
+        try {
+            ((ChannelOutboundHandler) handler()).flush(this);
+        } catch (Throwable t) {
+            notifyHandlerException(t);
+        }
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
+        if (msg == null) {
+            throw new NullPointerException("msg");
+        }
+        return writeAndFlush(MessageList.newInstance(msg), promise);
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(final MessageList<?> msgs, final ChannelPromise promise) {
+        if (msgs == null) {
+            throw new NullPointerException("msgs");
+        }
+        validatePromise(promise, true);
+
+        final DefaultChannelHandlerContext next = findContextOutbound();
+        EventExecutor executor = next.executor();
+        if (executor.inEventLoop()) {
+            next.invokeWrite0(msgs, promise);
+            next.invokeFlush0();
+        } else {
+            // Submit a single task so that the flush is not separated from the write by other tasks.
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    next.invokeWrite0(msgs, promise);
+                    next.invokeFlush0();
+                }
+            });
+        }
+
+        return promise;
+    }
+
     private static void notifyOutboundHandlerException(Throwable cause, ChannelPromise promise) {
         // only try to fail the promise if its not a VoidChannelPromise, as
         // the VoidChannelPromise would also fire the cause through the pipeline
@@ -842,6 +842,22 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         return tail.write(msgs);
     }
 
+    @Override
+    public ChannelFuture writeAndFlush(Object msg) {
+        return tail.writeAndFlush(msg);
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(MessageList<?> msgs) {
+        return tail.writeAndFlush(msgs);
+    }
+
+    @Override
+    public ChannelPipeline flush() {
+        tail.flush();
+        return this;
+    }
+
     @Override
     public ChannelFuture bind(SocketAddress localAddress, ChannelPromise promise) {
         return tail.bind(localAddress, promise);
@@ -887,6 +903,16 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         return tail.write(msgs, promise);
     }
 
+    @Override
+    public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
+        return tail.writeAndFlush(msg, promise);
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(MessageList<?> msgs, ChannelPromise promise) {
+        return tail.writeAndFlush(msgs, promise);
+    }
+
     private void checkDuplicateName(String name) {
         if (name2ctx.containsKey(name)) {
             throw new IllegalArgumentException("Duplicate handler name: " + name);
@@ -1040,6 +1066,11 @@ final class DefaultChannelPipeline implements ChannelPipeline {
             unsafe.write(msgs, promise);
         }
 
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            unsafe.flush();
+        }
+
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
             ctx.fireExceptionCaught(cause);
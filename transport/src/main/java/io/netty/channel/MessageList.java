@@ -213,12 +213,6 @@ public final class MessageList<T> implements Iterable<T> {
         elements = newArray(initialCapacity);
     }
 
-    private MessageList(Handle handle, T[] elements, int size) {
-        this.handle = handle;
-        this.elements = elements;
-        this.size = size;
-    }
-
     /**
      * Return the current size of this {@link MessageList} and so how many messages it holds.
      */
@@ -420,7 +414,7 @@ public final class MessageList<T> implements Iterable<T> {
      * Create a new copy all messages of this {@link MessageList} and return it.
      */
     public MessageList<T> copy() {
-        return new MessageList<T>(handle, elements.clone(), size);
+        return copy(0, size);
     }
 
     /**
@@ -429,10 +423,9 @@ public final class MessageList<T> implements Iterable<T> {
      */
     public MessageList<T> copy(int index, int length) {
         checkRange(index, length);
-        MessageList<T> copy = new MessageList<T>(handle, length);
-        System.arraycopy(elements, index, copy.elements, 0, length);
-        copy.size = length;
-        return copy;
+        // Obtain the copy from the recycler so that it has a recycler handle of its own.
+        MessageList<T> copy = newInstance(length);
+        return copy.add(elements, index, length);
     }
 
     /**
@@ -166,12 +166,13 @@ public class EmbeddedChannel extends AbstractChannel {
         }
         MessageList<Object> list = MessageList.newInstance(msgs.length);
         list.add(msgs);
-        ChannelFuture future = write(list);
+        ChannelFuture future = writeAndFlush(list);
+        // A flush which was triggered while flushing is performed later by the event loop.
+        runPendingTasks();
         assert future.isDone();
         if (future.cause() != null) {
             recordException(future.cause());
         }
-        runPendingTasks();
         checkException();
         return !lastOutboundBuffer.isEmpty();
     }
@@ -46,7 +46,7 @@ import java.util.Set;
  * recipients.add(channelA);
  * recipients.add(channelB);
  * ..
- * <strong>recipients.write({@link Unpooled}.copiedBuffer(
+ * <strong>recipients.writeAndFlush({@link Unpooled}.copiedBuffer(
  *         "Service will shut down for maintenance in 5 minutes.",
  *         {@link CharsetUtil}.UTF_8));</strong>
  * </pre>
@@ -122,6 +122,24 @@ public interface ChannelGroup extends Set<Channel>, Comparable<ChannelGroup> {
      */
     ChannelGroupFuture write(MessageList<Object> messages);
 
+    /**
+     * Flush all {@link Channel}s in this group.  Please note that this operation is asynchronous as
+     * {@link Channel#flush()} is.
+     *
+     * @return this group
+     */
+    ChannelGroup flush();
+
+    /**
+     * Shortcut for calling {@link #write(Object)} and {@link #flush()}.
+     */
+    ChannelGroupFuture writeAndFlush(Object message);
+
+    /**
+     * Shortcut for calling {@link #write(MessageList)} and {@link #flush()}.
+     */
+    ChannelGroupFuture writeAndFlush(MessageList<Object> messages);
+
     /**
      * Disconnects all {@link Channel}s in this group from their remote peers.
      *
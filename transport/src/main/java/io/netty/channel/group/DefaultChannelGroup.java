@@ -194,21 +194,48 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     @Override
     public ChannelGroupFuture write(Object message) {
+        return write0(message, false);
+    }
+
+    @Override
+    public ChannelGroupFuture write(MessageList<Object> messages) {
+        return write0(messages, false);
+    }
+
+    @Override
+    public ChannelGroup flush() {
+        for (Channel c: nonServerChannels) {
+            c.flush();
+        }
+        return this;
+    }
+
+    @Override
+    public ChannelGroupFuture writeAndFlush(Object message) {
+        return write0(message, true);
+    }
+
+    @Override
+    public ChannelGroupFuture writeAndFlush(MessageList<Object> messages) {
+        return write0(messages, true);
+    }
+
+    private ChannelGroupFuture write0(Object message, boolean flush) {
         if (message == null) {
             throw new NullPointerException("message");
         }
 
         Map<Channel, ChannelFuture> futures = new LinkedHashMap<Channel, ChannelFuture>(size());
         for (Channel c: nonServerChannels) {
-            futures.put(c, c.write(safeDuplicate(message)));
+            Object msg = safeDuplicate(message);
+            futures.put(c, flush ? c.writeAndFlush(msg) : c.write(msg));
         }
 
         ReferenceCountUtil.release(message);
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
-    @Override
-    public ChannelGroupFuture write(MessageList<Object> messages) {
+    private ChannelGroupFuture write0(MessageList<Object> messages, boolean flush) {
         if (messages == null) {
             throw new NullPointerException("messages");
         }
@@ -220,7 +247,7 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
             for (int i = 0 ; i < size; i++) {
                 messageCopy.add(safeDuplicate(messages.get(i)));
             }
-            futures.put(c, c.write(messageCopy));
+            futures.put(c, flush ? c.writeAndFlush(messageCopy) : c.write(messageCopy));
         }
 
         messages.releaseAllAndRecycle();
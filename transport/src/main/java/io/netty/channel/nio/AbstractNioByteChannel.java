@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.FileRegion;
 import io.netty.channel.MessageList;
@@ -143,43 +144,19 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
     }
 
     @Override
-    protected int doWrite(MessageList<Object> msgs, int index) throws Exception {
-        int size = msgs.size();
-        int writeIndex = index;
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
         for (;;) {
-            if (writeIndex >= size) {
+            Object msg = in.current();
+            if (msg == null) {
                 break;
             }
-            Object msg = msgs.get(writeIndex);
-            if (msg instanceof ByteBuf) {
-                ByteBuf buf = (ByteBuf) msg;
-                if (!buf.isReadable()) {
-                    buf.release();
-                    writeIndex++;
-                    continue;
-                }
-                boolean done = false;
-                for (int i = config().getWriteSpinCount() - 1; i >= 0; i --) {
-                    int localFlushedAmount = doWriteBytes(buf, i == 0);
-                    if (localFlushedAmount == 0) {
-                        break;
-                    }
-
-                    if (!buf.isReadable()) {
-                        done = true;
-                        break;
-                    }
-                }
 
-                if (done) {
-                    buf.release();
-                    writeIndex++;
-                } else {
-                    break;
-                }
+            boolean done;
+            if (msg instanceof ByteBuf) {
+                done = doWriteBuffers(in);
             } else if (msg instanceof FileRegion) {
                 FileRegion region = (FileRegion) msg;
-                boolean done = false;
+                done = false;
                 for (int i = config().getWriteSpinCount() - 1; i >= 0; i --) {
                     long localFlushedAmount = doWriteFileRegion(region, i == 0);
                     if (localFlushedAmount == 0) {
@@ -192,16 +169,47 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                 }
 
                 if (done) {
-                    region.release();
-                    writeIndex++;
-                } else {
-                    break;
+                    in.remove();
                 }
             } else {
                 throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
             }
+
+            if (!done) {
+                // Could not flush the current message completely. Try again later.
+                break;
+            }
+        }
+    }
+
+    /**
+     * Write the {@link ByteBuf} returned by {@link ChannelOutboundBuffer#current()} and remove it from the
+     * {@link ChannelOutboundBuffer} once it was written completely.  Sub-classes may override this to write the
+     * following {@link ByteBuf}s with the same operation.
+     *
+     * @param in            the {@link ChannelOutboundBuffer} whose current message is a {@link ByteBuf}
+     * @return done         {@code true} if the written {@link ByteBuf}s were written completely
+     * @throws Exception    thrown if an error accour
+     */
+    protected boolean doWriteBuffers(ChannelOutboundBuffer in) throws Exception {
+        ByteBuf buf = (ByteBuf) in.current();
+        if (!buf.isReadable()) {
+            in.remove();
+            return true;
+        }
+
+        for (int i = config().getWriteSpinCount() - 1; i >= 0; i --) {
+            int localFlushedAmount = doWriteBytes(buf, i == 0);
+            if (localFlushedAmount == 0) {
+                break;
+            }
+
+            if (!buf.isReadable()) {
+                in.remove();
+                return true;
+            }
         }
-        return writeIndex - index;
+        return false;
     }
 
     /**
@@ -36,6 +36,8 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
 
     protected final Socket javaSocket;
     private volatile boolean allowHalfClosure;
+    private volatile int maxBytesPerGatheringWrite = Integer.MAX_VALUE;
+    private volatile int maxBuffersPerGatheringWrite = 1024;
 
     /**
      * Creates a new instance.
@@ -62,7 +64,7 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
         return getOptions(
                 super.getOptions(),
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
-                ALLOW_HALF_CLOSURE);
+                ALLOW_HALF_CLOSURE, MAX_BYTES_PER_GATHERING_WRITE, MAX_BUFFERS_PER_GATHERING_WRITE);
     }
 
     @SuppressWarnings("unchecked")
@@ -92,6 +94,12 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
         if (option == ALLOW_HALF_CLOSURE) {
             return (T) Boolean.valueOf(isAllowHalfClosure());
         }
+        if (option == MAX_BYTES_PER_GATHERING_WRITE) {
+            return (T) Integer.valueOf(getMaxBytesPerGatheringWrite());
+        }
+        if (option == MAX_BUFFERS_PER_GATHERING_WRITE) {
+            return (T) Integer.valueOf(getMaxBuffersPerGatheringWrite());
+        }
 
         return super.getOption(option);
     }
@@ -116,6 +124,10 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
             setTrafficClass((Integer) value);
         } else if (option == ALLOW_HALF_CLOSURE) {
             setAllowHalfClosure((Boolean) value);
+        } else if (option == MAX_BYTES_PER_GATHERING_WRITE) {
+            setMaxBytesPerGatheringWrite((Integer) value);
+        } else if (option == MAX_BUFFERS_PER_GATHERING_WRITE) {
+            setMaxBuffersPerGatheringWrite((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -278,6 +290,36 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
         return this;
     }
 
+    @Override
+    public int getMaxBytesPerGatheringWrite() {
+        return maxBytesPerGatheringWrite;
+    }
+
+    @Override
+    public SocketChannelConfig setMaxBytesPerGatheringWrite(int maxBytesPerGatheringWrite) {
+        if (maxBytesPerGatheringWrite <= 0) {
+            throw new IllegalArgumentException(
+                    "maxBytesPerGatheringWrite: " + maxBytesPerGatheringWrite + " (expected: > 0)");
+        }
+        this.maxBytesPerGatheringWrite = maxBytesPerGatheringWrite;
+        return this;
+    }
+
+    @Override
+    public int getMaxBuffersPerGatheringWrite() {
+        return maxBuffersPerGatheringWrite;
+    }
+
+    @Override
+    public SocketChannelConfig setMaxBuffersPerGatheringWrite(int maxBuffersPerGatheringWrite) {
+        if (maxBuffersPerGatheringWrite <= 0) {
+            throw new IllegalArgumentException(
+                    "maxBuffersPerGatheringWrite: " + maxBuffersPerGatheringWrite + " (expected: > 0)");
+        }
+        this.maxBuffersPerGatheringWrite = maxBuffersPerGatheringWrite;
+        return this;
+    }
+
     @Override
     public SocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
         return (SocketChannelConfig) super.setConnectTimeoutMillis(connectTimeoutMillis);
@@ -52,6 +52,10 @@ import java.net.StandardSocketOptions;
  * <td>{@link ChannelOption#IP_TOS}</td><td>{@link #setTrafficClass(int)}</td>
  * </tr><tr>
  * <td>{@link ChannelOption#ALLOW_HALF_CLOSURE}</td><td>{@link #setAllowHalfClosure(boolean)}</td>
+ * </tr><tr>
+ * <td>{@link ChannelOption#MAX_BYTES_PER_GATHERING_WRITE}</td><td>{@link #setMaxBytesPerGatheringWrite(int)}</td>
+ * </tr><tr>
+ * <td>{@link ChannelOption#MAX_BUFFERS_PER_GATHERING_WRITE}</td><td>{@link #setMaxBuffersPerGatheringWrite(int)}</td>
  * </tr>
  * </table>
  */
@@ -156,6 +160,29 @@ public interface SocketChannelConfig extends ChannelConfig {
      */
     SocketChannelConfig setAllowHalfClosure(boolean allowHalfClosure);
 
+    /**
+     * Returns the maximum number of bytes which are written with a single gathering write operation.  The pending
+     * buffers of all flushed write requests are merged into one gathering write until this limit is reached.
+     */
+    int getMaxBytesPerGatheringWrite();
+
+    /**
+     * Sets the maximum number of bytes which are written with a single gathering write operation.  The pending
+     * buffers of all flushed write requests are merged into one gathering write until this limit is reached.
+     */
+    SocketChannelConfig setMaxBytesPerGatheringWrite(int maxBytesPerGatheringWrite);
+
+    /**
+     * Returns the maximum number of buffers which are written with a single gathering write operation.
+     */
+    int getMaxBuffersPerGatheringWrite();
+
+    /**
+     * Sets the maximum number of buffers which are written with a single gathering write operation.  Please note
+     * that the operating system may impose a lower limit, such as {@code IOV_MAX}.
+     */
+    SocketChannelConfig setMaxBuffersPerGatheringWrite(int maxBuffersPerGatheringWrite);
+
     @Override
     SocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis);
 
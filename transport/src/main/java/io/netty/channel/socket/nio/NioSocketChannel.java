@@ -20,15 +20,14 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
-import io.netty.channel.MessageList;
 import io.netty.channel.nio.AbstractNioByteChannel;
 import io.netty.channel.socket.DefaultSocketChannelConfig;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
-import io.netty.util.ReferenceCounted;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -48,25 +47,6 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(NioSocketChannel.class);
 
-    // Buffers to use for Gathering writes
-    private static final ThreadLocal<ByteBuffer[]> BUFFERS = new ThreadLocal<ByteBuffer[]>() {
-        @Override
-        protected ByteBuffer[] initialValue() {
-            return new ByteBuffer[128];
-        }
-    };
-
-    private static ByteBuffer[] getNioBufferArray() {
-        return BUFFERS.get();
-    }
-
-    private static ByteBuffer[] doubleNioBufferArray(ByteBuffer[] array, int size) {
-        ByteBuffer[] newArray = new ByteBuffer[array.length << 1];
-        System.arraycopy(array, 0, newArray, 0, size);
-        BUFFERS.set(newArray);
-        return newArray;
-    }
-
     private static SocketChannel newSocket() {
         try {
             return SocketChannel.open();
@@ -265,61 +245,24 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
     }
 
     @Override
-    protected int doWrite(MessageList<Object> msgs, final int index) throws Exception {
-        final int size = msgs.size();
+    protected boolean doWriteBuffers(ChannelOutboundBuffer in) throws Exception {
+        final SocketChannelConfig config = config();
 
-        // Do non-gathering write for a single buffer case.
-        if (size <= 1 || !msgs.containsOnly(ByteBuf.class)) {
-            return super.doWrite(msgs, index);
-        }
+        // Gather the pending buffers of all flushed write requests.
+        ByteBuffer[] nioBuffers = in.nioBuffers(
+                config.getMaxBuffersPerGatheringWrite(), config.getMaxBytesPerGatheringWrite());
+        int nioBufferCnt = in.nioBufferCount();
 
-        final Object[] bufs = msgs.array();
-
-        ByteBuffer[] nioBuffers = getNioBufferArray();
-        int nioBufferCnt = 0;
-        long expectedWrittenBytes = 0;
-        for (int i = index; i < size; i++) {
-            ByteBuf buf = (ByteBuf) bufs[i];
-
-            int readerIndex = buf.readerIndex();
-            int readableBytes = buf.readableBytes();
-            expectedWrittenBytes += readableBytes;
-
-            if (buf.isDirect()) {
-                int count = buf.nioBufferCount();
-                if (count == 1) {
-                    if (nioBufferCnt == nioBuffers.length) {
-                        nioBuffers = doubleNioBufferArray(nioBuffers, nioBufferCnt);
-                    }
-                    nioBuffers[nioBufferCnt ++] = buf.internalNioBuffer(readerIndex, readableBytes);
-                } else {
-                    ByteBuffer[] nioBufs = buf.nioBuffers();
-                    if (nioBufferCnt + nioBufs.length == nioBuffers.length + 1) {
-                        nioBuffers = doubleNioBufferArray(nioBuffers, nioBufferCnt);
-                    }
-                    for (ByteBuffer nioBuf: nioBufs) {
-                        if (nioBuf == null) {
-                            break;
-                        }
-                        nioBuffers[nioBufferCnt ++] = nioBuf;
-                    }
-                }
-            } else {
-                ByteBuf directBuf = alloc().directBuffer(readableBytes);
-                directBuf.writeBytes(buf, readerIndex, readableBytes);
-                buf.release();
-                bufs[i] = directBuf;
-                if (nioBufferCnt == nioBuffers.length) {
-                    nioBuffers = doubleNioBufferArray(nioBuffers, nioBufferCnt);
-                }
-                nioBuffers[nioBufferCnt ++] = directBuf.internalNioBuffer(0, readableBytes);
-            }
+        // Do non-gathering write for a single buffer case.
+        if (nioBufferCnt <= 1) {
+            return super.doWriteBuffers(in);
         }
 
+        long expectedWrittenBytes = in.nioBufferSize();
         final SocketChannel ch = javaChannel();
         long writtenBytes = 0;
         boolean done = false;
-        for (int i = config().getWriteSpinCount() - 1; i >= 0; i --) {
+        for (int i = config.getWriteSpinCount() - 1; i >= 0; i --) {
             final long localWrittenBytes = ch.write(nioBuffers, 0, nioBufferCnt);
             updateOpWrite(expectedWrittenBytes, localWrittenBytes, i == 0);
             if (localWrittenBytes == 0) {
@@ -333,35 +276,8 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
             }
         }
 
-        if (done) {
-            // release buffers
-            for (int i = index; i < size; i++) {
-                ((ReferenceCounted) bufs[i]).release();
-            }
-            return size - index;
-        } else {
-            // Did not write all buffers completely.
-            // Release the fully written buffers and update the indexes of the partially written buffer.
-            int writtenBufs = 0;
-            for (int i = index; i < size; i++) {
-                final ByteBuf buf = (ByteBuf) bufs[i];
-                final int readerIndex = buf.readerIndex();
-                final int readableBytes = buf.writerIndex() - readerIndex;
-
-                if (readableBytes < writtenBytes) {
-                    writtenBufs ++;
-                    buf.release();
-                    writtenBytes -= readableBytes;
-                } else if (readableBytes > writtenBytes) {
-                    buf.readerIndex(readerIndex + (int) writtenBytes);
-                    break;
-                } else { // readable == writtenBytes
-                    writtenBufs ++;
-                    buf.release();
-                    break;
-                }
-            }
-            return writtenBufs;
-        }
+        // Release the fully written buffers and update the indexes of the partially written buffer.
+        in.removeBytes(writtenBytes);
+        return done;
     }
 }
@@ -136,6 +136,18 @@ public class DefaultOioSocketChannelConfig extends DefaultSocketChannelConfig im
         return this;
     }
 
+    @Override
+    public OioSocketChannelConfig setMaxBytesPerGatheringWrite(int maxBytesPerGatheringWrite) {
+        super.setMaxBytesPerGatheringWrite(maxBytesPerGatheringWrite);
+        return this;
+    }
+
+    @Override
+    public OioSocketChannelConfig setMaxBuffersPerGatheringWrite(int maxBuffersPerGatheringWrite) {
+        super.setMaxBuffersPerGatheringWrite(maxBuffersPerGatheringWrite);
+        return this;
+    }
+
     @Override
     public OioSocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
         super.setConnectTimeoutMillis(connectTimeoutMillis);
@@ -77,6 +77,12 @@ public interface OioSocketChannelConfig extends SocketChannelConfig {
     @Override
     OioSocketChannelConfig setAllowHalfClosure(boolean allowHalfClosure);
 
+    @Override
+    OioSocketChannelConfig setMaxBytesPerGatheringWrite(int maxBytesPerGatheringWrite);
+
+    @Override
+    OioSocketChannelConfig setMaxBuffersPerGatheringWrite(int maxBuffersPerGatheringWrite);
+
     @Override
     OioSocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis);
 
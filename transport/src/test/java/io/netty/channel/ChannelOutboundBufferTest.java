@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ChannelOutboundBufferTest {
+
+    @Test
+    public void testEmptyNioBuffers() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        assertNull(buffer.current());
+        buffer.nioBuffers(Integer.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(0, buffer.nioBufferCount());
+        assertEquals(0, buffer.nioBufferSize());
+    }
+
+    @Test
+    public void testNioBuffersSpanWriteRequests() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ChannelPromise promise1 = channel.newPromise();
+        ChannelPromise promise2 = channel.newPromise();
+
+        ByteBuf buf1 = directBuffer("foo");
+        ByteBuf buf2 = directBuffer("bar");
+        ByteBuf buf3 = Unpooled.copiedBuffer("baz", CharsetUtil.US_ASCII);
+        MessageList<Object> msgs1 = MessageList.newInstance();
+        msgs1.add(buf1);
+        msgs1.add(buf2);
+        buffer.add(msgs1, promise1);
+        buffer.add(MessageList.<Object>newInstance(buf3), promise2);
+        buffer.addFlush();
+
+        assertSame(buf1, buffer.current());
+        ByteBuffer[] nioBuffers = buffer.nioBuffers(Integer.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(9, buffer.nioBufferSize());
+        for (int i = 0; i < buffer.nioBufferCount(); i ++) {
+            assertTrue(nioBuffers[i].isDirect());
+        }
+        // The heap buffer was replaced by a direct copy.
+        assertEquals(0, buf3.refCnt());
+
+        // Write the first request and one byte of the second.
+        buffer.removeBytes(7);
+        assertEquals(0, buf1.refCnt());
+        assertEquals(0, buf2.refCnt());
+        assertTrue(promise1.isSuccess());
+        assertFalse(promise2.isDone());
+
+        ByteBuf current = (ByteBuf) buffer.current();
+        assertEquals("az", current.toString(CharsetUtil.US_ASCII));
+
+        buffer.removeBytes(2);
+        assertTrue(promise2.isSuccess());
+        assertEquals(0, current.refCnt());
+        assertNull(buffer.current());
+    }
+
+    @Test
+    public void testNioBuffersLimits() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        for (int i = 0; i < 4; i ++) {
+            buffer.add(MessageList.<Object>newInstance(directBuffer("abcd")), channel.newPromise());
+        }
+        buffer.addFlush();
+
+        assertNotNull(buffer.current());
+        buffer.nioBuffers(2, Long.MAX_VALUE);
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(8, buffer.nioBufferSize());
+
+        buffer.nioBuffers(Integer.MAX_VALUE, 12);
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(12, buffer.nioBufferSize());
+
+        // A single buffer is always returned even if it is bigger than the limit.
+        buffer.nioBuffers(Integer.MAX_VALUE, 1);
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(4, buffer.nioBufferSize());
+
+        buffer.fail(new Exception());
+    }
+
+    @Test
+    public void testNioBuffersStopAtNonByteBuf() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf = directBuffer("abcd");
+        MessageList<Object> msgs = MessageList.newInstance();
+        msgs.add(buf);
+        msgs.add("message");
+        buffer.add(msgs, channel.newPromise());
+        buffer.add(MessageList.<Object>newInstance(directBuffer("efgh")), channel.newPromise());
+        buffer.addFlush();
+
+        assertSame(buf, buffer.current());
+        buffer.nioBuffers(Integer.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(4, buffer.nioBufferSize());
+
+        buffer.removeBytes(4);
+        assertEquals("message", buffer.current());
+
+        buffer.fail(new Exception());
+    }
+
+    @Test
+    public void testSharedInternalNioBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf = directBuffer("abcd");
+        buffer.add(MessageList.<Object>newInstance(buf.duplicate().retain()), channel.newPromise());
+        buffer.add(MessageList.<Object>newInstance(buf.duplicate()), channel.newPromise());
+        buffer.addFlush();
+
+        assertNotNull(buffer.current());
+        ByteBuffer[] nioBuffers = buffer.nioBuffers(Integer.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(2, buffer.nioBufferCount());
+        assertNotSame(nioBuffers[0], nioBuffers[1]);
+        assertEquals(4, nioBuffers[0].remaining());
+        assertEquals(4, nioBuffers[1].remaining());
+
+        buffer.removeBytes(8);
+        assertNull(buffer.current());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testUnflushedWriteRequestsAreNotWritten() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        ByteBuf buf1 = directBuffer("abcd");
+        ByteBuf buf2 = directBuffer("efgh");
+        ChannelPromise promise2 = channel.newPromise();
+        buffer.add(MessageList.<Object>newInstance(buf1), channel.newPromise());
+        assertNull(buffer.current());
+
+        buffer.addFlush();
+        buffer.add(MessageList.<Object>newInstance(buf2), promise2);
+        assertSame(buf1, buffer.current());
+        buffer.nioBuffers(Integer.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(4, buffer.nioBufferSize());
+
+        buffer.removeBytes(4);
+        assertNull(buffer.current());
+        assertFalse(promise2.isDone());
+
+        // Unflushed write requests are failed as well.
+        buffer.fail(new Exception());
+        assertFalse(promise2.isSuccess());
+        assertEquals(0, buf2.refCnt());
+    }
+
+    private static ByteBuf directBuffer(String value) {
+        byte[] bytes = value.getBytes(CharsetUtil.US_ASCII);
+        return Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+    }
+}
@@ -134,7 +134,7 @@ public class DefaultChannelPipelineTest {
         StringInboundHandler handler = new StringInboundHandler();
         setUp(handler);
 
-        peer.write(holder).sync();
+        peer.writeAndFlush(holder).sync();
 
         assertTrue(free.await(10, TimeUnit.SECONDS));
         assertTrue(handler.called);
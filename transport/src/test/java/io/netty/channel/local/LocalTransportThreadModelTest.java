@@ -106,10 +106,10 @@ public class LocalTransportThreadModelTest {
         ch.pipeline().context(h2).fireMessageReceived("3");
         ch.pipeline().context(h3).fireMessageReceived("4");
         // Fire outbound events from all possible starting points.
-        ch.pipeline().write("5");
-        ch.pipeline().context(h3).write("6");
-        ch.pipeline().context(h2).write("7");
-        ch.pipeline().context(h1).write("8").sync();
+        ch.pipeline().writeAndFlush("5");
+        ch.pipeline().context(h3).writeAndFlush("6");
+        ch.pipeline().context(h2).writeAndFlush("7");
+        ch.pipeline().context(h1).writeAndFlush("8").sync();
 
         ch.close().sync();
 
@@ -309,7 +309,7 @@ public class LocalTransportThreadModelTest {
                             msgs.add(Integer.valueOf(j));
                         }
 
-                        ch.pipeline().write(msgs);
+                        ch.pipeline().writeAndFlush(msgs);
                     }
                 });
             }
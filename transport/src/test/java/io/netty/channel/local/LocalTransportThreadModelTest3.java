@@ -188,7 +188,7 @@ public class LocalTransportThreadModelTest3 {
                         ch.pipeline().fireUserEventTriggered("");
                         break;
                     case WRITE:
-                        ch.pipeline().write("");
+                        ch.pipeline().writeAndFlush("");
                         break;
                     case READ:
                         ch.pipeline().read();